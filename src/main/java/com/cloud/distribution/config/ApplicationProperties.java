@@ -11,4 +11,535 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final Bulk bulk = new Bulk();
+
+    private final SearchIndexer searchIndexer = new SearchIndexer();
+
+    private final Archive archive = new Archive();
+
+    private final Export export = new Export();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Inventory inventory = new Inventory();
+
+    private final Commission commission = new Commission();
+
+    private final HistoryJournal historyJournal = new HistoryJournal();
+
+    private final Lookups lookups = new Lookups();
+
+    private final Reindex reindex = new Reindex();
+
+    private final SearchReconciler searchReconciler = new SearchReconciler();
+
+    private final MerchantTree merchantTree = new MerchantTree();
+
+    public Bulk getBulk() {
+        return bulk;
+    }
+
+    public SearchIndexer getSearchIndexer() {
+        return searchIndexer;
+    }
+
+    public Archive getArchive() {
+        return archive;
+    }
+
+    public Export getExport() {
+        return export;
+    }
+
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    public Inventory getInventory() {
+        return inventory;
+    }
+
+    public Commission getCommission() {
+        return commission;
+    }
+
+    public HistoryJournal getHistoryJournal() {
+        return historyJournal;
+    }
+
+    public Lookups getLookups() {
+        return lookups;
+    }
+
+    public Reindex getReindex() {
+        return reindex;
+    }
+
+    public SearchReconciler getSearchReconciler() {
+        return searchReconciler;
+    }
+
+    public MerchantTree getMerchantTree() {
+        return merchantTree;
+    }
+
+    public static class Bulk {
+
+        /**
+         * Number of entities flushed and indexed together, should be a multiple of hibernate.jdbc.batch_size.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Maximum number of entities accepted by a single bulk request.
+         */
+        private int maxSize = 50000;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+    }
+
+    public static class SearchIndexer {
+
+        /**
+         * Maximum number of search outbox entries sent to Elasticsearch in one bulk request.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay between two runs of the indexer, in milliseconds.
+         */
+        private long delay = 1000;
+
+        /**
+         * Number of failed attempts after which a search outbox entry is a dead letter, no longer drained.
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * Time, in seconds, during which the search outbox entries claimed by an indexer are not drained by another
+         * one; entries claimed by a crashed indexer are drained again afterwards.
+         */
+        private int leaseSeconds = 300;
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getDelay() {
+            return delay;
+        }
+
+        public void setDelay(long delay) {
+            this.delay = delay;
+        }
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public int getLeaseSeconds() {
+            return leaseSeconds;
+        }
+
+        public void setLeaseSeconds(int leaseSeconds) {
+            this.leaseSeconds = leaseSeconds;
+        }
+    }
+
+    public static class Archive {
+
+        /**
+         * Age, in days, after which orders are moved to the archive tier.
+         */
+        private int retentionDays = 180;
+
+        /**
+         * Number of orders moved in one transaction.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * Cron expression of the archiving runs.
+         */
+        private String cron = "0 0 3 * * ?";
+
+        public int getRetentionDays() {
+            return retentionDays;
+        }
+
+        public void setRetentionDays(int retentionDays) {
+            this.retentionDays = retentionDays;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+    }
+
+    public static class Export {
+
+        /**
+         * Number of rows fetched per round trip by the export cursors. MySQL ignores it unless it is
+         * Integer.MIN_VALUE, which streams the rows one by one, without enabling server cursors for every statement.
+         */
+        private int fetchSize = 1000;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class Idempotency {
+
+        /**
+         * Time, in seconds, during which the result of a request is replayed for the same idempotency key.
+         */
+        private int ttlSeconds = 86400;
+
+        /**
+         * Time, in seconds, after which the key of a request which never completed is released.
+         */
+        private int lockSeconds = 60;
+
+        public int getTtlSeconds() {
+            return ttlSeconds;
+        }
+
+        public void setTtlSeconds(int ttlSeconds) {
+            this.ttlSeconds = ttlSeconds;
+        }
+
+        public int getLockSeconds() {
+            return lockSeconds;
+        }
+
+        public void setLockSeconds(int lockSeconds) {
+            this.lockSeconds = lockSeconds;
+        }
+    }
+
+    public static class Inventory {
+
+        /**
+         * Authority for the remains of the products: the database, or the Hazelcast product stock map.
+         */
+        private Mode mode = Mode.DATABASE;
+
+        /**
+         * Maximum number of stock shards of a product in sharded inventory mode.
+         */
+        private int maxShards = 64;
+
+        /**
+         * Delay, in seconds, before a change of the product stock map is written to the database.
+         */
+        private int writeDelaySeconds = 5;
+
+        /**
+         * Maximum number of products written to the database in one batch.
+         */
+        private int writeBatchSize = 500;
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        public void setMode(Mode mode) {
+            this.mode = mode;
+        }
+
+        public int getMaxShards() {
+            return maxShards;
+        }
+
+        public void setMaxShards(int maxShards) {
+            this.maxShards = maxShards;
+        }
+
+        public int getWriteDelaySeconds() {
+            return writeDelaySeconds;
+        }
+
+        public void setWriteDelaySeconds(int writeDelaySeconds) {
+            this.writeDelaySeconds = writeDelaySeconds;
+        }
+
+        public int getWriteBatchSize() {
+            return writeBatchSize;
+        }
+
+        public void setWriteBatchSize(int writeBatchSize) {
+            this.writeBatchSize = writeBatchSize;
+        }
+
+        public enum Mode {
+            DATABASE, HAZELCAST
+        }
+    }
+
+    public static class Commission {
+
+        /**
+         * Code of the order status in which orders earn commissions.
+         */
+        private String completedStatus = "COMPLETED";
+
+        /**
+         * Number of orders processed together by the back-fill job.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Number of workers of the back-fill job.
+         */
+        private int threads = 4;
+
+        public String getCompletedStatus() {
+            return completedStatus;
+        }
+
+        public void setCompletedStatus(String completedStatus) {
+            this.completedStatus = completedStatus;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class HistoryJournal {
+
+        /**
+         * Whether order status histories may be appended to the journal, instead of being written synchronously.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Local directory of the journal, which must survive restarts.
+         */
+        private String directory = "journal/order-status-history";
+
+        /**
+         * Size of the journal segment files, in bytes.
+         */
+        private int segmentSize = 16 * 1024 * 1024;
+
+        /**
+         * Whether each append is forced to the disk, to survive a crash of the host and not only of the JVM.
+         */
+        private boolean force = false;
+
+        /**
+         * Maximum number of histories written to the database in one transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Delay between two flushes of the journal to the database, in milliseconds.
+         */
+        private long flushDelay = 200;
+
+        /**
+         * Number of pending histories above which appends are written synchronously.
+         */
+        private int maxBacklog = 100000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public boolean isForce() {
+            return force;
+        }
+
+        public void setForce(boolean force) {
+            this.force = force;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushDelay() {
+            return flushDelay;
+        }
+
+        public void setFlushDelay(long flushDelay) {
+            this.flushDelay = flushDelay;
+        }
+
+        public int getMaxBacklog() {
+            return maxBacklog;
+        }
+
+        public void setMaxBacklog(int maxBacklog) {
+            this.maxBacklog = maxBacklog;
+        }
+    }
+
+    public static class Lookups {
+
+        /**
+         * Time for which clients may cache the lookups bundle without revalidating it, in seconds.
+         */
+        private int maxAge = 3600;
+
+        public int getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(int maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    public static class Reindex {
+
+        /**
+         * Width of the id ranges read and indexed as one chunk by the reindex jobs.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Number of workers of a reindex job, taken from the task executor.
+         */
+        private int threads = 4;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+    }
+
+    public static class SearchReconciler {
+
+        /**
+         * Width of the id ranges compared at once between the database and the indexes, at most the
+         * index.max_result_window of Elasticsearch.
+         */
+        private int chunkSize = 1000;
+
+        /**
+         * Cron expression of the reconciliation runs.
+         */
+        private String cron = "0 30 4 * * ?";
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public String getCron() {
+            return cron;
+        }
+
+        public void setCron(String cron) {
+            this.cron = cron;
+        }
+    }
+
+    public static class MerchantTree {
+
+        /**
+         * Delay between the periodic rebuilds of the merchant tree index, which recover the changes whose topic
+         * message was lost, in milliseconds.
+         */
+        private long rebuildDelay = 600000;
+
+        public long getRebuildDelay() {
+            return rebuildDelay;
+        }
+
+        public void setRebuildDelay(long rebuildDelay) {
+            this.rebuildDelay = rebuildDelay;
+        }
+    }
 }
@@ -9,6 +9,11 @@ import com.hazelcast.core.Hazelcast;
 import com.hazelcast.config.MapConfig;
 import com.hazelcast.config.EvictionPolicy;
 import com.hazelcast.config.MaxSizeConfig;
+import com.hazelcast.config.MapStoreConfig;
+
+import com.cloud.distribution.repository.ProductStockMapStore;
+import com.cloud.distribution.service.IdempotencyService;
+import com.cloud.distribution.service.ProductStockService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,7 +73,8 @@ public class CacheConfiguration {
     }
 
     @Bean
-    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties) {
+    public HazelcastInstance hazelcastInstance(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+            ProductStockMapStore productStockMapStore) {
         log.debug("Configuring Hazelcast");
         HazelcastInstance hazelCastInstance = Hazelcast.getHazelcastInstanceByName("distribution");
         if (hazelCastInstance != null) {
@@ -109,6 +115,11 @@ public class CacheConfiguration {
         }
         config.getMapConfigs().put("default", initializeDefaultMapConfig());
         config.getMapConfigs().put("com.cloud.distribution.domain.*", initializeDomainMapConfig(jHipsterProperties));
+        config.getMapConfigs().put(IdempotencyService.MAP_NAME, initializeIdempotencyMapConfig(applicationProperties));
+        if (applicationProperties.getInventory().getMode() == ApplicationProperties.Inventory.Mode.HAZELCAST) {
+            config.getMapConfigs().put(ProductStockService.STOCK_MAP_NAME,
+                initializeStockMapConfig(applicationProperties, productStockMapStore));
+        }
         return Hazelcast.newHazelcastInstance(config);
     }
 
@@ -147,4 +158,27 @@ public class CacheConfiguration {
         mapConfig.setTimeToLiveSeconds(jHipsterProperties.getCache().getHazelcast().getTimeToLiveSeconds());
         return mapConfig;
     }
+
+    private MapConfig initializeIdempotencyMapConfig(ApplicationProperties applicationProperties) {
+        MapConfig mapConfig = new MapConfig();
+        // Keys must survive the loss of a node, or a retried request could be executed twice
+        mapConfig.setBackupCount(1);
+        mapConfig.setTimeToLiveSeconds(applicationProperties.getIdempotency().getTtlSeconds());
+        return mapConfig;
+    }
+
+    private MapConfig initializeStockMapConfig(ApplicationProperties applicationProperties, ProductStockMapStore productStockMapStore) {
+        MapConfig mapConfig = new MapConfig();
+        // The map is the authority for the remains, and the database is only written behind it
+        mapConfig.setBackupCount(1);
+        MapStoreConfig mapStoreConfig = new MapStoreConfig();
+        mapStoreConfig.setEnabled(true);
+        mapStoreConfig.setImplementation(productStockMapStore);
+        mapStoreConfig.setWriteDelaySeconds(applicationProperties.getInventory().getWriteDelaySeconds());
+        mapStoreConfig.setWriteBatchSize(applicationProperties.getInventory().getWriteBatchSize());
+        mapStoreConfig.setWriteCoalescing(true);
+        mapStoreConfig.setInitialLoadMode(MapStoreConfig.InitialLoadMode.EAGER);
+        mapConfig.setMapStoreConfig(mapStoreConfig);
+        return mapConfig;
+    }
 }
@@ -3,6 +3,8 @@ package com.cloud.distribution.config;
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.liquibase.AsyncSpringLiquibase;
 
+import com.cloud.distribution.repository.SliceableJpaRepository;
+
 import liquibase.integration.spring.SpringLiquibase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,7 +22,7 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 import javax.sql.DataSource;
 
 @Configuration
-@EnableJpaRepositories("com.cloud.distribution.repository")
+@EnableJpaRepositories(value = "com.cloud.distribution.repository", repositoryBaseClass = SliceableJpaRepository.class)
 @EnableJpaAuditing(auditorAwareRef = "springSecurityAuditorAware")
 @EnableTransactionManagement
 @EnableElasticsearchRepositories("com.cloud.distribution.repository.search")
@@ -11,13 +11,26 @@ import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 
 @Configuration
 public class ElasticsearchConfiguration {
 
     @Bean
     public ElasticsearchTemplate elasticsearchTemplate(Client client, Jackson2ObjectMapperBuilder jackson2ObjectMapperBuilder) {
-        return new ElasticsearchTemplate(client, new CustomEntityMapper(jackson2ObjectMapperBuilder.createXmlMapper(false).build()));
+        ObjectMapper objectMapper = jackson2ObjectMapperBuilder.createXmlMapper(false).build();
+        // The lookups of the entities are lazy, they are loaded to be indexed as they were when they were eager.
+        // The module is registered under its own type id, as a second Hibernate5Module would be ignored; being the
+        // last one, its serializers take precedence.
+        Hibernate5Module searchHibernateModule = new Hibernate5Module() {
+            @Override
+            public Object getTypeId() {
+                return "search-" + super.getTypeId();
+            }
+        };
+        searchHibernateModule.enable(Hibernate5Module.Feature.FORCE_LAZY_LOADING);
+        objectMapper.registerModule(searchHibernateModule);
+        return new ElasticsearchTemplate(client, new CustomEntityMapper(objectMapper));
     }
 
     public class CustomEntityMapper implements EntityMapper {
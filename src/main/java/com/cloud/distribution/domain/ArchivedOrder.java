@@ -0,0 +1,132 @@
+package com.cloud.distribution.domain;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+
+/**
+ * An Order moved to the archive tier by the {@link com.cloud.distribution.service.OrderArchiver}.
+ * <p>
+ * Archived orders keep their id, and are only read, as {@link com.cloud.distribution.service.dto.OrderDTO} projections.
+ */
+@Entity
+@Immutable
+@Table(name = "jhi_order_archive")
+public class ArchivedOrder implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "code")
+    private String code;
+
+    @Lob
+    @Column(name = "jhi_desc")
+    private String desc;
+
+    @Column(name = "amount")
+    private Long amount;
+
+    @Column(name = "created_date")
+    private ZonedDateTime createdDate;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private PayType payType;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private OrderType orderType;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private OrderStatus orderStatus;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private Product product;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public Long getAmount() {
+        return amount;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public PayType getPayType() {
+        return payType;
+    }
+
+    public OrderType getOrderType() {
+        return orderType;
+    }
+
+    public OrderStatus getOrderStatus() {
+        return orderStatus;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ArchivedOrder archivedOrder = (ArchivedOrder) o;
+        if (archivedOrder.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), archivedOrder.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedOrder{" +
+            "id=" + getId() +
+            ", name='" + getName() + "'" +
+            ", code='" + getCode() + "'" +
+            ", amount=" + getAmount() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            ", userId=" + getUserId() +
+            "}";
+    }
+}
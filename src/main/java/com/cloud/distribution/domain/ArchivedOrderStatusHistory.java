@@ -0,0 +1,110 @@
+package com.cloud.distribution.domain;
+
+import org.hibernate.annotations.Immutable;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+import java.util.Objects;
+
+
+/**
+ * An OrderStatusHistory moved to the archive tier with its order by the
+ * {@link com.cloud.distribution.service.OrderArchiver}.
+ * <p>
+ * Archived histories keep their id, and are only read.
+ */
+@Entity
+@Immutable
+@Table(name = "order_status_history_archive")
+public class ArchivedOrderStatusHistory implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "modified_time")
+    private ZonedDateTime modifiedTime;
+
+    @Lob
+    @Column(name = "jhi_desc")
+    private String desc;
+
+    @Column(name = "operator_code")
+    private String operatorCode;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private OperatorType operatorType;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private ArchivedOrder order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private OrderStatus oldStatus;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    private OrderStatus newStatus;
+
+    public Long getId() {
+        return id;
+    }
+
+    public ZonedDateTime getModifiedTime() {
+        return modifiedTime;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public String getOperatorCode() {
+        return operatorCode;
+    }
+
+    public OperatorType getOperatorType() {
+        return operatorType;
+    }
+
+    public ArchivedOrder getOrder() {
+        return order;
+    }
+
+    public OrderStatus getOldStatus() {
+        return oldStatus;
+    }
+
+    public OrderStatus getNewStatus() {
+        return newStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ArchivedOrderStatusHistory archivedOrderStatusHistory = (ArchivedOrderStatusHistory) o;
+        if (archivedOrderStatusHistory.getId() == null || getId() == null) {
+            return false;
+        }
+        return Objects.equals(getId(), archivedOrderStatusHistory.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getId());
+    }
+
+    @Override
+    public String toString() {
+        return "ArchivedOrderStatusHistory{" +
+            "id=" + getId() +
+            ", modifiedTime='" + getModifiedTime() + "'" +
+            ", desc='" + getDesc() + "'" +
+            ", operatorCode='" + getOperatorCode() + "'" +
+            "}";
+    }
+}
@@ -24,6 +24,10 @@ public class Merchant implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "name")
     private String name;
 
@@ -43,13 +47,13 @@ public class Merchant implements Serializable {
     @Column(name = "mobile")
     private String mobile;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private MerchantType merchantType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private MerchantAuditStatus merchantAuditStatus;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private MerchantStatus merchantStatus;
 
     @ManyToOne
@@ -64,6 +68,14 @@ public class Merchant implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -219,6 +231,7 @@ public class Merchant implements Serializable {
     public String toString() {
         return "Merchant{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", desc='" + getDesc() + "'" +
             ", level=" + getLevel() +
@@ -34,7 +34,7 @@ public class MerchantStatus implements Serializable {
     @Column(name = "code")
     private String code;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Status status;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
@@ -22,9 +22,15 @@ public class Order implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderIdGenerator")
+    @TableGenerator(name = "orderIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "jhi_order", allocationSize = 50)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "name")
     private String name;
 
@@ -44,13 +50,13 @@ public class Order implements Serializable {
     @Column(name = "user_id")
     private Long userId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private PayType payType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private OrderType orderType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private OrderStatus orderStatus;
 
     @ManyToOne
@@ -65,6 +71,14 @@ public class Order implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -220,6 +234,7 @@ public class Order implements Serializable {
     public String toString() {
         return "Order{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", code='" + getCode() + "'" +
             ", desc='" + getDesc() + "'" +
@@ -34,7 +34,7 @@ public class OrderStatus implements Serializable {
     @Column(name = "jhi_desc")
     private String desc;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private Status status;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
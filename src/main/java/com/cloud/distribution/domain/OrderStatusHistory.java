@@ -22,7 +22,9 @@ public class OrderStatusHistory implements Serializable {
     private static final long serialVersionUID = 1L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orderStatusHistoryIdGenerator")
+    @TableGenerator(name = "orderStatusHistoryIdGenerator", table = "id_generator", pkColumnName = "sequence_name",
+        valueColumnName = "next_val", pkColumnValue = "order_status_history", allocationSize = 50)
     private Long id;
 
     @Column(name = "modified_time")
@@ -35,16 +37,16 @@ public class OrderStatusHistory implements Serializable {
     @Column(name = "operator_code")
     private String operatorCode;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private OperatorType operatorType;
 
     @ManyToOne
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private OrderStatus oldStatus;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private OrderStatus newStatus;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
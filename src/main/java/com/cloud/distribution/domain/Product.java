@@ -2,6 +2,7 @@ package com.cloud.distribution.domain;
 
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Formula;
 import org.springframework.data.elasticsearch.annotations.Document;
 
 import javax.persistence.*;
@@ -24,6 +25,10 @@ public class Product implements Serializable {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     @Column(name = "name")
     private String name;
 
@@ -34,16 +39,26 @@ public class Product implements Serializable {
     @Column(name = "price")
     private Long price;
 
-    @Column(name = "remains")
+    /**
+     * Only changed in place by the inventory, see {@link com.cloud.distribution.service.ProductStockService}: an
+     * update of the product never writes it back.
+     */
+    @Column(name = "remains", updatable = false)
     private Long remains;
 
-    @ManyToOne
+    /**
+     * Sum of the stock shards, null unless the product is in sharded inventory mode.
+     */
+    @Formula("(select sum(s.remains) from product_stock_shard s where s.product_id = id)")
+    private Long shardedRemains;
+
+    @ManyToOne(fetch = FetchType.LAZY)
     private Currency currencyType;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private ProductStatus productStatus;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     private ProductType productType;
 
     // jhipster-needle-entity-add-field - JHipster will add fields here, do not remove
@@ -55,6 +70,14 @@ public class Product implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -107,6 +130,10 @@ public class Product implements Serializable {
         this.remains = remains;
     }
 
+    public Long getShardedRemains() {
+        return shardedRemains;
+    }
+
     public Currency getCurrencyType() {
         return currencyType;
     }
@@ -171,6 +198,7 @@ public class Product implements Serializable {
     public String toString() {
         return "Product{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", desc='" + getDesc() + "'" +
             ", price=" + getPrice() +
@@ -0,0 +1,8 @@
+package com.cloud.distribution.domain.enumeration;
+
+/**
+ * The SearchOperation enumeration.
+ */
+public enum SearchOperation {
+    INDEX, DELETE
+}
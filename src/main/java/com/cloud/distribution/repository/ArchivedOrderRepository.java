@@ -0,0 +1,17 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.ArchivedOrder;
+import org.springframework.stereotype.Repository;
+
+import org.springframework.data.jpa.repository.*;
+
+
+/**
+ * Spring Data JPA repository for the ArchivedOrder entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long>, JpaSpecificationExecutor<ArchivedOrder>,
+    OrderProjectionExecutor<ArchivedOrder> {
+
+}
@@ -0,0 +1,13 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.ArchivedOrder;
+
+/**
+ * Implementation of the {@link OrderProjectionExecutor} of the {@link ArchivedOrderRepository}.
+ */
+public class ArchivedOrderRepositoryImpl extends OrderProjectionSupport<ArchivedOrder> {
+
+    public ArchivedOrderRepositoryImpl() {
+        super(ArchivedOrder.class);
+    }
+}
@@ -0,0 +1,17 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.ArchivedOrderStatusHistory;
+import org.springframework.stereotype.Repository;
+
+import org.springframework.data.jpa.repository.*;
+
+
+/**
+ * Spring Data JPA repository for the ArchivedOrderStatusHistory entity.
+ */
+@SuppressWarnings("unused")
+@Repository
+public interface ArchivedOrderStatusHistoryRepository extends JpaRepository<ArchivedOrderStatusHistory, Long>,
+    JpaSpecificationExecutor<ArchivedOrderStatusHistory>, SliceSpecificationExecutor<ArchivedOrderStatusHistory> {
+
+}
@@ -0,0 +1,96 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.service.dto.CommissionDTO;
+import com.cloud.distribution.service.dto.CommissionRule;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JDBC repository for the commission rules and the commission ledger.
+ * <p>
+ * The ledger rows of an order are always replaced together: they are deleted, then inserted again by a batch.
+ */
+@Repository
+public class CommissionLedgerRepository {
+
+    private static final String INSERT_LEDGER =
+        "insert into commission_ledger " +
+        "(order_id, merchant_id, jhi_level, placeholder_code, order_amount, amount, created_date) " +
+        "values (:orderId, :merchantId, :level, :placeholderCode, :orderAmount, :amount, :createdDate)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public CommissionLedgerRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Get the rules of the existing commission placeholders.
+     *
+     * @return the rules, ordered by level
+     */
+    public List<CommissionRule> findRules() {
+        return jdbcTemplate.getJdbcOperations().query("select r.placeholder_code, r.jhi_level, r.rate" +
+                " from commission_rule r" +
+                " where exists (select 1 from commission_placeholder p where p.code = r.placeholder_code)" +
+                " order by r.jhi_level, r.placeholder_code",
+            (rs, rowNum) -> new CommissionRule(rs.getString(1), rs.getInt(2), rs.getInt(3)));
+    }
+
+    /**
+     * Delete the ledger rows of some orders.
+     *
+     * @param orderIds the ids of the orders
+     * @return the number of deleted rows
+     */
+    public int deleteByOrderIds(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        return jdbcTemplate.update("delete from commission_ledger where order_id in (:ids)",
+            new MapSqlParameterSource("ids", orderIds));
+    }
+
+    /**
+     * Insert ledger rows, by a single JDBC batch.
+     *
+     * @param commissions the rows to insert
+     */
+    public void insert(List<CommissionDTO> commissions) {
+        if (commissions.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = commissions.stream()
+            .map(commission -> new MapSqlParameterSource()
+                .addValue("orderId", commission.getOrderId())
+                .addValue("merchantId", commission.getMerchantId())
+                .addValue("level", commission.getLevel())
+                .addValue("placeholderCode", commission.getPlaceholderCode())
+                .addValue("orderAmount", commission.getOrderAmount())
+                .addValue("amount", commission.getAmount())
+                .addValue("createdDate", Timestamp.from(commission.getCreatedDate().toInstant())))
+            .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_LEDGER, batch);
+    }
+
+    /**
+     * Get the ledger rows of an order.
+     *
+     * @param orderId the id of the order
+     * @return the rows, ordered by level
+     */
+    public List<CommissionDTO> findByOrderId(Long orderId) {
+        return jdbcTemplate.query("select order_id, merchant_id, jhi_level, placeholder_code, order_amount, amount," +
+                " created_date from commission_ledger where order_id = :orderId order by jhi_level, placeholder_code",
+            new MapSqlParameterSource("orderId", orderId),
+            (rs, rowNum) -> new CommissionDTO(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getString(4),
+                rs.getLong(5), rs.getLong(6), rs.getTimestamp(7).toInstant().atZone(ZoneId.systemDefault())));
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface CommissionPlaceholderRepository extends JpaRepository<CommissionPlaceholder, Long>, JpaSpecificationExecutor<CommissionPlaceholder> {
+public interface CommissionPlaceholderRepository extends JpaRepository<CommissionPlaceholder, Long>, JpaSpecificationExecutor<CommissionPlaceholder>,
+    SliceSpecificationExecutor<CommissionPlaceholder> {
 
 }
@@ -0,0 +1,86 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC repository adding deltas to counter rows with a single upsert, which creates the row when it is missing.
+ * <p>
+ * An UPDATE followed by an INSERT on a miss deadlocks on InnoDB at REPEATABLE READ: two transactions missing the
+ * same key both take a gap lock, then wait for each other's to insert. MySQL runs an
+ * {@code INSERT ... ON DUPLICATE KEY UPDATE} instead, which locks the key itself; other databases, as H2 in the
+ * tests, a {@code MERGE} of the current counters plus the deltas.
+ */
+@Repository
+public class CounterUpsertRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final DataSource dataSource;
+
+    private final Map<String, String> statements = new ConcurrentHashMap<>();
+
+    private volatile Boolean mysql;
+
+    public CounterUpsertRepository(NamedParameterJdbcTemplate jdbcTemplate, DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Add deltas to the counters of a row, inserting it with the deltas if it is missing.
+     *
+     * @param table the table of the counters
+     * @param keys the values of the columns of the unique key of the row, by column, in a stable order
+     * @param deltas the values to add, by counter column, in a stable order
+     */
+    public void increment(String table, Map<String, ?> keys, Map<String, Long> deltas) {
+        String sql = statements.computeIfAbsent(table + keys.keySet() + deltas.keySet(),
+            statement -> incrementStatement(table, new ArrayList<>(keys.keySet()), new ArrayList<>(deltas.keySet())));
+        jdbcTemplate.update(sql, new MapSqlParameterSource(keys).addValues(deltas));
+    }
+
+    private String incrementStatement(String table, List<String> keyColumns, List<String> counterColumns) {
+        List<String> columns = new ArrayList<>(keyColumns);
+        columns.addAll(counterColumns);
+        String columnList = String.join(", ", columns);
+        if (isMysql()) {
+            return "insert into " + table + " (" + columnList + ") values (" +
+                columns.stream().map(column -> ":" + column).collect(Collectors.joining(", ")) + ") " +
+                "on duplicate key update " + counterColumns.stream()
+                    .map(column -> column + " = " + column + " + values(" + column + ")")
+                    .collect(Collectors.joining(", "));
+        }
+        // The aggregates return one row, with null sums when the row is missing
+        return "merge into " + table + " (" + columnList + ") key (" + String.join(", ", keyColumns) + ") " +
+            "select " + keyColumns.stream().map(column -> ":" + column).collect(Collectors.joining(", ")) + ", " +
+            counterColumns.stream().map(column -> "coalesce(sum(" + column + "), 0) + :" + column)
+                .collect(Collectors.joining(", ")) +
+            " from " + table + " where " + keyColumns.stream().map(column -> column + " = :" + column)
+                .collect(Collectors.joining(" and "));
+    }
+
+    private boolean isMysql() {
+        Boolean result = mysql;
+        if (result == null) {
+            try {
+                String productName = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+                result = "MySQL".equalsIgnoreCase(productName);
+            } catch (MetaDataAccessException e) {
+                throw new IllegalStateException("Could not read the name of the database", e);
+            }
+            mysql = result;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,151 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.service.dto.DownlineStatsDTO;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for the downline sales: the completed order count and amount sum of the subtree of each merchant,
+ * per day.
+ * <p>
+ * The orders of a merchant are those of its user; they count for the merchant and all its ancestors, as found in
+ * the merchant closure. Increments are single upserts of the {@link CounterUpsertRepository}, as for the
+ * {@link SalesRollupRepository}.
+ */
+@Repository
+public class DownlineSalesRepository {
+
+    private static final String COMPLETED_ORDERS =
+        "select o.user_id, o.created_date, o.amount from jhi_order o " +
+        "join order_status s on s.id = o.order_status_id where s.code = :statusCode " +
+        "union all select o.user_id, o.created_date, o.amount from jhi_order_archive o " +
+        "join order_status s on s.id = o.order_status_id where s.code = :statusCode";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final CounterUpsertRepository counterUpsertRepository;
+
+    public DownlineSalesRepository(NamedParameterJdbcTemplate jdbcTemplate, CounterUpsertRepository counterUpsertRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counterUpsertRepository = counterUpsertRepository;
+    }
+
+    /**
+     * @param userId the id of a user
+     * @return the ids of the merchants of the user and of all their ancestors
+     */
+    public List<Long> findLineageOfUser(Long userId) {
+        return jdbcTemplate.queryForList("select distinct c.ancestor_id from merchant m " +
+                "join merchant_closure c on c.descendant_id = m.id where m.user_id = :userId",
+            new MapSqlParameterSource("userId", userId), Long.class);
+    }
+
+    /**
+     * @param merchantId the id of a merchant
+     * @param minDepth 0 to include the merchant, 1 for its ancestors only
+     * @return the ids of the merchant and its ancestors
+     */
+    public List<Long> findLineage(Long merchantId, int minDepth) {
+        return jdbcTemplate.queryForList("select ancestor_id from merchant_closure " +
+                "where descendant_id = :id and depth >= :minDepth",
+            new MapSqlParameterSource("id", merchantId).addValue("minDepth", minDepth), Long.class);
+    }
+
+    /**
+     * Add the given counts to the row of a day of a merchant, the deltas may be negative.
+     *
+     * @param merchantId the id of the merchant
+     * @param day the day of the orders
+     * @param orderCount the number of orders to add
+     * @param amountSum the amount to add
+     */
+    public void increment(Long merchantId, LocalDate day, long orderCount, long amountSum) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("merchant_id", merchantId);
+        keys.put("sales_date", Date.valueOf(day));
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("order_count", orderCount);
+        deltas.put("amount_sum", amountSum);
+        counterUpsertRepository.increment("downline_sales_day", keys, deltas);
+    }
+
+    /**
+     * @param merchantId the id of a merchant
+     * @return all the rows of the merchant, ordered by day
+     */
+    public List<DownlineStatsDTO.Day> findByMerchant(Long merchantId) {
+        return jdbcTemplate.query("select sales_date, order_count, amount_sum from downline_sales_day " +
+                "where merchant_id = :id order by sales_date",
+            new MapSqlParameterSource("id", merchantId),
+            (rs, rowNum) -> new DownlineStatsDTO.Day(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3)));
+    }
+
+    /**
+     * @param merchantId the id of a merchant
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the days with orders in the subtree of the merchant, ordered by day
+     */
+    public List<DownlineStatsDTO.Day> findByMerchant(Long merchantId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("select sales_date, order_count, amount_sum from downline_sales_day " +
+                "where merchant_id = :id and sales_date between :from and :to and order_count <> 0 order by sales_date",
+            new MapSqlParameterSource("id", merchantId).addValue("from", Date.valueOf(from)).addValue("to", Date.valueOf(to)),
+            (rs, rowNum) -> new DownlineStatsDTO.Day(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3)));
+    }
+
+    /**
+     * Sum the completed orders of the user of a merchant.
+     *
+     * @param merchantId the id of a merchant
+     * @param statusCode the code of the completed order status
+     * @return the totals of the orders of the merchant itself, per day
+     */
+    public List<DownlineStatsDTO.Day> sumOwnOrders(Long merchantId, String statusCode) {
+        return jdbcTemplate.query("select cast(o.created_date as date) d, count(*), sum(coalesce(o.amount, 0)) " +
+                "from (" + COMPLETED_ORDERS + ") o join merchant m on m.user_id = o.user_id where m.id = :id " +
+                "group by cast(o.created_date as date) order by d",
+            new MapSqlParameterSource("statusCode", statusCode).addValue("id", merchantId),
+            (rs, rowNum) -> new DownlineStatsDTO.Day(rs.getDate(1).toLocalDate(), rs.getLong(2), rs.getLong(3)));
+    }
+
+    /**
+     * Delete the rows of a merchant.
+     *
+     * @param merchantId the id of the merchant
+     */
+    public void deleteByMerchant(Long merchantId) {
+        jdbcTemplate.update("delete from downline_sales_day where merchant_id = :id",
+            new MapSqlParameterSource("id", merchantId));
+    }
+
+    /**
+     * @return true if there are no downline sales while there are merchants in the closure
+     */
+    public boolean needsRebuild() {
+        return jdbcTemplate.getJdbcOperations().queryForObject("select count(*) from downline_sales_day", Long.class) == 0 &&
+            jdbcTemplate.getJdbcOperations().queryForObject("select count(*) from merchant_closure", Long.class) > 0;
+    }
+
+    /**
+     * Compute all the downline sales from the orders of both tiers and the merchant closure.
+     *
+     * @param statusCode the code of the completed order status
+     * @return the number of rows
+     */
+    public int rebuild(String statusCode) {
+        jdbcTemplate.getJdbcOperations().update("delete from downline_sales_day");
+        return jdbcTemplate.update("insert into downline_sales_day (merchant_id, sales_date, order_count, amount_sum) " +
+                "select c.ancestor_id, cast(o.created_date as date), count(*), sum(coalesce(o.amount, 0)) " +
+                "from (" + COMPLETED_ORDERS + ") o join merchant m on m.user_id = o.user_id " +
+                "join merchant_closure c on c.descendant_id = m.id " +
+                "group by c.ancestor_id, cast(o.created_date as date)",
+            new MapSqlParameterSource("statusCode", statusCode));
+    }
+}
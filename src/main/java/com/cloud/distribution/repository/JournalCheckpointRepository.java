@@ -0,0 +1,51 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC repository for the checkpoints of the local journals: the sequence of the last record of each journal
+ * which is written to the database.
+ */
+@Repository
+public class JournalCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JournalCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param journalId the identifier of a journal
+     * @return the sequence of its last written record, 0 if there is none
+     */
+    public long findLastSequence(String journalId) {
+        List<Long> sequences = jdbcTemplate.queryForList(
+            "select last_sequence from journal_checkpoint where journal_id = ?", Long.class, journalId);
+        return sequences.isEmpty() ? 0 : sequences.get(0);
+    }
+
+    /**
+     * Record the last written record of a journal, in the transaction which writes it.
+     *
+     * @param journalId the identifier of the journal
+     * @param sequence the sequence of the record
+     */
+    public void save(String journalId, long sequence) {
+        if (jdbcTemplate.update("update journal_checkpoint set last_sequence = ? where journal_id = ?",
+                sequence, journalId) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into journal_checkpoint (journal_id, last_sequence) values (?, ?)",
+                journalId, sequence);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update("update journal_checkpoint set last_sequence = ? where journal_id = ?",
+                sequence, journalId);
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface MerchantAuditStatusRepository extends JpaRepository<MerchantAuditStatus, Long>, JpaSpecificationExecutor<MerchantAuditStatus> {
+public interface MerchantAuditStatusRepository extends JpaRepository<MerchantAuditStatus, Long>, JpaSpecificationExecutor<MerchantAuditStatus>,
+    SliceSpecificationExecutor<MerchantAuditStatus> {
 
 }
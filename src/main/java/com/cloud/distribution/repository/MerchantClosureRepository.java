@@ -0,0 +1,187 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * JDBC repository for the closure table of the merchant hierarchy.
+ * <p>
+ * The closure holds one row per (ancestor, descendant) pair, with their distance as depth, and each merchant with
+ * itself at depth 0; the level of a merchant is its depth from its root plus one, roots being at level 1.
+ * Subtree moves are set-based: the links from the old ancestors to the subtree are deleted, and the cross product
+ * of the new ancestors and the subtree inserted.
+ */
+@Repository
+public class MerchantClosureRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MerchantClosureRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Add a new merchant under its parent.
+     *
+     * @param id the id of the merchant
+     * @param parentId the id of its parent, null for a root
+     */
+    public void insertNode(Long id, Long parentId) {
+        jdbcTemplate.update("insert into merchant_closure (ancestor_id, descendant_id, depth) values (?, ?, 0)", id, id);
+        if (parentId != null) {
+            jdbcTemplate.update("insert into merchant_closure (ancestor_id, descendant_id, depth) " +
+                "select ancestor_id, ?, depth + 1 from merchant_closure where descendant_id = ?", id, parentId);
+        }
+    }
+
+    /**
+     * Move the subtree of a merchant under a new parent.
+     *
+     * @param id the id of the merchant at the root of the subtree
+     * @param parentId the id of the new parent, null to make the merchant a root
+     */
+    public void moveSubtree(Long id, Long parentId) {
+        // Derived tables, as MySQL cannot read the table it deletes from in a subquery
+        jdbcTemplate.update("delete from merchant_closure " +
+            "where descendant_id in (select d from (select descendant_id d from merchant_closure where ancestor_id = ?) s) " +
+            "and ancestor_id in (select a from (select ancestor_id a from merchant_closure where descendant_id = ? and depth > 0) p)",
+            id, id);
+        if (parentId != null) {
+            jdbcTemplate.update("insert into merchant_closure (ancestor_id, descendant_id, depth) " +
+                "select p.ancestor_id, s.descendant_id, p.depth + s.depth + 1 " +
+                "from merchant_closure p, merchant_closure s where p.descendant_id = ? and s.ancestor_id = ?",
+                parentId, id);
+        }
+    }
+
+    /**
+     * Remove a merchant from the closure, before it is deleted.
+     *
+     * @param id the id of the merchant
+     */
+    public void deleteNode(Long id) {
+        jdbcTemplate.update("delete from merchant_closure where descendant_id = ? or ancestor_id = ?", id, id);
+    }
+
+    /**
+     * @param ancestorId the id of the ancestor
+     * @param descendantId the id of the descendant
+     * @return true if the first merchant is the second one or one of its ancestors
+     */
+    public boolean isAncestorOrSelf(Long ancestorId, Long descendantId) {
+        return jdbcTemplate.queryForObject("select count(*) from merchant_closure where ancestor_id = ? and descendant_id = ?",
+            Integer.class, ancestorId, descendantId) > 0;
+    }
+
+    /**
+     * Same as {@link #isAncestorOrSelf(Long, Long)}, as a locking read: it sees the links committed by concurrent
+     * transactions, rather than the snapshot of the current one.
+     *
+     * @param ancestorId the id of the ancestor
+     * @param descendantId the id of the descendant
+     * @return true if the first merchant is the second one or one of its ancestors
+     */
+    public boolean isAncestorOrSelfForUpdate(Long ancestorId, Long descendantId) {
+        return !jdbcTemplate.queryForList("select depth from merchant_closure where ancestor_id = ? and descendant_id = ? " +
+            "for update", Integer.class, ancestorId, descendantId).isEmpty();
+    }
+
+    /**
+     * @param id the id of the merchant
+     * @return the level of the merchant
+     */
+    public int findLevel(Long id) {
+        return jdbcTemplate.queryForObject("select coalesce(max(depth), 0) + 1 from merchant_closure where descendant_id = ?",
+            Integer.class, id);
+    }
+
+    /**
+     * @param id the id of the merchant
+     * @return the ids of the merchant and all its descendants
+     */
+    public List<Long> findSubtreeIds(Long id) {
+        return jdbcTemplate.queryForList("select descendant_id from merchant_closure where ancestor_id = ?", Long.class, id);
+    }
+
+    /**
+     * Set the level of the merchants of a subtree from the closure, incrementing the versions of the descendants.
+     * The version of the root is left to the update of the root which moves the subtree.
+     *
+     * @param id the id of the merchant at the root of the subtree
+     * @return the number of updated merchants
+     */
+    public int updateSubtreeLevels(Long id) {
+        return jdbcTemplate.update("update merchant set jhi_level = " +
+            "(select max(c.depth) + 1 from merchant_closure c where c.descendant_id = merchant.id), " +
+            "version = case when id = ? then version else version + 1 end " +
+            "where id in (select descendant_id from merchant_closure where ancestor_id = ?)", id, id);
+    }
+
+    /**
+     * @param id the id of the merchant
+     * @return the id of the root of its tree, the merchant itself for a root
+     */
+    public Long findRootId(Long id) {
+        // A locking read, which sees the moves committed by concurrent transactions
+        List<Long> ancestorIds = jdbcTemplate.queryForList("select ancestor_id from merchant_closure " +
+            "where descendant_id = ? order by depth desc for update", Long.class, id);
+        return ancestorIds.isEmpty() ? id : ancestorIds.get(0);
+    }
+
+    /**
+     * Lock the rows of merchants until the end of the transaction, in the order of their ids so that concurrent
+     * transactions locking the same merchants cannot deadlock.
+     *
+     * @param ids the ids of the merchants
+     */
+    public void lockMerchants(Collection<Long> ids) {
+        new TreeSet<>(ids).forEach(id ->
+            jdbcTemplate.queryForList("select id from merchant where id = ? for update", Long.class, id));
+    }
+
+    /**
+     * @param id the id of the merchant
+     * @return the id of its parent as stored, null for a root or an unknown merchant
+     */
+    public Long findParentId(Long id) {
+        List<Long> parentIds = jdbcTemplate.query("select parent_id from merchant where id = ?",
+            (rs, rowNum) -> rs.getObject(1) == null ? null : rs.getLong(1), id);
+        return parentIds.isEmpty() ? null : parentIds.get(0);
+    }
+
+    /**
+     * @return true if the closure is empty while there are merchants
+     */
+    public boolean needsRebuild() {
+        return jdbcTemplate.queryForObject("select count(*) from merchant_closure", Long.class) == 0 &&
+            jdbcTemplate.queryForObject("select count(*) from merchant", Long.class) > 0;
+    }
+
+    /**
+     * Build the closure from the parent links of the merchants, one depth at a time, and set their levels.
+     *
+     * @return the number of rows of the closure
+     */
+    public int rebuild() {
+        jdbcTemplate.update("delete from merchant_closure");
+        int rows = jdbcTemplate.update("insert into merchant_closure (ancestor_id, descendant_id, depth) " +
+            "select id, id, 0 from merchant");
+        int merchants = rows;
+        int inserted = rows;
+        // A merchant cannot be deeper than the number of merchants, unless the parent links form a cycle
+        for (int depth = 0; inserted > 0 && depth < merchants; depth++) {
+            inserted = jdbcTemplate.update("insert into merchant_closure (ancestor_id, descendant_id, depth) " +
+                "select m.parent_id, c.descendant_id, c.depth + 1 from merchant_closure c " +
+                "join merchant m on m.id = c.ancestor_id where c.depth = ? and m.parent_id is not null", depth);
+            rows += inserted;
+        }
+        jdbcTemplate.update("update merchant set jhi_level = " +
+            "(select max(c.depth) + 1 from merchant_closure c where c.descendant_id = merchant.id), " +
+            "version = version + 1");
+        return rows;
+    }
+}
@@ -1,16 +1,49 @@
 package com.cloud.distribution.repository;
 
 import com.cloud.distribution.domain.Merchant;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
 
+import java.util.List;
+
 
 /**
  * Spring Data JPA repository for the Merchant entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface MerchantRepository extends JpaRepository<Merchant, Long>, JpaSpecificationExecutor<Merchant> {
+public interface MerchantRepository extends JpaRepository<Merchant, Long>, JpaSpecificationExecutor<Merchant>,
+    SliceSpecificationExecutor<Merchant> {
+
+    /**
+     * Find the descendants of a merchant, nearest first, through the merchant closure table.
+     */
+    @Query(value = "select m.* from merchant m join merchant_closure c on c.descendant_id = m.id " +
+        "where c.ancestor_id = ?1 and c.depth between 1 and ?2 order by c.depth, m.id",
+        countQuery = "select count(*) from merchant_closure c where c.ancestor_id = ?1 and c.depth between 1 and ?2",
+        nativeQuery = true)
+    Page<Merchant> findDescendants(Long id, int maxDepth, Pageable pageable);
+
+    /**
+     * Find the ancestors of a merchant, its parent first, through the merchant closure table.
+     */
+    @Query(value = "select m.* from merchant m join merchant_closure c on c.ancestor_id = m.id " +
+        "where c.descendant_id = ?1 and c.depth > 0 order by c.depth",
+        nativeQuery = true)
+    List<Merchant> findAncestors(Long id);
+
+    /**
+     * Find the version of a merchant, without loading it.
+     */
+    @Query("select m.version from Merchant m where m.id = ?1")
+    Long findVersion(Long id);
 
+    /**
+     * Find the version of a merchant and the version of its parent, null for a root, without loading them.
+     */
+    @Query("select m.version, p.version from Merchant m left join m.parent p where m.id = ?1")
+    List<Object[]> findVersions(Long id);
 }
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface MerchantStatusRepository extends JpaRepository<MerchantStatus, Long>, JpaSpecificationExecutor<MerchantStatus> {
+public interface MerchantStatusRepository extends JpaRepository<MerchantStatus, Long>, JpaSpecificationExecutor<MerchantStatus>,
+    SliceSpecificationExecutor<MerchantStatus> {
 
 }
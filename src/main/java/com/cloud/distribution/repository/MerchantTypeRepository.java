@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface MerchantTypeRepository extends JpaRepository<MerchantType, Long>, JpaSpecificationExecutor<MerchantType> {
+public interface MerchantTypeRepository extends JpaRepository<MerchantType, Long>, JpaSpecificationExecutor<MerchantType>,
+    SliceSpecificationExecutor<MerchantType> {
 
 }
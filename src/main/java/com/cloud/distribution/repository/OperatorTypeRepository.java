@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface OperatorTypeRepository extends JpaRepository<OperatorType, Long>, JpaSpecificationExecutor<OperatorType> {
+public interface OperatorTypeRepository extends JpaRepository<OperatorType, Long>, JpaSpecificationExecutor<OperatorType>,
+    SliceSpecificationExecutor<OperatorType> {
 
 }
@@ -0,0 +1,45 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.service.dto.OrderDTO;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Projection queries of the order tiers, reading {@link OrderDTO}s directly.
+ * <p>
+ * A single statement selects the DTO columns, joining only the product for its name, the names of the lookups being
+ * resolved from the {@link com.cloud.distribution.service.LookupRegistry}: no order entity, nor any of its
+ * relationships, is hydrated or attached to the persistence context.
+ *
+ * @param <T> the order entity of the tier, {@link com.cloud.distribution.domain.Order} or
+ * {@link com.cloud.distribution.domain.ArchivedOrder}
+ */
+public interface OrderProjectionExecutor<T> {
+
+    OrderDTO findOneProjected(Long id);
+
+    List<OrderDTO> findAllProjected(Specification<T> spec);
+
+    Page<OrderDTO> findAllProjected(Specification<T> spec, Pageable pageable);
+
+    /**
+     * Same as {@link #findAllProjected(Specification, Pageable)}, without count query.
+     */
+    Slice<OrderDTO> findSliceProjected(Specification<T> spec, Pageable pageable);
+
+    /**
+     * Pass each matching order to the action, in id order, reading them through a forward-only read-only cursor:
+     * only one fetch of rows is held in memory at a time. Must be called inside a transaction, with an action which
+     * does not query the database: a MySQL connection streaming rows cannot run other statements.
+     *
+     * @param spec the specification to match, can be {@literal null}
+     * @param fetchSize the number of rows fetched per round trip, Integer.MIN_VALUE to stream them one by one on MySQL
+     * @param action the action applied to each order
+     */
+    void forEachProjected(Specification<T> spec, int fetchSize, Consumer<OrderDTO> action);
+}
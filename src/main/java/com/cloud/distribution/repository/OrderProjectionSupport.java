@@ -0,0 +1,165 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.domain.OrderType;
+import com.cloud.distribution.domain.PayType;
+import com.cloud.distribution.service.LookupRegistry;
+import com.cloud.distribution.service.dto.OrderDTO;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.springframework.data.jpa.repository.query.QueryUtils.toOrders;
+
+/**
+ * Implementation of {@link OrderProjectionExecutor}, with Criteria API constructor expressions.
+ * <p>
+ * The attributes are read by name, as they are shared by the entities of both order tiers. The lookups are not
+ * joined: their ids are the foreign keys of the orders, and their names are resolved from the {@link LookupRegistry}.
+ * The version is selected for the tiers which have one, see {@link #getVersion(Root)}, so that the orders read can be
+ * updated with optimistic locking.
+ */
+public abstract class OrderProjectionSupport<T> implements OrderProjectionExecutor<T> {
+
+    private final Class<T> entityClass;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private LookupRegistry lookupRegistry;
+
+    protected OrderProjectionSupport(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    @Override
+    public OrderDTO findOneProjected(Long id) {
+        List<OrderDTO> result = findAllProjected((root, query, cb) -> cb.equal(root.get("id"), id));
+        return result.isEmpty() ? null : result.get(0);
+    }
+
+    @Override
+    public List<OrderDTO> findAllProjected(Specification<T> spec) {
+        return withNames(createProjectionQuery(spec, null).getResultList());
+    }
+
+    @Override
+    public Page<OrderDTO> findAllProjected(Specification<T> spec, Pageable pageable) {
+        TypedQuery<OrderDTO> query = createProjectionQuery(spec, pageable.getSort());
+        query.setFirstResult(pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize());
+        return PageableExecutionUtils.getPage(withNames(query.getResultList()), pageable, () -> count(spec));
+    }
+
+    @Override
+    public Slice<OrderDTO> findSliceProjected(Specification<T> spec, Pageable pageable) {
+        TypedQuery<OrderDTO> query = createProjectionQuery(spec, pageable.getSort());
+        query.setFirstResult(pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        List<OrderDTO> content = withNames(query.getResultList());
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public void forEachProjected(Specification<T> spec, int fetchSize, Consumer<OrderDTO> action) {
+        Query<?> query = createProjectionQuery(spec, new Sort("id")).unwrap(Query.class);
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        ScrollableResults results = query.scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            while (results.next()) {
+                action.accept(withNames((OrderDTO) results.get(0)));
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    private TypedQuery<OrderDTO> createProjectionQuery(Specification<T> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderDTO> query = cb.createQuery(OrderDTO.class);
+        Root<T> root = query.from(entityClass);
+        Join<T, ?> product = root.join("product", JoinType.LEFT);
+        List<Selection<?>> selections = new ArrayList<>(Arrays.asList(
+            root.get("id"),
+            root.get("name"),
+            root.get("code"),
+            root.get("desc"),
+            root.get("amount"),
+            root.get("createdDate"),
+            root.get("userId"),
+            root.get("payType").get("id"),
+            root.get("orderType").get("id"),
+            root.get("orderStatus").get("id"),
+            product.get("id"),
+            product.get("name")));
+        Expression<Long> version = getVersion(root);
+        if (version != null) {
+            selections.add(version);
+        }
+        query.select(cb.construct(OrderDTO.class, selections.toArray(new Selection<?>[selections.size()])));
+        applySpecification(spec, root, query, cb);
+        if (sort != null) {
+            query.orderBy(toOrders(sort, root, cb));
+        }
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * @param root the root of the projection query
+     * @return the version of the orders, null for a tier without versions
+     */
+    protected Expression<Long> getVersion(Root<T> root) {
+        return null;
+    }
+
+    private List<OrderDTO> withNames(List<OrderDTO> orders) {
+        orders.forEach(this::withNames);
+        return orders;
+    }
+
+    private OrderDTO withNames(OrderDTO order) {
+        order.setPayTypeName(lookupRegistry.getName(PayType.class, order.getPayTypeId()));
+        order.setOrderTypeName(lookupRegistry.getName(OrderType.class, order.getOrderTypeId()));
+        order.setOrderStatusName(lookupRegistry.getName(OrderStatus.class, order.getOrderStatusId()));
+        return order;
+    }
+
+    private long count(Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(entityClass);
+        query.select(cb.count(root));
+        applySpecification(spec, root, query, cb);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private void applySpecification(Specification<T> spec, Root<T> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        if (spec == null) {
+            return;
+        }
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+    }
+}
@@ -5,12 +5,20 @@ import org.springframework.stereotype.Repository;
 
 import org.springframework.data.jpa.repository.*;
 
+import java.util.List;
+
 
 /**
  * Spring Data JPA repository for the Order entity.
  */
 @SuppressWarnings("unused")
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+    SliceSpecificationExecutor<Order>, OrderProjectionExecutor<Order> {
 
+    /**
+     * Find the version of an order and the version of its product, null without product, without loading them.
+     */
+    @Query("select o.version, p.version from Order o left join o.product p where o.id = ?1")
+    List<Object[]> findVersions(Long id);
 }
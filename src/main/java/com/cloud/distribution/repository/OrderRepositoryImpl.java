@@ -0,0 +1,22 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.Order;
+import com.cloud.distribution.domain.Order_;
+
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
+
+/**
+ * Implementation of the {@link OrderProjectionExecutor} of the {@link OrderRepository}.
+ */
+public class OrderRepositoryImpl extends OrderProjectionSupport<Order> {
+
+    public OrderRepositoryImpl() {
+        super(Order.class);
+    }
+
+    @Override
+    protected Expression<Long> getVersion(Root<Order> root) {
+        return root.get(Order_.version);
+    }
+}
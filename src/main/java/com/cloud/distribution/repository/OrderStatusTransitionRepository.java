@@ -0,0 +1,71 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC repository for the allowed order status transitions, and for the compare-and-set of the status of an order.
+ */
+@Repository
+public class OrderStatusTransitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderStatusTransitionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the allowed transitions, as pairs of the id of the status from and of the status to
+     */
+    public List<long[]> findAll() {
+        return jdbcTemplate.query("select from_status_id, to_status_id from order_status_transition",
+            (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)});
+    }
+
+    /**
+     * Allow a transition, if it is not already allowed.
+     *
+     * @param fromStatusId the id of the status from
+     * @param toStatusId the id of the status to
+     * @return true if the transition is added, false if it was already allowed
+     */
+    public boolean insert(Long fromStatusId, Long toStatusId) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from order_status_transition " +
+            "where from_status_id = ? and to_status_id = ?", Integer.class, fromStatusId, toStatusId);
+        if (count != null && count > 0) {
+            return false;
+        }
+        jdbcTemplate.update("insert into order_status_transition (from_status_id, to_status_id) values (?, ?)",
+            fromStatusId, toStatusId);
+        return true;
+    }
+
+    /**
+     * Forbid a transition.
+     *
+     * @param fromStatusId the id of the status from
+     * @param toStatusId the id of the status to
+     * @return true if the transition is removed, false if it was not allowed
+     */
+    public boolean delete(Long fromStatusId, Long toStatusId) {
+        return jdbcTemplate.update("delete from order_status_transition where from_status_id = ? and to_status_id = ?",
+            fromStatusId, toStatusId) > 0;
+    }
+
+    /**
+     * Set the status of an order, only if it is still in the expected status, and increment its version.
+     *
+     * @param orderId the id of the order
+     * @param fromStatusId the id of the expected status
+     * @param toStatusId the id of the new status
+     * @return true if the status is set, false if the order does not exist or is in another status
+     */
+    public boolean compareAndSetStatus(Long orderId, Long fromStatusId, Long toStatusId) {
+        return jdbcTemplate.update("update jhi_order set order_status_id = ?, version = version + 1 " +
+                "where id = ? and order_status_id = ?",
+            toStatusId, orderId, fromStatusId) > 0;
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface OrderTypeRepository extends JpaRepository<OrderType, Long>, JpaSpecificationExecutor<OrderType> {
+public interface OrderTypeRepository extends JpaRepository<OrderType, Long>, JpaSpecificationExecutor<OrderType>,
+    SliceSpecificationExecutor<OrderType> {
 
 }
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface PayTypeRepository extends JpaRepository<PayType, Long>, JpaSpecificationExecutor<PayType> {
+public interface PayTypeRepository extends JpaRepository<PayType, Long>, JpaSpecificationExecutor<PayType>,
+    SliceSpecificationExecutor<PayType> {
 
 }
@@ -11,6 +11,12 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+    SliceSpecificationExecutor<Product> {
 
+    /**
+     * Find the version of a product, without loading it.
+     */
+    @Query("select p.version from Product p where p.id = ?1")
+    Long findVersion(Long id);
 }
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface ProductStatusRepository extends JpaRepository<ProductStatus, Long>, JpaSpecificationExecutor<ProductStatus> {
+public interface ProductStatusRepository extends JpaRepository<ProductStatus, Long>, JpaSpecificationExecutor<ProductStatus>,
+    SliceSpecificationExecutor<ProductStatus> {
 
 }
@@ -0,0 +1,97 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.Product;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.MapStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Hazelcast MapStore persisting the product stock map, when it is the authority for the remains of the products.
+ * <p>
+ * The map is configured write-behind, so the remains are written to the {@code product} table by batches of dirty
+ * entries, coalesced per product. Deletions are not propagated: products are deleted through JPA.
+ */
+@Repository
+public class ProductStockMapStore implements MapStore<Long, Long> {
+
+    private final Logger log = LoggerFactory.getLogger(ProductStockMapStore.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    // Looked up when the first batch is stored: the entity manager factory itself needs the Hazelcast instance
+    private final ObjectFactory<EntityManagerFactory> entityManagerFactory;
+
+    private final Meter storedMeter;
+
+    public ProductStockMapStore(NamedParameterJdbcTemplate jdbcTemplate, ObjectFactory<EntityManagerFactory> entityManagerFactory,
+            MetricRegistry metricRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+        this.storedMeter = metricRegistry.meter("inventory.stock.stored");
+    }
+
+    @Override
+    public Long load(Long id) {
+        List<Long> remains = jdbcTemplate.getJdbcOperations().query(
+            "select coalesce(remains, 0) from product where id = ?", (rs, rowNum) -> rs.getLong(1), id);
+        return remains.isEmpty() ? null : remains.get(0);
+    }
+
+    @Override
+    public Map<Long, Long> loadAll(Collection<Long> ids) {
+        Map<Long, Long> remains = new HashMap<>();
+        jdbcTemplate.query("select id, coalesce(remains, 0) from product where id in (:ids)",
+            new MapSqlParameterSource("ids", ids), rs -> {
+                remains.put(rs.getLong(1), rs.getLong(2));
+            });
+        return remains;
+    }
+
+    @Override
+    public Iterable<Long> loadAllKeys() {
+        log.debug("Loading the product stock map");
+        return jdbcTemplate.getJdbcOperations().queryForList("select id from product", Long.class);
+    }
+
+    @Override
+    public void store(Long id, Long remains) {
+        storeAll(Collections.singletonMap(id, remains));
+    }
+
+    @Override
+    public void storeAll(Map<Long, Long> remains) {
+        log.debug("Storing the remains of {} products", remains.size());
+        jdbcTemplate.getJdbcOperations().batchUpdate("update product set remains = ? where id = ?", remains.entrySet().stream()
+            .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+            .collect(Collectors.toList()));
+        // The rows were changed behind Hibernate's back
+        Cache cache = entityManagerFactory.getObject().getCache();
+        remains.keySet().forEach(id -> cache.evict(Product.class, id));
+        storedMeter.mark(remains.size());
+    }
+
+    @Override
+    public void delete(Long id) {
+        // Products are deleted by the ProductService
+    }
+
+    @Override
+    public void deleteAll(Collection<Long> ids) {
+        // Products are deleted by the ProductService
+    }
+}
@@ -0,0 +1,194 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC repository changing the remains of the products in place.
+ * <p>
+ * Each change is a single conditional UPDATE instead of loading and merging the whole entity. The row lock it takes
+ * is held until the calling transaction completes, so callers should commit soon after the change. Products in
+ * sharded inventory mode have their remains split across the rows of {@code product_stock_shard}, their
+ * {@code remains} column being kept at 0.
+ */
+@Repository
+public class ProductStockRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStockRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Take a quantity from the remains of a product, if they are sufficient.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to take
+     * @return true if the remains were decremented
+     */
+    public boolean decrement(Long id, long quantity) {
+        return jdbcTemplate.update("update product set remains = remains - ? where id = ? and remains >= ?",
+            quantity, id, quantity) > 0;
+    }
+
+    /**
+     * Give a quantity back to the remains of a product.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to give back
+     * @return true if the product exists
+     */
+    public boolean increment(Long id, long quantity) {
+        return jdbcTemplate.update("update product set remains = coalesce(remains, 0) + ? where id = ?",
+            quantity, id) > 0;
+    }
+
+    /**
+     * Read the remains of a product, bypassing the persistence context and the second level cache.
+     *
+     * @param id the id of the product
+     * @return the remains, empty if the product does not exist, 0 if it has no remains
+     */
+    public Optional<Long> findRemains(Long id) {
+        List<Long> remains = jdbcTemplate.query("select coalesce(" +
+                "(select sum(s.remains) from product_stock_shard s where s.product_id = p.id), p.remains, 0) " +
+                "from product p where p.id = ?",
+            (rs, rowNum) -> rs.getLong(1), id);
+        return remains.stream().findFirst();
+    }
+
+    /**
+     * @param id the id of the product
+     * @return the number of stock shards of the product, 0 if it is not in sharded inventory mode
+     */
+    public int countShards(Long id) {
+        return jdbcTemplate.queryForObject("select count(*) from product_stock_shard where product_id = ?",
+            Integer.class, id);
+    }
+
+    /**
+     * Read the remains of a stock shard, without locking it.
+     *
+     * @param id the id of the product
+     * @param shardNo the number of the shard
+     * @return the remains of the shard, 0 if it does not exist
+     */
+    public long findShardRemains(Long id, int shardNo) {
+        List<Long> remains = jdbcTemplate.query("select remains from product_stock_shard " +
+                "where product_id = ? and shard_no = ?",
+            (rs, rowNum) -> rs.getLong(1), id, shardNo);
+        return remains.isEmpty() ? 0 : remains.get(0);
+    }
+
+    /**
+     * Take a quantity from a stock shard, if it is sufficient.
+     * <p>
+     * The shard stays locked until the end of the transaction even when it is not sufficient: the transaction must
+     * then not lock the other shards, see {@link #rebalanceShards(Long, long)}.
+     *
+     * @param id the id of the product
+     * @param shardNo the number of the shard
+     * @param quantity the quantity to take
+     * @return true if the shard was decremented
+     */
+    public boolean decrementShard(Long id, int shardNo, long quantity) {
+        return jdbcTemplate.update("update product_stock_shard set remains = remains - ? " +
+            "where product_id = ? and shard_no = ? and remains >= ?", quantity, id, shardNo, quantity) > 0;
+    }
+
+    /**
+     * Give a quantity back to a stock shard.
+     *
+     * @param id the id of the product
+     * @param shardNo the number of the shard
+     * @param quantity the quantity to give back
+     * @return true if the shard exists
+     */
+    public boolean incrementShard(Long id, int shardNo, long quantity) {
+        return jdbcTemplate.update("update product_stock_shard set remains = remains + ? " +
+            "where product_id = ? and shard_no = ?", quantity, id, shardNo) > 0;
+    }
+
+    /**
+     * Apply a change to the whole stock of a sharded product, and spread the result evenly across its shards.
+     * <p>
+     * All the shards are locked, in order, for the rest of the transaction: this is the slow path, taken when the
+     * shard picked by a reservation has run dry. The transaction must not hold the lock of any shard yet, or it could
+     * deadlock with another rebalance.
+     *
+     * @param id the id of the product
+     * @param delta the quantity to add, negative for a reservation
+     * @return true if the shards were changed, false if their sum is not sufficient
+     */
+    public boolean rebalanceShards(Long id, long delta) {
+        List<Long> shards = jdbcTemplate.query("select remains from product_stock_shard " +
+                "where product_id = ? order by shard_no for update",
+            (rs, rowNum) -> rs.getLong(1), id);
+        long total = shards.stream().mapToLong(Long::longValue).sum() + delta;
+        if (shards.isEmpty() || total < 0) {
+            return false;
+        }
+        List<Object[]> updates = new ArrayList<>();
+        long[] split = split(total, shards.size());
+        for (int shardNo = 0; shardNo < split.length; shardNo++) {
+            updates.add(new Object[]{split[shardNo], id, shardNo});
+        }
+        jdbcTemplate.batchUpdate("update product_stock_shard set remains = ? where product_id = ? and shard_no = ?",
+            updates);
+        return true;
+    }
+
+    /**
+     * Change the number of stock shards of a product, moving its whole stock.
+     *
+     * @param id the id of the product
+     * @param count the new number of shards, 0 to leave the sharded inventory mode
+     * @return true if the product exists
+     */
+    public boolean reshard(Long id, int count) {
+        List<Long> remains = jdbcTemplate.query("select coalesce(remains, 0) from product where id = ? for update",
+            (rs, rowNum) -> rs.getLong(1), id);
+        if (remains.isEmpty()) {
+            return false;
+        }
+        long total = remains.get(0) + jdbcTemplate.query("select remains from product_stock_shard " +
+                "where product_id = ? order by shard_no for update",
+            (rs, rowNum) -> rs.getLong(1), id).stream().mapToLong(Long::longValue).sum();
+        jdbcTemplate.update("delete from product_stock_shard where product_id = ?", id);
+        if (count == 0) {
+            jdbcTemplate.update("update product set remains = ? where id = ?", total, id);
+            return true;
+        }
+        List<Object[]> shards = new ArrayList<>();
+        long[] split = split(total, count);
+        for (int shardNo = 0; shardNo < count; shardNo++) {
+            shards.add(new Object[]{id, shardNo, split[shardNo]});
+        }
+        jdbcTemplate.batchUpdate("insert into product_stock_shard (product_id, shard_no, remains) values (?, ?, ?)",
+            shards);
+        jdbcTemplate.update("update product set remains = 0 where id = ?", id);
+        return true;
+    }
+
+    /**
+     * Remove the stock shards of a product, before it is deleted.
+     *
+     * @param id the id of the product
+     */
+    public void deleteShards(Long id) {
+        jdbcTemplate.update("delete from product_stock_shard where product_id = ?", id);
+    }
+
+    private static long[] split(long total, int count) {
+        long[] split = new long[count];
+        for (int i = 0; i < count; i++) {
+            split[i] = total / count + (i < total % count ? 1 : 0);
+        }
+        return split;
+    }
+}
@@ -0,0 +1,45 @@
+package com.cloud.distribution.repository;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The dimensions of the sales rollups, each one backed by a {@code sales_rollup_*_day} table.
+ */
+public enum SalesDimension {
+
+    PRODUCT("product", "sales_rollup_product_day", "product_id"),
+    ORDER_TYPE("orderType", "sales_rollup_order_type_day", "order_type_id"),
+    PAY_TYPE("payType", "sales_rollup_pay_type_day", "pay_type_id");
+
+    private final String parameter;
+
+    private final String table;
+
+    private final String column;
+
+    SalesDimension(String parameter, String table, String column) {
+        this.parameter = parameter;
+        this.table = table;
+        this.column = column;
+    }
+
+    /**
+     * @return the name of the dimension in the REST API
+     */
+    public String getParameter() {
+        return parameter;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public static Optional<SalesDimension> fromParameter(String parameter) {
+        return Arrays.stream(values()).filter(dimension -> dimension.parameter.equals(parameter)).findFirst();
+    }
+}
@@ -0,0 +1,68 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.service.dto.OrderStatsDTO;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC repository for the sales rollups.
+ * <p>
+ * Increments are applied in place by a single upsert of the {@link CounterUpsertRepository}, which inserts the row
+ * of the day on the first increment.
+ */
+@Repository
+public class SalesRollupRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final CounterUpsertRepository counterUpsertRepository;
+
+    public SalesRollupRepository(JdbcTemplate jdbcTemplate, CounterUpsertRepository counterUpsertRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.counterUpsertRepository = counterUpsertRepository;
+    }
+
+    /**
+     * Add the given counts to a rollup row, the deltas may be negative.
+     *
+     * @param dimension the dimension of the rollup
+     * @param id the id of the dimension value, 0 for none
+     * @param day the day of the orders
+     * @param orderCount the number of orders to add
+     * @param amountSum the amount to add
+     */
+    public void increment(SalesDimension dimension, long id, LocalDate day, long orderCount, long amountSum) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(dimension.getColumn(), id);
+        keys.put("sales_date", Date.valueOf(day));
+        Map<String, Long> deltas = new LinkedHashMap<>();
+        deltas.put("order_count", orderCount);
+        deltas.put("amount_sum", amountSum);
+        counterUpsertRepository.increment(dimension.getTable(), keys, deltas);
+    }
+
+    /**
+     * Sum the rollups of a dimension over a range of days.
+     *
+     * @param dimension the dimension of the rollup
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the totals per dimension value, ordered by id
+     */
+    public List<OrderStatsDTO.Group> sumByDimension(SalesDimension dimension, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("select " + dimension.getColumn() + ", sum(order_count), sum(amount_sum)" +
+                " from " + dimension.getTable() +
+                " where sales_date between ? and ?" +
+                " group by " + dimension.getColumn() +
+                " having sum(order_count) <> 0" +
+                " order by " + dimension.getColumn(),
+            (rs, rowNum) -> new OrderStatsDTO.Group(rs.getLong(1), rs.getLong(2), rs.getLong(3)),
+            Date.valueOf(from), Date.valueOf(to));
+    }
+}
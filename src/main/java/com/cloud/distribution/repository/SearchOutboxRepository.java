@@ -0,0 +1,47 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.domain.SearchOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the SearchOutboxEntry entity.
+ */
+@Repository
+public interface SearchOutboxRepository extends JpaRepository<SearchOutboxEntry, Long> {
+
+    /**
+     * Lock the entries due for an attempt, in drain order, so that concurrent indexers do not claim the same batch.
+     * Dead letters, without next attempt date, are not returned.
+     *
+     * @param now the current time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select entry from SearchOutboxEntry entry where entry.nextAttemptDate <= :now " +
+        "order by entry.nextAttemptDate, entry.id")
+    List<SearchOutboxEntry> findDue(@Param("now") Instant now, Pageable pageable);
+
+    long countByAttemptsLessThan(int maxAttempts);
+
+    long countByAttemptsGreaterThanEqual(int maxAttempts);
+
+    @Query("select min(entry.createdDate) from SearchOutboxEntry entry where entry.attempts < :maxAttempts")
+    Instant findOldestCreatedDate(@Param("maxAttempts") int maxAttempts);
+
+    /**
+     * @return the ids, among the given ones, of the entities which have pending changes
+     */
+    @Query("select entry.entityId from SearchOutboxEntry entry where entry.entityType = :entityType and entry.entityId in :entityIds")
+    List<Long> findPendingEntityIds(@Param("entityType") String entityType, @Param("entityIds") Collection<Long> entityIds);
+
+    @Modifying
+    @Query("delete from SearchOutboxEntry entry where entry.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
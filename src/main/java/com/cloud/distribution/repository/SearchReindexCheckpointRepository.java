@@ -0,0 +1,64 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC repository for the checkpoints of the search reindex jobs: the id below which all the entities of an
+ * unfinished job are indexed.
+ */
+@Repository
+public class SearchReindexCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SearchReindexCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param entityName the name of an indexed entity
+     * @return the id from which its unfinished reindex job resumes, empty if there is none
+     */
+    public Optional<Long> findNextId(String entityName) {
+        List<Long> nextIds = jdbcTemplate.queryForList(
+            "select next_id from search_reindex_checkpoint where entity_name = ?", Long.class, entityName);
+        return nextIds.stream().findFirst();
+    }
+
+    /**
+     * Record the progress of a reindex job.
+     *
+     * @param entityName the name of the indexed entity
+     * @param nextId the id below which all the entities are indexed
+     */
+    public void save(String entityName, long nextId) {
+        Timestamp now = Timestamp.from(Instant.now());
+        if (jdbcTemplate.update("update search_reindex_checkpoint set next_id = ?, updated_date = ? where entity_name = ?",
+                nextId, now, entityName) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("insert into search_reindex_checkpoint (entity_name, next_id, updated_date) values (?, ?, ?)",
+                entityName, nextId, now);
+        } catch (DuplicateKeyException e) {
+            jdbcTemplate.update("update search_reindex_checkpoint set next_id = ?, updated_date = ? where entity_name = ?",
+                nextId, now, entityName);
+        }
+    }
+
+    /**
+     * Remove the checkpoint of a completed reindex job.
+     *
+     * @param entityName the name of the indexed entity
+     */
+    public void delete(String entityName) {
+        jdbcTemplate.update("delete from search_reindex_checkpoint where entity_name = ?", entityName);
+    }
+}
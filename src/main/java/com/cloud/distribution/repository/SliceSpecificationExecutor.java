@@ -0,0 +1,24 @@
+package com.cloud.distribution.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.repository.NoRepositoryBean;
+
+/**
+ * Specification executor returning {@link Slice}s, for listings which do not need the total count.
+ * <p>
+ * Implemented by {@link SliceableJpaRepository}, the base class of all the Spring Data JPA repositories.
+ */
+@NoRepositoryBean
+public interface SliceSpecificationExecutor<T> {
+
+    /**
+     * Returns a {@link Slice} of entities matching the given {@link Specification}, without executing a count query.
+     *
+     * @param spec the specification to match, can be {@literal null}
+     * @param pageable the requested page, with its sort
+     * @return the requested slice, which knows if a next slice exists
+     */
+    Slice<T> findSlice(Specification<T> spec, Pageable pageable);
+}
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.*;
  */
 @SuppressWarnings("unused")
 @Repository
-public interface StatusRepository extends JpaRepository<Status, Long>, JpaSpecificationExecutor<Status> {
+public interface StatusRepository extends JpaRepository<Status, Long>, JpaSpecificationExecutor<Status>,
+    SliceSpecificationExecutor<Status> {
 
 }
@@ -0,0 +1,57 @@
+package com.cloud.distribution.repository.search;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.elasticsearch.core.query.NativeSearchQueryBuilder;
+import org.springframework.data.elasticsearch.core.query.SearchQuery;
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Utility class for reading the results of a search by cursor.
+ * <p>
+ * Elasticsearch 2 has no search_after: each slice is instead the first page of the query restricted to the ids
+ * above the cursor, sorted by id, which is equivalent and costs the same whatever the depth, unlike from/size paging
+ * which is also bounded by the index.max_result_window.
+ */
+public final class SearchAfterUtil {
+
+    private SearchAfterUtil() {
+    }
+
+    /**
+     * Read a slice of the results of a query string search.
+     *
+     * @param repository the search repository of the entity
+     * @param query the query string
+     * @param afterId the id of the last entity of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the entities matching the query whose ids follow afterId, sorted by id
+     */
+    public static <T> Slice<T> searchAfter(ElasticsearchRepository<T, Long> repository, String query, Long afterId,
+            int size) {
+        BoolQueryBuilder boolQuery = QueryBuilders.boolQuery().must(QueryBuilders.queryStringQuery(query));
+        if (afterId != null) {
+            boolQuery.filter(QueryBuilders.rangeQuery("id").gt(afterId));
+        }
+        // One more result tells whether there is a next slice
+        SearchQuery searchQuery = new NativeSearchQueryBuilder()
+            .withQuery(boolQuery)
+            .withSort(SortBuilders.fieldSort("id").order(SortOrder.ASC))
+            .withPageable(new PageRequest(0, size + 1))
+            .build();
+        List<T> content = new ArrayList<>(repository.search(searchQuery).getContent());
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, new PageRequest(0, size), hasNext);
+    }
+}
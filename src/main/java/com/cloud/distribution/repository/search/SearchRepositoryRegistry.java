@@ -0,0 +1,41 @@
+package com.cloud.distribution.repository.search;
+
+import org.springframework.data.elasticsearch.repository.ElasticsearchRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Lookup of the Spring Data Elasticsearch repositories by entity class or entity name.
+ */
+@Component
+public class SearchRepositoryRegistry {
+
+    private final Map<Class<?>, ElasticsearchRepository<?, Long>> repositoriesByClass = new HashMap<>();
+
+    private final Map<String, Class<?>> entityClassesByName = new TreeMap<>();
+
+    public SearchRepositoryRegistry(List<ElasticsearchRepository<?, Long>> repositories) {
+        for (ElasticsearchRepository<?, Long> repository : repositories) {
+            repositoriesByClass.put(repository.getEntityClass(), repository);
+            entityClassesByName.put(repository.getEntityClass().getSimpleName(), repository.getEntityClass());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> ElasticsearchRepository<T, Long> getRepository(Class<T> entityClass) {
+        return (ElasticsearchRepository<T, Long>) repositoriesByClass.get(entityClass);
+    }
+
+    /**
+     * @param entityName the simple class name of the entity, for example "Order"
+     * @return the entity class, or null if the entity is not indexed
+     */
+    public Class<?> getEntityClass(String entityName) {
+        return entityClassesByName.get(entityName);
+    }
+
+    public Set<String> getEntityNames() {
+        return Collections.unmodifiableSet(entityClassesByName.keySet());
+    }
+}
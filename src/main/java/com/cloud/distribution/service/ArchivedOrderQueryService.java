@@ -0,0 +1,140 @@
+package com.cloud.distribution.service;
+
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.jhipster.service.QueryService;
+
+import com.cloud.distribution.domain.ArchivedOrder;
+import com.cloud.distribution.domain.*; // for static metamodels
+import com.cloud.distribution.repository.ArchivedOrderRepository;
+import com.cloud.distribution.service.dto.KeysetCursor;
+import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.OrderDTO;
+
+/**
+ * Service for executing complex queries for archived orders in the database.
+ * The main input is a {@link OrderCriteria}, applied as for the hot orders by {@link OrderQueryService},
+ * which is the entry point: it only reads the archive when the created date range of the criteria reaches it.
+ * Archived orders are only read from the database, they are not searchable.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ArchivedOrderQueryService extends QueryService<ArchivedOrder> {
+
+    private final Logger log = LoggerFactory.getLogger(ArchivedOrderQueryService.class);
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+
+    public ArchivedOrderQueryService(ArchivedOrderRepository archivedOrderRepository) {
+        this.archivedOrderRepository = archivedOrderRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderDTO findOne(Long id) {
+        log.debug("find archived Order : {}", id);
+        return archivedOrderRepository.findOneProjected(id);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderDTO> findByCriteria(OrderCriteria criteria) {
+        log.debug("find archived by criteria : {}", criteria);
+        return archivedOrderRepository.findAllProjected(createSpecification(criteria));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> findByCriteria(OrderCriteria criteria, Pageable page) {
+        log.debug("find archived by criteria : {}, page: {}", criteria, page);
+        return archivedOrderRepository.findAllProjected(createSpecification(criteria), page);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<OrderDTO> findSliceByCriteria(OrderCriteria criteria, Pageable page) {
+        log.debug("find archived slice by criteria : {}, page: {}", criteria, page);
+        return archivedOrderRepository.findSliceProjected(createSpecification(criteria), page);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamByCriteria(OrderCriteria criteria, int fetchSize, Consumer<OrderDTO> action) {
+        log.debug("stream archived by criteria : {}", criteria);
+        archivedOrderRepository.forEachProjected(createSpecification(criteria), fetchSize, action);
+    }
+
+    /**
+     * Keyset slice of archived orders, see {@link OrderQueryService#findByCriteria(OrderCriteria, KeysetCursor, int)}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderDTO> findByCriteria(OrderCriteria criteria, KeysetCursor after, int size) {
+        log.debug("find archived by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specifications<ArchivedOrder> specification = createSpecification(criteria).and(seekAfter(after));
+        final Pageable page = new PageRequest(0, size, new Sort(Sort.Direction.DESC, "createdDate", "id"));
+        return archivedOrderRepository.findSliceProjected(specification, page);
+    }
+
+    private Specification<ArchivedOrder> seekAfter(KeysetCursor after) {
+        return (root, query, cb) -> {
+            if (after == null) {
+                return cb.isNotNull(root.get(ArchivedOrder_.createdDate));
+            }
+            return cb.or(
+                cb.lessThan(root.get(ArchivedOrder_.createdDate), after.getDate()),
+                cb.and(
+                    cb.equal(root.get(ArchivedOrder_.createdDate), after.getDate()),
+                    cb.lessThan(root.get(ArchivedOrder_.id), after.getId())));
+        };
+    }
+
+    /**
+     * Function to convert OrderCriteria to a {@link Specifications} of archived orders
+     */
+    private Specifications<ArchivedOrder> createSpecification(OrderCriteria criteria) {
+        Specifications<ArchivedOrder> specification = Specifications.where(null);
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                specification = specification.and(buildSpecification(criteria.getId(), ArchivedOrder_.id));
+            }
+            if (criteria.getName() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getName(), ArchivedOrder_.name));
+            }
+            if (criteria.getCode() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getCode(), ArchivedOrder_.code));
+            }
+            if (criteria.getAmount() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getAmount(), ArchivedOrder_.amount));
+            }
+            if (criteria.getCreatedDate() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getCreatedDate(), ArchivedOrder_.createdDate));
+            }
+            if (criteria.getUserId() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getUserId(), ArchivedOrder_.userId));
+            }
+            if (criteria.getPayTypeId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getPayTypeId(), ArchivedOrder_.payType, PayType_.id));
+            }
+            if (criteria.getOrderTypeId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getOrderTypeId(), ArchivedOrder_.orderType, OrderType_.id));
+            }
+            if (criteria.getOrderStatusId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getOrderStatusId(), ArchivedOrder_.orderStatus, OrderStatus_.id));
+            }
+            if (criteria.getProductId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getProductId(), ArchivedOrder_.product, Product_.id));
+            }
+        }
+        return specification;
+    }
+
+}
@@ -0,0 +1,132 @@
+package com.cloud.distribution.service;
+
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import io.github.jhipster.service.QueryService;
+
+import com.cloud.distribution.domain.ArchivedOrderStatusHistory;
+import com.cloud.distribution.domain.*; // for static metamodels
+import com.cloud.distribution.repository.ArchivedOrderStatusHistoryRepository;
+import com.cloud.distribution.service.dto.KeysetCursor;
+import com.cloud.distribution.service.dto.OrderStatusHistoryCriteria;
+import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+import com.cloud.distribution.service.mapper.ArchivedOrderStatusHistoryMapper;
+
+/**
+ * Service for executing complex queries for archived order status histories in the database.
+ * The main input is a {@link OrderStatusHistoryCriteria}, applied as for the hot histories by
+ * {@link OrderStatusHistoryQueryService}, which is the entry point: it only reads the archive when the criteria reach it.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ArchivedOrderStatusHistoryQueryService extends QueryService<ArchivedOrderStatusHistory> {
+
+    private final Logger log = LoggerFactory.getLogger(ArchivedOrderStatusHistoryQueryService.class);
+
+    private final ArchivedOrderStatusHistoryRepository archivedOrderStatusHistoryRepository;
+
+    private final ArchivedOrderStatusHistoryMapper archivedOrderStatusHistoryMapper;
+
+    public ArchivedOrderStatusHistoryQueryService(ArchivedOrderStatusHistoryRepository archivedOrderStatusHistoryRepository,
+            ArchivedOrderStatusHistoryMapper archivedOrderStatusHistoryMapper) {
+        this.archivedOrderStatusHistoryRepository = archivedOrderStatusHistoryRepository;
+        this.archivedOrderStatusHistoryMapper = archivedOrderStatusHistoryMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public OrderStatusHistoryDTO findOne(Long id) {
+        log.debug("find archived OrderStatusHistory : {}", id);
+        ArchivedOrderStatusHistory history = archivedOrderStatusHistoryRepository.findOne(id);
+        return history == null ? null : archivedOrderStatusHistoryMapper.toDto(history);
+    }
+
+    @Transactional(readOnly = true)
+    public List<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria) {
+        log.debug("find archived by criteria : {}", criteria);
+        return archivedOrderStatusHistoryMapper.toDto(archivedOrderStatusHistoryRepository.findAll(createSpecification(criteria)));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria, Pageable page) {
+        log.debug("find archived by criteria : {}, page: {}", criteria, page);
+        return archivedOrderStatusHistoryRepository.findAll(createSpecification(criteria), page)
+            .map(archivedOrderStatusHistoryMapper::toDto);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusHistoryDTO> findSliceByCriteria(OrderStatusHistoryCriteria criteria, Pageable page) {
+        log.debug("find archived slice by criteria : {}, page: {}", criteria, page);
+        return archivedOrderStatusHistoryRepository.findSlice(createSpecification(criteria), page)
+            .map(archivedOrderStatusHistoryMapper::toDto);
+    }
+
+    /**
+     * Keyset slice of archived histories, see
+     * {@link OrderStatusHistoryQueryService#findByCriteria(OrderStatusHistoryCriteria, KeysetCursor, int)}.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria, KeysetCursor after, int size) {
+        log.debug("find archived by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specifications<ArchivedOrderStatusHistory> specification = createSpecification(criteria).and(seekAfter(after));
+        final Pageable page = new PageRequest(0, size, new Sort(Sort.Direction.DESC, "modifiedTime", "id"));
+        return archivedOrderStatusHistoryRepository.findSlice(specification, page).map(archivedOrderStatusHistoryMapper::toDto);
+    }
+
+    private Specification<ArchivedOrderStatusHistory> seekAfter(KeysetCursor after) {
+        return (root, query, cb) -> {
+            if (after == null) {
+                return cb.isNotNull(root.get(ArchivedOrderStatusHistory_.modifiedTime));
+            }
+            return cb.or(
+                cb.lessThan(root.get(ArchivedOrderStatusHistory_.modifiedTime), after.getDate()),
+                cb.and(
+                    cb.equal(root.get(ArchivedOrderStatusHistory_.modifiedTime), after.getDate()),
+                    cb.lessThan(root.get(ArchivedOrderStatusHistory_.id), after.getId())));
+        };
+    }
+
+    /**
+     * Function to convert OrderStatusHistoryCriteria to a {@link Specifications} of archived histories
+     */
+    private Specifications<ArchivedOrderStatusHistory> createSpecification(OrderStatusHistoryCriteria criteria) {
+        Specifications<ArchivedOrderStatusHistory> specification = Specifications.where(null);
+        if (criteria != null) {
+            if (criteria.getId() != null) {
+                specification = specification.and(buildSpecification(criteria.getId(), ArchivedOrderStatusHistory_.id));
+            }
+            if (criteria.getModifiedTime() != null) {
+                specification = specification.and(buildRangeSpecification(criteria.getModifiedTime(), ArchivedOrderStatusHistory_.modifiedTime));
+            }
+            if (criteria.getOperatorCode() != null) {
+                specification = specification.and(buildStringSpecification(criteria.getOperatorCode(), ArchivedOrderStatusHistory_.operatorCode));
+            }
+            if (criteria.getOperatorTypeId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getOperatorTypeId(), ArchivedOrderStatusHistory_.operatorType, OperatorType_.id));
+            }
+            if (criteria.getOrderId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getOrderId(), ArchivedOrderStatusHistory_.order, ArchivedOrder_.id));
+            }
+            if (criteria.getOldStatusId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getOldStatusId(), ArchivedOrderStatusHistory_.oldStatus, OrderStatus_.id));
+            }
+            if (criteria.getNewStatusId() != null) {
+                specification = specification.and(buildReferringEntitySpecification(criteria.getNewStatusId(), ArchivedOrderStatusHistory_.newStatus, OrderStatus_.id));
+            }
+        }
+        return specification;
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.repository.CommissionLedgerRepository;
+import com.cloud.distribution.service.dto.CommissionRule;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Back-fills the commission ledger of the orders completed over a range of days, in both order tiers.
+ * <p>
+ * The completed orders are read by keyset pages of {@code application.commission.chunk-size} orders; each page is
+ * a chunk handed to a pool of {@code application.commission.threads} workers, which replace the ledger rows of its
+ * orders in their own transaction. At most two chunks per worker are read ahead. A chunk which fails is logged and
+ * counted, the job goes on: as ledger rows are replaced, the job can simply be run again over the same days.
+ */
+@Service
+public class CommissionBackfillJob {
+
+    private static final String[] ORDER_TABLES = {"jhi_order", "jhi_order_archive"};
+
+    private final Logger log = LoggerFactory.getLogger(CommissionBackfillJob.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final CommissionService commissionService;
+
+    private final CommissionLedgerRepository commissionLedgerRepository;
+
+    private final OrderCompletionService orderCompletionService;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Timer chunkTimer;
+
+    private final Counter failureCounter;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public CommissionBackfillJob(NamedParameterJdbcTemplate jdbcTemplate, CommissionService commissionService,
+            CommissionLedgerRepository commissionLedgerRepository, OrderCompletionService orderCompletionService,
+            @Qualifier("taskExecutor") Executor taskExecutor, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.commissionService = commissionService;
+        this.commissionLedgerRepository = commissionLedgerRepository;
+        this.orderCompletionService = orderCompletionService;
+        this.taskExecutor = taskExecutor;
+        this.applicationProperties = applicationProperties;
+        this.chunkTimer = metricRegistry.timer("commission.backfill.chunk");
+        this.failureCounter = metricRegistry.counter("commission.backfill.failures");
+    }
+
+    /**
+     * Start a back-fill in the background.
+     *
+     * @param from the first day of the orders, inclusive
+     * @param to the last day of the orders, inclusive
+     * @throws ConcurrencyFailureException if a back-fill is already running
+     */
+    public void start(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ConcurrencyFailureException("A commission back-fill is already running");
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    backfill(from, to);
+                } catch (RuntimeException e) {
+                    log.error("Commission back-fill from {} to {} failed", from, to, e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether a back-fill is running
+     */
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Back-fill the commissions of the orders completed over a range of days, and wait for the end of the job.
+     *
+     * @param from the first day of the orders, inclusive
+     * @param to the last day of the orders, inclusive
+     * @return the number of orders processed
+     */
+    public long backfill(LocalDate from, LocalDate to) {
+        ApplicationProperties.Commission properties = applicationProperties.getCommission();
+        List<Long> statusIds = jdbcTemplate.getJdbcOperations().queryForList(
+            "select id from order_status where code = ?", Long.class, orderCompletionService.getCompletedStatusCode());
+        List<CommissionRule> rules = commissionLedgerRepository.findRules();
+        if (statusIds.isEmpty() || rules.isEmpty()) {
+            log.info("No completed order status or no commission rule, nothing to back-fill");
+            return 0;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+            .addValue("statusIds", statusIds)
+            .addValue("from", Timestamp.from(from.atStartOfDay(ZoneId.systemDefault()).toInstant()))
+            .addValue("to", Timestamp.from(to.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant()))
+            .addValue("limit", properties.getChunkSize());
+
+        int threads = Math.max(1, properties.getThreads());
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Semaphore readAhead = new Semaphore(threads * 2);
+        AtomicLong processed = new AtomicLong();
+        long start = System.nanoTime();
+        try {
+            for (String table : ORDER_TABLES) {
+                long lastId = 0;
+                List<OrderDTO> chunk;
+                do {
+                    chunk = jdbcTemplate.query("select id, user_id, amount, created_date from " + table +
+                            " where order_status_id in (:statusIds) and created_date >= :from and created_date < :to" +
+                            " and id > :lastId order by id limit :limit",
+                        parameters.addValue("lastId", lastId), (rs, rowNum) -> {
+                            OrderDTO order = new OrderDTO();
+                            order.setId(rs.getLong(1));
+                            order.setUserId(rs.getObject(2) == null ? null : rs.getLong(2));
+                            order.setAmount(rs.getLong(3));
+                            Timestamp createdDate = rs.getTimestamp(4);
+                            order.setCreatedDate(createdDate == null ? null
+                                : createdDate.toInstant().atZone(ZoneId.systemDefault()));
+                            return order;
+                        });
+                    if (!chunk.isEmpty()) {
+                        lastId = chunk.get(chunk.size() - 1).getId();
+                        readAhead.acquireUninterruptibly();
+                        List<OrderDTO> orders = chunk;
+                        workers.execute(() -> {
+                            try {
+                                process(orders, rules);
+                                processed.addAndGet(orders.size());
+                            } finally {
+                                readAhead.release();
+                            }
+                        });
+                    }
+                } while (chunk.size() == properties.getChunkSize());
+            }
+        } finally {
+            workers.shutdown();
+            awaitTermination(workers);
+        }
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        log.info("Back-filled the commissions of {} orders from {} to {} in {} ms ({} orders/s)", processed.get(),
+            from, to, duration.toMillis(), processed.get() * 1000 / Math.max(1, duration.toMillis()));
+        return processed.get();
+    }
+
+    private void process(List<OrderDTO> orders, List<CommissionRule> rules) {
+        try (Timer.Context ignored = chunkTimer.time()) {
+            commissionService.replace(orders, rules);
+        } catch (RuntimeException e) {
+            failureCounter.inc();
+            log.warn("Could not back-fill the commissions of orders {} to {}: {}", orders.get(0).getId(),
+                orders.get(orders.size() - 1).getId(), e.getMessage());
+        }
+    }
+
+    private void awaitTermination(ExecutorService workers) {
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.debug("Waiting for the commission back-fill workers");
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
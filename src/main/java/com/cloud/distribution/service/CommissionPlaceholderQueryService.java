@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,7 +27,7 @@ import com.cloud.distribution.service.mapper.CommissionPlaceholderMapper;
  * Service for executing complex queries for CommissionPlaceholder entities in the database.
  * The main input is a {@link CommissionPlaceholderCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link CommissionPlaceholderDTO} or a {@link Page} of {@link CommissionPlaceholderDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link CommissionPlaceholderDTO}, a {@link Page} or a {@link Slice} of {@link CommissionPlaceholderDTO} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
@@ -73,6 +74,19 @@ public class CommissionPlaceholderQueryService extends QueryService<CommissionPl
         return result.map(commissionPlaceholderMapper::toDto);
     }
 
+    /**
+     * Return a {@link Slice} of {@link CommissionPlaceholderDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<CommissionPlaceholderDTO> findSliceByCriteria(CommissionPlaceholderCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<CommissionPlaceholder> specification = createSpecification(criteria);
+        return commissionPlaceholderRepository.findSlice(specification, page).map(commissionPlaceholderMapper::toDto);
+    }
+
     /**
      * Function to convert CommissionPlaceholderCriteria to a {@link Specifications}
      */
@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.CommissionPlaceholder;
 import com.cloud.distribution.repository.CommissionPlaceholderRepository;
 import com.cloud.distribution.repository.search.CommissionPlaceholderSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.CommissionPlaceholderDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.CommissionPlaceholderMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,13 @@ public class CommissionPlaceholderService {
 
     private final CommissionPlaceholderSearchRepository commissionPlaceholderSearchRepository;
 
-    public CommissionPlaceholderService(CommissionPlaceholderRepository commissionPlaceholderRepository, CommissionPlaceholderMapper commissionPlaceholderMapper, CommissionPlaceholderSearchRepository commissionPlaceholderSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    public CommissionPlaceholderService(CommissionPlaceholderRepository commissionPlaceholderRepository, CommissionPlaceholderMapper commissionPlaceholderMapper, CommissionPlaceholderSearchRepository commissionPlaceholderSearchRepository, SearchOutboxService searchOutboxService) {
         this.commissionPlaceholderRepository = commissionPlaceholderRepository;
         this.commissionPlaceholderMapper = commissionPlaceholderMapper;
         this.commissionPlaceholderSearchRepository = commissionPlaceholderSearchRepository;
+        this.searchOutboxService = searchOutboxService;
     }
 
     /**
@@ -47,7 +53,7 @@ public class CommissionPlaceholderService {
         CommissionPlaceholder commissionPlaceholder = commissionPlaceholderMapper.toEntity(commissionPlaceholderDTO);
         commissionPlaceholder = commissionPlaceholderRepository.save(commissionPlaceholder);
         CommissionPlaceholderDTO result = commissionPlaceholderMapper.toDto(commissionPlaceholder);
-        commissionPlaceholderSearchRepository.save(commissionPlaceholder);
+        searchOutboxService.scheduleIndex(CommissionPlaceholder.class, commissionPlaceholder.getId());
         return result;
     }
 
@@ -85,7 +91,7 @@ public class CommissionPlaceholderService {
     public void delete(Long id) {
         log.debug("Request to delete CommissionPlaceholder : {}", id);
         commissionPlaceholderRepository.delete(id);
-        commissionPlaceholderSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(CommissionPlaceholder.class, id);
     }
 
     /**
@@ -101,4 +107,19 @@ public class CommissionPlaceholderService {
         Page<CommissionPlaceholder> result = commissionPlaceholderSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(commissionPlaceholderMapper::toDto);
     }
+
+    /**
+     * Search for the commissionPlaceholder corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<CommissionPlaceholderDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of CommissionPlaceholders for query {} after {}", query, after);
+        Slice<CommissionPlaceholder> result = SearchAfterUtil.searchAfter(commissionPlaceholderSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(commissionPlaceholderMapper::toDto);
+    }
 }
@@ -0,0 +1,147 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.repository.CommissionLedgerRepository;
+import com.cloud.distribution.service.dto.CommissionDTO;
+import com.cloud.distribution.service.dto.CommissionRule;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.event.OrderChangedEvent;
+import com.cloud.distribution.service.event.OrdersCreatedEvent;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Service computing the multi-level commissions of the orders, and writing them to the commission ledger.
+ * <p>
+ * The buyer of an order is resolved to its merchant, whose ancestors are walked in the {@link MerchantTreeIndex}:
+ * the ancestor at level N (1 for the parent) is paid, for each commission placeholder with a rule at level N, the
+ * rate of the rule on the order amount. Only the completed orders, as told by the {@link OrderCompletionService},
+ * earn commissions.
+ * <p>
+ * The ledger follows the order events, in the transaction which changes the orders: it is written when an order is
+ * completed, rewritten when a completed order is updated, and cleared when the order leaves the completed status or
+ * is deleted. Orders completed before the engine existed are handled by the {@link CommissionBackfillJob}.
+ */
+@Service
+@Transactional
+public class CommissionService {
+
+    private final Logger log = LoggerFactory.getLogger(CommissionService.class);
+
+    private final CommissionLedgerRepository commissionLedgerRepository;
+
+    private final OrderCompletionService orderCompletionService;
+
+    private final MerchantTreeIndex merchantTreeIndex;
+
+    private final Meter ordersMeter;
+
+    private final Meter rowsMeter;
+
+    public CommissionService(CommissionLedgerRepository commissionLedgerRepository,
+            OrderCompletionService orderCompletionService, MerchantTreeIndex merchantTreeIndex,
+            MetricRegistry metricRegistry) {
+        this.commissionLedgerRepository = commissionLedgerRepository;
+        this.orderCompletionService = orderCompletionService;
+        this.merchantTreeIndex = merchantTreeIndex;
+        this.ordersMeter = metricRegistry.meter("commission.orders");
+        this.rowsMeter = metricRegistry.meter("commission.ledger.rows");
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderChanged(OrderChangedEvent event) {
+        OrderDTO before = event.getBefore();
+        OrderDTO after = event.getAfter();
+        boolean wasCompleted = orderCompletionService.isCompleted(before);
+        if (orderCompletionService.isCompleted(after)) {
+            if (!wasCompleted || !Objects.equals(before.getUserId(), after.getUserId())
+                    || !Objects.equals(before.getAmount(), after.getAmount())) {
+                log.debug("Request to compute the commissions of {}", after);
+                replace(Collections.singletonList(after), commissionLedgerRepository.findRules());
+            }
+        } else if (wasCompleted) {
+            log.debug("Request to cancel the commissions of {}", before);
+            commissionLedgerRepository.deleteByOrderIds(Collections.singletonList(before.getId()));
+        }
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        List<OrderDTO> completed = event.getOrders().stream()
+            .filter(orderCompletionService::isCompleted)
+            .collect(Collectors.toList());
+        if (!completed.isEmpty()) {
+            log.debug("Request to compute the commissions of {} orders", completed.size());
+            replace(completed, commissionLedgerRepository.findRules());
+        }
+    }
+
+    /**
+     * Compute the commissions of completed orders, replacing their ledger rows.
+     *
+     * @param orders the orders, with their id, user id, amount and created date
+     * @param rules the commission rules, ordered by level
+     * @return the number of ledger rows written
+     */
+    public int replace(List<OrderDTO> orders, List<CommissionRule> rules) {
+        List<Long> orderIds = orders.stream().map(OrderDTO::getId).collect(Collectors.toList());
+        commissionLedgerRepository.deleteByOrderIds(orderIds);
+        int maxLevel = rules.isEmpty() ? 0 : rules.get(rules.size() - 1).getLevel();
+        long[] ancestorIds = new long[maxLevel];
+        List<CommissionDTO> commissions = new ArrayList<>();
+        for (OrderDTO order : orders) {
+            calculate(order, rules, ancestorIds, commissions);
+        }
+        commissionLedgerRepository.insert(commissions);
+        ordersMeter.mark(orders.size());
+        rowsMeter.mark(commissions.size());
+        return commissions.size();
+    }
+
+    /**
+     * Get the commissions paid for an order.
+     *
+     * @param orderId the id of the order
+     * @return the ledger rows of the order
+     */
+    @Transactional(readOnly = true)
+    public List<CommissionDTO> findByOrder(Long orderId) {
+        log.debug("Request to get the commissions of Order : {}", orderId);
+        return commissionLedgerRepository.findByOrderId(orderId);
+    }
+
+    private void calculate(OrderDTO order, List<CommissionRule> rules, long[] ancestorIds,
+            List<CommissionDTO> commissions) {
+        if (order.getUserId() == null || order.getCreatedDate() == null || ancestorIds.length == 0) {
+            return;
+        }
+        long merchantId = merchantTreeIndex.merchantOfUser(order.getUserId());
+        if (merchantId == 0) {
+            return;
+        }
+        int count = merchantTreeIndex.ancestors(merchantId, ancestorIds);
+        long orderAmount = order.getAmount() == null ? 0 : order.getAmount();
+        for (CommissionRule rule : rules) {
+            if (rule.getLevel() > count) {
+                break;
+            }
+            if (rule.getLevel() > 0) {
+                commissions.add(new CommissionDTO(order.getId(), ancestorIds[rule.getLevel() - 1], rule.getLevel(),
+                    rule.getPlaceholderCode(), orderAmount, rule.apply(orderAmount), order.getCreatedDate()));
+            }
+        }
+    }
+}
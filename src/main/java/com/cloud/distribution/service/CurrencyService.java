@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.Currency;
 import com.cloud.distribution.repository.CurrencyRepository;
 import com.cloud.distribution.repository.search.CurrencySearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.CurrencyDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.CurrencyMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class CurrencyService {
 
     private final CurrencySearchRepository currencySearchRepository;
 
-    public CurrencyService(CurrencyRepository currencyRepository, CurrencyMapper currencyMapper, CurrencySearchRepository currencySearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public CurrencyService(CurrencyRepository currencyRepository, CurrencyMapper currencyMapper, CurrencySearchRepository currencySearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.currencyRepository = currencyRepository;
         this.currencyMapper = currencyMapper;
         this.currencySearchRepository = currencySearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class CurrencyService {
         Currency currency = currencyMapper.toEntity(currencyDTO);
         currency = currencyRepository.save(currency);
         CurrencyDTO result = currencyMapper.toDto(currency);
-        currencySearchRepository.save(currency);
+        searchOutboxService.scheduleIndex(Currency.class, currency.getId());
+        lookupRegistry.publishAfterCommit(Currency.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class CurrencyService {
     public void delete(Long id) {
         log.debug("Request to delete Currency : {}", id);
         currencyRepository.delete(id);
-        currencySearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(Currency.class, id);
+        lookupRegistry.publishAfterCommit(Currency.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class CurrencyService {
         Page<Currency> result = currencySearchRepository.search(queryStringQuery(query), pageable);
         return result.map(currencyMapper::toDto);
     }
+
+    /**
+     * Search for the currency corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<CurrencyDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of Currencies for query {} after {}", query, after);
+        Slice<Currency> result = SearchAfterUtil.searchAfter(currencySearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(currencyMapper::toDto);
+    }
 }
@@ -0,0 +1,233 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.repository.DownlineSalesRepository;
+import com.cloud.distribution.service.dto.DownlineStatsDTO;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.event.OrderChangedEvent;
+import com.cloud.distribution.service.event.OrdersCreatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Service maintaining the downline sales of the merchants: the completed orders of the users of their subtree, per
+ * day, and answering the team sales from them.
+ * <p>
+ * The aggregates follow the order events, in the transaction which changes the orders, as the sales rollups do.
+ * They also follow the hierarchy, through the {@link MerchantHierarchyService}: the sales of a moved subtree, which
+ * are the rows of its root, are subtracted from its old ancestors and added to the new ones.
+ * <p>
+ * The increments of a transaction are summed per merchant and day, then applied sorted by merchant id and day, so
+ * that concurrent transactions lock the rows they share in the same order and cannot deadlock. Every completed order
+ * still increments the row of the day of the root of its hierarchy: the transactions completing orders of the same
+ * day in the same hierarchy are serialized on that row, until they commit.
+ */
+@Service
+@Transactional
+public class DownlineSalesService {
+
+    private final Logger log = LoggerFactory.getLogger(DownlineSalesService.class);
+
+    private final DownlineSalesRepository downlineSalesRepository;
+
+    private final OrderCompletionService orderCompletionService;
+
+    public DownlineSalesService(DownlineSalesRepository downlineSalesRepository,
+            OrderCompletionService orderCompletionService) {
+        this.downlineSalesRepository = downlineSalesRepository;
+        this.orderCompletionService = orderCompletionService;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderChanged(OrderChangedEvent event) {
+        Map<SalesKey, long[]> deltas = new TreeMap<>();
+        Map<Long, List<Long>> lineages = new HashMap<>();
+        addDelta(deltas, lineages, event.getBefore(), -1);
+        addDelta(deltas, lineages, event.getAfter(), 1);
+        apply(deltas);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        Map<SalesKey, long[]> deltas = new TreeMap<>();
+        Map<Long, List<Long>> lineages = new HashMap<>();
+        event.getOrders().forEach(order -> addDelta(deltas, lineages, order, 1));
+        apply(deltas);
+    }
+
+    /**
+     * Count the existing orders of a new merchant, once added to the closure.
+     *
+     * @param merchantId the id of the merchant
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void merchantAdded(Long merchantId) {
+        addOwnOrders(merchantId, 1);
+    }
+
+    /**
+     * Remove the orders of a merchant from its ancestors, before it is deleted.
+     *
+     * @param merchantId the id of the merchant, which has no children
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void merchantRemoved(Long merchantId) {
+        addOwnOrders(merchantId, -1);
+        downlineSalesRepository.deleteByMerchant(merchantId);
+    }
+
+    /**
+     * Remove the sales of a subtree from its ancestors, before it is moved.
+     *
+     * @param merchantId the id of the merchant at the root of the subtree
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subtreeDetached(Long merchantId) {
+        addSubtreeSales(merchantId, -1);
+    }
+
+    /**
+     * Add the sales of a subtree to its ancestors, once it is moved.
+     *
+     * @param merchantId the id of the merchant at the root of the subtree
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void subtreeAttached(Long merchantId) {
+        addSubtreeSales(merchantId, 1);
+    }
+
+    /**
+     * Get the sales of the subtree of a merchant over a range of days.
+     *
+     * @param merchantId the id of the merchant
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the statistics
+     */
+    @Transactional(readOnly = true)
+    public DownlineStatsDTO getStats(Long merchantId, LocalDate from, LocalDate to) {
+        log.debug("Request to get the downline stats of Merchant : {} from {} to {}", merchantId, from, to);
+        List<DownlineStatsDTO.Day> days = downlineSalesRepository.findByMerchant(merchantId, from, to);
+        DownlineStatsDTO stats = new DownlineStatsDTO();
+        stats.setMerchantId(merchantId);
+        stats.setFrom(from);
+        stats.setTo(to);
+        stats.setOrderCount(days.stream().mapToLong(DownlineStatsDTO.Day::getOrderCount).sum());
+        stats.setAmountSum(days.stream().mapToLong(DownlineStatsDTO.Day::getAmountSum).sum());
+        stats.setDays(days);
+        return stats;
+    }
+
+    /**
+     * Compute the downline sales from the orders when they are empty, as after their creation on an existing
+     * database. The merchant closure must be built.
+     */
+    public void rebuildIfNeeded() {
+        if (downlineSalesRepository.needsRebuild()) {
+            log.info("Building the downline sales");
+            int rows = downlineSalesRepository.rebuild(orderCompletionService.getCompletedStatusCode());
+            log.info("Built the downline sales, {} rows", rows);
+        }
+    }
+
+    private void addOwnOrders(Long merchantId, int sign) {
+        List<DownlineStatsDTO.Day> days =
+            downlineSalesRepository.sumOwnOrders(merchantId, orderCompletionService.getCompletedStatusCode());
+        if (!days.isEmpty()) {
+            addDays(downlineSalesRepository.findLineage(merchantId, 0), days, sign);
+        }
+    }
+
+    private void addSubtreeSales(Long merchantId, int sign) {
+        List<DownlineStatsDTO.Day> days = downlineSalesRepository.findByMerchant(merchantId);
+        if (!days.isEmpty()) {
+            addDays(downlineSalesRepository.findLineage(merchantId, 1), days, sign);
+        }
+    }
+
+    private void addDays(List<Long> merchantIds, List<DownlineStatsDTO.Day> days, int sign) {
+        Map<SalesKey, long[]> deltas = new TreeMap<>();
+        days.forEach(day -> addDelta(deltas, merchantIds, day.getDate(), sign * day.getOrderCount(),
+            sign * day.getAmountSum()));
+        apply(deltas);
+    }
+
+    private void addDelta(Map<SalesKey, long[]> deltas, Map<Long, List<Long>> lineages, OrderDTO order, int sign) {
+        if (order == null || order.getUserId() == null || order.getCreatedDate() == null
+                || !orderCompletionService.isCompleted(order)) {
+            return;
+        }
+        LocalDate day = order.getCreatedDate().withZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+        List<Long> lineage = lineages.computeIfAbsent(order.getUserId(), downlineSalesRepository::findLineageOfUser);
+        addDelta(deltas, lineage, day, sign, sign * (order.getAmount() == null ? 0 : order.getAmount()));
+    }
+
+    private void addDelta(Map<SalesKey, long[]> deltas, List<Long> merchantIds, LocalDate day, long orderCount,
+            long amountSum) {
+        for (Long merchantId : merchantIds) {
+            long[] delta = deltas.computeIfAbsent(new SalesKey(merchantId, day), k -> new long[2]);
+            delta[0] += orderCount;
+            delta[1] += amountSum;
+        }
+    }
+
+    private void apply(Map<SalesKey, long[]> deltas) {
+        deltas.forEach((key, delta) -> {
+            // An update which changes nothing in the aggregates leaves them untouched
+            if (delta[0] != 0 || delta[1] != 0) {
+                downlineSalesRepository.increment(key.merchantId, key.day, delta[0], delta[1]);
+            }
+        });
+    }
+
+    /**
+     * A row of the downline sales, ordered by merchant id and day.
+     */
+    private static final class SalesKey implements Comparable<SalesKey> {
+
+        private final long merchantId;
+
+        private final LocalDate day;
+
+        private SalesKey(long merchantId, LocalDate day) {
+            this.merchantId = merchantId;
+            this.day = day;
+        }
+
+        @Override
+        public int compareTo(SalesKey other) {
+            int result = Long.compare(merchantId, other.merchantId);
+            return result != 0 ? result : day.compareTo(other.day);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            SalesKey salesKey = (SalesKey) o;
+            return merchantId == salesKey.merchantId && day.equals(salesKey.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(merchantId, day);
+        }
+    }
+}
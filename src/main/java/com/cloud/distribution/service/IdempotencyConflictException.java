@@ -0,0 +1,13 @@
+package com.cloud.distribution.service;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Thrown when a request is received while another one with the same idempotency key is still being processed.
+ */
+public class IdempotencyConflictException extends ConcurrencyFailureException {
+
+    public IdempotencyConflictException(String idempotencyKey) {
+        super("A request with the idempotency key " + idempotencyKey + " is already in progress");
+    }
+}
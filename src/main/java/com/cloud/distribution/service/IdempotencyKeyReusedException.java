@@ -0,0 +1,13 @@
+package com.cloud.distribution.service;
+
+/**
+ * Thrown when a request is received with the idempotency key of another request, which has not the same body.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyReusedException(String idempotencyKey) {
+        super("The idempotency key " + idempotencyKey + " was already used with another request");
+    }
+}
@@ -0,0 +1,144 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.security.SecurityUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Service making requests idempotent, based on the key sent by the clients in the {@code Idempotency-Key} header.
+ * <p>
+ * The result of the first request with a key is kept in a Hazelcast map shared by the cluster, for
+ * {@code application.idempotency.ttl-seconds}, and returned to the following requests with the same key without
+ * executing them. Keys are scoped by operation and by user. While the first request is running its key is claimed
+ * with a shorter TTL, so that a crashed node does not lock it forever, and concurrent duplicates are rejected.
+ * <p>
+ * A hash of the request is kept with its key: a key can only be retried with the same request, a key reused for
+ * another request is rejected rather than answered with the result of the first one.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String MAP_NAME = "idempotency-keys";
+
+    private final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private final IMap<String, Entry> entries;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyService(HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties,
+            ObjectMapper objectMapper) {
+        this.entries = hazelcastInstance.getMap(MAP_NAME);
+        this.applicationProperties = applicationProperties;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Execute an operation once per idempotency key.
+     *
+     * @param operation the name of the operation, scoping the key
+     * @param idempotencyKey the key sent by the client, the operation is always executed when null
+     * @param request the body of the request, hashed to recognize the retries
+     * @param action the operation, it must complete its transaction before returning
+     * @param <T> the type of the result
+     * @return the result of the operation, replayed if it was already executed with this key
+     * @throws IdempotencyConflictException if the operation is still being executed with this key
+     * @throws IdempotencyKeyReusedException if the key was used with another request
+     */
+    public <T extends Serializable> Result<T> execute(String operation, String idempotencyKey, Object request,
+            Supplier<T> action) {
+        if (idempotencyKey == null) {
+            return new Result<>(action.get(), false);
+        }
+        ApplicationProperties.Idempotency properties = applicationProperties.getIdempotency();
+        String key = operation + ':' + SecurityUtils.getCurrentUserLogin().orElse("anonymous") + ':' + idempotencyKey;
+        String requestHash = hash(request);
+        Entry existing = entries.putIfAbsent(key, new Entry(requestHash, null), properties.getLockSeconds(), TimeUnit.SECONDS);
+        if (existing != null) {
+            if (!existing.requestHash.equals(requestHash)) {
+                throw new IdempotencyKeyReusedException(idempotencyKey);
+            }
+            if (existing.result == null) {
+                throw new IdempotencyConflictException(idempotencyKey);
+            }
+            log.debug("Replaying the result of {}", key);
+            @SuppressWarnings("unchecked")
+            T result = (T) existing.result;
+            return new Result<>(result, true);
+        }
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            // Failed requests are not remembered, the client can retry them with the same key
+            entries.delete(key);
+            throw e;
+        }
+        entries.set(key, new Entry(requestHash, result), properties.getTtlSeconds(), TimeUnit.SECONDS);
+        return new Result<>(result, false);
+    }
+
+    private String hash(Object request) {
+        try {
+            return DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the request", e);
+        }
+    }
+
+    /**
+     * The result of an idempotent operation.
+     */
+    public static class Result<T> {
+
+        private final T value;
+
+        private final boolean replayed;
+
+        Result(T value, boolean replayed) {
+            this.value = value;
+            this.replayed = replayed;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * @return true if the operation was not executed, the value being the result of a previous request
+         */
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+
+    /**
+     * The value stored for a key, without result while the operation is in progress.
+     */
+    static class Entry implements Serializable {
+
+        private static final long serialVersionUID = 2L;
+
+        private final String requestHash;
+
+        private final Serializable result;
+
+        Entry(String requestHash, Serializable result) {
+            this.requestHash = requestHash;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.service.mapper.EntityMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ResolvableType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.DigestUtils;
+
+import javax.persistence.EntityManager;
+import java.beans.Introspector;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service building the bundle of all the lookups, serialized once to JSON and served as is until a lookup changes.
+ * <p>
+ * The bundle is built again when the version of the lookups of the {@link LookupRegistry} changes. The version is read
+ * before the lookups are loaded, a change committed meanwhile only makes the next request build the bundle again.
+ * <p>
+ * The bundle is identified by a hash of its JSON, computed once when it is built, rather than by the version: the
+ * version is held by the cluster and starts again when the whole cluster restarts, while the same lookups always give
+ * the same hash, on every member and across restarts.
+ */
+@Service
+public class LookupBundleService {
+
+    private final Logger log = LoggerFactory.getLogger(LookupBundleService.class);
+
+    private final LookupRegistry lookupRegistry;
+
+    private final EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<Class<?>, EntityMapper<?, Object>> mappers = new HashMap<>();
+
+    private volatile Bundle bundle;
+
+    @SuppressWarnings("unchecked")
+    public LookupBundleService(LookupRegistry lookupRegistry, EntityManager entityManager, ObjectMapper objectMapper,
+            PlatformTransactionManager transactionManager, List<EntityMapper<?, ?>> entityMappers) {
+        this.lookupRegistry = lookupRegistry;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        entityMappers.forEach(mapper -> {
+            Class<?> entityClass = ResolvableType.forClass(mapper.getClass()).as(EntityMapper.class).resolveGeneric(1);
+            mappers.put(entityClass, (EntityMapper<?, Object>) mapper);
+        });
+        for (Class<?> lookupClass : LookupRegistry.getLookupClasses()) {
+            if (!mappers.containsKey(lookupClass)) {
+                throw new IllegalStateException("No mapper for the lookup " + lookupClass.getSimpleName());
+            }
+        }
+    }
+
+    /**
+     * Get the bundle of the current version of the lookups, building it if needed.
+     *
+     * @return the bundle
+     */
+    public Bundle getBundle() {
+        long version = lookupRegistry.getVersion();
+        Bundle current = bundle;
+        if (current != null && current.getVersion() == version) {
+            return current;
+        }
+        synchronized (this) {
+            // Concurrent requests build the bundle only once
+            current = bundle;
+            if (current == null || current.getVersion() != version) {
+                current = new Bundle(version, transactionTemplate.execute(status -> serialize()));
+                log.debug("Built the lookups bundle, version {}, {} bytes", version, current.getJson().length);
+                bundle = current;
+            }
+            return current;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private byte[] serialize() {
+        Map<String, List<?>> lookups = new LinkedHashMap<>();
+        for (Class<?> lookupClass : LookupRegistry.getLookupClasses()) {
+            List<?> entities = entityManager
+                .createQuery("select e from " + lookupClass.getSimpleName() + " e order by e.id", lookupClass)
+                .getResultList();
+            lookups.put(getKey(lookupClass), mappers.get(lookupClass).toDto((List<Object>) entities));
+        }
+        try {
+            return objectMapper.writeValueAsBytes(lookups);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize the lookups", e);
+        }
+    }
+
+    /**
+     * @return the plural of the entity name, as in "payTypes" or "currencies"
+     */
+    private static String getKey(Class<?> lookupClass) {
+        String name = Introspector.decapitalize(lookupClass.getSimpleName());
+        if (name.endsWith("s")) {
+            return name + "es";
+        }
+        if (name.endsWith("y")) {
+            return name.substring(0, name.length() - 1) + "ies";
+        }
+        return name + "s";
+    }
+
+    /**
+     * The lookups, serialized to JSON, with their version and the hash of the JSON.
+     */
+    public static final class Bundle {
+
+        private final long version;
+
+        private final byte[] json;
+
+        private final String hash;
+
+        private Bundle(long version, byte[] json) {
+            this.version = version;
+            this.json = json;
+            this.hash = DigestUtils.md5DigestAsHex(json);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return the MD5 hash of the JSON, in hexadecimal
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+    }
+}
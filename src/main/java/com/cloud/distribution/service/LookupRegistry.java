@@ -0,0 +1,241 @@
+package com.cloud.distribution.service;
+
+import com.carrotsearch.hppc.LongObjectHashMap;
+import com.cloud.distribution.domain.Currency;
+import com.cloud.distribution.domain.MerchantAuditStatus;
+import com.cloud.distribution.domain.MerchantStatus;
+import com.cloud.distribution.domain.MerchantType;
+import com.cloud.distribution.domain.OperatorType;
+import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.domain.OrderType;
+import com.cloud.distribution.domain.PayType;
+import com.cloud.distribution.domain.ProductStatus;
+import com.cloud.distribution.domain.ProductType;
+import com.cloud.distribution.domain.Status;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IAtomicLong;
+import com.hazelcast.core.ITopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory registry of the lookup entities, to resolve their names without joining or loading them.
+ * <p>
+ * The registry is an immutable snapshot of the names of all the lookups, indexed by id in an array per entity, and
+ * replaced as a whole when it is reloaded. It is loaded when the application starts. Each lookup saved or deleted
+ * increments the version of the lookups, shared by the cluster, and publishes it after the commit on a Hazelcast
+ * topic: every member of the cluster, including this one, then reloads its registry. An id missing from the registry,
+ * as a lookup inserted behind the services, also triggers a reload; an id still missing afterwards, as a deleted
+ * lookup referenced by an archived order, is remembered as missing until the next reload, instead of reloading all the
+ * lookups again on each of its reads.
+ */
+@Service
+public class LookupRegistry {
+
+    public static final String TOPIC_NAME = "lookups";
+
+    /**
+     * The ids below this bound are held in arrays, the others, which the lookup tables should not have, in maps.
+     */
+    private static final int MAX_DENSE_ID = 1 << 16;
+
+    private static final Map<Class<?>, String> TABLES;
+
+    static {
+        Map<Class<?>, String> tables = new LinkedHashMap<>();
+        tables.put(Status.class, "status");
+        tables.put(OrderStatus.class, "order_status");
+        tables.put(OrderType.class, "order_type");
+        tables.put(PayType.class, "pay_type");
+        tables.put(ProductStatus.class, "product_status");
+        tables.put(ProductType.class, "product_type");
+        tables.put(Currency.class, "currency");
+        tables.put(MerchantType.class, "merchant_type");
+        tables.put(MerchantStatus.class, "merchant_status");
+        tables.put(MerchantAuditStatus.class, "merchant_audit_status");
+        tables.put(OperatorType.class, "operator_type");
+        TABLES = Collections.unmodifiableMap(tables);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(LookupRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ITopic<Long> topic;
+
+    private final IAtomicLong clusterVersion;
+
+    private volatile long version;
+
+    private volatile Map<Class<?>, Names> snapshot = Collections.emptyMap();
+
+    public LookupRegistry(JdbcTemplate jdbcTemplate, HazelcastInstance hazelcastInstance) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterVersion = hazelcastInstance.getAtomicLong(TOPIC_NAME);
+        this.version = clusterVersion.get();
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        this.topic.addMessageListener(message -> {
+            log.debug("Reloading the lookups, version {}", message.getMessageObject());
+            reload();
+            updateVersion(message.getMessageObject());
+        });
+    }
+
+    /**
+     * @return the lookup entity classes
+     */
+    public static Iterable<Class<?>> getLookupClasses() {
+        return TABLES.keySet();
+    }
+
+    /**
+     * Load all the lookups.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        Map<Class<?>, Names> names = new HashMap<>();
+        TABLES.forEach((lookupClass, table) -> names.put(lookupClass, load(table)));
+        snapshot = names;
+    }
+
+    /**
+     * @return the version of the lookups, which increases with each change of a lookup in the cluster
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the name of a lookup.
+     *
+     * @param lookupClass the lookup entity class
+     * @param id the id of the lookup, may be null
+     * @return the name, or null if there is no such lookup
+     */
+    public String getName(Class<?> lookupClass, Long id) {
+        if (id == null) {
+            return null;
+        }
+        Map<Class<?>, Names> current = snapshot;
+        Names names = current.get(lookupClass);
+        if (names == null && !TABLES.containsKey(lookupClass)) {
+            throw new IllegalArgumentException(lookupClass.getSimpleName() + " is not a lookup entity");
+        }
+        if (names != null && names.contains(id)) {
+            return names.get(id);
+        }
+        if (names != null && names.isMissing(id)) {
+            return null;
+        }
+        // The registry may be stale, as when a lookup was inserted behind the services
+        reloadIfUnchanged(current);
+        names = snapshot.get(lookupClass);
+        if (!names.contains(id)) {
+            names.setMissing(id);
+            return null;
+        }
+        return names.get(id);
+    }
+
+    /**
+     * Increment the version of the lookups and reload the registry of every member of the cluster, once the current
+     * transaction is committed.
+     *
+     * @param lookupClass the changed lookup entity class
+     */
+    public void publishAfterCommit(Class<?> lookupClass) {
+        log.debug("Request to publish a change of {}", lookupClass.getSimpleName());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            topic.publish(clusterVersion.incrementAndGet());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                topic.publish(clusterVersion.incrementAndGet());
+            }
+        });
+    }
+
+    private synchronized void updateVersion(long changedVersion) {
+        // Messages of concurrent changes may be received out of order
+        version = Math.max(version, changedVersion);
+    }
+
+    private synchronized void reloadIfUnchanged(Map<Class<?>, Names> seen) {
+        // Concurrent misses reload only once
+        if (snapshot == seen) {
+            reload();
+        }
+    }
+
+    private Names load(String table) {
+        List<Object[]> rows = jdbcTemplate.query("select id, name from " + table,
+            (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2)});
+        long maxDenseId = rows.stream().mapToLong(row -> (Long) row[0]).filter(id -> id < MAX_DENSE_ID).max().orElse(-1);
+        String[] dense = new String[(int) maxDenseId + 1];
+        boolean[] present = new boolean[dense.length];
+        LongObjectHashMap<String> sparse = new LongObjectHashMap<>();
+        for (Object[] row : rows) {
+            long id = (Long) row[0];
+            if (id >= 0 && id < MAX_DENSE_ID) {
+                dense[(int) id] = (String) row[1];
+                present[(int) id] = true;
+            } else {
+                sparse.put(id, (String) row[1]);
+            }
+        }
+        return new Names(dense, present, sparse);
+    }
+
+    /**
+     * The names of the lookups of an entity; a name may be null, hence the presence flags. The ids known to be missing
+     * are added as they are read, and dropped with the snapshot.
+     */
+    private static final class Names {
+
+        private final String[] dense;
+
+        private final boolean[] present;
+
+        private final LongObjectHashMap<String> sparse;
+
+        private final Set<Long> missing = ConcurrentHashMap.newKeySet();
+
+        private Names(String[] dense, boolean[] present, LongObjectHashMap<String> sparse) {
+            this.dense = dense;
+            this.present = present;
+            this.sparse = sparse;
+        }
+
+        private boolean contains(long id) {
+            return id >= 0 && id < present.length ? present[(int) id] : sparse.containsKey(id);
+        }
+
+        private String get(long id) {
+            return id >= 0 && id < dense.length ? dense[(int) id] : sparse.get(id);
+        }
+
+        private boolean isMissing(long id) {
+            return missing.contains(id);
+        }
+
+        private void setMissing(long id) {
+            missing.add(id);
+        }
+    }
+}
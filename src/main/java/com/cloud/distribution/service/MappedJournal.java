@@ -0,0 +1,259 @@
+package com.cloud.distribution.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of records, in memory-mapped segment files of a local directory.
+ * <p>
+ * Each record is numbered by a sequence, and stored as its length, its sequence, its bytes and a CRC32 of the
+ * sequence and the bytes; a zero length ends a segment. A record is durable once appended as far as the process is
+ * concerned: the page cache is written back by the operating system even if the JVM dies. Forcing each append to
+ * the disk also covers a crash of the host, at the cost of a disk sync per record.
+ * <p>
+ * When the journal is opened, its segments are scanned and their records handed back; a torn record, as left by a
+ * crash during an append, ends the scan. Segments are deleted once all their records are released.
+ */
+public class MappedJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private static final String ID_FILE = "journal.id";
+
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+    private static final int TRAILER_SIZE = Integer.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final boolean force;
+
+    private final String id;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The segments by the sequence of their first record.
+     */
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private MappedByteBuffer active;
+
+    private long activeFirstSequence;
+
+    private long lastSequence;
+
+    /**
+     * Open a journal, creating its directory if needed.
+     *
+     * @param directory the directory of the journal
+     * @param segmentSize the size of the segment files, in bytes
+     * @param force true to force each append to the disk
+     * @param recovered the consumer of the records found in the journal, in sequence order
+     */
+    public MappedJournal(Path directory, int segmentSize, boolean force, BiConsumer<Long, byte[]> recovered) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.force = force;
+        try {
+            Files.createDirectories(directory);
+            Path idFile = directory.resolve(ID_FILE);
+            if (!Files.exists(idFile)) {
+                Files.write(idFile, UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII));
+            }
+            this.id = new String(Files.readAllBytes(idFile), StandardCharsets.US_ASCII).trim();
+            try (Stream<Path> files = Files.list(directory)) {
+                files.filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .forEach(file -> segments.put(parseFirstSequence(file), file));
+            }
+            for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+                active = map(segment.getValue());
+                activeFirstSequence = segment.getKey();
+                lastSequence = Math.max(lastSequence, segment.getKey() - 1);
+                scan(active, recovered);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open the journal " + directory, e);
+        }
+    }
+
+    /**
+     * @return the identifier of the journal, which stays the same across restarts
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return the sequence of the last appended record, 0 if there is none
+     */
+    public long getLastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param record the bytes of the record
+     * @return the sequence of the record
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    public long append(byte[] record) {
+        int size = HEADER_SIZE + record.length + TRAILER_SIZE;
+        if (size + Integer.BYTES > segmentSize) {
+            throw new IllegalArgumentException("A journal record cannot exceed "
+                + (segmentSize - HEADER_SIZE - TRAILER_SIZE - Integer.BYTES) + " bytes");
+        }
+        lock.lock();
+        try {
+            long sequence = lastSequence + 1;
+            // Room is kept for the zero length which ends the segment
+            if (active == null || active.remaining() < size + Integer.BYTES) {
+                Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+                active = map(file);
+                activeFirstSequence = sequence;
+                segments.put(sequence, file);
+            }
+            int position = active.position();
+            CRC32 crc = new CRC32();
+            crc.update(longBytes(sequence));
+            crc.update(record);
+            active.position(position + Integer.BYTES);
+            active.putLong(sequence);
+            active.put(record);
+            active.putInt((int) crc.getValue());
+            // The length is written last, a record is never seen without its bytes
+            active.putInt(position, record.length);
+            if (force) {
+                active.force();
+            }
+            lastSequence = sequence;
+            return sequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to the journal " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Release the records up to a sequence: the segments holding only such records, except the active one, are
+     * deleted.
+     *
+     * @param sequence the sequence of the last released record
+     */
+    public void release(long sequence) {
+        lock.lock();
+        try {
+            Map.Entry<Long, Path> segment = segments.firstEntry();
+            while (segment != null && segment.getKey() != activeFirstSequence) {
+                Long nextFirstSequence = segments.higherKey(segment.getKey());
+                if (nextFirstSequence == null || nextFirstSequence - 1 > sequence) {
+                    break;
+                }
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+                segment = segments.firstEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not release the journal " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of segment files
+     */
+    public int getSegmentCount() {
+        lock.lock();
+        try {
+            return segments.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (active != null) {
+                active.force();
+                active = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void scan(MappedByteBuffer segment, BiConsumer<Long, byte[]> recovered) {
+        while (segment.remaining() >= HEADER_SIZE + TRAILER_SIZE) {
+            int position = segment.position();
+            int length = segment.getInt();
+            if (length <= 0 || length > segment.remaining() - Long.BYTES - TRAILER_SIZE) {
+                segment.position(position);
+                break;
+            }
+            long sequence = segment.getLong();
+            byte[] record = new byte[length];
+            segment.get(record);
+            CRC32 crc = new CRC32();
+            crc.update(longBytes(sequence));
+            crc.update(record);
+            if (segment.getInt() != (int) crc.getValue() || sequence <= lastSequence) {
+                // A torn record: the segment is appended to from its start
+                segment.position(position);
+                segment.putInt(position, 0);
+                break;
+            }
+            lastSequence = sequence;
+            recovered.accept(sequence, record);
+        }
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping outlives the channel
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(channel.size(), segmentSize));
+        }
+    }
+
+    private static long parseFirstSequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] longBytes(long value) {
+        byte[] bytes = new byte[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>= 8;
+        }
+        return bytes;
+    }
+}
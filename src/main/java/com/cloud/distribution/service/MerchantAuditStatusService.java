@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.MerchantAuditStatus;
 import com.cloud.distribution.repository.MerchantAuditStatusRepository;
 import com.cloud.distribution.repository.search.MerchantAuditStatusSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.MerchantAuditStatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.MerchantAuditStatusMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class MerchantAuditStatusService {
 
     private final MerchantAuditStatusSearchRepository merchantAuditStatusSearchRepository;
 
-    public MerchantAuditStatusService(MerchantAuditStatusRepository merchantAuditStatusRepository, MerchantAuditStatusMapper merchantAuditStatusMapper, MerchantAuditStatusSearchRepository merchantAuditStatusSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public MerchantAuditStatusService(MerchantAuditStatusRepository merchantAuditStatusRepository, MerchantAuditStatusMapper merchantAuditStatusMapper, MerchantAuditStatusSearchRepository merchantAuditStatusSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.merchantAuditStatusRepository = merchantAuditStatusRepository;
         this.merchantAuditStatusMapper = merchantAuditStatusMapper;
         this.merchantAuditStatusSearchRepository = merchantAuditStatusSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class MerchantAuditStatusService {
         MerchantAuditStatus merchantAuditStatus = merchantAuditStatusMapper.toEntity(merchantAuditStatusDTO);
         merchantAuditStatus = merchantAuditStatusRepository.save(merchantAuditStatus);
         MerchantAuditStatusDTO result = merchantAuditStatusMapper.toDto(merchantAuditStatus);
-        merchantAuditStatusSearchRepository.save(merchantAuditStatus);
+        searchOutboxService.scheduleIndex(MerchantAuditStatus.class, merchantAuditStatus.getId());
+        lookupRegistry.publishAfterCommit(MerchantAuditStatus.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class MerchantAuditStatusService {
     public void delete(Long id) {
         log.debug("Request to delete MerchantAuditStatus : {}", id);
         merchantAuditStatusRepository.delete(id);
-        merchantAuditStatusSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(MerchantAuditStatus.class, id);
+        lookupRegistry.publishAfterCommit(MerchantAuditStatus.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class MerchantAuditStatusService {
         Page<MerchantAuditStatus> result = merchantAuditStatusSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(merchantAuditStatusMapper::toDto);
     }
+
+    /**
+     * Search for the merchantAuditStatus corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<MerchantAuditStatusDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of MerchantAuditStatuses for query {} after {}", query, after);
+        Slice<MerchantAuditStatus> result = SearchAfterUtil.searchAfter(merchantAuditStatusSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(merchantAuditStatusMapper::toDto);
+    }
 }
@@ -0,0 +1,202 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.domain.Merchant;
+import com.cloud.distribution.repository.MerchantClosureRepository;
+import com.cloud.distribution.repository.MerchantRepository;
+import com.cloud.distribution.service.dto.MerchantDTO;
+import com.cloud.distribution.service.mapper.MerchantMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Service maintaining the closure table of the merchant hierarchy, and the levels of the merchants.
+ * <p>
+ * It is called by the {@link MerchantService} in the transaction which saves or deletes a merchant. The level of a
+ * merchant is derived from its position in the tree: 1 for a root, the level of its parent plus one otherwise.
+ * The downline sales of the merchants are kept in line with the tree by the {@link DownlineSalesService}.
+ * <p>
+ * A move locks the roots of the trees of the moved merchant and of its new parent before checking for a cycle: the
+ * moves within the same trees are serialized, so two concurrent moves cannot each pass the check and form a cycle
+ * together.
+ */
+@Service
+@Transactional
+public class MerchantHierarchyService {
+
+    private final Logger log = LoggerFactory.getLogger(MerchantHierarchyService.class);
+
+    private final MerchantClosureRepository merchantClosureRepository;
+
+    private final MerchantRepository merchantRepository;
+
+    private final MerchantMapper merchantMapper;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final EntityManager entityManager;
+
+    private final DownlineSalesService downlineSalesService;
+
+    public MerchantHierarchyService(MerchantClosureRepository merchantClosureRepository, MerchantRepository merchantRepository,
+            MerchantMapper merchantMapper, SearchOutboxService searchOutboxService, EntityManager entityManager,
+            DownlineSalesService downlineSalesService) {
+        this.merchantClosureRepository = merchantClosureRepository;
+        this.merchantRepository = merchantRepository;
+        this.merchantMapper = merchantMapper;
+        this.searchOutboxService = searchOutboxService;
+        this.entityManager = entityManager;
+        this.downlineSalesService = downlineSalesService;
+    }
+
+    /**
+     * Get the level of a new merchant.
+     *
+     * @param parentId the id of its parent, null for a root
+     * @return the level of the merchant
+     */
+    @Transactional(readOnly = true)
+    public long levelUnder(Long parentId) {
+        return parentId == null ? 1 : merchantClosureRepository.findLevel(parentId) + 1;
+    }
+
+    /**
+     * Add a new merchant, once inserted, to the closure.
+     *
+     * @param id the id of the merchant
+     * @param parentId the id of its parent, null for a root
+     */
+    public void insert(Long id, Long parentId) {
+        log.debug("Request to add Merchant : {} under {}", id, parentId);
+        merchantClosureRepository.insertNode(id, parentId);
+        downlineSalesService.merchantAdded(id);
+    }
+
+    /**
+     * Place an existing merchant under a parent, moving its whole subtree if the parent changes.
+     *
+     * @param id the id of the merchant
+     * @param parentId the id of its parent, null for a root
+     * @return the level of the merchant
+     * @throws IllegalArgumentException if the parent is the merchant or one of its descendants
+     */
+    public long place(Long id, Long parentId) {
+        if (Objects.equals(merchantClosureRepository.findParentId(id), parentId)) {
+            return merchantClosureRepository.findLevel(id);
+        }
+        log.debug("Request to move the subtree of Merchant : {} under {}", id, parentId);
+        lockRoots(id, parentId);
+        if (parentId != null && merchantClosureRepository.isAncestorOrSelfForUpdate(id, parentId)) {
+            throw new IllegalArgumentException("Merchant " + id + " cannot be moved under its own subtree");
+        }
+        downlineSalesService.subtreeDetached(id);
+        merchantClosureRepository.moveSubtree(id, parentId);
+        downlineSalesService.subtreeAttached(id);
+        merchantClosureRepository.updateSubtreeLevels(id);
+        // The levels of the subtree were changed behind Hibernate's back
+        List<Long> subtreeIds = merchantClosureRepository.findSubtreeIds(id);
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        subtreeIds.forEach(subtreeId -> cache.evict(Merchant.class, subtreeId));
+        searchOutboxService.scheduleIndex(Merchant.class, subtreeIds);
+        return merchantClosureRepository.findLevel(id);
+    }
+
+    /**
+     * Lock the roots of the trees of two merchants, again while a concurrent move changes them.
+     */
+    private void lockRoots(Long id, Long parentId) {
+        Set<Long> rootIds = findRootIds(id, parentId);
+        while (true) {
+            merchantClosureRepository.lockMerchants(rootIds);
+            Set<Long> lockedRootIds = rootIds;
+            rootIds = findRootIds(id, parentId);
+            if (lockedRootIds.containsAll(rootIds)) {
+                return;
+            }
+        }
+    }
+
+    private Set<Long> findRootIds(Long id, Long parentId) {
+        Set<Long> rootIds = new TreeSet<>();
+        rootIds.add(merchantClosureRepository.findRootId(id));
+        if (parentId != null) {
+            rootIds.add(merchantClosureRepository.findRootId(parentId));
+        }
+        return rootIds;
+    }
+
+    /**
+     * Remove a merchant from the closure, before it is deleted.
+     *
+     * @param id the id of the merchant
+     */
+    public void delete(Long id) {
+        log.debug("Request to remove Merchant : {} from the hierarchy", id);
+        downlineSalesService.merchantRemoved(id);
+        merchantClosureRepository.deleteNode(id);
+    }
+
+    /**
+     * @param id the id of the merchant
+     * @param parentId the id of a merchant
+     * @return true if the second merchant is the first one or one of its descendants
+     */
+    @Transactional(readOnly = true)
+    public boolean isAncestorOrSelf(Long id, Long parentId) {
+        return parentId != null && merchantClosureRepository.isAncestorOrSelf(id, parentId);
+    }
+
+    /**
+     * Get the descendants of a merchant, nearest first.
+     *
+     * @param id the id of the merchant
+     * @param maxDepth the maximum distance of the descendants, 1 for the children only
+     * @param pageable the pagination information
+     * @return the page of descendants
+     */
+    @Transactional(readOnly = true)
+    public Page<MerchantDTO> findDescendants(Long id, int maxDepth, Pageable pageable) {
+        log.debug("Request to get the descendants of Merchant : {}", id);
+        return merchantRepository.findDescendants(id, maxDepth, pageable)
+            .map(merchantMapper::toDto);
+    }
+
+    /**
+     * Get the ancestors of a merchant, its parent first.
+     *
+     * @param id the id of the merchant
+     * @return the list of ancestors
+     */
+    @Transactional(readOnly = true)
+    public List<MerchantDTO> findAncestors(Long id) {
+        log.debug("Request to get the ancestors of Merchant : {}", id);
+        return merchantMapper.toDto(merchantRepository.findAncestors(id));
+    }
+
+    /**
+     * Build the closure from the parent links when it is empty, as after its creation on an existing database,
+     * then the downline sales which depend on it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        if (merchantClosureRepository.needsRebuild()) {
+            log.info("Building the merchant closure table");
+            int rows = merchantClosureRepository.rebuild();
+            entityManager.getEntityManagerFactory().getCache().evict(Merchant.class);
+            log.info("Built the merchant closure table, {} rows", rows);
+        }
+        downlineSalesService.rebuildIfNeeded();
+    }
+}
@@ -3,15 +3,20 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.Merchant;
 import com.cloud.distribution.repository.MerchantRepository;
 import com.cloud.distribution.repository.search.MerchantSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.MerchantDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.MerchantMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.List;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -30,14 +35,31 @@ public class MerchantService {
 
     private final MerchantSearchRepository merchantSearchRepository;
 
-    public MerchantService(MerchantRepository merchantRepository, MerchantMapper merchantMapper, MerchantSearchRepository merchantSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final MerchantHierarchyService merchantHierarchyService;
+
+    private final MerchantTreeIndex merchantTreeIndex;
+
+    private final LookupBundleService lookupBundleService;
+
+    public MerchantService(MerchantRepository merchantRepository, MerchantMapper merchantMapper, MerchantSearchRepository merchantSearchRepository, SearchOutboxService searchOutboxService,
+            MerchantHierarchyService merchantHierarchyService, MerchantTreeIndex merchantTreeIndex,
+            LookupBundleService lookupBundleService) {
         this.merchantRepository = merchantRepository;
         this.merchantMapper = merchantMapper;
         this.merchantSearchRepository = merchantSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.merchantHierarchyService = merchantHierarchyService;
+        this.merchantTreeIndex = merchantTreeIndex;
+        this.lookupBundleService = lookupBundleService;
     }
 
     /**
      * Save a merchant.
+     * <p>
+     * The merchant hierarchy is updated, and the level of the merchant derived from its parent. The merchant tree
+     * indexes of the cluster are refreshed once the transaction is committed.
      *
      * @param merchantDTO the entity to save
      * @return the persisted entity
@@ -45,9 +67,22 @@ public class MerchantService {
     public MerchantDTO save(MerchantDTO merchantDTO) {
         log.debug("Request to save Merchant : {}", merchantDTO);
         Merchant merchant = merchantMapper.toEntity(merchantDTO);
-        merchant = merchantRepository.save(merchant);
+        Long parentId = merchant.getParent() == null ? null : merchant.getParent().getId();
+        if (merchant.getId() == null) {
+            merchant.setLevel(merchantHierarchyService.levelUnder(parentId));
+            merchant = merchantRepository.save(merchant);
+            merchantHierarchyService.insert(merchant.getId(), parentId);
+        } else {
+            if (merchant.getVersion() == null) {
+                // Without a version, the update is not checked against concurrent ones
+                merchant.setVersion(merchantRepository.findVersion(merchant.getId()));
+            }
+            merchant.setLevel(merchantHierarchyService.place(merchant.getId(), parentId));
+            merchant = merchantRepository.save(merchant);
+        }
         MerchantDTO result = merchantMapper.toDto(merchant);
-        merchantSearchRepository.save(merchant);
+        searchOutboxService.scheduleIndex(Merchant.class, merchant.getId());
+        merchantTreeIndex.publishAfterCommit(merchant.getId());
         return result;
     }
 
@@ -64,6 +99,22 @@ public class MerchantService {
             .map(merchantMapper::toDto);
     }
 
+    /**
+     * Get the versions which the representation of a merchant depends on, without loading it: the version of the
+     * merchant, of its parent for the parent name, and the hash of the lookups for their names.
+     *
+     * @param id the id of the entity
+     * @return the versions, or null if there is no such merchant
+     */
+    @Transactional(readOnly = true)
+    public List<Object> findVersions(Long id) {
+        List<Object[]> versions = merchantRepository.findVersions(id);
+        if (versions.isEmpty()) {
+            return null;
+        }
+        return Arrays.asList(versions.get(0)[0], versions.get(0)[1], lookupBundleService.getBundle().getHash());
+    }
+
     /**
      * Get one merchant by id.
      *
@@ -84,8 +135,10 @@ public class MerchantService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Merchant : {}", id);
+        merchantHierarchyService.delete(id);
         merchantRepository.delete(id);
-        merchantSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(Merchant.class, id);
+        merchantTreeIndex.publishAfterCommit(id);
     }
 
     /**
@@ -101,4 +154,19 @@ public class MerchantService {
         Page<Merchant> result = merchantSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(merchantMapper::toDto);
     }
+
+    /**
+     * Search for the merchant corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<MerchantDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of Merchants for query {} after {}", query, after);
+        Slice<Merchant> result = SearchAfterUtil.searchAfter(merchantSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(merchantMapper::toDto);
+    }
 }
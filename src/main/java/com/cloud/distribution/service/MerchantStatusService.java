@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.MerchantStatus;
 import com.cloud.distribution.repository.MerchantStatusRepository;
 import com.cloud.distribution.repository.search.MerchantStatusSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.MerchantStatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.MerchantStatusMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class MerchantStatusService {
 
     private final MerchantStatusSearchRepository merchantStatusSearchRepository;
 
-    public MerchantStatusService(MerchantStatusRepository merchantStatusRepository, MerchantStatusMapper merchantStatusMapper, MerchantStatusSearchRepository merchantStatusSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public MerchantStatusService(MerchantStatusRepository merchantStatusRepository, MerchantStatusMapper merchantStatusMapper, MerchantStatusSearchRepository merchantStatusSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.merchantStatusRepository = merchantStatusRepository;
         this.merchantStatusMapper = merchantStatusMapper;
         this.merchantStatusSearchRepository = merchantStatusSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class MerchantStatusService {
         MerchantStatus merchantStatus = merchantStatusMapper.toEntity(merchantStatusDTO);
         merchantStatus = merchantStatusRepository.save(merchantStatus);
         MerchantStatusDTO result = merchantStatusMapper.toDto(merchantStatus);
-        merchantStatusSearchRepository.save(merchantStatus);
+        searchOutboxService.scheduleIndex(MerchantStatus.class, merchantStatus.getId());
+        lookupRegistry.publishAfterCommit(MerchantStatus.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class MerchantStatusService {
     public void delete(Long id) {
         log.debug("Request to delete MerchantStatus : {}", id);
         merchantStatusRepository.delete(id);
-        merchantStatusSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(MerchantStatus.class, id);
+        lookupRegistry.publishAfterCommit(MerchantStatus.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class MerchantStatusService {
         Page<MerchantStatus> result = merchantStatusSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(merchantStatusMapper::toDto);
     }
+
+    /**
+     * Search for the merchantStatus corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<MerchantStatusDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of MerchantStatuses for query {} after {}", query, after);
+        Slice<MerchantStatus> result = SearchAfterUtil.searchAfter(merchantStatusSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(merchantStatusMapper::toDto);
+    }
 }
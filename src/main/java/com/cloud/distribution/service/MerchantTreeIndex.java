@@ -0,0 +1,321 @@
+package com.cloud.distribution.service;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * In-memory index of the merchant tree, to walk the ancestors of a merchant without any query nor allocation.
+ * <p>
+ * Each merchant has a slot in parallel primitive arrays holding its id, the slot of its parent, its depth from its
+ * root (0 for a root) and its user id; hppc maps resolve merchant ids and user ids to slots. Reads are optimistic,
+ * and only retried under the read lock when they raced with a change.
+ * <p>
+ * The index is built when the application starts. Each merchant saved or deleted is published, after the commit, on
+ * a Hazelcast topic: every member of the cluster, including this one, then reloads its row and updates its index.
+ * The merchants refreshed while the index is rebuilt are refreshed again once it is, as the rebuild may have read
+ * them before their change. A topic message is not redelivered if it is lost, as while a member is disconnected, so
+ * the index is also rebuilt periodically.
+ */
+@Service
+public class MerchantTreeIndex {
+
+    public static final String TOPIC_NAME = "merchant-tree";
+
+    private static final int NO_SLOT = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Logger log = LoggerFactory.getLogger(MerchantTreeIndex.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ITopic<Long> topic;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    private int[] parentSlots = new int[INITIAL_CAPACITY];
+
+    private int[] depths = new int[INITIAL_CAPACITY];
+
+    private long[] userIds = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    private final LongIntHashMap slotsById = new LongIntHashMap();
+
+    private final LongIntHashMap slotsByUserId = new LongIntHashMap();
+
+    /**
+     * The merchants refreshed since the current rebuild started, null outside of a rebuild; guarded by the lock.
+     */
+    private LongHashSet refreshedDuringRebuild;
+
+    public MerchantTreeIndex(JdbcTemplate jdbcTemplate, HazelcastInstance hazelcastInstance) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        this.topic.addMessageListener(message -> refresh(message.getMessageObject()));
+    }
+
+    /**
+     * Load the whole merchant tree, then refresh again the merchants refreshed meanwhile.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${application.merchant-tree.rebuild-delay:600000}",
+        fixedDelayString = "${application.merchant-tree.rebuild-delay:600000}")
+    public synchronized void rebuild() {
+        long stamp = lock.writeLock();
+        try {
+            refreshedDuringRebuild = new LongHashSet();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        List<long[]> rows = jdbcTemplate.query("select id, parent_id, user_id from merchant",
+            (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)});
+        long[] refreshed;
+        stamp = lock.writeLock();
+        try {
+            refreshed = refreshedDuringRebuild.toArray();
+            refreshedDuringRebuild = null;
+            int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(1, rows.size())) << 1);
+            ids = new long[capacity];
+            parentSlots = new int[capacity];
+            depths = new int[capacity];
+            userIds = new long[capacity];
+            size = 0;
+            slotsById.clear();
+            slotsByUserId.clear();
+            for (long[] row : rows) {
+                put(row[0], row[2]);
+            }
+            for (long[] row : rows) {
+                parentSlots[slotsById.get(row[0])] = row[1] == 0 ? NO_SLOT : slotsById.getOrDefault(row[1], NO_SLOT);
+            }
+            computeDepths();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        log.info("Indexed the merchant tree, {} merchants", rows.size());
+        for (long merchantId : refreshed) {
+            refresh(merchantId);
+        }
+    }
+
+    /**
+     * Publish the change of a merchant to the cluster, once the current transaction is committed.
+     *
+     * @param merchantId the id of the merchant saved or deleted
+     */
+    public void publishAfterCommit(Long merchantId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            topic.publish(merchantId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                topic.publish(merchantId);
+            }
+        });
+    }
+
+    /**
+     * Reload a merchant from the database.
+     *
+     * @param merchantId the id of the merchant
+     */
+    public void refresh(long merchantId) {
+        List<long[]> rows = jdbcTemplate.query("select id, parent_id, user_id from merchant where id = ?",
+            (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2), rs.getLong(3)}, merchantId);
+        long stamp = lock.writeLock();
+        try {
+            if (refreshedDuringRebuild != null) {
+                refreshedDuringRebuild.add(merchantId);
+            }
+            if (rows.isEmpty()) {
+                remove(merchantId);
+            } else {
+                long[] row = rows.get(0);
+                boolean added = !slotsById.containsKey(row[0]);
+                int slot = put(row[0], row[2]);
+                int parentSlot = row[1] == 0 ? NO_SLOT : slotsById.getOrDefault(row[1], NO_SLOT);
+                if (added) {
+                    parentSlots[slot] = parentSlot;
+                    depths[slot] = parentSlot == NO_SLOT ? 0 : depths[parentSlot] + 1;
+                } else if (parentSlots[slot] != parentSlot) {
+                    parentSlots[slot] = parentSlot;
+                    // The whole subtree moved
+                    computeDepths();
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Get the ancestors of a merchant, without allocating.
+     *
+     * @param merchantId the id of the merchant
+     * @param ancestorIds the array receiving the ids of the ancestors, its parent first
+     * @return the number of ancestors written, at most the length of the array
+     */
+    public int ancestors(long merchantId, long[] ancestorIds) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int count = readAncestors(merchantId, ancestorIds);
+                if (lock.validate(stamp)) {
+                    return count;
+                }
+            } catch (RuntimeException e) {
+                // The arrays were changed while they were read, the read is retried under the lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readAncestors(merchantId, ancestorIds);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param merchantId the id of the merchant
+     * @return its depth from its root, 0 for a root, -1 for an unknown merchant
+     */
+    public int depth(long merchantId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slotsById.getOrDefault(merchantId, NO_SLOT);
+            return slot == NO_SLOT ? -1 : depths[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @param userId the id of a user
+     * @return the id of the merchant of the user, 0 if the user is not a merchant
+     */
+    public long merchantOfUser(long userId) {
+        long stamp = lock.readLock();
+        try {
+            int slot = slotsByUserId.getOrDefault(userId, NO_SLOT);
+            return slot == NO_SLOT ? 0 : ids[slot];
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the number of indexed merchants
+     */
+    public int size() {
+        long stamp = lock.readLock();
+        try {
+            return slotsById.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int readAncestors(long merchantId, long[] ancestorIds) {
+        long[] ids = this.ids;
+        int[] parentSlots = this.parentSlots;
+        int slot = slotsById.getOrDefault(merchantId, NO_SLOT);
+        int count = 0;
+        if (slot == NO_SLOT) {
+            return 0;
+        }
+        slot = parentSlots[slot];
+        while (slot != NO_SLOT && count < ancestorIds.length) {
+            ancestorIds[count++] = ids[slot];
+            slot = parentSlots[slot];
+        }
+        return count;
+    }
+
+    private int put(long id, long userId) {
+        int slot = slotsById.getOrDefault(id, NO_SLOT);
+        if (slot == NO_SLOT) {
+            if (size == ids.length) {
+                int capacity = size << 1;
+                ids = Arrays.copyOf(ids, capacity);
+                parentSlots = Arrays.copyOf(parentSlots, capacity);
+                depths = Arrays.copyOf(depths, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+            }
+            slot = size++;
+            ids[slot] = id;
+            parentSlots[slot] = NO_SLOT;
+            slotsById.put(id, slot);
+        }
+        if (userIds[slot] != userId && slotsByUserId.getOrDefault(userIds[slot], NO_SLOT) == slot) {
+            slotsByUserId.remove(userIds[slot]);
+        }
+        userIds[slot] = userId;
+        if (userId != 0) {
+            slotsByUserId.put(userId, slot);
+        }
+        return slot;
+    }
+
+    private void remove(long id) {
+        int slot = slotsById.getOrDefault(id, NO_SLOT);
+        if (slot == NO_SLOT) {
+            return;
+        }
+        slotsById.remove(id);
+        if (slotsByUserId.getOrDefault(userIds[slot], NO_SLOT) == slot) {
+            slotsByUserId.remove(userIds[slot]);
+        }
+        // The slot is left free: merchants are rarely deleted, and never with children
+        ids[slot] = 0;
+        userIds[slot] = 0;
+        parentSlots[slot] = NO_SLOT;
+    }
+
+    private void computeDepths() {
+        Arrays.fill(depths, 0, size, -1);
+        for (int slot = 0; slot < size; slot++) {
+            computeDepth(slot);
+        }
+    }
+
+    private void computeDepth(int slot) {
+        // Walks up to the first slot of known depth, then sets the depths of the walked slots on the way back
+        int length = 0;
+        int current = slot;
+        while (current != NO_SLOT && depths[current] < 0 && length <= size) {
+            length++;
+            current = parentSlots[current];
+        }
+        int depth = current == NO_SLOT ? -1 : depths[current];
+        int[] walked = new int[length];
+        current = slot;
+        for (int i = 0; i < length; i++) {
+            walked[i] = current;
+            current = parentSlots[current];
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            depths[walked[i]] = ++depth;
+        }
+    }
+}
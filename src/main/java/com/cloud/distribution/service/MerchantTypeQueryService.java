@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,7 +27,7 @@ import com.cloud.distribution.service.mapper.MerchantTypeMapper;
  * Service for executing complex queries for MerchantType entities in the database.
  * The main input is a {@link MerchantTypeCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link MerchantTypeDTO} or a {@link Page} of {@link MerchantTypeDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link MerchantTypeDTO}, a {@link Page} or a {@link Slice} of {@link MerchantTypeDTO} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
@@ -73,6 +74,19 @@ public class MerchantTypeQueryService extends QueryService<MerchantType> {
         return result.map(merchantTypeMapper::toDto);
     }
 
+    /**
+     * Return a {@link Slice} of {@link MerchantTypeDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<MerchantTypeDTO> findSliceByCriteria(MerchantTypeCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<MerchantType> specification = createSpecification(criteria);
+        return merchantTypeRepository.findSlice(specification, page).map(merchantTypeMapper::toDto);
+    }
+
     /**
      * Function to convert MerchantTypeCriteria to a {@link Specifications}
      */
@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.MerchantType;
 import com.cloud.distribution.repository.MerchantTypeRepository;
 import com.cloud.distribution.repository.search.MerchantTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.MerchantTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.MerchantTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class MerchantTypeService {
 
     private final MerchantTypeSearchRepository merchantTypeSearchRepository;
 
-    public MerchantTypeService(MerchantTypeRepository merchantTypeRepository, MerchantTypeMapper merchantTypeMapper, MerchantTypeSearchRepository merchantTypeSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public MerchantTypeService(MerchantTypeRepository merchantTypeRepository, MerchantTypeMapper merchantTypeMapper, MerchantTypeSearchRepository merchantTypeSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.merchantTypeRepository = merchantTypeRepository;
         this.merchantTypeMapper = merchantTypeMapper;
         this.merchantTypeSearchRepository = merchantTypeSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class MerchantTypeService {
         MerchantType merchantType = merchantTypeMapper.toEntity(merchantTypeDTO);
         merchantType = merchantTypeRepository.save(merchantType);
         MerchantTypeDTO result = merchantTypeMapper.toDto(merchantType);
-        merchantTypeSearchRepository.save(merchantType);
+        searchOutboxService.scheduleIndex(MerchantType.class, merchantType.getId());
+        lookupRegistry.publishAfterCommit(MerchantType.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class MerchantTypeService {
     public void delete(Long id) {
         log.debug("Request to delete MerchantType : {}", id);
         merchantTypeRepository.delete(id);
-        merchantTypeSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(MerchantType.class, id);
+        lookupRegistry.publishAfterCommit(MerchantType.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class MerchantTypeService {
         Page<MerchantType> result = merchantTypeSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(merchantTypeMapper::toDto);
     }
+
+    /**
+     * Search for the merchantType corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<MerchantTypeDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of MerchantTypes for query {} after {}", query, after);
+        Slice<MerchantType> result = SearchAfterUtil.searchAfter(merchantTypeSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(merchantTypeMapper::toDto);
+    }
 }
@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.OperatorType;
 import com.cloud.distribution.repository.OperatorTypeRepository;
 import com.cloud.distribution.repository.search.OperatorTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.OperatorTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.OperatorTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class OperatorTypeService {
 
     private final OperatorTypeSearchRepository operatorTypeSearchRepository;
 
-    public OperatorTypeService(OperatorTypeRepository operatorTypeRepository, OperatorTypeMapper operatorTypeMapper, OperatorTypeSearchRepository operatorTypeSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public OperatorTypeService(OperatorTypeRepository operatorTypeRepository, OperatorTypeMapper operatorTypeMapper, OperatorTypeSearchRepository operatorTypeSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.operatorTypeRepository = operatorTypeRepository;
         this.operatorTypeMapper = operatorTypeMapper;
         this.operatorTypeSearchRepository = operatorTypeSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class OperatorTypeService {
         OperatorType operatorType = operatorTypeMapper.toEntity(operatorTypeDTO);
         operatorType = operatorTypeRepository.save(operatorType);
         OperatorTypeDTO result = operatorTypeMapper.toDto(operatorType);
-        operatorTypeSearchRepository.save(operatorType);
+        searchOutboxService.scheduleIndex(OperatorType.class, operatorType.getId());
+        lookupRegistry.publishAfterCommit(OperatorType.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class OperatorTypeService {
     public void delete(Long id) {
         log.debug("Request to delete OperatorType : {}", id);
         operatorTypeRepository.delete(id);
-        operatorTypeSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(OperatorType.class, id);
+        lookupRegistry.publishAfterCommit(OperatorType.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class OperatorTypeService {
         Page<OperatorType> result = operatorTypeSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(operatorTypeMapper::toDto);
     }
+
+    /**
+     * Search for the operatorType corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<OperatorTypeDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of OperatorTypes for query {} after {}", query, after);
+        Slice<OperatorType> result = SearchAfterUtil.searchAfter(operatorTypeSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(operatorTypeMapper::toDto);
+    }
 }
@@ -0,0 +1,140 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.domain.Order;
+import com.cloud.distribution.domain.OrderStatusHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.Cache;
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Moves the old orders from the hot tier ({@code jhi_order}, {@code order_status_history}) to the archive tier
+ * ({@code jhi_order_archive}, {@code order_status_history_archive}).
+ * <p>
+ * An order is archived once it is older than {@code application.archive.retention-days}, together with its
+ * status histories. Orders are moved oldest first by batches, with set-based INSERT ... SELECT and DELETE
+ * statements, each batch in its own transaction.
+ * <p>
+ * Archived orders and histories are not searchable: their removal from the search indexes is scheduled through the
+ * search outbox in the transaction which moves them, as for deleted entities.
+ */
+@Service
+public class OrderArchiver {
+
+    private static final String SELECT_ARCHIVABLE_ORDERS =
+        "select id from jhi_order where created_date < ? order by created_date, id";
+
+    private static final String SELECT_HISTORIES = "select id from order_status_history where order_id in (:ids)";
+
+    private static final String ARCHIVE_HISTORIES =
+        "insert into order_status_history_archive " +
+        "(id, modified_time, jhi_desc, operator_code, operator_type_id, order_id, old_status_id, new_status_id) " +
+        "select id, modified_time, jhi_desc, operator_code, operator_type_id, order_id, old_status_id, new_status_id " +
+        "from order_status_history where order_id in (:ids)";
+
+    private static final String DELETE_HISTORIES = "delete from order_status_history where order_id in (:ids)";
+
+    private static final String ARCHIVE_ORDERS =
+        "insert into jhi_order_archive " +
+        "(id, name, code, jhi_desc, amount, created_date, user_id, pay_type_id, order_type_id, order_status_id, product_id) " +
+        "select id, name, code, jhi_desc, amount, created_date, user_id, pay_type_id, order_type_id, order_status_id, product_id " +
+        "from jhi_order where id in (:ids)";
+
+    private static final String DELETE_ORDERS = "delete from jhi_order where id in (:ids)";
+
+    private final Logger log = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final SearchOutboxService searchOutboxService;
+
+    public OrderArchiver(NamedParameterJdbcTemplate jdbcTemplate, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            SearchOutboxService searchOutboxService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        this.searchOutboxService = searchOutboxService;
+    }
+
+    /**
+     * Orders created before the cutoff may be in the archive tier, orders created after it are always in the hot tier.
+     *
+     * @return the current cutoff
+     */
+    public ZonedDateTime getCutoff() {
+        return ZonedDateTime.now().minusDays(applicationProperties.getArchive().getRetentionDays());
+    }
+
+    @Scheduled(cron = "${application.archive.cron:0 0 3 * * ?}")
+    public void archiveOrders() {
+        archive(getCutoff());
+    }
+
+    /**
+     * Archive all the orders created before the given date.
+     * <p>
+     * This joins the current transaction if there is one.
+     *
+     * @param cutoff the creation date before which orders are archived
+     * @return the number of archived orders
+     */
+    public int archive(ZonedDateTime cutoff) {
+        int batchSize = applicationProperties.getArchive().getBatchSize();
+        int archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff, batchSize));
+            archived += moved;
+        } while (moved == batchSize);
+        log.info("Archived {} orders created before {}", archived, cutoff);
+        return archived;
+    }
+
+    private int archiveBatch(ZonedDateTime cutoff, int batchSize) {
+        List<Long> ids = jdbcTemplate.getJdbcOperations().query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ARCHIVABLE_ORDERS);
+            statement.setTimestamp(1, Timestamp.from(cutoff.toInstant()));
+            statement.setMaxRows(batchSize);
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getLong(1));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids);
+        List<Long> historyIds = jdbcTemplate.queryForList(SELECT_HISTORIES, parameters, Long.class);
+        jdbcTemplate.update(ARCHIVE_HISTORIES, parameters);
+        jdbcTemplate.update(DELETE_HISTORIES, parameters);
+        jdbcTemplate.update(ARCHIVE_ORDERS, parameters);
+        jdbcTemplate.update(DELETE_ORDERS, parameters);
+        searchOutboxService.scheduleDelete(Order.class, ids);
+        if (!historyIds.isEmpty()) {
+            searchOutboxService.scheduleDelete(OrderStatusHistory.class, historyIds);
+        }
+
+        // the rows were moved behind Hibernate's back: evict them from the second level cache
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+        ids.forEach(id -> cache.evict(Order.class, id));
+        historyIds.forEach(id -> cache.evict(OrderStatusHistory.class, id));
+        return ids.size();
+    }
+}
@@ -0,0 +1,46 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.repository.OrderStatusRepository;
+import com.cloud.distribution.service.dto.OrderDTO;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Service telling the completed orders, which earn commissions and count in the sales of the merchants: the
+ * orders in the status of code {@code application.commission.completed-status}.
+ */
+@Service
+@Transactional(readOnly = true)
+public class OrderCompletionService {
+
+    private final OrderStatusRepository orderStatusRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    public OrderCompletionService(OrderStatusRepository orderStatusRepository,
+            ApplicationProperties applicationProperties) {
+        this.orderStatusRepository = orderStatusRepository;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * @return the code of the completed order status
+     */
+    public String getCompletedStatusCode() {
+        return applicationProperties.getCommission().getCompletedStatus();
+    }
+
+    /**
+     * @param order an order, may be null
+     * @return true if the order is completed
+     */
+    public boolean isCompleted(OrderDTO order) {
+        if (order == null || order.getOrderStatusId() == null) {
+            return false;
+        }
+        OrderStatus status = orderStatusRepository.findOne(order.getOrderStatusId());
+        return status != null && getCompletedStatusCode().equals(status.getCode());
+    }
+}
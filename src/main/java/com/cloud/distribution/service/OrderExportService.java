@@ -0,0 +1,141 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Service exporting orders as CSV or NDJSON.
+ * <p>
+ * Orders are streamed from a database cursor and written one by one to a buffered writer,
+ * so the memory used does not depend on the number of exported orders.
+ */
+@Service
+public class OrderExportService {
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8), "csv"),
+        NDJSON(new MediaType("application", "x-ndjson", StandardCharsets.UTF_8), "ndjson");
+
+        private final MediaType mediaType;
+
+        private final String extension;
+
+        Format(MediaType mediaType, String extension) {
+            this.mediaType = mediaType;
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * @return the format with this name, case insensitive, or null if it is not supported
+         */
+        public static Format fromName(String name) {
+            return Arrays.stream(values())
+                .filter(format -> format.name().equals(name.toUpperCase(Locale.ROOT)))
+                .findFirst()
+                .orElse(null);
+        }
+    }
+
+    private static final String CSV_HEADER = "id,name,code,desc,amount,createdDate,userId,payTypeId,payTypeName," +
+        "orderTypeId,orderTypeName,orderStatusId,orderStatusName,productId,productName";
+
+    private final Logger log = LoggerFactory.getLogger(OrderExportService.class);
+
+    private final OrderQueryService orderQueryService;
+
+    private final ObjectMapper objectMapper;
+
+    private final ApplicationProperties applicationProperties;
+
+    public OrderExportService(OrderQueryService orderQueryService, ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties) {
+        this.orderQueryService = orderQueryService;
+        this.objectMapper = objectMapper;
+        this.applicationProperties = applicationProperties;
+    }
+
+    /**
+     * Write the orders matching the criteria to the output stream, which is not closed.
+     *
+     * @param criteria the criteria which the exported orders should match
+     * @param format the export format
+     * @param outputStream the stream the export is written to
+     * @throws IOException if the export could not be written
+     */
+    public void export(OrderCriteria criteria, Format format, OutputStream outputStream) throws IOException {
+        log.debug("Request to export Orders as {} by criteria: {}", format, criteria);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            orderQueryService.streamByCriteria(criteria, applicationProperties.getExport().getFetchSize(), order -> {
+                try {
+                    writer.write(format == Format.CSV ? toCsv(order) : toJson(order));
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private String toJson(OrderDTO order) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(order);
+    }
+
+    private static String toCsv(OrderDTO order) {
+        return Arrays.stream(new Object[] {
+            order.getId(), order.getName(), order.getCode(), order.getDesc(), order.getAmount(),
+            order.getCreatedDate(), order.getUserId(),
+            order.getPayTypeId(), order.getPayTypeName(), order.getOrderTypeId(), order.getOrderTypeName(),
+            order.getOrderStatusId(), order.getOrderStatusName(), order.getProductId(), order.getProductName()})
+            .map(OrderExportService::toCsvField)
+            .collect(Collectors.joining(","));
+    }
+
+    private static String toCsvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String field = value instanceof ZonedDateTime ? ((ZonedDateTime) value).toInstant().toString() : value.toString();
+        if (field.contains(",") || field.contains("\"") || field.contains("\n") || field.contains("\r")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+}
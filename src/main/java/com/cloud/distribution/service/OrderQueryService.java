@@ -2,23 +2,34 @@ package com.cloud.distribution.service;
 
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.github.jhipster.service.QueryService;
+import io.github.jhipster.service.filter.ZonedDateTimeFilter;
 
 import com.cloud.distribution.domain.Order;
 import com.cloud.distribution.domain.*; // for static metamodels
 import com.cloud.distribution.repository.OrderRepository;
 import com.cloud.distribution.repository.search.OrderSearchRepository;
 import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
 
 import com.cloud.distribution.service.dto.OrderDTO;
 import com.cloud.distribution.service.mapper.OrderMapper;
@@ -27,7 +38,10 @@ import com.cloud.distribution.service.mapper.OrderMapper;
  * Service for executing complex queries for Order entities in the database.
  * The main input is a {@link OrderCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link OrderDTO} or a {@link Page} of {@link OrderDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link OrderDTO}, a {@link Page} or a keyset {@link Slice} of {@link OrderDTO} which fulfills the criteria.
+ * The DTOs are projected by the query, without loading the Order entities.
+ * Only the hot orders are read, unless the created date range of the criteria reaches the archived orders:
+ * both tiers are then read by the {@link ArchivedOrderQueryService} and merged.
  */
 @Service
 @Transactional(readOnly = true)
@@ -42,10 +56,17 @@ public class OrderQueryService extends QueryService<Order> {
 
     private final OrderSearchRepository orderSearchRepository;
 
-    public OrderQueryService(OrderRepository orderRepository, OrderMapper orderMapper, OrderSearchRepository orderSearchRepository) {
+    private final ArchivedOrderQueryService archivedOrderQueryService;
+
+    private final OrderArchiver orderArchiver;
+
+    public OrderQueryService(OrderRepository orderRepository, OrderMapper orderMapper, OrderSearchRepository orderSearchRepository,
+            ArchivedOrderQueryService archivedOrderQueryService, OrderArchiver orderArchiver) {
         this.orderRepository = orderRepository;
         this.orderMapper = orderMapper;
         this.orderSearchRepository = orderSearchRepository;
+        this.archivedOrderQueryService = archivedOrderQueryService;
+        this.orderArchiver = orderArchiver;
     }
 
     /**
@@ -57,7 +78,13 @@ public class OrderQueryService extends QueryService<Order> {
     public List<OrderDTO> findByCriteria(OrderCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specifications<Order> specification = createSpecification(criteria);
-        return orderMapper.toDto(orderRepository.findAll(specification));
+        final List<OrderDTO> result = orderRepository.findAllProjected(specification);
+        if (!reachesArchive(criteria)) {
+            return result;
+        }
+        final List<OrderDTO> merged = new ArrayList<>(result);
+        merged.addAll(archivedOrderQueryService.findByCriteria(criteria));
+        return merged;
     }
 
     /**
@@ -70,8 +97,126 @@ public class OrderQueryService extends QueryService<Order> {
     public Page<OrderDTO> findByCriteria(OrderCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specifications<Order> specification = createSpecification(criteria);
-        final Page<Order> result = orderRepository.findAll(specification, page);
-        return result.map(orderMapper::toDto);
+        if (!reachesArchive(criteria)) {
+            return orderRepository.findAllProjected(specification, page);
+        }
+        final Pageable head = new PageRequest(0, page.getOffset() + page.getPageSize(), page.getSort());
+        final Page<OrderDTO> hot = orderRepository.findAllProjected(specification, head);
+        final Page<OrderDTO> archived = archivedOrderQueryService.findByCriteria(criteria, head);
+        final List<OrderDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        return new PageImpl<>(TierMerger.window(merged, page.getOffset(), page.getPageSize()), page,
+            hot.getTotalElements() + archived.getTotalElements());
+    }
+
+    /**
+     * Pass each {@link OrderDTO} which matches the criteria to the action, streaming them from the database:
+     * the hot orders first, then the archived ones if the criteria reach them, each tier in id order.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param fetchSize The number of rows fetched per round trip.
+     * @param action The action applied to each matching entity.
+     */
+    @Transactional(readOnly = true)
+    public void streamByCriteria(OrderCriteria criteria, int fetchSize, Consumer<OrderDTO> action) {
+        log.debug("stream by criteria : {}", criteria);
+        final Specifications<Order> specification = createSpecification(criteria);
+        orderRepository.forEachProjected(specification, fetchSize, action);
+        if (reachesArchive(criteria)) {
+            archivedOrderQueryService.streamByCriteria(criteria, fetchSize, action);
+        }
+    }
+
+    /**
+     * Return a {@link Slice} of {@link OrderDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderDTO> findSliceByCriteria(OrderCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<Order> specification = createSpecification(criteria);
+        if (!reachesArchive(criteria)) {
+            return orderRepository.findSliceProjected(specification, page);
+        }
+        final Pageable head = new PageRequest(0, page.getOffset() + page.getPageSize(), page.getSort());
+        final Slice<OrderDTO> hot = orderRepository.findSliceProjected(specification, head);
+        final Slice<OrderDTO> archived = archivedOrderQueryService.findSliceByCriteria(criteria, head);
+        final List<OrderDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        final boolean hasNext = hot.hasNext() || archived.hasNext() || merged.size() > page.getOffset() + page.getPageSize();
+        return new SliceImpl<>(TierMerger.window(merged, page.getOffset(), page.getPageSize()), page, hasNext);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link OrderDTO} which matches the criteria from the database, sorted by
+     * descending createdDate and id and starting right after the given cursor.
+     * The rows are sought on the (createdDate, id) index, so no offset is scanned and no count query is executed.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The position of the last entity of the previous slice, or null for the first slice.
+     * @param size The size of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderDTO> findByCriteria(OrderCriteria criteria, KeysetCursor after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specifications<Order> specification = createSpecification(criteria).and(seekAfter(after));
+        final Pageable page = new PageRequest(0, size, new Sort(Sort.Direction.DESC, "createdDate", "id"));
+        if (!reachesArchive(criteria)) {
+            return orderRepository.findSliceProjected(specification, page);
+        }
+        final Slice<OrderDTO> hot = orderRepository.findSliceProjected(specification, page);
+        final Slice<OrderDTO> archived = archivedOrderQueryService.findByCriteria(criteria, after, size);
+        final List<OrderDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        final boolean hasNext = hot.hasNext() || archived.hasNext() || merged.size() > size;
+        return new SliceImpl<>(TierMerger.window(merged, 0, size), page, hasNext);
+    }
+
+    /**
+     * Cursor of the next keyset slice, or null if the given slice is the last one.
+     */
+    public KeysetCursor nextCursor(Slice<OrderDTO> slice) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        OrderDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        return new KeysetCursor(last.getCreatedDate(), last.getId());
+    }
+
+    /**
+     * Keyset predicate: (createdDate, id) strictly lower than the cursor, rows without createdDate are never listed.
+     */
+    private Specification<Order> seekAfter(KeysetCursor after) {
+        return (root, query, cb) -> {
+            if (after == null) {
+                return cb.isNotNull(root.get(Order_.createdDate));
+            }
+            return cb.or(
+                cb.lessThan(root.get(Order_.createdDate), after.getDate()),
+                cb.and(
+                    cb.equal(root.get(Order_.createdDate), after.getDate()),
+                    cb.lessThan(root.get(Order_.id), after.getId())));
+        };
+    }
+
+    /**
+     * Whether the created date range of the criteria starts before the archive cutoff (or is open):
+     * orders created after the cutoff are never archived, so other criteria are answered by the hot tier alone.
+     */
+    private boolean reachesArchive(OrderCriteria criteria) {
+        final ZonedDateTimeFilter createdDate = criteria == null ? null : criteria.getCreatedDate();
+        if (createdDate == null) {
+            return false;
+        }
+        ZonedDateTime from = null;
+        if (createdDate.getEquals() != null) {
+            from = createdDate.getEquals();
+        } else if (createdDate.getIn() != null && !createdDate.getIn().isEmpty()) {
+            from = Collections.min(createdDate.getIn());
+        } else if (createdDate.getGreaterThan() != null) {
+            from = createdDate.getGreaterThan();
+        } else if (createdDate.getGreaterOrEqualThan() != null) {
+            from = createdDate.getGreaterOrEqualThan();
+        }
+        return from == null || from.isBefore(orderArchiver.getCutoff());
     }
 
     /**
@@ -1,17 +1,29 @@
 package com.cloud.distribution.service;
 
+import com.cloud.distribution.config.ApplicationProperties;
 import com.cloud.distribution.domain.Order;
 import com.cloud.distribution.repository.OrderRepository;
 import com.cloud.distribution.repository.search.OrderSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
+import com.cloud.distribution.service.event.OrderChangedEvent;
+import com.cloud.distribution.service.event.OrdersCreatedEvent;
 import com.cloud.distribution.service.mapper.OrderMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -30,24 +42,87 @@ public class OrderService {
 
     private final OrderSearchRepository orderSearchRepository;
 
-    public OrderService(OrderRepository orderRepository, OrderMapper orderMapper, OrderSearchRepository orderSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ArchivedOrderQueryService archivedOrderQueryService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final LookupBundleService lookupBundleService;
+
+    public OrderService(OrderRepository orderRepository, OrderMapper orderMapper, OrderSearchRepository orderSearchRepository,
+            SearchOutboxService searchOutboxService, EntityManager entityManager, ApplicationProperties applicationProperties,
+            ArchivedOrderQueryService archivedOrderQueryService, ApplicationEventPublisher eventPublisher,
+            LookupBundleService lookupBundleService) {
         this.orderRepository = orderRepository;
         this.orderMapper = orderMapper;
         this.orderSearchRepository = orderSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.entityManager = entityManager;
+        this.applicationProperties = applicationProperties;
+        this.archivedOrderQueryService = archivedOrderQueryService;
+        this.eventPublisher = eventPublisher;
+        this.lookupBundleService = lookupBundleService;
     }
 
     /**
      * Save a order.
+     * <p>
+     * An {@link OrderChangedEvent} is published, with the previous state of the order if it is updated. An update
+     * with a version fails if the order was updated since.
      *
      * @param orderDTO the entity to save
      * @return the persisted entity
      */
     public OrderDTO save(OrderDTO orderDTO) {
         log.debug("Request to save Order : {}", orderDTO);
+        OrderDTO before = orderDTO.getId() == null ? null : orderMapper.toDto(orderRepository.findOne(orderDTO.getId()));
         Order order = orderMapper.toEntity(orderDTO);
+        if (before != null && order.getVersion() == null) {
+            // Without a version, the update is not checked against concurrent ones
+            order.setVersion(before.getVersion());
+        }
         order = orderRepository.save(order);
         OrderDTO result = orderMapper.toDto(order);
-        orderSearchRepository.save(order);
+        searchOutboxService.scheduleIndex(Order.class, order.getId());
+        eventPublisher.publishEvent(new OrderChangedEvent(before, result));
+        return result;
+    }
+
+    /**
+     * Save a list of new orders.
+     * <p>
+     * Orders are persisted chunk by chunk: each chunk is flushed as JDBC insert batches,
+     * together with its search outbox entries (which the indexer sends as a single
+     * Elasticsearch bulk request), and then detached from the persistence context so
+     * that memory does not grow with the size of the list.
+     * <p>
+     * All the chunks are saved in a single transaction: the list is created entirely or not
+     * at all, so that a failed request can be retried as is without creating duplicates. The
+     * transaction, and the locks taken by the listeners of the chunks, last as long as the whole list,
+     * which application.bulk.max-size bounds.
+     *
+     * @param orderDTOs the entities to save
+     * @return the persisted entities
+     */
+    public List<OrderDTO> saveAll(List<OrderDTO> orderDTOs) {
+        log.debug("Request to save {} Orders", orderDTOs.size());
+        int chunkSize = applicationProperties.getBulk().getChunkSize();
+        List<OrderDTO> result = new ArrayList<>(orderDTOs.size());
+        for (int from = 0; from < orderDTOs.size(); from += chunkSize) {
+            List<Order> chunk = orderMapper.toEntity(orderDTOs.subList(from, Math.min(from + chunkSize, orderDTOs.size())));
+            chunk = orderRepository.save(chunk);
+            searchOutboxService.scheduleIndex(Order.class, chunk.stream().map(Order::getId).collect(Collectors.toList()));
+            orderRepository.flush();
+            List<OrderDTO> created = orderMapper.toDto(chunk);
+            eventPublisher.publishEvent(new OrdersCreatedEvent(created));
+            result.addAll(created);
+            entityManager.clear();
+        }
         return result;
     }
 
@@ -65,7 +140,23 @@ public class OrderService {
     }
 
     /**
-     * Get one order by id.
+     * Get the versions which the representation of an order of the hot tier depends on, without loading it: the
+     * version of the order, of its product for the product name, and the hash of the lookups for their names.
+     *
+     * @param id the id of the entity
+     * @return the versions, or null if there is no such order
+     */
+    @Transactional(readOnly = true)
+    public List<Object> findVersions(Long id) {
+        List<Object[]> versions = orderRepository.findVersions(id);
+        if (versions.isEmpty()) {
+            return null;
+        }
+        return Arrays.asList(versions.get(0)[0], versions.get(0)[1], lookupBundleService.getBundle().getHash());
+    }
+
+    /**
+     * Get one order by id, from the hot tier or else from the archive.
      *
      * @param id the id of the entity
      * @return the entity
@@ -74,6 +165,9 @@ public class OrderService {
     public OrderDTO findOne(Long id) {
         log.debug("Request to get Order : {}", id);
         Order order = orderRepository.findOne(id);
+        if (order == null) {
+            return archivedOrderQueryService.findOne(id);
+        }
         return orderMapper.toDto(order);
     }
 
@@ -84,12 +178,15 @@ public class OrderService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Order : {}", id);
+        OrderDTO before = orderMapper.toDto(orderRepository.findOne(id));
         orderRepository.delete(id);
-        orderSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(Order.class, id);
+        eventPublisher.publishEvent(new OrderChangedEvent(before, null));
     }
 
     /**
-     * Search for the order corresponding to the query.
+     * Search for the order corresponding to the query. Only the hot orders are indexed: the archived ones are removed
+     * from the index when they are archived, and are not searchable.
      *
      * @param query the query of the search
      * @param pageable the pagination information
@@ -101,4 +198,19 @@ public class OrderService {
         Page<Order> result = orderSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(orderMapper::toDto);
     }
+
+    /**
+     * Search for the order corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of Orders for query {} after {}", query, after);
+        Slice<Order> result = SearchAfterUtil.searchAfter(orderSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(orderMapper::toDto);
+    }
 }
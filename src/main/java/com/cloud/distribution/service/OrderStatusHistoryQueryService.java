@@ -2,23 +2,33 @@ package com.cloud.distribution.service;
 
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.github.jhipster.service.QueryService;
+import io.github.jhipster.service.filter.ZonedDateTimeFilter;
 
 import com.cloud.distribution.domain.OrderStatusHistory;
 import com.cloud.distribution.domain.*; // for static metamodels
 import com.cloud.distribution.repository.OrderStatusHistoryRepository;
 import com.cloud.distribution.repository.search.OrderStatusHistorySearchRepository;
 import com.cloud.distribution.service.dto.OrderStatusHistoryCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
 
 import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
 import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
@@ -27,7 +37,13 @@ import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
  * Service for executing complex queries for OrderStatusHistory entities in the database.
  * The main input is a {@link OrderStatusHistoryCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link OrderStatusHistoryDTO} or a {@link Page} of {@link OrderStatusHistoryDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link OrderStatusHistoryDTO}, a {@link Page} or a keyset {@link Slice} of {@link OrderStatusHistoryDTO} which fulfills the criteria.
+ * The histories are archived with their order, which was created before the archive cutoff, and a history is never
+ * older than its order: as for the orders by {@link OrderQueryService}, only the hot histories are read, unless the
+ * modified time range of the criteria starts before the cutoff, or the criteria select orders by id. Both tiers are
+ * then read, the archive by the {@link ArchivedOrderStatusHistoryQueryService}, and merged. The histories of an
+ * archived order modified after the cutoff are thus only listed by criteria on the order id.
+ * Archived histories are not searchable: the search only returns the hot histories.
  */
 @Service
 @Transactional(readOnly = true)
@@ -42,10 +58,17 @@ public class OrderStatusHistoryQueryService extends QueryService<OrderStatusHist
 
     private final OrderStatusHistorySearchRepository orderStatusHistorySearchRepository;
 
-    public OrderStatusHistoryQueryService(OrderStatusHistoryRepository orderStatusHistoryRepository, OrderStatusHistoryMapper orderStatusHistoryMapper, OrderStatusHistorySearchRepository orderStatusHistorySearchRepository) {
+    private final ArchivedOrderStatusHistoryQueryService archivedOrderStatusHistoryQueryService;
+
+    private final OrderArchiver orderArchiver;
+
+    public OrderStatusHistoryQueryService(OrderStatusHistoryRepository orderStatusHistoryRepository, OrderStatusHistoryMapper orderStatusHistoryMapper, OrderStatusHistorySearchRepository orderStatusHistorySearchRepository,
+            ArchivedOrderStatusHistoryQueryService archivedOrderStatusHistoryQueryService, OrderArchiver orderArchiver) {
         this.orderStatusHistoryRepository = orderStatusHistoryRepository;
         this.orderStatusHistoryMapper = orderStatusHistoryMapper;
         this.orderStatusHistorySearchRepository = orderStatusHistorySearchRepository;
+        this.archivedOrderStatusHistoryQueryService = archivedOrderStatusHistoryQueryService;
+        this.orderArchiver = orderArchiver;
     }
 
     /**
@@ -57,7 +80,13 @@ public class OrderStatusHistoryQueryService extends QueryService<OrderStatusHist
     public List<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
         final Specifications<OrderStatusHistory> specification = createSpecification(criteria);
-        return orderStatusHistoryMapper.toDto(orderStatusHistoryRepository.findAll(specification));
+        final List<OrderStatusHistoryDTO> result = orderStatusHistoryMapper.toDto(orderStatusHistoryRepository.findAll(specification));
+        if (!reachesArchive(criteria)) {
+            return result;
+        }
+        final List<OrderStatusHistoryDTO> merged = new ArrayList<>(result);
+        merged.addAll(archivedOrderStatusHistoryQueryService.findByCriteria(criteria));
+        return merged;
     }
 
     /**
@@ -70,8 +99,117 @@ public class OrderStatusHistoryQueryService extends QueryService<OrderStatusHist
     public Page<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
         final Specifications<OrderStatusHistory> specification = createSpecification(criteria);
-        final Page<OrderStatusHistory> result = orderStatusHistoryRepository.findAll(specification, page);
-        return result.map(orderStatusHistoryMapper::toDto);
+        if (!reachesArchive(criteria)) {
+            final Page<OrderStatusHistory> result = orderStatusHistoryRepository.findAll(specification, page);
+            return result.map(orderStatusHistoryMapper::toDto);
+        }
+        final Pageable head = new PageRequest(0, page.getOffset() + page.getPageSize(), page.getSort());
+        final Page<OrderStatusHistoryDTO> hot = orderStatusHistoryRepository.findAll(specification, head).map(orderStatusHistoryMapper::toDto);
+        final Page<OrderStatusHistoryDTO> archived = archivedOrderStatusHistoryQueryService.findByCriteria(criteria, head);
+        final List<OrderStatusHistoryDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        return new PageImpl<>(TierMerger.window(merged, page.getOffset(), page.getPageSize()), page,
+            hot.getTotalElements() + archived.getTotalElements());
+    }
+
+    /**
+     * Return a {@link Slice} of {@link OrderStatusHistoryDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusHistoryDTO> findSliceByCriteria(OrderStatusHistoryCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<OrderStatusHistory> specification = createSpecification(criteria);
+        if (!reachesArchive(criteria)) {
+            return orderStatusHistoryRepository.findSlice(specification, page).map(orderStatusHistoryMapper::toDto);
+        }
+        final Pageable head = new PageRequest(0, page.getOffset() + page.getPageSize(), page.getSort());
+        final Slice<OrderStatusHistoryDTO> hot = orderStatusHistoryRepository.findSlice(specification, head).map(orderStatusHistoryMapper::toDto);
+        final Slice<OrderStatusHistoryDTO> archived = archivedOrderStatusHistoryQueryService.findSliceByCriteria(criteria, head);
+        final List<OrderStatusHistoryDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        final boolean hasNext = hot.hasNext() || archived.hasNext() || merged.size() > page.getOffset() + page.getPageSize();
+        return new SliceImpl<>(TierMerger.window(merged, page.getOffset(), page.getPageSize()), page, hasNext);
+    }
+
+    /**
+     * Return a {@link Slice} of {@link OrderStatusHistoryDTO} which matches the criteria from the database, sorted by
+     * descending modifiedTime and id and starting right after the given cursor.
+     * The rows are sought on the (modifiedTime, id) index, so no offset is scanned and no count query is executed.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param after The position of the last entity of the previous slice, or null for the first slice.
+     * @param size The size of the slice.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusHistoryDTO> findByCriteria(OrderStatusHistoryCriteria criteria, KeysetCursor after, int size) {
+        log.debug("find by criteria : {}, after: {}, size: {}", criteria, after, size);
+        final Specifications<OrderStatusHistory> specification = createSpecification(criteria).and(seekAfter(after));
+        final Pageable page = new PageRequest(0, size, new Sort(Sort.Direction.DESC, "modifiedTime", "id"));
+        final Slice<OrderStatusHistoryDTO> hot = orderStatusHistoryRepository.findSlice(specification, page).map(orderStatusHistoryMapper::toDto);
+        if (!reachesArchive(criteria)) {
+            return hot;
+        }
+        final Slice<OrderStatusHistoryDTO> archived = archivedOrderStatusHistoryQueryService.findByCriteria(criteria, after, size);
+        final List<OrderStatusHistoryDTO> merged = TierMerger.merge(hot, archived, page.getSort());
+        final boolean hasNext = hot.hasNext() || archived.hasNext() || merged.size() > size;
+        return new SliceImpl<>(TierMerger.window(merged, 0, size), page, hasNext);
+    }
+
+    /**
+     * Cursor of the next keyset slice, or null if the given slice is the last one.
+     */
+    public KeysetCursor nextCursor(Slice<OrderStatusHistoryDTO> slice) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        OrderStatusHistoryDTO last = slice.getContent().get(slice.getNumberOfElements() - 1);
+        return new KeysetCursor(last.getModifiedTime(), last.getId());
+    }
+
+    /**
+     * Keyset predicate: (modifiedTime, id) strictly lower than the cursor, rows without modifiedTime are never listed.
+     */
+    private Specification<OrderStatusHistory> seekAfter(KeysetCursor after) {
+        return (root, query, cb) -> {
+            if (after == null) {
+                return cb.isNotNull(root.get(OrderStatusHistory_.modifiedTime));
+            }
+            return cb.or(
+                cb.lessThan(root.get(OrderStatusHistory_.modifiedTime), after.getDate()),
+                cb.and(
+                    cb.equal(root.get(OrderStatusHistory_.modifiedTime), after.getDate()),
+                    cb.lessThan(root.get(OrderStatusHistory_.id), after.getId())));
+        };
+    }
+
+    /**
+     * Whether the criteria may match archived histories: their modified time range starts before the archive cutoff
+     * (or is open), as histories modified before it belong to orders created before it, or they select orders by id,
+     * whose histories are archived with them. Other criteria are answered by the hot tier alone.
+     */
+    private boolean reachesArchive(OrderStatusHistoryCriteria criteria) {
+        if (criteria == null) {
+            return false;
+        }
+        if (criteria.getOrderId() != null) {
+            return true;
+        }
+        final ZonedDateTimeFilter modifiedTime = criteria.getModifiedTime();
+        if (modifiedTime == null) {
+            return false;
+        }
+        ZonedDateTime from = null;
+        if (modifiedTime.getEquals() != null) {
+            from = modifiedTime.getEquals();
+        } else if (modifiedTime.getIn() != null && !modifiedTime.getIn().isEmpty()) {
+            from = Collections.min(modifiedTime.getIn());
+        } else if (modifiedTime.getGreaterThan() != null) {
+            from = modifiedTime.getGreaterThan();
+        } else if (modifiedTime.getGreaterOrEqualThan() != null) {
+            from = modifiedTime.getGreaterOrEqualThan();
+        }
+        return from == null || from.isBefore(orderArchiver.getCutoff());
     }
 
     /**
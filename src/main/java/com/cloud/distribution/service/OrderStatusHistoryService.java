@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.OrderStatusHistory;
 import com.cloud.distribution.repository.OrderStatusHistoryRepository;
 import com.cloud.distribution.repository.search.OrderStatusHistorySearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class OrderStatusHistoryService {
 
     private final OrderStatusHistorySearchRepository orderStatusHistorySearchRepository;
 
-    public OrderStatusHistoryService(OrderStatusHistoryRepository orderStatusHistoryRepository, OrderStatusHistoryMapper orderStatusHistoryMapper, OrderStatusHistorySearchRepository orderStatusHistorySearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final ArchivedOrderStatusHistoryQueryService archivedOrderStatusHistoryQueryService;
+
+    public OrderStatusHistoryService(OrderStatusHistoryRepository orderStatusHistoryRepository, OrderStatusHistoryMapper orderStatusHistoryMapper, OrderStatusHistorySearchRepository orderStatusHistorySearchRepository, SearchOutboxService searchOutboxService,
+            ArchivedOrderStatusHistoryQueryService archivedOrderStatusHistoryQueryService) {
         this.orderStatusHistoryRepository = orderStatusHistoryRepository;
         this.orderStatusHistoryMapper = orderStatusHistoryMapper;
         this.orderStatusHistorySearchRepository = orderStatusHistorySearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.archivedOrderStatusHistoryQueryService = archivedOrderStatusHistoryQueryService;
     }
 
     /**
@@ -47,7 +57,7 @@ public class OrderStatusHistoryService {
         OrderStatusHistory orderStatusHistory = orderStatusHistoryMapper.toEntity(orderStatusHistoryDTO);
         orderStatusHistory = orderStatusHistoryRepository.save(orderStatusHistory);
         OrderStatusHistoryDTO result = orderStatusHistoryMapper.toDto(orderStatusHistory);
-        orderStatusHistorySearchRepository.save(orderStatusHistory);
+        searchOutboxService.scheduleIndex(OrderStatusHistory.class, orderStatusHistory.getId());
         return result;
     }
 
@@ -65,7 +75,7 @@ public class OrderStatusHistoryService {
     }
 
     /**
-     * Get one orderStatusHistory by id.
+     * Get one orderStatusHistory by id, from the archive tier if it was archived with its order.
      *
      * @param id the id of the entity
      * @return the entity
@@ -74,6 +84,9 @@ public class OrderStatusHistoryService {
     public OrderStatusHistoryDTO findOne(Long id) {
         log.debug("Request to get OrderStatusHistory : {}", id);
         OrderStatusHistory orderStatusHistory = orderStatusHistoryRepository.findOne(id);
+        if (orderStatusHistory == null) {
+            return archivedOrderStatusHistoryQueryService.findOne(id);
+        }
         return orderStatusHistoryMapper.toDto(orderStatusHistory);
     }
 
@@ -85,11 +98,12 @@ public class OrderStatusHistoryService {
     public void delete(Long id) {
         log.debug("Request to delete OrderStatusHistory : {}", id);
         orderStatusHistoryRepository.delete(id);
-        orderStatusHistorySearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(OrderStatusHistory.class, id);
     }
 
     /**
-     * Search for the orderStatusHistory corresponding to the query.
+     * Search for the orderStatusHistory corresponding to the query. Only the hot histories are indexed: the archived
+     * ones are removed from the index when they are archived, and are not searchable.
      *
      * @param query the query of the search
      * @param pageable the pagination information
@@ -101,4 +115,19 @@ public class OrderStatusHistoryService {
         Page<OrderStatusHistory> result = orderStatusHistorySearchRepository.search(queryStringQuery(query), pageable);
         return result.map(orderStatusHistoryMapper::toDto);
     }
+
+    /**
+     * Search for the orderStatusHistory corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusHistoryDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of OrderStatusHistories for query {} after {}", query, after);
+        Slice<OrderStatusHistory> result = SearchAfterUtil.searchAfter(orderStatusHistorySearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(orderStatusHistoryMapper::toDto);
+    }
 }
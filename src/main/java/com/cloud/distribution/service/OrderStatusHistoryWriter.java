@@ -0,0 +1,342 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.domain.OrderStatusHistory;
+import com.cloud.distribution.repository.JournalCheckpointRepository;
+import com.cloud.distribution.repository.OrderStatusHistoryRepository;
+import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Writer of the order status histories appended to the local journal.
+ * <p>
+ * An appended history is acknowledged once it is in the {@link MappedJournal}; it is then written to
+ * {@code order_status_history}, and scheduled for indexing, in batches by a background flush. Each batch also
+ * records the sequence of its last history as the checkpoint of the journal, in the same transaction: when the
+ * application starts, the histories of the journal after the checkpoint are replayed, and none is written twice.
+ * <p>
+ * When the journal is disabled, or when the backlog exceeds {@code application.history-journal.max-backlog},
+ * appends are refused and the histories must be saved synchronously.
+ */
+@Service
+public class OrderStatusHistoryWriter {
+
+    private final Logger log = LoggerFactory.getLogger(OrderStatusHistoryWriter.class);
+
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+
+    private final OrderStatusHistoryMapper orderStatusHistoryMapper;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final JournalCheckpointRepository journalCheckpointRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final MappedJournal journal;
+
+    private final ConcurrentLinkedQueue<PendingHistory> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The size of the queue, which a ConcurrentLinkedQueue computes by walking it.
+     */
+    private final AtomicInteger backlog = new AtomicInteger();
+
+    private final Object appendLock = new Object();
+
+    private final Meter appendedMeter;
+
+    private final Meter writtenMeter;
+
+    private final Counter rejectedCounter;
+
+    private final Counter failureCounter;
+
+    private final Timer flushTimer;
+
+    private volatile boolean ready;
+
+    public OrderStatusHistoryWriter(OrderStatusHistoryRepository orderStatusHistoryRepository,
+            OrderStatusHistoryMapper orderStatusHistoryMapper, SearchOutboxService searchOutboxService,
+            JournalCheckpointRepository journalCheckpointRepository, PlatformTransactionManager transactionManager,
+            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.orderStatusHistoryMapper = orderStatusHistoryMapper;
+        this.searchOutboxService = searchOutboxService;
+        this.journalCheckpointRepository = journalCheckpointRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        ApplicationProperties.HistoryJournal properties = applicationProperties.getHistoryJournal();
+        this.journal = properties.isEnabled()
+            ? new MappedJournal(Paths.get(properties.getDirectory()), properties.getSegmentSize(), properties.isForce(),
+                (sequence, record) -> enqueue(new PendingHistory(sequence, decode(record), System.currentTimeMillis())))
+            : null;
+        this.appendedMeter = metricRegistry.meter("history.journal.appended");
+        this.writtenMeter = metricRegistry.meter("history.journal.written");
+        this.rejectedCounter = metricRegistry.counter("history.journal.rejected");
+        this.failureCounter = metricRegistry.counter("history.journal.failures");
+        this.flushTimer = metricRegistry.timer("history.journal.flush");
+        metricRegistry.register("history.journal.backlog", (Gauge<Integer>) backlog::get);
+        metricRegistry.register("history.journal.lag", (Gauge<Long>) () -> {
+            PendingHistory oldest = pending.peek();
+            return oldest == null ? 0 : System.currentTimeMillis() - oldest.appendedAt;
+        });
+    }
+
+    /**
+     * Skip the histories of the journal which are already written, and start flushing the others.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        if (journal == null) {
+            return;
+        }
+        long checkpoint = journalCheckpointRepository.findLastSequence(journal.getId());
+        while (!pending.isEmpty() && pending.peek().sequence <= checkpoint) {
+            dequeue();
+        }
+        journal.release(checkpoint);
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} order status histories from the journal {}", backlog.get(), journal.getId());
+        }
+        ready = true;
+    }
+
+    /**
+     * Append a history to the journal.
+     *
+     * @param orderStatusHistoryDTO the history to write, without id
+     * @return true if the history is appended, false if it must be saved synchronously
+     */
+    public boolean append(OrderStatusHistoryDTO orderStatusHistoryDTO) {
+        if (journal == null || backlog.get() >= applicationProperties.getHistoryJournal().getMaxBacklog()) {
+            return false;
+        }
+        byte[] record = encode(orderStatusHistoryDTO);
+        // The histories are queued in the order of their sequence, so that a checkpoint covers all the previous ones
+        synchronized (appendLock) {
+            long sequence;
+            try {
+                sequence = journal.append(record);
+            } catch (IllegalArgumentException e) {
+                log.debug("Order status history too large for the journal: {}", e.getMessage());
+                return false;
+            }
+            enqueue(new PendingHistory(sequence, orderStatusHistoryDTO, System.currentTimeMillis()));
+        }
+        appendedMeter.mark();
+        return true;
+    }
+
+    /**
+     * Write the pending histories to the database, batch after batch.
+     */
+    @Scheduled(fixedDelayString = "${application.history-journal.flush-delay:200}")
+    public void flushPending() {
+        if (!ready) {
+            return;
+        }
+        int batchSize = applicationProperties.getHistoryJournal().getBatchSize();
+        try {
+            int written;
+            do {
+                written = flush(batchSize);
+            } while (written >= batchSize);
+        } catch (RuntimeException e) {
+            failureCounter.inc();
+            log.warn("Could not flush the order status history journal, the batch will be retried: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of appended histories not written yet
+     */
+    public int getBacklog() {
+        return backlog.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (journal != null) {
+            flushPending();
+            journal.close();
+        }
+    }
+
+    private synchronized int flush(int batchSize) {
+        List<PendingHistory> batch = new ArrayList<>(batchSize);
+        Iterator<PendingHistory> iterator = pending.iterator();
+        while (iterator.hasNext() && batch.size() < batchSize) {
+            batch.add(iterator.next());
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        try (Timer.Context ignored = flushTimer.time()) {
+            try {
+                transactionTemplate.execute(status -> write(batch));
+            } catch (DataIntegrityViolationException e) {
+                // A history rejected by the database must not block the journal: the batch is written one by one
+                batch.forEach(this::writeAlone);
+            }
+        }
+        batch.forEach(history -> dequeue());
+        journal.release(batch.get(batch.size() - 1).sequence);
+        writtenMeter.mark(batch.size());
+        return batch.size();
+    }
+
+    private void enqueue(PendingHistory history) {
+        pending.add(history);
+        backlog.incrementAndGet();
+    }
+
+    private void dequeue() {
+        pending.poll();
+        backlog.decrementAndGet();
+    }
+
+    private void writeAlone(PendingHistory history) {
+        try {
+            transactionTemplate.execute(status -> write(Collections.singletonList(history)));
+        } catch (DataIntegrityViolationException e) {
+            rejectedCounter.inc();
+            log.error("Order status history {} of the journal rejected by the database: {}", history.history, e.getMessage());
+            transactionTemplate.execute(status -> {
+                journalCheckpointRepository.save(journal.getId(), history.sequence);
+                return null;
+            });
+        }
+    }
+
+    private Void write(List<PendingHistory> batch) {
+        List<OrderStatusHistory> histories = orderStatusHistoryMapper.toEntity(batch.stream()
+            .map(history -> history.history)
+            .collect(Collectors.toList()));
+        histories = orderStatusHistoryRepository.save(histories);
+        orderStatusHistoryRepository.flush();
+        searchOutboxService.scheduleIndex(OrderStatusHistory.class,
+            histories.stream().map(OrderStatusHistory::getId).collect(Collectors.toList()));
+        journalCheckpointRepository.save(journal.getId(), batch.get(batch.size() - 1).sequence);
+        return null;
+    }
+
+    private static byte[] encode(OrderStatusHistoryDTO history) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeBoolean(history.getModifiedTime() != null);
+            if (history.getModifiedTime() != null) {
+                out.writeLong(history.getModifiedTime().toInstant().getEpochSecond());
+                out.writeInt(history.getModifiedTime().getNano());
+                out.writeUTF(history.getModifiedTime().getZone().getId());
+            }
+            writeString(out, history.getDesc());
+            writeString(out, history.getOperatorCode());
+            writeLong(out, history.getOperatorTypeId());
+            writeLong(out, history.getOrderId());
+            writeLong(out, history.getOldStatusId());
+            writeLong(out, history.getNewStatusId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OrderStatusHistoryDTO decode(byte[] record) {
+        OrderStatusHistoryDTO history = new OrderStatusHistoryDTO();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+            if (in.readBoolean()) {
+                history.setModifiedTime(Instant.ofEpochSecond(in.readLong(), in.readInt()).atZone(ZoneId.of(in.readUTF())));
+            }
+            history.setDesc(readString(in));
+            history.setOperatorCode(readString(in));
+            history.setOperatorTypeId(readLong(in));
+            history.setOrderId(readLong(in));
+            history.setOldStatusId(readLong(in));
+            history.setNewStatusId(readLong(in));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return history;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            // writeUTF is limited to 64 KB
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeLong(DataOutputStream out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static final class PendingHistory {
+
+        private final long sequence;
+
+        private final OrderStatusHistoryDTO history;
+
+        private final long appendedAt;
+
+        private PendingHistory(long sequence, OrderStatusHistoryDTO history, long appendedAt) {
+            this.sequence = sequence;
+            this.history = history;
+            this.appendedAt = appendedAt;
+        }
+    }
+}
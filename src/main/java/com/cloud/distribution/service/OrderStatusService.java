@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.OrderStatus;
 import com.cloud.distribution.repository.OrderStatusRepository;
 import com.cloud.distribution.repository.search.OrderStatusSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.OrderStatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.OrderStatusMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class OrderStatusService {
 
     private final OrderStatusSearchRepository orderStatusSearchRepository;
 
-    public OrderStatusService(OrderStatusRepository orderStatusRepository, OrderStatusMapper orderStatusMapper, OrderStatusSearchRepository orderStatusSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public OrderStatusService(OrderStatusRepository orderStatusRepository, OrderStatusMapper orderStatusMapper, OrderStatusSearchRepository orderStatusSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.orderStatusRepository = orderStatusRepository;
         this.orderStatusMapper = orderStatusMapper;
         this.orderStatusSearchRepository = orderStatusSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class OrderStatusService {
         OrderStatus orderStatus = orderStatusMapper.toEntity(orderStatusDTO);
         orderStatus = orderStatusRepository.save(orderStatus);
         OrderStatusDTO result = orderStatusMapper.toDto(orderStatus);
-        orderStatusSearchRepository.save(orderStatus);
+        searchOutboxService.scheduleIndex(OrderStatus.class, orderStatus.getId());
+        lookupRegistry.publishAfterCommit(OrderStatus.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class OrderStatusService {
     public void delete(Long id) {
         log.debug("Request to delete OrderStatus : {}", id);
         orderStatusRepository.delete(id);
-        orderStatusSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(OrderStatus.class, id);
+        lookupRegistry.publishAfterCommit(OrderStatus.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class OrderStatusService {
         Page<OrderStatus> result = orderStatusSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(orderStatusMapper::toDto);
     }
+
+    /**
+     * Search for the orderStatus corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderStatusDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of OrderStatuses for query {} after {}", query, after);
+        Slice<OrderStatus> result = SearchAfterUtil.searchAfter(orderStatusSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(orderStatusMapper::toDto);
+    }
 }
@@ -0,0 +1,14 @@
+package com.cloud.distribution.service;
+
+import org.springframework.dao.ConcurrencyFailureException;
+
+/**
+ * Thrown when the status of an order is changed while it is no longer in the expected status, as another change won
+ * the race.
+ */
+public class OrderTransitionConflictException extends ConcurrencyFailureException {
+
+    public OrderTransitionConflictException(Long orderId, Long fromStatusId) {
+        super("The order " + orderId + " is no longer in the status " + fromStatusId);
+    }
+}
@@ -0,0 +1,267 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.domain.Order;
+import com.cloud.distribution.domain.OrderStatusHistory;
+import com.cloud.distribution.repository.OrderRepository;
+import com.cloud.distribution.repository.OrderStatusHistoryRepository;
+import com.cloud.distribution.repository.OrderStatusTransitionRepository;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+import com.cloud.distribution.service.dto.OrderTransitionDTO;
+import com.cloud.distribution.service.event.OrderChangedEvent;
+import com.cloud.distribution.service.mapper.OrderMapper;
+import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.CacheRetrieveMode;
+import javax.persistence.CacheStoreMode;
+import javax.persistence.EntityManager;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service changing the status of the orders, one transition at a time.
+ * <p>
+ * A transition is a compare-and-set of the status of the order: it only succeeds if the order is still in the
+ * status the caller saw, so concurrent changes cannot overwrite each other. The status history of the transition is
+ * written in the same transaction, and an {@link OrderChangedEvent} is published as by {@link OrderService#save}.
+ * <p>
+ * The allowed transitions, from {@code order_status_transition}, are held in memory: they are loaded when the
+ * application starts. Each transition allowed or forbidden through {@link #allow} and {@link #forbid} is published
+ * after the commit on a Hazelcast topic, as the lookups by {@link LookupRegistry}: every member of the cluster,
+ * including this one, then reloads its transitions.
+ */
+@Service
+@Transactional
+public class OrderTransitionService {
+
+    public static final String TOPIC_NAME = "order-status-transitions";
+
+    private static final Map<String, Object> BYPASS_CACHE;
+
+    static {
+        Map<String, Object> hints = new HashMap<>();
+        hints.put("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        hints.put("javax.persistence.cache.storeMode", CacheStoreMode.BYPASS);
+        BYPASS_CACHE = Collections.unmodifiableMap(hints);
+    }
+
+    private final Logger log = LoggerFactory.getLogger(OrderTransitionService.class);
+
+    private final OrderStatusTransitionRepository orderStatusTransitionRepository;
+
+    private final OrderRepository orderRepository;
+
+    private final OrderMapper orderMapper;
+
+    private final OrderStatusHistoryRepository orderStatusHistoryRepository;
+
+    private final OrderStatusHistoryMapper orderStatusHistoryMapper;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final EntityManager entityManager;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Meter transitionMeter;
+
+    private final Counter conflictCounter;
+
+    private final ITopic<Long> topic;
+
+    /**
+     * The ids of the statuses each status may move to, replaced as a whole on reload.
+     */
+    private volatile Map<Long, Set<Long>> allowedTransitions = Collections.emptyMap();
+
+    public OrderTransitionService(OrderStatusTransitionRepository orderStatusTransitionRepository,
+            OrderRepository orderRepository, OrderMapper orderMapper,
+            OrderStatusHistoryRepository orderStatusHistoryRepository, OrderStatusHistoryMapper orderStatusHistoryMapper,
+            SearchOutboxService searchOutboxService, EntityManager entityManager,
+            ApplicationEventPublisher eventPublisher, MetricRegistry metricRegistry,
+            HazelcastInstance hazelcastInstance) {
+        this.orderStatusTransitionRepository = orderStatusTransitionRepository;
+        this.orderRepository = orderRepository;
+        this.orderMapper = orderMapper;
+        this.orderStatusHistoryRepository = orderStatusHistoryRepository;
+        this.orderStatusHistoryMapper = orderStatusHistoryMapper;
+        this.searchOutboxService = searchOutboxService;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.transitionMeter = metricRegistry.meter("order.transitions");
+        this.conflictCounter = metricRegistry.counter("order.transitions.conflicts");
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        this.topic.addMessageListener(message -> {
+            log.debug("Reloading the order status transitions, changed from the status {}", message.getMessageObject());
+            reload();
+        });
+    }
+
+    /**
+     * Load the allowed transitions.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reload() {
+        Map<Long, Set<Long>> transitions = new HashMap<>();
+        for (long[] transition : orderStatusTransitionRepository.findAll()) {
+            transitions.computeIfAbsent(transition[0], k -> new HashSet<>()).add(transition[1]);
+        }
+        allowedTransitions = transitions;
+        log.debug("Loaded the order status transitions from {} statuses", transitions.size());
+    }
+
+    /**
+     * Get all the allowed transitions.
+     *
+     * @return the transitions, as read from the database
+     */
+    @Transactional(readOnly = true)
+    public List<OrderTransitionDTO> findAll() {
+        log.debug("Request to get all the order status transitions");
+        return orderStatusTransitionRepository.findAll().stream().map(transition -> {
+            OrderTransitionDTO transitionDTO = new OrderTransitionDTO();
+            transitionDTO.setFromStatusId(transition[0]);
+            transitionDTO.setToStatusId(transition[1]);
+            return transitionDTO;
+        }).collect(Collectors.toList());
+    }
+
+    /**
+     * Allow the orders to move from a status to another one, in every member of the cluster once committed.
+     *
+     * @param fromStatusId the id of the status from
+     * @param toStatusId the id of the status to
+     * @return true if the transition is added, false if it was already allowed
+     */
+    public boolean allow(Long fromStatusId, Long toStatusId) {
+        log.debug("Request to allow the order status transition from {} to {}", fromStatusId, toStatusId);
+        boolean added = orderStatusTransitionRepository.insert(fromStatusId, toStatusId);
+        if (added) {
+            publishAfterCommit(fromStatusId);
+        }
+        return added;
+    }
+
+    /**
+     * Forbid the orders to move from a status to another one, in every member of the cluster once committed.
+     *
+     * @param fromStatusId the id of the status from
+     * @param toStatusId the id of the status to
+     * @return true if the transition is removed, false if it was not allowed
+     */
+    public boolean forbid(Long fromStatusId, Long toStatusId) {
+        log.debug("Request to forbid the order status transition from {} to {}", fromStatusId, toStatusId);
+        boolean removed = orderStatusTransitionRepository.delete(fromStatusId, toStatusId);
+        if (removed) {
+            publishAfterCommit(fromStatusId);
+        }
+        return removed;
+    }
+
+    /**
+     * @param fromStatusId the id of the current status
+     * @param toStatusId the id of the new status
+     * @return true if an order may move from the one status to the other
+     */
+    public boolean isAllowed(Long fromStatusId, Long toStatusId) {
+        Set<Long> targets = allowedTransitions.get(fromStatusId);
+        return targets != null && targets.contains(toStatusId);
+    }
+
+    /**
+     * Move an order to a new status, if it is still in the expected one.
+     *
+     * @param orderId the id of the order
+     * @param transitionDTO the transition, which must be allowed
+     * @return the updated order, or null if there is no such order
+     * @throws OrderTransitionConflictException if the order is not in the expected status
+     */
+    public OrderDTO transition(Long orderId, OrderTransitionDTO transitionDTO) {
+        log.debug("Request to transition Order {} : {}", orderId, transitionDTO);
+        Long fromStatusId = transitionDTO.getFromStatusId();
+        Long toStatusId = transitionDTO.getToStatusId();
+        if (!isAllowed(fromStatusId, toStatusId)) {
+            throw new IllegalArgumentException("No transition from the status " + fromStatusId + " to " + toStatusId);
+        }
+        if (!orderStatusTransitionRepository.compareAndSetStatus(orderId, fromStatusId, toStatusId)) {
+            if (!orderRepository.exists(orderId)) {
+                return null;
+            }
+            conflictCounter.inc();
+            throw new OrderTransitionConflictException(orderId, fromStatusId);
+        }
+        // The order was updated behind Hibernate: it is read around the second-level cache, which must not hold the
+        // new status before the commit, and its cached copies are evicted once the transaction is completed
+        evictAfterCompletion(orderId);
+        Order order = entityManager.find(Order.class, orderId, BYPASS_CACHE);
+        if (order.getOrderStatus() == null || !Objects.equals(order.getOrderStatus().getId(), toStatusId)) {
+            entityManager.refresh(order, BYPASS_CACHE);
+        }
+        OrderDTO after = orderMapper.toDto(order);
+        // Only the status changed, the previous state of the order is the same but for it
+        OrderDTO before = orderMapper.toDto(order);
+        before.setOrderStatusId(fromStatusId);
+        before.setOrderStatusName(null);
+
+        OrderStatusHistoryDTO historyDTO = new OrderStatusHistoryDTO();
+        historyDTO.setModifiedTime(ZonedDateTime.now());
+        historyDTO.setOrderId(orderId);
+        historyDTO.setOldStatusId(fromStatusId);
+        historyDTO.setNewStatusId(toStatusId);
+        historyDTO.setOperatorCode(transitionDTO.getOperatorCode());
+        historyDTO.setOperatorTypeId(transitionDTO.getOperatorTypeId());
+        historyDTO.setDesc(transitionDTO.getDesc());
+        OrderStatusHistory history = orderStatusHistoryRepository.save(orderStatusHistoryMapper.toEntity(historyDTO));
+
+        searchOutboxService.scheduleIndex(Order.class, orderId);
+        searchOutboxService.scheduleIndex(OrderStatusHistory.class, history.getId());
+        eventPublisher.publishEvent(new OrderChangedEvent(before, after));
+        transitionMeter.mark();
+        return after;
+    }
+
+    private void evictAfterCompletion(Long orderId) {
+        // Evicting before the commit would let a concurrent reader cache the old status again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                entityManager.getEntityManagerFactory().getCache().evict(Order.class, orderId);
+            }
+        });
+    }
+
+    private void publishAfterCommit(Long fromStatusId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            topic.publish(fromStatusId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                topic.publish(fromStatusId);
+            }
+        });
+    }
+}
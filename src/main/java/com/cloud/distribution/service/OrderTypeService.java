@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.OrderType;
 import com.cloud.distribution.repository.OrderTypeRepository;
 import com.cloud.distribution.repository.search.OrderTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.OrderTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.OrderTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class OrderTypeService {
 
     private final OrderTypeSearchRepository orderTypeSearchRepository;
 
-    public OrderTypeService(OrderTypeRepository orderTypeRepository, OrderTypeMapper orderTypeMapper, OrderTypeSearchRepository orderTypeSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public OrderTypeService(OrderTypeRepository orderTypeRepository, OrderTypeMapper orderTypeMapper, OrderTypeSearchRepository orderTypeSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.orderTypeRepository = orderTypeRepository;
         this.orderTypeMapper = orderTypeMapper;
         this.orderTypeSearchRepository = orderTypeSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class OrderTypeService {
         OrderType orderType = orderTypeMapper.toEntity(orderTypeDTO);
         orderType = orderTypeRepository.save(orderType);
         OrderTypeDTO result = orderTypeMapper.toDto(orderType);
-        orderTypeSearchRepository.save(orderType);
+        searchOutboxService.scheduleIndex(OrderType.class, orderType.getId());
+        lookupRegistry.publishAfterCommit(OrderType.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class OrderTypeService {
     public void delete(Long id) {
         log.debug("Request to delete OrderType : {}", id);
         orderTypeRepository.delete(id);
-        orderTypeSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(OrderType.class, id);
+        lookupRegistry.publishAfterCommit(OrderType.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class OrderTypeService {
         Page<OrderType> result = orderTypeSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(orderTypeMapper::toDto);
     }
+
+    /**
+     * Search for the orderType corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<OrderTypeDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of OrderTypes for query {} after {}", query, after);
+        Slice<OrderType> result = SearchAfterUtil.searchAfter(orderTypeSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(orderTypeMapper::toDto);
+    }
 }
@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,7 +27,7 @@ import com.cloud.distribution.service.mapper.PayTypeMapper;
  * Service for executing complex queries for PayType entities in the database.
  * The main input is a {@link PayTypeCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link PayTypeDTO} or a {@link Page} of {@link PayTypeDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link PayTypeDTO}, a {@link Page} or a {@link Slice} of {@link PayTypeDTO} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
@@ -73,6 +74,19 @@ public class PayTypeQueryService extends QueryService<PayType> {
         return result.map(payTypeMapper::toDto);
     }
 
+    /**
+     * Return a {@link Slice} of {@link PayTypeDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<PayTypeDTO> findSliceByCriteria(PayTypeCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<PayType> specification = createSpecification(criteria);
+        return payTypeRepository.findSlice(specification, page).map(payTypeMapper::toDto);
+    }
+
     /**
      * Function to convert PayTypeCriteria to a {@link Specifications}
      */
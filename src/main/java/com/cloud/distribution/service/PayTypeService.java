@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.PayType;
 import com.cloud.distribution.repository.PayTypeRepository;
 import com.cloud.distribution.repository.search.PayTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.PayTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.PayTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class PayTypeService {
 
     private final PayTypeSearchRepository payTypeSearchRepository;
 
-    public PayTypeService(PayTypeRepository payTypeRepository, PayTypeMapper payTypeMapper, PayTypeSearchRepository payTypeSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public PayTypeService(PayTypeRepository payTypeRepository, PayTypeMapper payTypeMapper, PayTypeSearchRepository payTypeSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.payTypeRepository = payTypeRepository;
         this.payTypeMapper = payTypeMapper;
         this.payTypeSearchRepository = payTypeSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class PayTypeService {
         PayType payType = payTypeMapper.toEntity(payTypeDTO);
         payType = payTypeRepository.save(payType);
         PayTypeDTO result = payTypeMapper.toDto(payType);
-        payTypeSearchRepository.save(payType);
+        searchOutboxService.scheduleIndex(PayType.class, payType.getId());
+        lookupRegistry.publishAfterCommit(PayType.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class PayTypeService {
     public void delete(Long id) {
         log.debug("Request to delete PayType : {}", id);
         payTypeRepository.delete(id);
-        payTypeSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(PayType.class, id);
+        lookupRegistry.publishAfterCommit(PayType.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class PayTypeService {
         Page<PayType> result = payTypeSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(payTypeMapper::toDto);
     }
+
+    /**
+     * Search for the payType corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<PayTypeDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of PayTypes for query {} after {}", query, after);
+        Slice<PayType> result = SearchAfterUtil.searchAfter(payTypeSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(payTypeMapper::toDto);
+    }
 }
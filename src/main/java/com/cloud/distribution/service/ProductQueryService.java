@@ -7,6 +7,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -26,7 +27,7 @@ import com.cloud.distribution.service.mapper.ProductMapper;
  * Service for executing complex queries for Product entities in the database.
  * The main input is a {@link ProductCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link ProductDTO} or a {@link Page} of {@link ProductDTO} which fulfills the criteria.
+ * It returns a {@link List} of {@link ProductDTO}, a {@link Page} or a {@link Slice} of {@link ProductDTO} which fulfills the criteria.
  */
 @Service
 @Transactional(readOnly = true)
@@ -73,6 +74,19 @@ public class ProductQueryService extends QueryService<Product> {
         return result.map(productMapper::toDto);
     }
 
+    /**
+     * Return a {@link Slice} of {@link ProductDTO} which matches the criteria from the database, without counting them
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities, knowing only if a next slice exists.
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> findSliceByCriteria(ProductCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
+        final Specifications<Product> specification = createSpecification(criteria);
+        return productRepository.findSlice(specification, page).map(productMapper::toDto);
+    }
+
     /**
      * Function to convert ProductCriteria to a {@link Specifications}
      */
@@ -3,15 +3,20 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.Product;
 import com.cloud.distribution.repository.ProductRepository;
 import com.cloud.distribution.repository.search.ProductSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.ProductDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.ProductMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
+import java.util.List;
 
 import static org.elasticsearch.index.query.QueryBuilders.*;
 
@@ -30,14 +35,27 @@ public class ProductService {
 
     private final ProductSearchRepository productSearchRepository;
 
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper, ProductSearchRepository productSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final ProductStockService productStockService;
+
+    private final LookupBundleService lookupBundleService;
+
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper, ProductSearchRepository productSearchRepository, SearchOutboxService searchOutboxService,
+            ProductStockService productStockService, LookupBundleService lookupBundleService) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
         this.productSearchRepository = productSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.productStockService = productStockService;
+        this.lookupBundleService = lookupBundleService;
     }
 
     /**
      * Save a product.
+     * <p>
+     * The remains of an existing product are left to the inventory: they are only changed by the
+     * {@link ProductStockService}, the remains sent with an update are ignored.
      *
      * @param productDTO the entity to save
      * @return the persisted entity
@@ -45,9 +63,17 @@ public class ProductService {
     public ProductDTO save(ProductDTO productDTO) {
         log.debug("Request to save Product : {}", productDTO);
         Product product = productMapper.toEntity(productDTO);
+        if (product.getId() != null && product.getVersion() == null) {
+            // Without a version, the update is not checked against concurrent ones
+            product.setVersion(productRepository.findVersion(product.getId()));
+        }
+        boolean managedRemains = productStockService.prepareSave(product);
         product = productRepository.save(product);
         ProductDTO result = productMapper.toDto(product);
-        productSearchRepository.save(product);
+        if (managedRemains) {
+            result.setRemains(productStockService.findRemains(product.getId()));
+        }
+        searchOutboxService.scheduleIndex(Product.class, product.getId());
         return result;
     }
 
@@ -64,6 +90,23 @@ public class ProductService {
             .map(productMapper::toDto);
     }
 
+    /**
+     * Get the versions which the representation of a product depends on, without loading it: the version of the
+     * product, its remains, which the inventory changes without changing the version, and the hash of the lookups
+     * for their names.
+     *
+     * @param id the id of the entity
+     * @return the versions, or null if there is no such product
+     */
+    @Transactional(readOnly = true)
+    public List<Object> findVersions(Long id) {
+        Long version = productRepository.findVersion(id);
+        if (version == null) {
+            return null;
+        }
+        return Arrays.asList(version, productStockService.findRemains(id), lookupBundleService.getBundle().getHash());
+    }
+
     /**
      * Get one product by id.
      *
@@ -74,7 +117,9 @@ public class ProductService {
     public ProductDTO findOne(Long id) {
         log.debug("Request to get Product : {}", id);
         Product product = productRepository.findOne(id);
-        return productMapper.toDto(product);
+        ProductDTO productDTO = productMapper.toDto(product);
+        productStockService.refreshRemains(productDTO);
+        return productDTO;
     }
 
     /**
@@ -84,8 +129,9 @@ public class ProductService {
      */
     public void delete(Long id) {
         log.debug("Request to delete Product : {}", id);
+        productStockService.deleteStock(id);
         productRepository.delete(id);
-        productSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(Product.class, id);
     }
 
     /**
@@ -101,4 +147,19 @@ public class ProductService {
         Page<Product> result = productSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(productMapper::toDto);
     }
+
+    /**
+     * Search for the product corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of Products for query {} after {}", query, after);
+        Slice<Product> result = SearchAfterUtil.searchAfter(productSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(productMapper::toDto);
+    }
 }
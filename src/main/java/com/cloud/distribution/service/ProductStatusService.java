@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.ProductStatus;
 import com.cloud.distribution.repository.ProductStatusRepository;
 import com.cloud.distribution.repository.search.ProductStatusSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.ProductStatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.ProductStatusMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class ProductStatusService {
 
     private final ProductStatusSearchRepository productStatusSearchRepository;
 
-    public ProductStatusService(ProductStatusRepository productStatusRepository, ProductStatusMapper productStatusMapper, ProductStatusSearchRepository productStatusSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public ProductStatusService(ProductStatusRepository productStatusRepository, ProductStatusMapper productStatusMapper, ProductStatusSearchRepository productStatusSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.productStatusRepository = productStatusRepository;
         this.productStatusMapper = productStatusMapper;
         this.productStatusSearchRepository = productStatusSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class ProductStatusService {
         ProductStatus productStatus = productStatusMapper.toEntity(productStatusDTO);
         productStatus = productStatusRepository.save(productStatus);
         ProductStatusDTO result = productStatusMapper.toDto(productStatus);
-        productStatusSearchRepository.save(productStatus);
+        searchOutboxService.scheduleIndex(ProductStatus.class, productStatus.getId());
+        lookupRegistry.publishAfterCommit(ProductStatus.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class ProductStatusService {
     public void delete(Long id) {
         log.debug("Request to delete ProductStatus : {}", id);
         productStatusRepository.delete(id);
-        productStatusSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(ProductStatus.class, id);
+        lookupRegistry.publishAfterCommit(ProductStatus.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class ProductStatusService {
         Page<ProductStatus> result = productStatusSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(productStatusMapper::toDto);
     }
+
+    /**
+     * Search for the productStatus corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductStatusDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of ProductStatuses for query {} after {}", query, after);
+        Slice<ProductStatus> result = SearchAfterUtil.searchAfter(productStatusSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(productStatusMapper::toDto);
+    }
 }
@@ -0,0 +1,236 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.domain.Product;
+import com.cloud.distribution.repository.ProductStockRepository;
+import com.cloud.distribution.service.dto.ProductDTO;
+import com.cloud.distribution.service.dto.StockReservationDTO;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service reserving and releasing the stock of the products.
+ * <p>
+ * The remains are changed with a conditional UPDATE, without loading the Product, so concurrent reservations are
+ * only serialized by the row lock and can never oversell. The second level cache entry of the product is evicted
+ * once the transaction completes.
+ * <p>
+ * Hot products can be switched to the sharded inventory mode, where their remains are split across several rows:
+ * a reservation decrements a random shard, and only when that shard has run dry are all the shards locked and
+ * rebalanced. A reservation losing the last units of its shard to a concurrent one, between the check and the
+ * update, fails with a {@link ConcurrencyFailureException} rather than locking the other shards, and can be retried.
+ * <p>
+ * With {@code application.inventory.mode: hazelcast}, the product stock map is the authority for the remains instead:
+ * reservations run as entry processors on the partition owning the product, and the map is written behind to the
+ * {@code product} table by the {@link com.cloud.distribution.repository.ProductStockMapStore}. The remains read from
+ * the database, by the listings and the search, then lag behind by up to {@code write-delay-seconds}.
+ */
+@Service
+@Transactional
+public class ProductStockService {
+
+    public static final String STOCK_MAP_NAME = "product-stock";
+
+    private final Logger log = LoggerFactory.getLogger(ProductStockService.class);
+
+    private final ProductStockRepository productStockRepository;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final EntityManager entityManager;
+
+    private final IMap<Long, Long> stockMap;
+
+    public ProductStockService(ProductStockRepository productStockRepository, SearchOutboxService searchOutboxService,
+            EntityManager entityManager, HazelcastInstance hazelcastInstance, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.productStockRepository = productStockRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.entityManager = entityManager;
+        if (applicationProperties.getInventory().getMode() == ApplicationProperties.Inventory.Mode.HAZELCAST) {
+            // The map is loaded eagerly, when the application starts
+            this.stockMap = hazelcastInstance.getMap(STOCK_MAP_NAME);
+            metricRegistry.register("inventory.stock.dirty-entries",
+                (Gauge<Long>) () -> stockMap.getLocalMapStats().getDirtyEntryCount());
+        } else {
+            this.stockMap = null;
+        }
+    }
+
+    /**
+     * Reserve a quantity of a product.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to reserve, positive
+     * @return the outcome of the reservation, unsuccessful if the remains are not sufficient,
+     * or null if the product does not exist
+     */
+    public StockReservationDTO reserve(Long id, long quantity) {
+        log.debug("Request to reserve {} of Product : {}", quantity, id);
+        if (stockMap != null) {
+            return (StockReservationDTO) stockMap.executeOnKey(id, new StockUpdateProcessor(-quantity));
+        }
+        int shards = productStockRepository.countShards(id);
+        boolean success;
+        if (shards == 0) {
+            success = productStockRepository.decrement(id, quantity);
+        } else {
+            success = decrementShardOrRebalance(id, ThreadLocalRandom.current().nextInt(shards), quantity);
+        }
+        return outcome(id, quantity, success);
+    }
+
+    private boolean decrementShardOrRebalance(Long id, int shardNo, long quantity) {
+        // A failed conditional update keeps the lock of its shard, and the rebalance then locks all the shards in
+        // order: two reservations missing on different shards would deadlock. So a single shard is only written when
+        // it looks sufficient, and the rebalance only runs before any shard is locked.
+        if (productStockRepository.findShardRemains(id, shardNo) < quantity) {
+            return productStockRepository.rebalanceShards(id, -quantity);
+        }
+        if (!productStockRepository.decrementShard(id, shardNo, quantity)) {
+            throw new ConcurrencyFailureException("The stock shard " + shardNo + " of Product " + id +
+                " was taken by a concurrent reservation");
+        }
+        return true;
+    }
+
+    /**
+     * Release a quantity of a product, previously reserved.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to release, positive
+     * @return the outcome of the release, or null if the product does not exist
+     */
+    public StockReservationDTO release(Long id, long quantity) {
+        log.debug("Request to release {} of Product : {}", quantity, id);
+        if (stockMap != null) {
+            return (StockReservationDTO) stockMap.executeOnKey(id, new StockUpdateProcessor(quantity));
+        }
+        int shards = productStockRepository.countShards(id);
+        boolean success;
+        if (shards == 0) {
+            success = productStockRepository.increment(id, quantity);
+        } else {
+            success = productStockRepository.incrementShard(id, ThreadLocalRandom.current().nextInt(shards), quantity);
+        }
+        return outcome(id, quantity, success);
+    }
+
+    /**
+     * Switch a product to the sharded inventory mode, or change its number of shards, spreading its stock evenly.
+     *
+     * @param id the id of the product
+     * @param count the number of shards, 0 to switch the product back to a single remains row
+     * @return true if the product exists
+     * @throws IllegalStateException if the product stock map is the authority for the remains
+     */
+    public boolean shard(Long id, int count) {
+        log.debug("Request to split the stock of Product : {} in {} shards", id, count);
+        if (stockMap != null) {
+            throw new IllegalStateException("Stock shards are not used when the inventory mode is hazelcast");
+        }
+        if (!productStockRepository.reshard(id, count)) {
+            return false;
+        }
+        evictAfterCompletion(id);
+        return true;
+    }
+
+    /**
+     * Prepare a product to be saved, keeping the remains managed by the inventory.
+     * <p>
+     * The remains column is not updatable, so the remains sent with an update are always replaced by the current ones,
+     * which only the reservations and releases change.
+     *
+     * @param product the product about to be saved
+     * @return true if the remains of the product are managed by the inventory, and not by its remains column
+     */
+    public boolean prepareSave(Product product) {
+        if (product.getId() == null) {
+            return false;
+        }
+        if (stockMap != null) {
+            Long remains = stockMap.get(product.getId());
+            if (remains != null) {
+                product.setRemains(remains);
+            }
+            return true;
+        }
+        if (productStockRepository.countShards(product.getId()) > 0) {
+            product.setRemains(0L);
+            return true;
+        }
+        productStockRepository.findRemains(product.getId()).ifPresent(product::setRemains);
+        return false;
+    }
+
+    /**
+     * Get the remains of a product from the inventory.
+     *
+     * @param id the id of the product
+     * @return the remains, or null if the product does not exist
+     */
+    @Transactional(readOnly = true)
+    public Long findRemains(Long id) {
+        if (stockMap != null) {
+            return stockMap.get(id);
+        }
+        return productStockRepository.findRemains(id).orElse(null);
+    }
+
+    /**
+     * Replace the remains of a product read from the database by those of the product stock map, if it is the authority.
+     *
+     * @param productDTO the product
+     */
+    public void refreshRemains(ProductDTO productDTO) {
+        if (stockMap != null && productDTO != null) {
+            productDTO.setRemains(stockMap.get(productDTO.getId()));
+        }
+    }
+
+    /**
+     * Remove the stock of a product, before it is deleted.
+     *
+     * @param id the id of the product
+     */
+    public void deleteStock(Long id) {
+        if (stockMap != null) {
+            stockMap.delete(id);
+        }
+        productStockRepository.deleteShards(id);
+    }
+
+    private StockReservationDTO outcome(Long id, long quantity, boolean success) {
+        if (success) {
+            searchOutboxService.scheduleIndex(Product.class, id);
+            evictAfterCompletion(id);
+        }
+        // Read under the row lock taken by the update, when there was one
+        return productStockRepository.findRemains(id)
+            .map(remains -> new StockReservationDTO(id, quantity, success, remains))
+            .orElse(null);
+    }
+
+    private void evictAfterCompletion(Long id) {
+        // Evicting before the commit would let a concurrent reader cache the old remains again
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                entityManager.getEntityManagerFactory().getCache().evict(Product.class, id);
+            }
+        });
+    }
+}
@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.ProductType;
 import com.cloud.distribution.repository.ProductTypeRepository;
 import com.cloud.distribution.repository.search.ProductTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.ProductTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.ProductTypeMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class ProductTypeService {
 
     private final ProductTypeSearchRepository productTypeSearchRepository;
 
-    public ProductTypeService(ProductTypeRepository productTypeRepository, ProductTypeMapper productTypeMapper, ProductTypeSearchRepository productTypeSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public ProductTypeService(ProductTypeRepository productTypeRepository, ProductTypeMapper productTypeMapper, ProductTypeSearchRepository productTypeSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.productTypeRepository = productTypeRepository;
         this.productTypeMapper = productTypeMapper;
         this.productTypeSearchRepository = productTypeSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class ProductTypeService {
         ProductType productType = productTypeMapper.toEntity(productTypeDTO);
         productType = productTypeRepository.save(productType);
         ProductTypeDTO result = productTypeMapper.toDto(productType);
-        productTypeSearchRepository.save(productType);
+        searchOutboxService.scheduleIndex(ProductType.class, productType.getId());
+        lookupRegistry.publishAfterCommit(ProductType.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class ProductTypeService {
     public void delete(Long id) {
         log.debug("Request to delete ProductType : {}", id);
         productTypeRepository.delete(id);
-        productTypeSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(ProductType.class, id);
+        lookupRegistry.publishAfterCommit(ProductType.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class ProductTypeService {
         Page<ProductType> result = productTypeSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(productTypeMapper::toDto);
     }
+
+    /**
+     * Search for the productType corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<ProductTypeDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of ProductTypes for query {} after {}", query, after);
+        Slice<ProductType> result = SearchAfterUtil.searchAfter(productTypeSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(productTypeMapper::toDto);
+    }
 }
@@ -0,0 +1,161 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.repository.SalesDimension;
+import com.cloud.distribution.repository.SalesRollupRepository;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.dto.OrderStatsDTO;
+import com.cloud.distribution.service.event.OrderChangedEvent;
+import com.cloud.distribution.service.event.OrdersCreatedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Service maintaining the sales rollups, and answering the order statistics from them.
+ * <p>
+ * The rollups are updated by the order events, synchronously in the transaction which changes the orders, so they
+ * are always consistent with {@code jhi_order} and {@code jhi_order_archive}. Days are those of the server time zone.
+ * <p>
+ * The deltas of a transaction are applied sorted by dimension, id and day, so that concurrent transactions lock the
+ * rollup rows they share in the same order and cannot deadlock.
+ */
+@Service
+@Transactional
+public class SalesRollupService {
+
+    private final Logger log = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private final SalesRollupRepository salesRollupRepository;
+
+    public SalesRollupService(SalesRollupRepository salesRollupRepository) {
+        this.salesRollupRepository = salesRollupRepository;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrderChanged(OrderChangedEvent event) {
+        log.debug("Request to roll up {}", event);
+        Map<RollupKey, long[]> deltas = new TreeMap<>();
+        addDelta(deltas, event.getBefore(), -1);
+        addDelta(deltas, event.getAfter(), 1);
+        apply(deltas);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onOrdersCreated(OrdersCreatedEvent event) {
+        log.debug("Request to roll up {}", event);
+        Map<RollupKey, long[]> deltas = new TreeMap<>();
+        event.getOrders().forEach(order -> addDelta(deltas, order, 1));
+        apply(deltas);
+    }
+
+    /**
+     * Get the order statistics over a range of days.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param dimension the dimension to group the statistics by, null for the totals only
+     * @return the statistics
+     */
+    @Transactional(readOnly = true)
+    public OrderStatsDTO getStats(LocalDate from, LocalDate to, SalesDimension dimension) {
+        log.debug("Request to get order stats from {} to {} by {}", from, to, dimension);
+        // Every rollup table holds the grand total, orders without a value being counted under the id 0
+        List<OrderStatsDTO.Group> groups = salesRollupRepository.sumByDimension(
+            dimension == null ? SalesDimension.PRODUCT : dimension, from, to);
+        OrderStatsDTO stats = new OrderStatsDTO();
+        stats.setFrom(from);
+        stats.setTo(to);
+        stats.setOrderCount(groups.stream().mapToLong(OrderStatsDTO.Group::getOrderCount).sum());
+        stats.setAmountSum(groups.stream().mapToLong(OrderStatsDTO.Group::getAmountSum).sum());
+        if (dimension != null) {
+            stats.setGroupBy(dimension.getParameter());
+            stats.setGroups(groups);
+        } else {
+            stats.setGroups(Collections.emptyList());
+        }
+        return stats;
+    }
+
+    private void addDelta(Map<RollupKey, long[]> deltas, OrderDTO order, int sign) {
+        if (order == null || order.getCreatedDate() == null) {
+            return;
+        }
+        LocalDate day = order.getCreatedDate().withZoneSameInstant(ZoneId.systemDefault()).toLocalDate();
+        long amount = order.getAmount() == null ? 0 : order.getAmount();
+        addDelta(deltas, new RollupKey(SalesDimension.PRODUCT, order.getProductId(), day), sign, amount);
+        addDelta(deltas, new RollupKey(SalesDimension.ORDER_TYPE, order.getOrderTypeId(), day), sign, amount);
+        addDelta(deltas, new RollupKey(SalesDimension.PAY_TYPE, order.getPayTypeId(), day), sign, amount);
+    }
+
+    private void addDelta(Map<RollupKey, long[]> deltas, RollupKey key, int sign, long amount) {
+        long[] delta = deltas.computeIfAbsent(key, k -> new long[2]);
+        delta[0] += sign;
+        delta[1] += sign * amount;
+    }
+
+    private void apply(Map<RollupKey, long[]> deltas) {
+        deltas.forEach((key, delta) -> {
+            // An update which changes nothing in the rollups leaves them untouched
+            if (delta[0] != 0 || delta[1] != 0) {
+                salesRollupRepository.increment(key.dimension, key.id, key.day, delta[0], delta[1]);
+            }
+        });
+    }
+
+    private static final class RollupKey implements Comparable<RollupKey> {
+
+        private final SalesDimension dimension;
+
+        private final long id;
+
+        private final LocalDate day;
+
+        private RollupKey(SalesDimension dimension, Long id, LocalDate day) {
+            this.dimension = dimension;
+            this.id = id == null ? 0 : id;
+            this.day = day;
+        }
+
+        @Override
+        public int compareTo(RollupKey other) {
+            int result = dimension.compareTo(other.dimension);
+            if (result == 0) {
+                result = Long.compare(id, other.id);
+            }
+            if (result == 0) {
+                result = day.compareTo(other.day);
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RollupKey rollupKey = (RollupKey) o;
+            return id == rollupKey.id && dimension == rollupKey.dimension && day.equals(rollupKey.day);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dimension, id, day);
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.domain.SearchOutboxEntry;
+import com.cloud.distribution.domain.enumeration.SearchOperation;
+import com.cloud.distribution.repository.SearchOutboxRepository;
+import com.cloud.distribution.repository.search.SearchRepositoryRegistry;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.elasticsearch.action.bulk.BulkRequestBuilder;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.Client;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Background indexer draining the search outbox.
+ * <p>
+ * Pending changes are claimed oldest first, in a short transaction which moves their next
+ * attempt date forward by a lease, so that the outbox is not locked while Elasticsearch is
+ * called. They are then coalesced per entity (only the last change of an entity is applied),
+ * sent to Elasticsearch as one bulk request per entity type outside of any transaction, and
+ * the claimed entries are removed in a second short transaction. Entries claimed by a crashed
+ * indexer are drained again once their lease is over.
+ * <p>
+ * A change which fails must not block the outbox: when a batch fails, its entries are drained
+ * one by one, and the entries which still fail record their attempt and error, and go back to
+ * the end of the queue. They become dead letters after the maximum number of attempts.
+ */
+@Service
+public class SearchIndexer {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final Logger log = LoggerFactory.getLogger(SearchIndexer.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchRepositoryRegistry searchRepositoryRegistry;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Meter indexedMeter;
+
+    private final Meter deletedMeter;
+
+    private final Counter failureCounter;
+
+    private final Counter deadLetterCounter;
+
+    private final Timer batchTimer;
+
+    private volatile long backlog;
+
+    private volatile long lagMillis;
+
+    private volatile long deadLetters;
+
+    public SearchIndexer(SearchOutboxRepository searchOutboxRepository, SearchRepositoryRegistry searchRepositoryRegistry,
+            ElasticsearchTemplate elasticsearchTemplate, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchRepositoryRegistry = searchRepositoryRegistry;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        this.indexedMeter = metricRegistry.meter("search.indexer.indexed");
+        this.deletedMeter = metricRegistry.meter("search.indexer.deleted");
+        this.failureCounter = metricRegistry.counter("search.indexer.failures");
+        this.deadLetterCounter = metricRegistry.counter("search.indexer.dead-letters");
+        this.batchTimer = metricRegistry.timer("search.indexer.batch");
+        metricRegistry.register("search.indexer.backlog", (Gauge<Long>) () -> backlog);
+        metricRegistry.register("search.indexer.lag", (Gauge<Long>) () -> lagMillis);
+        metricRegistry.register("search.indexer.dead-letter-backlog", (Gauge<Long>) () -> deadLetters);
+    }
+
+    /**
+     * Drain the outbox until it is empty, then refresh the backlog metrics.
+     */
+    @Scheduled(fixedDelayString = "${application.search-indexer.delay:1000}")
+    public void indexPendingChanges() {
+        int batchSize = applicationProperties.getSearchIndexer().getBatchSize();
+        int maxAttempts = applicationProperties.getSearchIndexer().getMaxAttempts();
+        try {
+            int drained;
+            do {
+                drained = drain();
+            } while (drained >= batchSize);
+        } catch (RuntimeException e) {
+            failureCounter.inc();
+            log.warn("Could not drain the search outbox, the batch will be retried: {}", e.getMessage());
+        }
+        backlog = searchOutboxRepository.countByAttemptsLessThan(maxAttempts);
+        Instant oldest = searchOutboxRepository.findOldestCreatedDate(maxAttempts);
+        lagMillis = oldest == null ? 0 : Duration.between(oldest, Instant.now()).toMillis();
+        deadLetters = searchOutboxRepository.countByAttemptsGreaterThanEqual(maxAttempts);
+    }
+
+    /**
+     * Apply one batch of pending changes.
+     * <p>
+     * This joins the current transaction if there is one, so that changes which are not
+     * committed yet can also be drained. A failed batch is then rethrown, as the entries cannot
+     * be drained apart from the current transaction.
+     *
+     * @return the number of outbox entries which were applied and removed
+     */
+    public int drain() {
+        ApplicationProperties.SearchIndexer properties = applicationProperties.getSearchIndexer();
+        List<SearchOutboxEntry> entries = transactionTemplate.execute(status ->
+            claim(properties.getBatchSize(), properties.getLeaseSeconds()));
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        try {
+            drainBatch(entries);
+            return entries.size();
+        } catch (RuntimeException e) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            // A change rejected by Elasticsearch must not block the outbox: the batch is drained one by one
+            failureCounter.inc();
+            log.warn("Could not drain a batch of the search outbox, draining its entries one by one: {}", e.getMessage());
+            return (int) entries.stream().filter(entry -> drainAlone(entry, properties.getMaxAttempts())).count();
+        }
+    }
+
+    private List<SearchOutboxEntry> claim(int batchSize, int leaseSeconds) {
+        Instant now = Instant.now();
+        List<SearchOutboxEntry> entries = searchOutboxRepository.findDue(now, new PageRequest(0, batchSize));
+        Instant leaseEnd = now.plusSeconds(leaseSeconds);
+        entries.forEach(entry -> entry.setNextAttemptDate(leaseEnd));
+        return entries;
+    }
+
+    private void drainBatch(List<SearchOutboxEntry> entries) {
+        Timer.Context context = batchTimer.time();
+        try {
+            Map<String, Map<Long, SearchOperation>> changes = new LinkedHashMap<>();
+            for (SearchOutboxEntry entry : entries) {
+                changes.computeIfAbsent(entry.getEntityType(), entityType -> new LinkedHashMap<>())
+                    .put(entry.getEntityId(), entry.getOperation());
+            }
+            changes.forEach(this::applyChanges);
+            List<Long> ids = entries.stream().map(SearchOutboxEntry::getId).collect(Collectors.toList());
+            transactionTemplate.execute(status -> {
+                searchOutboxRepository.deleteByIdIn(ids);
+                return null;
+            });
+        } finally {
+            context.stop();
+        }
+        log.debug("Drained {} search outbox entries", entries.size());
+    }
+
+    /**
+     * @return true if the entry was applied and removed
+     */
+    private boolean drainAlone(SearchOutboxEntry entry, int maxAttempts) {
+        try {
+            applyChanges(entry.getEntityType(), Collections.singletonMap(entry.getEntityId(), entry.getOperation()));
+            transactionTemplate.execute(status -> {
+                searchOutboxRepository.deleteByIdIn(Collections.singletonList(entry.getId()));
+                return null;
+            });
+            return true;
+        } catch (RuntimeException e) {
+            failureCounter.inc();
+            transactionTemplate.execute(status -> {
+                recordFailure(entry.getId(), maxAttempts, e);
+                return null;
+            });
+            return false;
+        }
+    }
+
+    private void recordFailure(Long id, int maxAttempts, RuntimeException e) {
+        SearchOutboxEntry entry = searchOutboxRepository.findOne(id);
+        if (entry == null) {
+            return;
+        }
+        String error = String.valueOf(e.getMessage());
+        entry.setAttempts(entry.getAttempts() + 1);
+        entry.setLastError(error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+        if (entry.getAttempts() >= maxAttempts) {
+            entry.setNextAttemptDate(null);
+            deadLetterCounter.inc();
+            log.error("Search outbox entry {} failed {} times, it is a dead letter: {}", entry, entry.getAttempts(), error);
+        } else {
+            // Back to the end of the queue, so that it does not hold back the other entries
+            entry.setNextAttemptDate(Instant.now());
+            log.warn("Search outbox entry {} failed, it will be retried: {}", entry, error);
+        }
+    }
+
+    private void applyChanges(String entityType, Map<Long, SearchOperation> operations) {
+        Class<?> entityClass = searchRepositoryRegistry.getEntityClass(entityType);
+        if (entityClass == null) {
+            log.warn("Discarding search outbox entries for {}, which is not indexed", entityType);
+            return;
+        }
+        Set<Long> toIndex = new HashSet<>();
+        Set<Long> toDelete = new HashSet<>();
+        operations.forEach((id, operation) -> (operation == SearchOperation.INDEX ? toIndex : toDelete).add(id));
+        if (!toIndex.isEmpty()) {
+            // Entities deleted since their change was recorded are removed from the index
+            toDelete.addAll(index(entityClass, toIndex));
+        }
+        if (!toDelete.isEmpty()) {
+            delete(entityClass, toDelete);
+        }
+    }
+
+    /**
+     * Outside of a transaction, the entities are read by an entity manager of their own, kept open while they are
+     * serialized, as their lazy relationships are loaded into the documents; its statements run in auto-commit, so
+     * that no transaction is held open while Elasticsearch is called.
+     *
+     * @return the ids which were not found in the database
+     */
+    private <T> Set<Long> index(Class<T> entityClass, Set<Long> ids) {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        EntityManager reader = inTransaction ? entityManager : entityManager.getEntityManagerFactory().createEntityManager();
+        try {
+            CriteriaBuilder cb = reader.getCriteriaBuilder();
+            CriteriaQuery<T> query = cb.createQuery(entityClass);
+            Root<T> root = query.from(entityClass);
+            query.where(root.get("id").in(ids));
+            List<T> entities = reader.createQuery(query).getResultList();
+            Set<Long> missing = new HashSet<>(ids);
+            if (!entities.isEmpty()) {
+                searchRepositoryRegistry.getRepository(entityClass).save(entities);
+                indexedMeter.mark(entities.size());
+                PersistenceUnitUtil persistenceUnitUtil = reader.getEntityManagerFactory().getPersistenceUnitUtil();
+                entities.forEach(entity -> missing.remove(persistenceUnitUtil.getIdentifier(entity)));
+            }
+            return missing;
+        } finally {
+            if (!inTransaction) {
+                reader.close();
+            }
+        }
+    }
+
+    private void delete(Class<?> entityClass, Set<Long> ids) {
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        Client client = elasticsearchTemplate.getClient();
+        BulkRequestBuilder bulkRequest = client.prepareBulk();
+        for (Long id : ids) {
+            bulkRequest.add(client.prepareDelete(persistentEntity.getIndexName(), persistentEntity.getIndexType(), id.toString()));
+        }
+        BulkResponse bulkResponse = bulkRequest.get();
+        if (bulkResponse.hasFailures()) {
+            throw new IllegalStateException("Bulk delete failed: " + bulkResponse.buildFailureMessage());
+        }
+        deletedMeter.mark(ids.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.domain.SearchOutboxEntry;
+import com.cloud.distribution.domain.enumeration.SearchOperation;
+import com.cloud.distribution.repository.SearchOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Service recording search index changes in the search outbox.
+ * <p>
+ * It must be called from the transaction which modifies the entity, so that the index
+ * change is committed (or rolled back) together with the entity. The outbox is then
+ * drained asynchronously by the {@link SearchIndexer}.
+ */
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class SearchOutboxService {
+
+    private final Logger log = LoggerFactory.getLogger(SearchOutboxService.class);
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    public SearchOutboxService(SearchOutboxRepository searchOutboxRepository) {
+        this.searchOutboxRepository = searchOutboxRepository;
+    }
+
+    /**
+     * Schedule the (re)indexing of an entity.
+     *
+     * @param entityClass the class of the indexed entity
+     * @param id the id of the entity
+     */
+    public void scheduleIndex(Class<?> entityClass, Long id) {
+        log.debug("Request to schedule the indexing of {} : {}", entityClass.getSimpleName(), id);
+        searchOutboxRepository.save(createEntry(entityClass, id, SearchOperation.INDEX));
+    }
+
+    /**
+     * Schedule the (re)indexing of several entities of the same class.
+     *
+     * @param entityClass the class of the indexed entities
+     * @param ids the ids of the entities
+     */
+    public void scheduleIndex(Class<?> entityClass, Collection<Long> ids) {
+        log.debug("Request to schedule the indexing of {} {}", ids.size(), entityClass.getSimpleName());
+        List<SearchOutboxEntry> entries = ids.stream()
+            .map(id -> createEntry(entityClass, id, SearchOperation.INDEX))
+            .collect(Collectors.toList());
+        searchOutboxRepository.save(entries);
+    }
+
+    /**
+     * Schedule the removal of an entity from its index.
+     *
+     * @param entityClass the class of the indexed entity
+     * @param id the id of the entity
+     */
+    public void scheduleDelete(Class<?> entityClass, Long id) {
+        log.debug("Request to schedule the removal from the index of {} : {}", entityClass.getSimpleName(), id);
+        searchOutboxRepository.save(createEntry(entityClass, id, SearchOperation.DELETE));
+    }
+
+    /**
+     * Schedule the removal from their index of several entities of the same class.
+     *
+     * @param entityClass the class of the indexed entities
+     * @param ids the ids of the entities
+     */
+    public void scheduleDelete(Class<?> entityClass, Collection<Long> ids) {
+        log.debug("Request to schedule the removal from the index of {} {}", ids.size(), entityClass.getSimpleName());
+        List<SearchOutboxEntry> entries = ids.stream()
+            .map(id -> createEntry(entityClass, id, SearchOperation.DELETE))
+            .collect(Collectors.toList());
+        searchOutboxRepository.save(entries);
+    }
+
+    private SearchOutboxEntry createEntry(Class<?> entityClass, Long id, SearchOperation operation) {
+        return new SearchOutboxEntry()
+            .entityType(entityClass.getSimpleName())
+            .entityId(id)
+            .operation(operation);
+    }
+}
@@ -0,0 +1,333 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.repository.SearchOutboxRepository;
+import com.cloud.distribution.repository.search.SearchRepositoryRegistry;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ILock;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.metrics.max.Max;
+import org.elasticsearch.search.aggregations.metrics.min.Min;
+import org.elasticsearch.search.aggregations.metrics.sum.Sum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.mapping.ElasticsearchPersistentEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Background job repairing the drift between the database and the search indexes, as left by crashes between a
+ * commit and the indexing of its changes.
+ * <p>
+ * Each table is compared with its index by ranges of {@code application.search-reconciler.chunk-size} ids: the
+ * count, the sum of the ids and, for the versioned entities, the sum of the versions are computed on both sides,
+ * and only the ranges whose checksums differ are compared id by id. The missing and stale documents are reindexed,
+ * and the orphan documents deleted, through the search outbox; the entities with pending changes are skipped, as
+ * the {@link SearchIndexer} is about to index them. The documents of the entities without versions are only
+ * checked for presence. Only the hot tier of the orders and of their histories is indexed: the {@link OrderArchiver}
+ * removes the archived ones from the indexes.
+ * <p>
+ * The documents found drifting by the last run are reported by the {@code search.reconciler.drift} gauges.
+ */
+@Service
+public class SearchReconciler {
+
+    private static final String LOCK_NAME = "search-reconciler";
+
+    private final Logger log = LoggerFactory.getLogger(SearchReconciler.class);
+
+    private final SearchRepositoryRegistry searchRepositoryRegistry;
+
+    private final SearchOutboxRepository searchOutboxRepository;
+
+    private final SearchOutboxService searchOutboxService;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final ILock lock;
+
+    private final Meter repairedMeter;
+
+    private final Counter failureCounter;
+
+    private final Map<String, Long> driftByEntity = new ConcurrentHashMap<>();
+
+    public SearchReconciler(SearchRepositoryRegistry searchRepositoryRegistry,
+            SearchOutboxRepository searchOutboxRepository, SearchOutboxService searchOutboxService,
+            ElasticsearchTemplate elasticsearchTemplate, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            HazelcastInstance hazelcastInstance, MetricRegistry metricRegistry) {
+        this.searchRepositoryRegistry = searchRepositoryRegistry;
+        this.searchOutboxRepository = searchOutboxRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.applicationProperties = applicationProperties;
+        this.lock = hazelcastInstance.getLock(LOCK_NAME);
+        this.repairedMeter = metricRegistry.meter("search.reconciler.repaired");
+        this.failureCounter = metricRegistry.counter("search.reconciler.failures");
+        metricRegistry.register("search.reconciler.drift",
+            (Gauge<Long>) () -> driftByEntity.values().stream().mapToLong(Long::longValue).sum());
+        for (String entityName : searchRepositoryRegistry.getEntityNames()) {
+            metricRegistry.register("search.reconciler.drift." + entityName,
+                (Gauge<Long>) () -> driftByEntity.getOrDefault(entityName, 0L));
+        }
+    }
+
+    /**
+     * Reconcile all the indexes, on one instance of the cluster at a time.
+     */
+    @Scheduled(cron = "${application.search-reconciler.cron:0 30 4 * * ?}")
+    public void reconcileAll() {
+        if (!lock.tryLock()) {
+            log.debug("The search indexes are being reconciled by another instance");
+            return;
+        }
+        try {
+            for (String entityName : searchRepositoryRegistry.getEntityNames()) {
+                try {
+                    reconcile(searchRepositoryRegistry.getEntityClass(entityName));
+                } catch (RuntimeException e) {
+                    failureCounter.inc();
+                    log.warn("Could not reconcile the {} index: {}", entityName, e.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reconcile the index of an entity with its table.
+     *
+     * @param entityClass the indexed entity class
+     * @return the number of drifting documents, whose repair was scheduled
+     */
+    public long reconcile(Class<?> entityClass) {
+        String entityName = entityClass.getSimpleName();
+        long start = System.nanoTime();
+        ElasticsearchPersistentEntity<?> persistentEntity = elasticsearchTemplate.getPersistentEntityFor(entityClass);
+        boolean versioned = entityManager.getMetamodel().entity(entityClass).hasVersionAttribute();
+        elasticsearchTemplate.refresh(entityClass);
+
+        long[] range = findIdRange(entityName, persistentEntity);
+        long drift = 0;
+        if (range != null) {
+            long chunkSize = Math.max(1, applicationProperties.getSearchReconciler().getChunkSize());
+            for (long from = range[0]; from <= range[1]; from += chunkSize) {
+                long chunkFrom = from;
+                drift += transactionTemplate.execute(status ->
+                    reconcileChunk(entityClass, persistentEntity, versioned, chunkFrom, chunkFrom + chunkSize));
+            }
+        }
+        driftByEntity.put(entityName, drift);
+        log.info("Reconciled the {} index in {} ms, {} drifting documents", entityName,
+            Duration.ofNanos(System.nanoTime() - start).toMillis(), drift);
+        return drift;
+    }
+
+    /**
+     * @return the lowest and the highest ids of the table and of the index, null if both are empty
+     */
+    private long[] findIdRange(String entityName, ElasticsearchPersistentEntity<?> persistentEntity) {
+        Object[] tableRange = transactionTemplate.execute(status -> entityManager
+            .createQuery("select min(e.id), max(e.id) from " + entityName + " e", Object[].class)
+            .getSingleResult());
+        SearchResponse response = prepareSearch(persistentEntity, QueryBuilders.matchAllQuery())
+            .setSize(0)
+            .addAggregation(AggregationBuilders.min("min").field("id"))
+            .addAggregation(AggregationBuilders.max("max").field("id"))
+            .get();
+        long[] range = null;
+        if (tableRange[0] != null) {
+            range = new long[]{(Long) tableRange[0], (Long) tableRange[1]};
+        }
+        if (response.getHits().getTotalHits() > 0) {
+            long indexMin = (long) ((Min) response.getAggregations().get("min")).getValue();
+            long indexMax = (long) ((Max) response.getAggregations().get("max")).getValue();
+            range = range == null ? new long[]{indexMin, indexMax}
+                : new long[]{Math.min(range[0], indexMin), Math.max(range[1], indexMax)};
+        }
+        return range;
+    }
+
+    private int reconcileChunk(Class<?> entityClass, ElasticsearchPersistentEntity<?> persistentEntity,
+            boolean versioned, long from, long to) {
+        String entityName = entityClass.getSimpleName();
+        if (findTableChecksum(entityName, versioned, from, to)
+                .equals(findIndexChecksum(persistentEntity, versioned, from, to))) {
+            return 0;
+        }
+        Map<Long, Long> tableVersions = findTableVersions(entityName, versioned, from, to);
+        Map<Long, Long> indexVersions = findIndexVersions(persistentEntity, versioned, from, to);
+        Set<Long> toIndex = new HashSet<>();
+        tableVersions.forEach((id, version) -> {
+            if (!version.equals(indexVersions.get(id))) {
+                toIndex.add(id);
+            }
+        });
+        Set<Long> toDelete = new HashSet<>(indexVersions.keySet());
+        toDelete.removeAll(tableVersions.keySet());
+        if (toIndex.isEmpty() && toDelete.isEmpty()) {
+            return 0;
+        }
+        Set<Long> drifting = new HashSet<>(toIndex);
+        drifting.addAll(toDelete);
+        List<Long> pending = searchOutboxRepository.findPendingEntityIds(entityName, drifting);
+        toIndex.removeAll(pending);
+        toDelete.removeAll(pending);
+
+        log.debug("Repairing the {} of ids {} to {}: {} to index, {} to delete", entityName, from, to - 1,
+            toIndex.size(), toDelete.size());
+        if (!toIndex.isEmpty()) {
+            searchOutboxService.scheduleIndex(entityClass, toIndex);
+        }
+        if (!toDelete.isEmpty()) {
+            searchOutboxService.scheduleDelete(entityClass, toDelete);
+        }
+        repairedMeter.mark(toIndex.size() + toDelete.size());
+        return toIndex.size() + toDelete.size();
+    }
+
+    private Checksum findTableChecksum(String entityName, boolean versioned, long from, long to) {
+        Object[] row = entityManager
+            .createQuery("select count(e), coalesce(sum(e.id), 0)" + (versioned ? ", coalesce(sum(e.version), 0)" : "")
+                + " from " + entityName + " e where e.id >= :from and e.id < :to", Object[].class)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getSingleResult();
+        return new Checksum(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+            versioned ? ((Number) row[2]).longValue() : 0);
+    }
+
+    private Checksum findIndexChecksum(ElasticsearchPersistentEntity<?> persistentEntity, boolean versioned,
+            long from, long to) {
+        SearchRequestBuilder search = prepareSearch(persistentEntity, idRange(from, to))
+            .setSize(0)
+            .addAggregation(AggregationBuilders.sum("ids").field("id"));
+        if (versioned) {
+            search.addAggregation(AggregationBuilders.sum("versions").field("version"));
+        }
+        SearchResponse response = search.get();
+        return new Checksum(response.getHits().getTotalHits(),
+            Math.round(((Sum) response.getAggregations().get("ids")).getValue()),
+            versioned ? Math.round(((Sum) response.getAggregations().get("versions")).getValue()) : 0);
+    }
+
+    /**
+     * @return the versions by id of the entities in the range, 0 for the entities without versions
+     */
+    private Map<Long, Long> findTableVersions(String entityName, boolean versioned, long from, long to) {
+        Map<Long, Long> versions = new HashMap<>();
+        String where = " from " + entityName + " e where e.id >= :from and e.id < :to";
+        if (versioned) {
+            entityManager.createQuery("select e.id, e.version" + where, Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList()
+                .forEach(row -> versions.put((Long) row[0], (Long) row[1]));
+        } else {
+            entityManager.createQuery("select e.id" + where, Long.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .getResultList()
+                .forEach(id -> versions.put(id, 0L));
+        }
+        return versions;
+    }
+
+    /**
+     * @return the versions by id of the documents in the range, 0 for the entities without versions, -1 for the
+     * documents indexed without a version
+     */
+    private Map<Long, Long> findIndexVersions(ElasticsearchPersistentEntity<?> persistentEntity, boolean versioned,
+            long from, long to) {
+        SearchRequestBuilder search = prepareSearch(persistentEntity, idRange(from, to))
+            .setSize((int) (to - from));
+        if (versioned) {
+            search.setFetchSource(new String[]{"version"}, null);
+        } else {
+            search.setFetchSource(false);
+        }
+        Map<Long, Long> versions = new HashMap<>();
+        for (SearchHit hit : search.get().getHits()) {
+            long version = 0;
+            if (versioned) {
+                Object source = hit.getSource() == null ? null : hit.getSource().get("version");
+                version = source instanceof Number ? ((Number) source).longValue() : -1;
+            }
+            versions.put(Long.valueOf(hit.getId()), version);
+        }
+        return versions;
+    }
+
+    private SearchRequestBuilder prepareSearch(ElasticsearchPersistentEntity<?> persistentEntity, QueryBuilder query) {
+        return elasticsearchTemplate.getClient()
+            .prepareSearch(persistentEntity.getIndexName())
+            .setTypes(persistentEntity.getIndexType())
+            .setQuery(query);
+    }
+
+    private static QueryBuilder idRange(long from, long to) {
+        return QueryBuilders.rangeQuery("id").gte(from).lt(to);
+    }
+
+    /**
+     * The checksum of a range of ids, computed the same way on the table and on the index.
+     */
+    private static final class Checksum {
+
+        private final long count;
+
+        private final long idSum;
+
+        private final long versionSum;
+
+        private Checksum(long count, long idSum, long versionSum) {
+            this.count = count;
+            this.idSum = idSum;
+            this.versionSum = versionSum;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Checksum checksum = (Checksum) o;
+            return count == checksum.count && idSum == checksum.idSum && versionSum == checksum.versionSum;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, idSum, versionSum);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.repository.SearchReindexCheckpointRepository;
+import com.cloud.distribution.service.dto.ReindexStatusDTO;
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.elasticsearch.core.ElasticsearchTemplate;
+import org.springframework.data.elasticsearch.core.query.IndexQuery;
+import org.springframework.data.elasticsearch.core.query.IndexQueryBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceUnitUtil;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Reindexes all the entities of a type into Elasticsearch, as after the search cluster is rebuilt or a mapping
+ * changes.
+ * <p>
+ * The table is read by ranges of {@code application.reindex.chunk-size} ids, handed out to
+ * {@code application.reindex.threads} workers of the task executor; each chunk is read in its own read-only
+ * transaction, which bypasses the second level cache and is discarded with the chunk, and sent as one bulk request.
+ * The documents embed the lazy lookups of the entities, which a stateless session could not load.
+ * <p>
+ * Once all the chunks below an id are indexed, the id is saved as the checkpoint of the job: a job which is
+ * stopped, or which failed to index a chunk, resumes from its checkpoint when started again. Changes made while
+ * the job runs are indexed by the {@link SearchIndexer} as usual.
+ */
+@Service
+public class SearchReindexJob {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexJob.class);
+
+    private final SearchReindexCheckpointRepository searchReindexCheckpointRepository;
+
+    private final ElasticsearchTemplate elasticsearchTemplate;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final Meter indexedMeter;
+
+    private final Timer chunkTimer;
+
+    private final Counter failureCounter;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    public SearchReindexJob(SearchReindexCheckpointRepository searchReindexCheckpointRepository,
+            ElasticsearchTemplate elasticsearchTemplate, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, @Qualifier("taskExecutor") Executor taskExecutor,
+            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.searchReindexCheckpointRepository = searchReindexCheckpointRepository;
+        this.elasticsearchTemplate = elasticsearchTemplate;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.taskExecutor = taskExecutor;
+        this.applicationProperties = applicationProperties;
+        this.indexedMeter = metricRegistry.meter("search.reindex.indexed");
+        this.chunkTimer = metricRegistry.timer("search.reindex.chunk");
+        this.failureCounter = metricRegistry.counter("search.reindex.failures");
+    }
+
+    /**
+     * Start reindexing an entity in the background.
+     *
+     * @param entityClass the indexed entity class
+     * @param restart true to ignore the checkpoint of an unfinished job and reindex all the entities
+     * @param recreate true to delete and create the index with its mapping first, which implies a restart
+     * @return the status of the job
+     * @throws ConcurrencyFailureException if the entity is already being reindexed
+     */
+    public ReindexStatusDTO start(Class<?> entityClass, boolean restart, boolean recreate) {
+        Job job = register(entityClass);
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    run(entityClass, job, restart, recreate);
+                } catch (RuntimeException e) {
+                    log.error("Reindexing {} failed", job.entityName, e);
+                } finally {
+                    job.end();
+                }
+            });
+        } catch (RuntimeException e) {
+            job.end();
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Reindex an entity, and wait for the end of the job.
+     *
+     * @param entityClass the indexed entity class
+     * @param restart true to ignore the checkpoint of an unfinished job and reindex all the entities
+     * @param recreate true to delete and create the index with its mapping first, which implies a restart
+     * @return the status of the job
+     * @throws ConcurrencyFailureException if the entity is already being reindexed
+     */
+    public ReindexStatusDTO reindex(Class<?> entityClass, boolean restart, boolean recreate) {
+        Job job = register(entityClass);
+        try {
+            run(entityClass, job, restart, recreate);
+        } finally {
+            job.end();
+        }
+        return job.toDto();
+    }
+
+    /**
+     * @param entityName the simple class name of the entity, for example "Order"
+     * @return the status of the running or last job of the entity, null if there is none
+     */
+    public ReindexStatusDTO getStatus(String entityName) {
+        Job job = jobs.get(entityName);
+        return job == null ? null : job.toDto();
+    }
+
+    private Job register(Class<?> entityClass) {
+        return jobs.compute(entityClass.getSimpleName(), (entityName, current) -> {
+            if (current != null && current.running) {
+                throw new ConcurrencyFailureException(entityName + " is already being reindexed");
+            }
+            return new Job(entityName);
+        });
+    }
+
+    private void run(Class<?> entityClass, Job job, boolean restart, boolean recreate) {
+        String entityName = job.entityName;
+        if (recreate) {
+            log.info("Recreating the {} index", entityName);
+            elasticsearchTemplate.deleteIndex(entityClass);
+            elasticsearchTemplate.createIndex(entityClass);
+            elasticsearchTemplate.putMapping(entityClass);
+        }
+        if (restart || recreate) {
+            searchReindexCheckpointRepository.delete(entityName);
+        }
+        Object[] range = transactionTemplate.execute(status -> entityManager
+            .createQuery("select min(e.id), max(e.id) from " + entityName + " e", Object[].class)
+            .getSingleResult());
+        if (range[0] == null) {
+            log.info("No {} to reindex", entityName);
+            searchReindexCheckpointRepository.delete(entityName);
+            return;
+        }
+        long firstId = searchReindexCheckpointRepository.findNextId(entityName).orElse((Long) range[0]);
+        job.begin(firstId, (Long) range[1], Math.max(1, applicationProperties.getReindex().getChunkSize()));
+        log.info("Reindexing the {} of ids {} to {}", entityName, firstId, range[1]);
+
+        // The job works too, so that it completes even if no thread of the executor is free
+        for (int i = 1; i < applicationProperties.getReindex().getThreads(); i++) {
+            try {
+                taskExecutor.execute(() -> work(entityClass, job));
+            } catch (RejectedExecutionException e) {
+                log.warn("Reindexing {} with fewer workers: {}", entityName, e.getMessage());
+                break;
+            }
+        }
+        work(entityClass, job);
+        job.awaitWorkers();
+
+        elasticsearchTemplate.refresh(entityClass);
+        if (job.failedChunks.get() == 0) {
+            searchReindexCheckpointRepository.delete(entityName);
+        }
+        ReindexStatusDTO status = job.toDto();
+        log.info("Reindexed {} {} in {} ms ({} docs/s), {} chunks failed", status.getIndexed(), entityName,
+            Duration.ofNanos(System.nanoTime() - job.startNanos).toMillis(), status.getDocsPerSecond(),
+            status.getFailedChunks());
+    }
+
+    private void work(Class<?> entityClass, Job job) {
+        if (!job.enter()) {
+            return;
+        }
+        try {
+            long chunk;
+            while ((chunk = job.nextChunk()) >= 0) {
+                long from = job.firstId + chunk * job.chunkSize;
+                long to = from + job.chunkSize;
+                try (Timer.Context ignored = chunkTimer.time()) {
+                    int indexed = transactionTemplate.execute(status -> index(entityClass, from, to));
+                    job.indexed.addAndGet(indexed);
+                    indexedMeter.mark(indexed);
+                    synchronized (job) {
+                        long checkpoint = job.chunkIndexed(chunk);
+                        if (checkpoint >= 0) {
+                            searchReindexCheckpointRepository.save(job.entityName, checkpoint);
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    // The checkpoint stays below the chunk, which a resumed job indexes again
+                    failureCounter.inc();
+                    job.failedChunks.incrementAndGet();
+                    log.warn("Could not reindex the {} of ids {} to {}: {}", job.entityName, from, to - 1,
+                        e.getMessage());
+                }
+            }
+        } finally {
+            job.leave();
+        }
+    }
+
+    private <T> int index(Class<T> entityClass, long from, long to) {
+        entityManager.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+        List<T> entities = entityManager
+            .createQuery("select e from " + entityClass.getSimpleName() + " e where e.id >= :from and e.id < :to",
+                entityClass)
+            .setParameter("from", from)
+            .setParameter("to", to)
+            .getResultList();
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        PersistenceUnitUtil persistenceUnitUtil = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<IndexQuery> queries = entities.stream()
+            .map(entity -> new IndexQueryBuilder()
+                .withId(String.valueOf(persistenceUnitUtil.getIdentifier(entity)))
+                .withObject(entity)
+                .build())
+            .collect(Collectors.toList());
+        elasticsearchTemplate.bulkIndex(queries);
+        return entities.size();
+    }
+
+    /**
+     * A reindex job: the chunks are numbered from the first id, and handed out in order to the workers.
+     */
+    private static final class Job {
+
+        private final String entityName;
+
+        private final Instant startedDate = Instant.now();
+
+        private final long startNanos = System.nanoTime();
+
+        private final AtomicLong nextChunk = new AtomicLong();
+
+        private final AtomicLong indexed = new AtomicLong();
+
+        private final AtomicLong failedChunks = new AtomicLong();
+
+        /**
+         * The chunks indexed above the checkpoint.
+         */
+        private final TreeSet<Long> indexedChunks = new TreeSet<>();
+
+        private volatile boolean running = true;
+
+        private volatile Instant endedDate;
+
+        private volatile long endNanos;
+
+        private volatile long firstId;
+
+        private volatile long lastId;
+
+        private volatile long chunkSize;
+
+        /**
+         * The chunks below which all the chunks are indexed.
+         */
+        private long checkpointChunk;
+
+        private int workers;
+
+        private boolean closed;
+
+        private Job(String entityName) {
+            this.entityName = entityName;
+        }
+
+        private void begin(long firstId, long lastId, long chunkSize) {
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.chunkSize = chunkSize;
+        }
+
+        /**
+         * @return the next chunk to index, -1 if there is none left
+         */
+        private long nextChunk() {
+            long chunk = nextChunk.getAndIncrement();
+            return firstId + chunk * chunkSize > lastId ? -1 : chunk;
+        }
+
+        /**
+         * @return the id of the new checkpoint, -1 if it did not move
+         */
+        private synchronized long chunkIndexed(long chunk) {
+            indexedChunks.add(chunk);
+            long previous = checkpointChunk;
+            while (indexedChunks.remove(checkpointChunk)) {
+                checkpointChunk++;
+            }
+            return checkpointChunk == previous ? -1 : firstId + checkpointChunk * chunkSize;
+        }
+
+        private synchronized boolean enter() {
+            if (closed) {
+                return false;
+            }
+            workers++;
+            return true;
+        }
+
+        private synchronized void leave() {
+            workers--;
+            notifyAll();
+        }
+
+        /**
+         * Wait for the workers which started; those which did not start yet will find the job closed.
+         */
+        private synchronized void awaitWorkers() {
+            closed = true;
+            try {
+                while (workers > 0) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void end() {
+            endNanos = System.nanoTime();
+            endedDate = Instant.now();
+            running = false;
+        }
+
+        private synchronized ReindexStatusDTO toDto() {
+            ReindexStatusDTO status = new ReindexStatusDTO();
+            status.setEntityName(entityName);
+            status.setRunning(running);
+            status.setStartedDate(startedDate);
+            status.setEndedDate(endedDate);
+            status.setFirstId(firstId);
+            status.setLastId(lastId);
+            status.setCheckpoint(firstId + checkpointChunk * chunkSize);
+            status.setIndexed(indexed.get());
+            status.setFailedChunks(failedChunks.get());
+            long elapsedMillis = Duration.ofNanos((running ? System.nanoTime() : endNanos) - startNanos).toMillis();
+            status.setDocsPerSecond(indexed.get() * 1000 / Math.max(1, elapsedMillis));
+            return status;
+        }
+    }
+}
@@ -3,12 +3,15 @@ package com.cloud.distribution.service;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.StatusRepository;
 import com.cloud.distribution.repository.search.StatusSearchRepository;
+import com.cloud.distribution.repository.search.SearchAfterUtil;
 import com.cloud.distribution.service.dto.StatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.mapper.StatusMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,10 +33,17 @@ public class StatusService {
 
     private final StatusSearchRepository statusSearchRepository;
 
-    public StatusService(StatusRepository statusRepository, StatusMapper statusMapper, StatusSearchRepository statusSearchRepository) {
+    private final SearchOutboxService searchOutboxService;
+
+    private final LookupRegistry lookupRegistry;
+
+    public StatusService(StatusRepository statusRepository, StatusMapper statusMapper, StatusSearchRepository statusSearchRepository, SearchOutboxService searchOutboxService,
+            LookupRegistry lookupRegistry) {
         this.statusRepository = statusRepository;
         this.statusMapper = statusMapper;
         this.statusSearchRepository = statusSearchRepository;
+        this.searchOutboxService = searchOutboxService;
+        this.lookupRegistry = lookupRegistry;
     }
 
     /**
@@ -47,7 +57,8 @@ public class StatusService {
         Status status = statusMapper.toEntity(statusDTO);
         status = statusRepository.save(status);
         StatusDTO result = statusMapper.toDto(status);
-        statusSearchRepository.save(status);
+        searchOutboxService.scheduleIndex(Status.class, status.getId());
+        lookupRegistry.publishAfterCommit(Status.class);
         return result;
     }
 
@@ -85,7 +96,8 @@ public class StatusService {
     public void delete(Long id) {
         log.debug("Request to delete Status : {}", id);
         statusRepository.delete(id);
-        statusSearchRepository.delete(id);
+        searchOutboxService.scheduleDelete(Status.class, id);
+        lookupRegistry.publishAfterCommit(Status.class);
     }
 
     /**
@@ -101,4 +113,19 @@ public class StatusService {
         Page<Status> result = statusSearchRepository.search(queryStringQuery(query), pageable);
         return result.map(statusMapper::toDto);
     }
+
+    /**
+     * Search for the status corresponding to the query, by cursor: the results are sorted by id.
+     *
+     * @param query the query of the search
+     * @param after the cursor of the previous slice, null for the first slice
+     * @param size the size of the slice
+     * @return the slice of entities
+     */
+    @Transactional(readOnly = true)
+    public Slice<StatusDTO> search(String query, SearchCursor after, int size) {
+        log.debug("Request to search for a slice of Statuses for query {} after {}", query, after);
+        Slice<Status> result = SearchAfterUtil.searchAfter(statusSearchRepository, query, after == null ? null : after.getId(), size);
+        return result.map(statusMapper::toDto);
+    }
 }
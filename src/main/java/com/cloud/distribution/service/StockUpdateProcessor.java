@@ -0,0 +1,41 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.service.dto.StockReservationDTO;
+import com.hazelcast.map.AbstractEntryProcessor;
+
+import java.util.Map;
+
+/**
+ * Entry processor changing the remains of a product in the product stock map.
+ * <p>
+ * It runs on the partition owning the product, so concurrent reservations of the same product are serialized
+ * without any lock, and the stock can never go below 0.
+ */
+public class StockUpdateProcessor extends AbstractEntryProcessor<Long, Long> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long delta;
+
+    /**
+     * @param delta the quantity to add, negative for a reservation
+     */
+    public StockUpdateProcessor(long delta) {
+        this.delta = delta;
+    }
+
+    @Override
+    public Object process(Map.Entry<Long, Long> entry) {
+        Long remains = entry.getValue();
+        if (remains == null) {
+            // Unknown product, the entry must not be created
+            return null;
+        }
+        long quantity = Math.abs(delta);
+        if (remains + delta < 0) {
+            return new StockReservationDTO(entry.getKey(), quantity, false, remains);
+        }
+        entry.setValue(remains + delta);
+        return new StockReservationDTO(entry.getKey(), quantity, true, remains + delta);
+    }
+}
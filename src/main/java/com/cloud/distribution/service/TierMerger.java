@@ -0,0 +1,75 @@
+package com.cloud.distribution.service;
+
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Utility class merging the DTOs read from the hot and the archive tiers, for the query services.
+ * <p>
+ * Each tier is read up to the end of the requested page, in the requested order, then both heads are merged and the
+ * page is cut from the result.
+ */
+final class TierMerger {
+
+    private TierMerger() {
+    }
+
+    /**
+     * Merge the heads of both tiers, each already sorted, in the requested order.
+     */
+    static <D> List<D> merge(Slice<D> hot, Slice<D> archived, Sort sort) {
+        final List<D> merged = new ArrayList<>(hot.getNumberOfElements() + archived.getNumberOfElements());
+        merged.addAll(hot.getContent());
+        merged.addAll(archived.getContent());
+        merged.sort(comparator(sort));
+        return merged;
+    }
+
+    static <D> List<D> window(List<D> merged, int offset, int size) {
+        if (offset >= merged.size()) {
+            return Collections.emptyList();
+        }
+        return merged.subList(offset, Math.min(offset + size, merged.size()));
+    }
+
+    /**
+     * Comparator matching the SQL ordering of the given sort: nested properties such as "payType.name"
+     * are read from the flattened DTO property ("payTypeName"), and nulls come first in ascending order.
+     */
+    private static <D> Comparator<D> comparator(Sort sort) {
+        Comparator<D> comparator = (left, right) -> 0;
+        if (sort == null) {
+            return comparator;
+        }
+        final Comparator<Comparable<Object>> natural = Comparator.nullsFirst(Comparator.naturalOrder());
+        for (Sort.Order order : sort) {
+            final String property = dtoProperty(order.getProperty());
+            final Comparator<D> byProperty = Comparator.comparing((D dto) -> propertyValue(dto, property), natural);
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private static String dtoProperty(String property) {
+        final String[] path = property.split("\\.");
+        final StringBuilder name = new StringBuilder(path[0]);
+        for (int i = 1; i < path.length; i++) {
+            name.append(StringUtils.capitalize(path[i]));
+        }
+        return name.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> propertyValue(Object dto, String property) {
+        final BeanWrapper wrapper = new BeanWrapperImpl(dto);
+        return wrapper.isReadableProperty(property) ? (Comparable<Object>) wrapper.getPropertyValue(property) : null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+import java.time.ZonedDateTime;
+
+/**
+ * A row of the commission ledger: the commission paid to an ancestor merchant of the buyer of an order.
+ */
+public class CommissionDTO implements Serializable {
+
+    private Long orderId;
+
+    private Long merchantId;
+
+    private int level;
+
+    private String placeholderCode;
+
+    private long orderAmount;
+
+    private long amount;
+
+    private ZonedDateTime createdDate;
+
+    public CommissionDTO() {
+    }
+
+    public CommissionDTO(Long orderId, Long merchantId, int level, String placeholderCode, long orderAmount,
+            long amount, ZonedDateTime createdDate) {
+        this.orderId = orderId;
+        this.merchantId = merchantId;
+        this.level = level;
+        this.placeholderCode = placeholderCode;
+        this.orderAmount = orderAmount;
+        this.amount = amount;
+        this.createdDate = createdDate;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(Long orderId) {
+        this.orderId = orderId;
+    }
+
+    public Long getMerchantId() {
+        return merchantId;
+    }
+
+    public void setMerchantId(Long merchantId) {
+        this.merchantId = merchantId;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    public String getPlaceholderCode() {
+        return placeholderCode;
+    }
+
+    public void setPlaceholderCode(String placeholderCode) {
+        this.placeholderCode = placeholderCode;
+    }
+
+    public long getOrderAmount() {
+        return orderAmount;
+    }
+
+    public void setOrderAmount(long orderAmount) {
+        this.orderAmount = orderAmount;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public void setAmount(long amount) {
+        this.amount = amount;
+    }
+
+    public ZonedDateTime getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(ZonedDateTime createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    @Override
+    public String toString() {
+        return "CommissionDTO{" +
+            "orderId=" + getOrderId() +
+            ", merchantId=" + getMerchantId() +
+            ", level=" + getLevel() +
+            ", placeholderCode='" + getPlaceholderCode() + "'" +
+            ", orderAmount=" + getOrderAmount() +
+            ", amount=" + getAmount() +
+            ", createdDate='" + getCreatedDate() + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,60 @@
+package com.cloud.distribution.service.dto;
+
+/**
+ * A commission rule: the rate paid, for a commission placeholder, to the ancestor merchant at a given level above
+ * the merchant of the buyer.
+ */
+public final class CommissionRule {
+
+    /**
+     * Rates are expressed in basis points of the order amount.
+     */
+    public static final long RATE_SCALE = 10000;
+
+    private final String placeholderCode;
+
+    private final int level;
+
+    private final int rate;
+
+    public CommissionRule(String placeholderCode, int level, int rate) {
+        this.placeholderCode = placeholderCode;
+        this.level = level;
+        this.rate = rate;
+    }
+
+    public String getPlaceholderCode() {
+        return placeholderCode;
+    }
+
+    /**
+     * @return the level of the paid merchant, 1 for the parent of the merchant of the buyer
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return the rate, in basis points
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * @param orderAmount the amount of an order
+     * @return the commission on this amount, rounded down
+     */
+    public long apply(long orderAmount) {
+        return orderAmount * rate / RATE_SCALE;
+    }
+
+    @Override
+    public String toString() {
+        return "CommissionRule{" +
+            "placeholderCode='" + placeholderCode + "'" +
+            ", level=" + level +
+            ", rate=" + rate +
+            "}";
+    }
+}
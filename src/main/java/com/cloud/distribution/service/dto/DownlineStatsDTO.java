@@ -0,0 +1,138 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The sales of the subtree of a merchant over a range of days, read from the downline aggregates.
+ */
+public class DownlineStatsDTO implements Serializable {
+
+    private Long merchantId;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private long orderCount;
+
+    private long amountSum;
+
+    private List<Day> days = new ArrayList<>();
+
+    public Long getMerchantId() {
+        return merchantId;
+    }
+
+    public void setMerchantId(Long merchantId) {
+        this.merchantId = merchantId;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getAmountSum() {
+        return amountSum;
+    }
+
+    public void setAmountSum(long amountSum) {
+        this.amountSum = amountSum;
+    }
+
+    public List<Day> getDays() {
+        return days;
+    }
+
+    public void setDays(List<Day> days) {
+        this.days = days;
+    }
+
+    @Override
+    public String toString() {
+        return "DownlineStatsDTO{" +
+            "merchantId=" + getMerchantId() +
+            ", from=" + getFrom() +
+            ", to=" + getTo() +
+            ", orderCount=" + getOrderCount() +
+            ", amountSum=" + getAmountSum() +
+            ", days=" + getDays() +
+            "}";
+    }
+
+    /**
+     * The totals of one day.
+     */
+    public static class Day implements Serializable {
+
+        private LocalDate date;
+
+        private long orderCount;
+
+        private long amountSum;
+
+        public Day() {
+        }
+
+        public Day(LocalDate date, long orderCount, long amountSum) {
+            this.date = date;
+            this.orderCount = orderCount;
+            this.amountSum = amountSum;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public void setDate(LocalDate date) {
+            this.date = date;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public void setOrderCount(long orderCount) {
+            this.orderCount = orderCount;
+        }
+
+        public long getAmountSum() {
+            return amountSum;
+        }
+
+        public void setAmountSum(long amountSum) {
+            this.amountSum = amountSum;
+        }
+
+        @Override
+        public String toString() {
+            return "Day{" +
+                "date=" + getDate() +
+                ", orderCount=" + getOrderCount() +
+                ", amountSum=" + getAmountSum() +
+                "}";
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.cloud.distribution.service.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * Position of the last row of a keyset (seek) page, sorted by a date then by id.
+ * <p>
+ * Clients receive it as an opaque token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class KeysetCursor {
+
+    private final ZonedDateTime date;
+
+    private final Long id;
+
+    public KeysetCursor(ZonedDateTime date, Long id) {
+        this.date = Objects.requireNonNull(date);
+        this.id = Objects.requireNonNull(id);
+    }
+
+    public ZonedDateTime getDate() {
+        return date;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encode this cursor as an URL safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        String value = date.toInstant().toString() + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}.
+     *
+     * @param token the token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static KeysetCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(',');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            Instant instant = Instant.parse(value.substring(0, separator));
+            Long id = Long.valueOf(value.substring(separator + 1));
+            return new KeysetCursor(ZonedDateTime.ofInstant(instant, ZoneId.systemDefault()), id);
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        KeysetCursor that = (KeysetCursor) o;
+        return date.toInstant().equals(that.date.toInstant()) && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date.toInstant(), id);
+    }
+
+    @Override
+    public String toString() {
+        return "KeysetCursor{" +
+            "date=" + date +
+            ", id=" + id +
+            "}";
+    }
+}
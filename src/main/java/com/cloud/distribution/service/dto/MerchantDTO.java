@@ -14,6 +14,8 @@ public class MerchantDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String name;
 
     @Lob
@@ -51,6 +53,14 @@ public class MerchantDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -188,6 +198,7 @@ public class MerchantDTO implements Serializable {
     public String toString() {
         return "MerchantDTO{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", desc='" + getDesc() + "'" +
             ", level=" + getLevel() +
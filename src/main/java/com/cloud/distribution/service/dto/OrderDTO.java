@@ -15,6 +15,8 @@ public class OrderDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String name;
 
     private String code;
@@ -44,6 +46,40 @@ public class OrderDTO implements Serializable {
 
     private String productName;
 
+    public OrderDTO() {
+    }
+
+    /**
+     * Constructor of the projection queries of the archived orders, which have no version.
+     */
+    public OrderDTO(Long id, String name, String code, String desc, Long amount, ZonedDateTime createdDate, Long userId,
+                    Long payTypeId, Long orderTypeId, Long orderStatusId, Long productId, String productName) {
+        this(id, name, code, desc, amount, createdDate, userId, payTypeId, orderTypeId, orderStatusId, productId,
+            productName, null);
+    }
+
+    /**
+     * Constructor of the projection queries, see {@link com.cloud.distribution.repository.OrderProjectionExecutor}:
+     * the names of the lookups are set afterwards, from the {@link com.cloud.distribution.service.LookupRegistry}.
+     */
+    public OrderDTO(Long id, String name, String code, String desc, Long amount, ZonedDateTime createdDate, Long userId,
+                    Long payTypeId, Long orderTypeId, Long orderStatusId, Long productId, String productName,
+                    Long version) {
+        this.id = id;
+        this.version = version;
+        this.name = name;
+        this.code = code;
+        this.desc = desc;
+        this.amount = amount;
+        this.createdDate = createdDate;
+        this.userId = userId;
+        this.payTypeId = payTypeId;
+        this.orderTypeId = orderTypeId;
+        this.orderStatusId = orderStatusId;
+        this.productId = productId;
+        this.productName = productName;
+    }
+
     public Long getId() {
         return id;
     }
@@ -52,6 +88,14 @@ public class OrderDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -189,6 +233,7 @@ public class OrderDTO implements Serializable {
     public String toString() {
         return "OrderDTO{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", code='" + getCode() + "'" +
             ", desc='" + getDesc() + "'" +
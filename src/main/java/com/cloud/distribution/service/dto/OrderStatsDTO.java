@@ -0,0 +1,138 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The order count and amount sum over a range of days, read from the sales rollups.
+ */
+public class OrderStatsDTO implements Serializable {
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    private String groupBy;
+
+    private long orderCount;
+
+    private long amountSum;
+
+    private List<Group> groups = new ArrayList<>();
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDate from) {
+        this.from = from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDate to) {
+        this.to = to;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public void setGroupBy(String groupBy) {
+        this.groupBy = groupBy;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public long getAmountSum() {
+        return amountSum;
+    }
+
+    public void setAmountSum(long amountSum) {
+        this.amountSum = amountSum;
+    }
+
+    public List<Group> getGroups() {
+        return groups;
+    }
+
+    public void setGroups(List<Group> groups) {
+        this.groups = groups;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderStatsDTO{" +
+            "from=" + getFrom() +
+            ", to=" + getTo() +
+            ", groupBy='" + getGroupBy() + "'" +
+            ", orderCount=" + getOrderCount() +
+            ", amountSum=" + getAmountSum() +
+            ", groups=" + getGroups() +
+            "}";
+    }
+
+    /**
+     * The totals of one value of the dimension, the id 0 gathers the orders without a value.
+     */
+    public static class Group implements Serializable {
+
+        private Long id;
+
+        private long orderCount;
+
+        private long amountSum;
+
+        public Group() {
+        }
+
+        public Group(Long id, long orderCount, long amountSum) {
+            this.id = id;
+            this.orderCount = orderCount;
+            this.amountSum = amountSum;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public void setId(Long id) {
+            this.id = id;
+        }
+
+        public long getOrderCount() {
+            return orderCount;
+        }
+
+        public void setOrderCount(long orderCount) {
+            this.orderCount = orderCount;
+        }
+
+        public long getAmountSum() {
+            return amountSum;
+        }
+
+        public void setAmountSum(long amountSum) {
+            this.amountSum = amountSum;
+        }
+
+        @Override
+        public String toString() {
+            return "Group{" +
+                "id=" + getId() +
+                ", orderCount=" + getOrderCount() +
+                ", amountSum=" + getAmountSum() +
+                "}";
+        }
+    }
+}
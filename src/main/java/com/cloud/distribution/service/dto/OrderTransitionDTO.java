@@ -0,0 +1,70 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * A DTO for a status transition of an order: the status it is expected to be in, the new status, and the operator
+ * recorded in the status history.
+ */
+public class OrderTransitionDTO implements Serializable {
+
+    private Long fromStatusId;
+
+    private Long toStatusId;
+
+    private String operatorCode;
+
+    private Long operatorTypeId;
+
+    private String desc;
+
+    public Long getFromStatusId() {
+        return fromStatusId;
+    }
+
+    public void setFromStatusId(Long fromStatusId) {
+        this.fromStatusId = fromStatusId;
+    }
+
+    public Long getToStatusId() {
+        return toStatusId;
+    }
+
+    public void setToStatusId(Long toStatusId) {
+        this.toStatusId = toStatusId;
+    }
+
+    public String getOperatorCode() {
+        return operatorCode;
+    }
+
+    public void setOperatorCode(String operatorCode) {
+        this.operatorCode = operatorCode;
+    }
+
+    public Long getOperatorTypeId() {
+        return operatorTypeId;
+    }
+
+    public void setOperatorTypeId(Long operatorTypeId) {
+        this.operatorTypeId = operatorTypeId;
+    }
+
+    public String getDesc() {
+        return desc;
+    }
+
+    public void setDesc(String desc) {
+        this.desc = desc;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderTransitionDTO{" +
+            "fromStatusId=" + getFromStatusId() +
+            ", toStatusId=" + getToStatusId() +
+            ", operatorCode='" + getOperatorCode() + "'" +
+            ", operatorTypeId=" + getOperatorTypeId() +
+            "}";
+    }
+}
@@ -14,6 +14,8 @@ public class ProductDTO implements Serializable {
 
     private Long id;
 
+    private Long version;
+
     private String name;
 
     @Lob
@@ -43,6 +45,14 @@ public class ProductDTO implements Serializable {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -148,6 +158,7 @@ public class ProductDTO implements Serializable {
     public String toString() {
         return "ProductDTO{" +
             "id=" + getId() +
+            ", version=" + getVersion() +
             ", name='" + getName() + "'" +
             ", desc='" + getDesc() + "'" +
             ", price=" + getPrice() +
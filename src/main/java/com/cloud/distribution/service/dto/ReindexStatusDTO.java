@@ -0,0 +1,126 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * The progress of a search reindex job of an entity.
+ */
+public class ReindexStatusDTO implements Serializable {
+
+    private String entityName;
+
+    private boolean running;
+
+    private Instant startedDate;
+
+    private Instant endedDate;
+
+    private long firstId;
+
+    private long lastId;
+
+    private long checkpoint;
+
+    private long indexed;
+
+    private long failedChunks;
+
+    private long docsPerSecond;
+
+    public String getEntityName() {
+        return entityName;
+    }
+
+    public void setEntityName(String entityName) {
+        this.entityName = entityName;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public void setRunning(boolean running) {
+        this.running = running;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getEndedDate() {
+        return endedDate;
+    }
+
+    public void setEndedDate(Instant endedDate) {
+        this.endedDate = endedDate;
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public void setFirstId(long firstId) {
+        this.firstId = firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public void setLastId(long lastId) {
+        this.lastId = lastId;
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(long checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public long getIndexed() {
+        return indexed;
+    }
+
+    public void setIndexed(long indexed) {
+        this.indexed = indexed;
+    }
+
+    public long getFailedChunks() {
+        return failedChunks;
+    }
+
+    public void setFailedChunks(long failedChunks) {
+        this.failedChunks = failedChunks;
+    }
+
+    public long getDocsPerSecond() {
+        return docsPerSecond;
+    }
+
+    public void setDocsPerSecond(long docsPerSecond) {
+        this.docsPerSecond = docsPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "ReindexStatusDTO{" +
+            "entityName='" + getEntityName() + "'" +
+            ", running=" + isRunning() +
+            ", startedDate='" + getStartedDate() + "'" +
+            ", endedDate='" + getEndedDate() + "'" +
+            ", firstId=" + getFirstId() +
+            ", lastId=" + getLastId() +
+            ", checkpoint=" + getCheckpoint() +
+            ", indexed=" + getIndexed() +
+            ", failedChunks=" + getFailedChunks() +
+            ", docsPerSecond=" + getDocsPerSecond() +
+            "}";
+    }
+}
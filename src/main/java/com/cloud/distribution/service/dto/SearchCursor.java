@@ -0,0 +1,87 @@
+package com.cloud.distribution.service.dto;
+
+import org.springframework.data.domain.Slice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Position of the last document of a search slice read by cursor, sorted by id.
+ * <p>
+ * Clients receive it as an opaque token, see {@link #encode()} and {@link #decode(String)}.
+ */
+public final class SearchCursor {
+
+    private final Long id;
+
+    public SearchCursor(Long id) {
+        this.id = Objects.requireNonNull(id);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Encode this cursor as an URL safe token.
+     *
+     * @return the token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token created by {@link #encode()}.
+     *
+     * @param token the token
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is not a valid cursor
+     */
+    public static SearchCursor decode(String token) {
+        try {
+            return new SearchCursor(Long.valueOf(new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    /**
+     * @param slice a slice read by cursor
+     * @param idOf the id of an element of the slice
+     * @return the cursor of the next slice, or null if the slice is the last one
+     */
+    public static <T> SearchCursor next(Slice<T> slice, Function<T, Long> idOf) {
+        if (!slice.hasNext() || !slice.hasContent()) {
+            return null;
+        }
+        List<T> content = slice.getContent();
+        return new SearchCursor(idOf.apply(content.get(content.size() - 1)));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return id.equals(((SearchCursor) o).id);
+    }
+
+    @Override
+    public int hashCode() {
+        return id.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "SearchCursor{" +
+            "id=" + id +
+            "}";
+    }
+}
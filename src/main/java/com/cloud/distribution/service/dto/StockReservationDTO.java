@@ -0,0 +1,69 @@
+package com.cloud.distribution.service.dto;
+
+import java.io.Serializable;
+
+/**
+ * The outcome of a stock reservation or release on a Product.
+ */
+public class StockReservationDTO implements Serializable {
+
+    private Long productId;
+
+    private long quantity;
+
+    private boolean success;
+
+    private long remains;
+
+    public StockReservationDTO() {
+    }
+
+    public StockReservationDTO(Long productId, long quantity, boolean success, long remains) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.success = success;
+        this.remains = remains;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public long getRemains() {
+        return remains;
+    }
+
+    public void setRemains(long remains) {
+        this.remains = remains;
+    }
+
+    @Override
+    public String toString() {
+        return "StockReservationDTO{" +
+            "productId=" + getProductId() +
+            ", quantity=" + getQuantity() +
+            ", success=" + isSuccess() +
+            ", remains=" + getRemains() +
+            "}";
+    }
+}
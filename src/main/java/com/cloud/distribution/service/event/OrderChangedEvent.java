@@ -0,0 +1,39 @@
+package com.cloud.distribution.service.event;
+
+import com.cloud.distribution.service.dto.OrderDTO;
+
+/**
+ * Published by the {@link com.cloud.distribution.service.OrderService} inside its transaction,
+ * when an order is created, updated or deleted.
+ */
+public class OrderChangedEvent {
+
+    private final OrderDTO before;
+
+    private final OrderDTO after;
+
+    /**
+     * @param before the order before the change, null if it is created
+     * @param after the order after the change, null if it is deleted
+     */
+    public OrderChangedEvent(OrderDTO before, OrderDTO after) {
+        this.before = before;
+        this.after = after;
+    }
+
+    public OrderDTO getBefore() {
+        return before;
+    }
+
+    public OrderDTO getAfter() {
+        return after;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderChangedEvent{" +
+            "before=" + before +
+            ", after=" + after +
+            "}";
+    }
+}
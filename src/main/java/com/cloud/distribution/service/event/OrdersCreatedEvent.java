@@ -0,0 +1,29 @@
+package com.cloud.distribution.service.event;
+
+import com.cloud.distribution.service.dto.OrderDTO;
+
+import java.util.List;
+
+/**
+ * Published by the {@link com.cloud.distribution.service.OrderService} inside its transaction,
+ * for each chunk of orders created in bulk, so that listeners can aggregate their work.
+ */
+public class OrdersCreatedEvent {
+
+    private final List<OrderDTO> orders;
+
+    public OrdersCreatedEvent(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    @Override
+    public String toString() {
+        return "OrdersCreatedEvent{" +
+            "orders=" + orders.size() +
+            "}";
+    }
+}
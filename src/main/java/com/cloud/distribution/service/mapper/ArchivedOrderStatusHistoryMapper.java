@@ -0,0 +1,27 @@
+package com.cloud.distribution.service.mapper;
+
+import com.cloud.distribution.domain.*;
+import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+
+import org.mapstruct.*;
+
+import java.util.List;
+
+/**
+ * Mapper for the entity ArchivedOrderStatusHistory to the DTO OrderStatusHistoryDTO, read only.
+ */
+@Mapper(componentModel = "spring", uses = {LookupNameMapper.class})
+public interface ArchivedOrderStatusHistoryMapper {
+
+    @Mapping(source = "operatorType.id", target = "operatorTypeId")
+    @Mapping(source = "operatorType", target = "operatorTypeName")
+    @Mapping(source = "order.id", target = "orderId")
+    @Mapping(source = "order.name", target = "orderName")
+    @Mapping(source = "oldStatus.id", target = "oldStatusId")
+    @Mapping(source = "oldStatus", target = "oldStatusName")
+    @Mapping(source = "newStatus.id", target = "newStatusId")
+    @Mapping(source = "newStatus", target = "newStatusName")
+    OrderStatusHistoryDTO toDto(ArchivedOrderStatusHistory archivedOrderStatusHistory);
+
+    List<OrderStatusHistoryDTO> toDto(List<ArchivedOrderStatusHistory> archivedOrderStatusHistories);
+}
@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity CommissionPlaceholder and its DTO CommissionPlaceholderDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface CommissionPlaceholderMapper extends EntityMapper<CommissionPlaceholderDTO, CommissionPlaceholder> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     CommissionPlaceholderDTO toDto(CommissionPlaceholder commissionPlaceholder); 
 
     @Mapping(source = "statusId", target = "status")
@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity Currency and its DTO CurrencyDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface CurrencyMapper extends EntityMapper<CurrencyDTO, Currency> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     CurrencyDTO toDto(Currency currency); 
 
     @Mapping(source = "statusId", target = "status")
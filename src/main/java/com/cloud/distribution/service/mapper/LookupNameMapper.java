@@ -0,0 +1,72 @@
+package com.cloud.distribution.service.mapper;
+
+import com.cloud.distribution.domain.*;
+import com.cloud.distribution.service.LookupRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Supplier;
+
+/**
+ * Mapper for the names of the lookup entities, resolved from the {@link LookupRegistry}.
+ * <p>
+ * The other mappers use it for their {@code *Name} fields: only the id of a lookup is read, which does not
+ * initialize a lazy association. The entity itself is only read when the lookup is not in the registry.
+ */
+@Component
+public class LookupNameMapper {
+
+    private final LookupRegistry lookupRegistry;
+
+    public LookupNameMapper(LookupRegistry lookupRegistry) {
+        this.lookupRegistry = lookupRegistry;
+    }
+
+    public String name(Status status) {
+        return status == null ? null : name(Status.class, status.getId(), status::getName);
+    }
+
+    public String name(OrderStatus orderStatus) {
+        return orderStatus == null ? null : name(OrderStatus.class, orderStatus.getId(), orderStatus::getName);
+    }
+
+    public String name(OrderType orderType) {
+        return orderType == null ? null : name(OrderType.class, orderType.getId(), orderType::getName);
+    }
+
+    public String name(PayType payType) {
+        return payType == null ? null : name(PayType.class, payType.getId(), payType::getName);
+    }
+
+    public String name(ProductStatus productStatus) {
+        return productStatus == null ? null : name(ProductStatus.class, productStatus.getId(), productStatus::getName);
+    }
+
+    public String name(ProductType productType) {
+        return productType == null ? null : name(ProductType.class, productType.getId(), productType::getName);
+    }
+
+    public String name(Currency currency) {
+        return currency == null ? null : name(Currency.class, currency.getId(), currency::getName);
+    }
+
+    public String name(MerchantType merchantType) {
+        return merchantType == null ? null : name(MerchantType.class, merchantType.getId(), merchantType::getName);
+    }
+
+    public String name(MerchantStatus merchantStatus) {
+        return merchantStatus == null ? null : name(MerchantStatus.class, merchantStatus.getId(), merchantStatus::getName);
+    }
+
+    public String name(MerchantAuditStatus merchantAuditStatus) {
+        return merchantAuditStatus == null ? null : name(MerchantAuditStatus.class, merchantAuditStatus.getId(), merchantAuditStatus::getName);
+    }
+
+    public String name(OperatorType operatorType) {
+        return operatorType == null ? null : name(OperatorType.class, operatorType.getId(), operatorType::getName);
+    }
+
+    private String name(Class<?> lookupClass, Long id, Supplier<String> fallback) {
+        String name = lookupRegistry.getName(lookupClass, id);
+        return name != null ? name : fallback.get();
+    }
+}
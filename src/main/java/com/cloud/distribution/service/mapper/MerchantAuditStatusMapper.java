@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity MerchantAuditStatus and its DTO MerchantAuditStatusDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface MerchantAuditStatusMapper extends EntityMapper<MerchantAuditStatusDTO, MerchantAuditStatus> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     MerchantAuditStatusDTO toDto(MerchantAuditStatus merchantAuditStatus); 
 
     @Mapping(source = "statusId", target = "status")
@@ -8,15 +8,15 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity Merchant and its DTO MerchantDTO.
  */
-@Mapper(componentModel = "spring", uses = {MerchantTypeMapper.class, MerchantAuditStatusMapper.class, MerchantStatusMapper.class})
+@Mapper(componentModel = "spring", uses = {MerchantTypeMapper.class, MerchantAuditStatusMapper.class, MerchantStatusMapper.class, LookupNameMapper.class})
 public interface MerchantMapper extends EntityMapper<MerchantDTO, Merchant> {
 
     @Mapping(source = "merchantType.id", target = "merchantTypeId")
-    @Mapping(source = "merchantType.name", target = "merchantTypeName")
+    @Mapping(source = "merchantType", target = "merchantTypeName")
     @Mapping(source = "merchantAuditStatus.id", target = "merchantAuditStatusId")
-    @Mapping(source = "merchantAuditStatus.name", target = "merchantAuditStatusName")
+    @Mapping(source = "merchantAuditStatus", target = "merchantAuditStatusName")
     @Mapping(source = "merchantStatus.id", target = "merchantStatusId")
-    @Mapping(source = "merchantStatus.name", target = "merchantStatusName")
+    @Mapping(source = "merchantStatus", target = "merchantStatusName")
     @Mapping(source = "parent.id", target = "parentId")
     @Mapping(source = "parent.name", target = "parentName")
     MerchantDTO toDto(Merchant merchant); 
@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity MerchantStatus and its DTO MerchantStatusDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface MerchantStatusMapper extends EntityMapper<MerchantStatusDTO, MerchantStatus> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     MerchantStatusDTO toDto(MerchantStatus merchantStatus); 
 
     @Mapping(source = "statusId", target = "status")
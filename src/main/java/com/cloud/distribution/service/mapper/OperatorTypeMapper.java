@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity OperatorType and its DTO OperatorTypeDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface OperatorTypeMapper extends EntityMapper<OperatorTypeDTO, OperatorType> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     OperatorTypeDTO toDto(OperatorType operatorType); 
 
     @Mapping(source = "statusId", target = "status")
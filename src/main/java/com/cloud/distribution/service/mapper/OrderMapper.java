@@ -8,15 +8,15 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity Order and its DTO OrderDTO.
  */
-@Mapper(componentModel = "spring", uses = {PayTypeMapper.class, OrderTypeMapper.class, OrderStatusMapper.class, ProductMapper.class})
+@Mapper(componentModel = "spring", uses = {PayTypeMapper.class, OrderTypeMapper.class, OrderStatusMapper.class, ProductMapper.class, LookupNameMapper.class})
 public interface OrderMapper extends EntityMapper<OrderDTO, Order> {
 
     @Mapping(source = "payType.id", target = "payTypeId")
-    @Mapping(source = "payType.name", target = "payTypeName")
+    @Mapping(source = "payType", target = "payTypeName")
     @Mapping(source = "orderType.id", target = "orderTypeId")
-    @Mapping(source = "orderType.name", target = "orderTypeName")
+    @Mapping(source = "orderType", target = "orderTypeName")
     @Mapping(source = "orderStatus.id", target = "orderStatusId")
-    @Mapping(source = "orderStatus.name", target = "orderStatusName")
+    @Mapping(source = "orderStatus", target = "orderStatusName")
     @Mapping(source = "product.id", target = "productId")
     @Mapping(source = "product.name", target = "productName")
     OrderDTO toDto(Order order); 
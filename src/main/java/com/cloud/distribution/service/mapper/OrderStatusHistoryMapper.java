@@ -8,17 +8,17 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity OrderStatusHistory and its DTO OrderStatusHistoryDTO.
  */
-@Mapper(componentModel = "spring", uses = {OperatorTypeMapper.class, OrderMapper.class, OrderStatusMapper.class})
+@Mapper(componentModel = "spring", uses = {OperatorTypeMapper.class, OrderMapper.class, OrderStatusMapper.class, LookupNameMapper.class})
 public interface OrderStatusHistoryMapper extends EntityMapper<OrderStatusHistoryDTO, OrderStatusHistory> {
 
     @Mapping(source = "operatorType.id", target = "operatorTypeId")
-    @Mapping(source = "operatorType.name", target = "operatorTypeName")
+    @Mapping(source = "operatorType", target = "operatorTypeName")
     @Mapping(source = "order.id", target = "orderId")
     @Mapping(source = "order.name", target = "orderName")
     @Mapping(source = "oldStatus.id", target = "oldStatusId")
-    @Mapping(source = "oldStatus.name", target = "oldStatusName")
+    @Mapping(source = "oldStatus", target = "oldStatusName")
     @Mapping(source = "newStatus.id", target = "newStatusId")
-    @Mapping(source = "newStatus.name", target = "newStatusName")
+    @Mapping(source = "newStatus", target = "newStatusName")
     OrderStatusHistoryDTO toDto(OrderStatusHistory orderStatusHistory); 
 
     @Mapping(source = "operatorTypeId", target = "operatorType")
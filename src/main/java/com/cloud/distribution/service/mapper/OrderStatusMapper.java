@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity OrderStatus and its DTO OrderStatusDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface OrderStatusMapper extends EntityMapper<OrderStatusDTO, OrderStatus> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     OrderStatusDTO toDto(OrderStatus orderStatus); 
 
     @Mapping(source = "statusId", target = "status")
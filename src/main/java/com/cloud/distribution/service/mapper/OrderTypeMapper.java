@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity OrderType and its DTO OrderTypeDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface OrderTypeMapper extends EntityMapper<OrderTypeDTO, OrderType> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     OrderTypeDTO toDto(OrderType orderType); 
 
     @Mapping(source = "statusId", target = "status")
@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity PayType and its DTO PayTypeDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface PayTypeMapper extends EntityMapper<PayTypeDTO, PayType> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     PayTypeDTO toDto(PayType payType); 
 
     @Mapping(source = "statusId", target = "status")
@@ -8,22 +8,30 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity Product and its DTO ProductDTO.
  */
-@Mapper(componentModel = "spring", uses = {CurrencyMapper.class, ProductStatusMapper.class, ProductTypeMapper.class})
+@Mapper(componentModel = "spring", uses = {CurrencyMapper.class, ProductStatusMapper.class, ProductTypeMapper.class, LookupNameMapper.class})
 public interface ProductMapper extends EntityMapper<ProductDTO, Product> {
 
     @Mapping(source = "currencyType.id", target = "currencyTypeId")
-    @Mapping(source = "currencyType.name", target = "currencyTypeName")
+    @Mapping(source = "currencyType", target = "currencyTypeName")
     @Mapping(source = "productStatus.id", target = "productStatusId")
-    @Mapping(source = "productStatus.name", target = "productStatusName")
+    @Mapping(source = "productStatus", target = "productStatusName")
     @Mapping(source = "productType.id", target = "productTypeId")
-    @Mapping(source = "productType.name", target = "productTypeName")
-    ProductDTO toDto(Product product); 
+    @Mapping(source = "productType", target = "productTypeName")
+    @Mapping(target = "remains", expression = "java(totalRemains(product))")
+    ProductDTO toDto(Product product);
 
     @Mapping(source = "currencyTypeId", target = "currencyType")
     @Mapping(source = "productStatusId", target = "productStatus")
     @Mapping(source = "productTypeId", target = "productType")
     Product toEntity(ProductDTO productDTO);
 
+    /**
+     * The remains of a product in sharded inventory mode are the sum of its stock shards.
+     */
+    default Long totalRemains(Product product) {
+        return product.getShardedRemains() != null ? product.getShardedRemains() : product.getRemains();
+    }
+
     default Product fromId(Long id) {
         if (id == null) {
             return null;
@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity ProductStatus and its DTO ProductStatusDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface ProductStatusMapper extends EntityMapper<ProductStatusDTO, ProductStatus> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     ProductStatusDTO toDto(ProductStatus productStatus); 
 
     @Mapping(source = "statusId", target = "status")
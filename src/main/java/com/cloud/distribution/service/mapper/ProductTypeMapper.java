@@ -8,11 +8,11 @@ import org.mapstruct.*;
 /**
  * Mapper for the entity ProductType and its DTO ProductTypeDTO.
  */
-@Mapper(componentModel = "spring", uses = {StatusMapper.class})
+@Mapper(componentModel = "spring", uses = {StatusMapper.class, LookupNameMapper.class})
 public interface ProductTypeMapper extends EntityMapper<ProductTypeDTO, ProductType> {
 
     @Mapping(source = "status.id", target = "statusId")
-    @Mapping(source = "status.name", target = "statusName")
+    @Mapping(source = "status", target = "statusName")
     ProductTypeDTO toDto(ProductType productType); 
 
     @Mapping(source = "statusId", target = "status")
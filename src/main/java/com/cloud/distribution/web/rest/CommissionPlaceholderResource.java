@@ -6,6 +6,7 @@ import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.CommissionPlaceholderDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.CommissionPlaceholderCriteria;
 import com.cloud.distribution.service.CommissionPlaceholderQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -94,12 +96,19 @@ public class CommissionPlaceholderResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of commissionPlaceholders in body
      */
     @GetMapping("/commission-placeholders")
     @Timed
-    public ResponseEntity<List<CommissionPlaceholderDTO>> getAllCommissionPlaceholders(CommissionPlaceholderCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CommissionPlaceholderDTO>> getAllCommissionPlaceholders(CommissionPlaceholderCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get CommissionPlaceholders by criteria: {}", criteria);
+        if (!count) {
+            Slice<CommissionPlaceholderDTO> slice = commissionPlaceholderQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/commission-placeholders");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<CommissionPlaceholderDTO> page = commissionPlaceholderQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/commission-placeholders");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -139,12 +148,21 @@ public class CommissionPlaceholderResource {
      *
      * @param query the query of the commissionPlaceholder search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/commission-placeholders")
     @Timed
-    public ResponseEntity<List<CommissionPlaceholderDTO>> searchCommissionPlaceholders(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<CommissionPlaceholderDTO>> searchCommissionPlaceholders(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of CommissionPlaceholders for query {}", query);
+        if (after != null) {
+            Slice<CommissionPlaceholderDTO> slice = commissionPlaceholderService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, CommissionPlaceholderDTO::getId), pageable.getPageSize(), "/api/_search/commission-placeholders");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<CommissionPlaceholderDTO> page = commissionPlaceholderService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/commission-placeholders");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
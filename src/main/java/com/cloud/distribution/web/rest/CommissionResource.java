@@ -0,0 +1,74 @@
+package com.cloud.distribution.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.security.AuthoritiesConstants;
+import com.cloud.distribution.service.CommissionBackfillJob;
+import com.cloud.distribution.service.CommissionService;
+import com.cloud.distribution.service.dto.CommissionDTO;
+import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * REST controller for the commission ledger.
+ */
+@RestController
+@RequestMapping("/api")
+public class CommissionResource {
+
+    private final Logger log = LoggerFactory.getLogger(CommissionResource.class);
+
+    private static final String ENTITY_NAME = "commission";
+
+    private final CommissionService commissionService;
+
+    private final CommissionBackfillJob commissionBackfillJob;
+
+    public CommissionResource(CommissionService commissionService, CommissionBackfillJob commissionBackfillJob) {
+        this.commissionService = commissionService;
+        this.commissionBackfillJob = commissionBackfillJob;
+    }
+
+    /**
+     * GET  /commissions : get the commissions paid for an order.
+     *
+     * @param orderId the id of the order
+     * @return the ResponseEntity with status 200 (OK) and the ledger rows of the order in body
+     */
+    @GetMapping("/commissions")
+    @Timed
+    public ResponseEntity<List<CommissionDTO>> getCommissions(@RequestParam("orderId") Long orderId) {
+        log.debug("REST request to get the Commissions of Order : {}", orderId);
+        return ResponseEntity.ok(commissionService.findByOrder(orderId));
+    }
+
+    /**
+     * POST  /commissions/_backfill : start computing the commissions of the orders completed over a range of days.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the ResponseEntity with status 202 (Accepted), with status 400 (Bad Request) if the range is not valid,
+     * or with status 409 (Conflict) if a back-fill is already running
+     */
+    @PostMapping("/commissions/_backfill")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public ResponseEntity<Void> backfillCommissions(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to back-fill the Commissions from {} to {}", from, to);
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("The back-fill range ends before it starts", ENTITY_NAME, "invalidrange");
+        }
+        commissionBackfillJob.start(from, to);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+    }
+}
@@ -6,6 +6,7 @@ import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.CurrencyDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.CurrencyCriteria;
 import com.cloud.distribution.service.CurrencyQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -94,12 +96,19 @@ public class CurrencyResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of currencies in body
      */
     @GetMapping("/currencies")
     @Timed
-    public ResponseEntity<List<CurrencyDTO>> getAllCurrencies(CurrencyCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<CurrencyDTO>> getAllCurrencies(CurrencyCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get Currencies by criteria: {}", criteria);
+        if (!count) {
+            Slice<CurrencyDTO> slice = currencyQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/currencies");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<CurrencyDTO> page = currencyQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/currencies");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -139,12 +148,21 @@ public class CurrencyResource {
      *
      * @param query the query of the currency search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/currencies")
     @Timed
-    public ResponseEntity<List<CurrencyDTO>> searchCurrencies(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<CurrencyDTO>> searchCurrencies(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of Currencies for query {}", query);
+        if (after != null) {
+            Slice<CurrencyDTO> slice = currencyService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, CurrencyDTO::getId), pageable.getPageSize(), "/api/_search/currencies");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<CurrencyDTO> page = currencyService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/currencies");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
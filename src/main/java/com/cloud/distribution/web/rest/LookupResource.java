@@ -0,0 +1,63 @@
+package com.cloud.distribution.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.service.LookupBundleService;
+import com.cloud.distribution.web.rest.util.ETagUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * REST controller serving all the lookups at once.
+ */
+@RestController
+@RequestMapping("/api")
+public class LookupResource {
+
+    private final Logger log = LoggerFactory.getLogger(LookupResource.class);
+
+    private final LookupBundleService lookupBundleService;
+
+    private final CacheControl cacheControl;
+
+    public LookupResource(LookupBundleService lookupBundleService, ApplicationProperties applicationProperties) {
+        this.lookupBundleService = lookupBundleService;
+        this.cacheControl = CacheControl.maxAge(applicationProperties.getLookups().getMaxAge(), TimeUnit.SECONDS)
+            .cachePublic();
+    }
+
+    /**
+     * GET  /_lookups : get all the lookups, by entity, as in "payTypes" or "currencies".
+     *
+     * @param ifNoneMatch the ETags of the bundles held by the client, if any
+     * @return the ResponseEntity with status 200 (OK) and the lookups in body, or with status 304 (Not Modified) if
+     * the client holds the current lookups
+     */
+    @GetMapping("/_lookups")
+    @Timed
+    public ResponseEntity<byte[]> getAllLookups(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        log.debug("REST request to get all the lookups");
+        LookupBundleService.Bundle bundle = lookupBundleService.getBundle();
+        String eTag = ETagUtil.createETag(bundle.getHash());
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(cacheControl)
+            .contentType(MediaType.APPLICATION_JSON_UTF8)
+            .body(bundle.getJson());
+    }
+}
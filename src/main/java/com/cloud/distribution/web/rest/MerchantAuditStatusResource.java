@@ -6,6 +6,7 @@ import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.MerchantAuditStatusDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.MerchantAuditStatusCriteria;
 import com.cloud.distribution.service.MerchantAuditStatusQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -94,12 +96,19 @@ public class MerchantAuditStatusResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of merchantAuditStatuses in body
      */
     @GetMapping("/merchant-audit-statuses")
     @Timed
-    public ResponseEntity<List<MerchantAuditStatusDTO>> getAllMerchantAuditStatuses(MerchantAuditStatusCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<MerchantAuditStatusDTO>> getAllMerchantAuditStatuses(MerchantAuditStatusCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get MerchantAuditStatuses by criteria: {}", criteria);
+        if (!count) {
+            Slice<MerchantAuditStatusDTO> slice = merchantAuditStatusQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/merchant-audit-statuses");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<MerchantAuditStatusDTO> page = merchantAuditStatusQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/merchant-audit-statuses");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -139,12 +148,21 @@ public class MerchantAuditStatusResource {
      *
      * @param query the query of the merchantAuditStatus search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/merchant-audit-statuses")
     @Timed
-    public ResponseEntity<List<MerchantAuditStatusDTO>> searchMerchantAuditStatuses(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<MerchantAuditStatusDTO>> searchMerchantAuditStatuses(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of MerchantAuditStatuses for query {}", query);
+        if (after != null) {
+            Slice<MerchantAuditStatusDTO> slice = merchantAuditStatusService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, MerchantAuditStatusDTO::getId), pageable.getPageSize(), "/api/_search/merchant-audit-statuses");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<MerchantAuditStatusDTO> page = merchantAuditStatusService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/merchant-audit-statuses");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
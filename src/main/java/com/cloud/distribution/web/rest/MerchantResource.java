@@ -1,11 +1,16 @@
 package com.cloud.distribution.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.service.DownlineSalesService;
+import com.cloud.distribution.service.MerchantHierarchyService;
 import com.cloud.distribution.service.MerchantService;
 import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
+import com.cloud.distribution.web.rest.util.ETagUtil;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
+import com.cloud.distribution.service.dto.DownlineStatsDTO;
 import com.cloud.distribution.service.dto.MerchantDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.MerchantCriteria;
 import com.cloud.distribution.service.MerchantQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -13,6 +18,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +27,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 
 import java.util.List;
 import java.util.Optional;
@@ -42,9 +50,16 @@ public class MerchantResource {
 
     private final MerchantQueryService merchantQueryService;
 
-    public MerchantResource(MerchantService merchantService, MerchantQueryService merchantQueryService) {
+    private final MerchantHierarchyService merchantHierarchyService;
+
+    private final DownlineSalesService downlineSalesService;
+
+    public MerchantResource(MerchantService merchantService, MerchantQueryService merchantQueryService,
+            MerchantHierarchyService merchantHierarchyService, DownlineSalesService downlineSalesService) {
         this.merchantService = merchantService;
         this.merchantQueryService = merchantQueryService;
+        this.merchantHierarchyService = merchantHierarchyService;
+        this.downlineSalesService = downlineSalesService;
     }
 
     /**
@@ -72,7 +87,7 @@ public class MerchantResource {
      *
      * @param merchantDTO the merchantDTO to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated merchantDTO,
-     * or with status 400 (Bad Request) if the merchantDTO is not valid,
+     * or with status 400 (Bad Request) if the merchantDTO is not valid or its parent is in its own subtree,
      * or with status 500 (Internal Server Error) if the merchantDTO couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
@@ -83,6 +98,9 @@ public class MerchantResource {
         if (merchantDTO.getId() == null) {
             return createMerchant(merchantDTO);
         }
+        if (merchantHierarchyService.isAncestorOrSelf(merchantDTO.getId(), merchantDTO.getParentId())) {
+            throw new BadRequestAlertException("A merchant cannot be moved under its own subtree", ENTITY_NAME, "parentcycle");
+        }
         MerchantDTO result = merchantService.save(merchantDTO);
         return ResponseEntity.ok()
             .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, merchantDTO.getId().toString()))
@@ -94,29 +112,103 @@ public class MerchantResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of merchants in body
      */
     @GetMapping("/merchants")
     @Timed
-    public ResponseEntity<List<MerchantDTO>> getAllMerchants(MerchantCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<MerchantDTO>> getAllMerchants(MerchantCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get Merchants by criteria: {}", criteria);
+        if (!count) {
+            Slice<MerchantDTO> slice = merchantQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/merchants");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<MerchantDTO> page = merchantQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/merchants");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /merchants/:id/descendants : get the downline of the "id" merchant, nearest first.
+     *
+     * @param id the id of the merchant
+     * @param maxDepth the maximum distance of the descendants, 1 for the children only
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of merchants in body
+     */
+    @GetMapping("/merchants/{id}/descendants")
+    @Timed
+    public ResponseEntity<List<MerchantDTO>> getMerchantDescendants(@PathVariable Long id,
+            @RequestParam(value = "maxDepth", defaultValue = "" + Integer.MAX_VALUE) int maxDepth, Pageable pageable) {
+        log.debug("REST request to get the descendants of Merchant : {}", id);
+        Page<MerchantDTO> page = merchantHierarchyService.findDescendants(id, maxDepth, pageable);
+        HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/merchants/" + id + "/descendants");
+        return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /merchants/:id/ancestors : get the upline of the "id" merchant, its parent first.
+     *
+     * @param id the id of the merchant
+     * @return the ResponseEntity with status 200 (OK) and the list of merchants in body
+     */
+    @GetMapping("/merchants/{id}/ancestors")
+    @Timed
+    public ResponseEntity<List<MerchantDTO>> getMerchantAncestors(@PathVariable Long id) {
+        log.debug("REST request to get the ancestors of Merchant : {}", id);
+        return ResponseEntity.ok(merchantHierarchyService.findAncestors(id));
+    }
+
+    /**
+     * GET  /merchants/:id/downline-stats : get the team sales of the "id" merchant over a range of days: the
+     * completed orders of the users of its whole subtree, itself included.
+     *
+     * @param id the id of the merchant
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @return the ResponseEntity with status 200 (OK) and the statistics in body,
+     * with status 400 (Bad Request) if the range is not valid, or with status 404 (Not Found)
+     */
+    @GetMapping("/merchants/{id}/downline-stats")
+    @Timed
+    public ResponseEntity<DownlineStatsDTO> getMerchantDownlineStats(@PathVariable Long id,
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.debug("REST request to get the downline stats of Merchant : {} from {} to {}", id, from, to);
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("The stats range ends before it starts", ENTITY_NAME, "invalidrange");
+        }
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(merchantService.findOne(id))
+            .map(merchant -> downlineSalesService.getStats(id, from, to)));
+    }
+
     /**
      * GET  /merchants/:id : get the "id" merchant.
+     * <p>
+     * The merchant is tagged with an ETag of its version, of the version of its parent, for the parent name, and of
+     * the lookups bundle, for the names of its lookups. The versions are read before the merchant, so that the ETag
+     * is never newer than the body. A request with a matching If-None-Match is answered from the versions alone,
+     * without loading the merchant.
      *
      * @param id the id of the merchantDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the merchantDTO, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETags of the merchants held by the client, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the merchantDTO, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @GetMapping("/merchants/{id}")
     @Timed
-    public ResponseEntity<MerchantDTO> getMerchant(@PathVariable Long id) {
+    public ResponseEntity<MerchantDTO> getMerchant(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Merchant : {}", id);
+        List<Object> versions = merchantService.findVersions(id);
+        String eTag = versions == null ? null : ETagUtil.createETag(id, versions);
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            return ETagUtil.notModified(eTag);
+        }
         MerchantDTO merchantDTO = merchantService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(merchantDTO));
+        return ETagUtil.wrapOrNotFound(Optional.ofNullable(merchantDTO), eTag);
     }
 
     /**
@@ -139,12 +231,21 @@ public class MerchantResource {
      *
      * @param query the query of the merchant search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/merchants")
     @Timed
-    public ResponseEntity<List<MerchantDTO>> searchMerchants(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<MerchantDTO>> searchMerchants(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of Merchants for query {}", query);
+        if (after != null) {
+            Slice<MerchantDTO> slice = merchantService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, MerchantDTO::getId), pageable.getPageSize(), "/api/_search/merchants");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<MerchantDTO> page = merchantService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/merchants");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
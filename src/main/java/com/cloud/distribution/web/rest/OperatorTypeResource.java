@@ -6,6 +6,7 @@ import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.OperatorTypeDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.OperatorTypeCriteria;
 import com.cloud.distribution.service.OperatorTypeQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
@@ -13,6 +14,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -94,12 +96,19 @@ public class OperatorTypeResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of operatorTypes in body
      */
     @GetMapping("/operator-types")
     @Timed
-    public ResponseEntity<List<OperatorTypeDTO>> getAllOperatorTypes(OperatorTypeCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<OperatorTypeDTO>> getAllOperatorTypes(OperatorTypeCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get OperatorTypes by criteria: {}", criteria);
+        if (!count) {
+            Slice<OperatorTypeDTO> slice = operatorTypeQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/operator-types");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OperatorTypeDTO> page = operatorTypeQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/operator-types");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -139,12 +148,21 @@ public class OperatorTypeResource {
      *
      * @param query the query of the operatorType search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/operator-types")
     @Timed
-    public ResponseEntity<List<OperatorTypeDTO>> searchOperatorTypes(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<OperatorTypeDTO>> searchOperatorTypes(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of OperatorTypes for query {}", query);
+        if (after != null) {
+            Slice<OperatorTypeDTO> slice = operatorTypeService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, OperatorTypeDTO::getId), pageable.getPageSize(), "/api/_search/operator-types");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OperatorTypeDTO> page = operatorTypeService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/operator-types");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
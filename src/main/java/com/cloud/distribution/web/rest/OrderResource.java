@@ -1,25 +1,40 @@
 package com.cloud.distribution.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.service.IdempotencyService;
+import com.cloud.distribution.service.OrderExportService;
+import com.cloud.distribution.repository.SalesDimension;
 import com.cloud.distribution.service.OrderService;
+import com.cloud.distribution.service.OrderTransitionService;
+import com.cloud.distribution.service.SalesRollupService;
 import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
+import com.cloud.distribution.web.rest.util.ETagUtil;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
+import com.cloud.distribution.service.dto.OrderStatsDTO;
+import com.cloud.distribution.service.dto.OrderTransitionDTO;
 import com.cloud.distribution.service.OrderQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.time.LocalDate;
 
 import java.util.List;
 import java.util.Optional;
@@ -38,32 +53,86 @@ public class OrderResource {
 
     private static final String ENTITY_NAME = "order";
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
 
     private final OrderQueryService orderQueryService;
 
-    public OrderResource(OrderService orderService, OrderQueryService orderQueryService) {
+    private final OrderExportService orderExportService;
+
+    private final SalesRollupService salesRollupService;
+
+    private final IdempotencyService idempotencyService;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final OrderTransitionService orderTransitionService;
+
+    public OrderResource(OrderService orderService, OrderQueryService orderQueryService, OrderExportService orderExportService,
+            SalesRollupService salesRollupService, IdempotencyService idempotencyService, ApplicationProperties applicationProperties,
+            OrderTransitionService orderTransitionService) {
         this.orderService = orderService;
         this.orderQueryService = orderQueryService;
+        this.orderExportService = orderExportService;
+        this.salesRollupService = salesRollupService;
+        this.idempotencyService = idempotencyService;
+        this.applicationProperties = applicationProperties;
+        this.orderTransitionService = orderTransitionService;
     }
 
     /**
      * POST  /orders : Create a new order.
      *
      * @param orderDTO the orderDTO to create
-     * @return the ResponseEntity with status 201 (Created) and with body the new orderDTO, or with status 400 (Bad Request) if the order has already an ID
+     * @param idempotencyKey the key identifying the retries of the request, optional
+     * @return the ResponseEntity with status 201 (Created) and with body the new orderDTO, or with status 400 (Bad Request) if the order has already an ID,
+     * or with status 409 (Conflict) if a request with the same idempotency key is in progress,
+     * or with status 422 (Unprocessable Entity) if the idempotency key was used with another order
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PostMapping("/orders")
     @Timed
-    public ResponseEntity<OrderDTO> createOrder(@RequestBody OrderDTO orderDTO) throws URISyntaxException {
+    public ResponseEntity<OrderDTO> createOrder(@RequestBody OrderDTO orderDTO,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws URISyntaxException {
         log.debug("REST request to save Order : {}", orderDTO);
         if (orderDTO.getId() != null) {
             throw new BadRequestAlertException("A new order cannot already have an ID", ENTITY_NAME, "idexists");
         }
-        OrderDTO result = orderService.save(orderDTO);
-        return ResponseEntity.created(new URI("/api/orders/" + result.getId()))
-            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getId().toString()))
+        IdempotencyService.Result<OrderDTO> result =
+            idempotencyService.execute("createOrder", idempotencyKey, orderDTO, () -> orderService.save(orderDTO));
+        return ResponseEntity.created(new URI("/api/orders/" + result.getValue().getId()))
+            .headers(idempotentHeaders(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, result.getValue().getId().toString()), result))
+            .body(result.getValue());
+    }
+
+    /**
+     * POST  /orders/_bulk : Create a batch of new orders.
+     * <p>
+     * The batch is all-or-nothing: its orders are created in a single transaction, and none of them is created if
+     * the request fails, so that it can be retried as is. Clients with more orders than application.bulk.max-size,
+     * or wanting shorter transactions, send several smaller batches.
+     *
+     * @param orderDTOs the orderDTOs to create
+     * @return the ResponseEntity with status 201 (Created) and with body the new orderDTOs,
+     * or with status 400 (Bad Request) if the batch is too large or one of the orders has already an ID
+     */
+    @PostMapping("/orders/_bulk")
+    @Timed
+    public ResponseEntity<List<OrderDTO>> createOrders(@RequestBody List<OrderDTO> orderDTOs) {
+        log.debug("REST request to save {} Orders in bulk", orderDTOs.size());
+        if (orderDTOs.size() > applicationProperties.getBulk().getMaxSize()) {
+            throw new BadRequestAlertException("A bulk request cannot contain more than " +
+                applicationProperties.getBulk().getMaxSize() + " orders", ENTITY_NAME, "bulktoolarge");
+        }
+        if (orderDTOs.stream().anyMatch(orderDTO -> orderDTO.getId() != null)) {
+            throw new BadRequestAlertException("A new order cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        List<OrderDTO> result = orderService.saveAll(orderDTOs);
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, String.valueOf(result.size())))
             .body(result);
     }
 
@@ -73,20 +142,57 @@ public class OrderResource {
      * @param orderDTO the orderDTO to update
      * @return the ResponseEntity with status 200 (OK) and with body the updated orderDTO,
      * or with status 400 (Bad Request) if the orderDTO is not valid,
+     * or with status 409 (Conflict) if a request with the same idempotency key is in progress,
+     * or with status 422 (Unprocessable Entity) if the idempotency key was used with another order,
      * or with status 500 (Internal Server Error) if the orderDTO couldn't be updated
      * @throws URISyntaxException if the Location URI syntax is incorrect
      */
     @PutMapping("/orders")
     @Timed
-    public ResponseEntity<OrderDTO> updateOrder(@RequestBody OrderDTO orderDTO) throws URISyntaxException {
+    public ResponseEntity<OrderDTO> updateOrder(@RequestBody OrderDTO orderDTO,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) throws URISyntaxException {
         log.debug("REST request to update Order : {}", orderDTO);
         if (orderDTO.getId() == null) {
-            return createOrder(orderDTO);
+            return createOrder(orderDTO, idempotencyKey);
         }
-        OrderDTO result = orderService.save(orderDTO);
+        IdempotencyService.Result<OrderDTO> result =
+            idempotencyService.execute("updateOrder", idempotencyKey, orderDTO, () -> orderService.save(orderDTO));
         return ResponseEntity.ok()
-            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, orderDTO.getId().toString()))
-            .body(result);
+            .headers(idempotentHeaders(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, orderDTO.getId().toString()), result))
+            .body(result.getValue());
+    }
+
+    /**
+     * POST  /orders/:id/transition : move the "id" order to a new status, if it is still in the expected one.
+     *
+     * @param id the id of the order
+     * @param transitionDTO the expected status, the new status and the operator
+     * @return the ResponseEntity with status 200 (OK) and with body the updated orderDTO,
+     * or with status 400 (Bad Request) if the transition is not allowed,
+     * or with status 404 (Not Found) if there is no such order,
+     * or with status 409 (Conflict) if the order is no longer in the expected status
+     */
+    @PostMapping("/orders/{id}/transition")
+    @Timed
+    public ResponseEntity<OrderDTO> transitionOrder(@PathVariable Long id, @RequestBody OrderTransitionDTO transitionDTO) {
+        log.debug("REST request to transition Order {} : {}", id, transitionDTO);
+        if (transitionDTO.getFromStatusId() == null || transitionDTO.getToStatusId() == null) {
+            throw new BadRequestAlertException("A transition needs the current and the new status", ENTITY_NAME, "statusnull");
+        }
+        if (!orderTransitionService.isAllowed(transitionDTO.getFromStatusId(), transitionDTO.getToStatusId())) {
+            throw new BadRequestAlertException("No transition from the status " + transitionDTO.getFromStatusId() +
+                " to " + transitionDTO.getToStatusId(), ENTITY_NAME, "invalidtransition");
+        }
+        OrderDTO result = orderTransitionService.transition(id, transitionDTO);
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(result),
+            HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()));
+    }
+
+    private HttpHeaders idempotentHeaders(HttpHeaders headers, IdempotencyService.Result<?> result) {
+        if (result.isReplayed()) {
+            headers.add(IDEMPOTENT_REPLAYED_HEADER, "true");
+        }
+        return headers;
     }
 
     /**
@@ -94,29 +200,112 @@ public class OrderResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
-     * @return the ResponseEntity with status 200 (OK) and the list of orders in body
+     * @param after the cursor returned in the "next" link of the previous page, empty for the first page;
+     * when present, the page is sought by keyset without count query and the sort of pageable is ignored
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
+     * @return the ResponseEntity with status 200 (OK) and the list of orders in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/orders")
     @Timed
-    public ResponseEntity<List<OrderDTO>> getAllOrders(OrderCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<OrderDTO>> getAllOrders(OrderCriteria criteria, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get Orders by criteria: {}", criteria);
+        if (after != null) {
+            Slice<OrderDTO> slice = orderQueryService.findByCriteria(criteria, decodeCursor(after), pageable.getPageSize());
+            KeysetCursor next = orderQueryService.nextCursor(slice);
+            HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+                next == null ? null : next.encode(), pageable.getPageSize(), "/api/orders");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+        if (!count) {
+            Slice<OrderDTO> slice = orderQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/orders");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OrderDTO> page = orderQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/orders");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /orders/_export : export all the orders, as a stream.
+     *
+     * @param criteria the criterias which the exported entities should match
+     * @param format the export format, csv or ndjson
+     * @return the ResponseEntity with status 200 (OK) and the orders streamed in body,
+     * or with status 400 (Bad Request) if the format is not supported
+     */
+    @GetMapping("/orders/_export")
+    @Timed
+    public ResponseEntity<StreamingResponseBody> exportOrders(OrderCriteria criteria,
+            @RequestParam(value = "format", defaultValue = "csv") String format) {
+        log.debug("REST request to export Orders as {} by criteria: {}", format, criteria);
+        OrderExportService.Format exportFormat = OrderExportService.Format.fromName(format);
+        if (exportFormat == null) {
+            throw new BadRequestAlertException("Unsupported export format " + format, ENTITY_NAME, "unsupportedformat");
+        }
+        StreamingResponseBody body = outputStream -> orderExportService.export(criteria, exportFormat, outputStream);
+        return ResponseEntity.ok()
+            .contentType(exportFormat.getMediaType())
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders." + exportFormat.getExtension() + "\"")
+            .body(body);
+    }
+
+    /**
+     * GET  /orders/_stats : get the order count and amount sum over a range of days, from the sales rollups.
+     *
+     * @param from the first day, inclusive
+     * @param to the last day, inclusive
+     * @param groupBy the dimension to group the statistics by: product, orderType or payType
+     * @return the ResponseEntity with status 200 (OK) and the statistics in body,
+     * or with status 400 (Bad Request) if the range or the dimension is not valid
+     */
+    @GetMapping("/orders/_stats")
+    @Timed
+    public ResponseEntity<OrderStatsDTO> getOrderStats(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(value = "groupBy", required = false) String groupBy) {
+        log.debug("REST request to get Order stats from {} to {} by {}", from, to, groupBy);
+        if (from.isAfter(to)) {
+            throw new BadRequestAlertException("The stats range ends before it starts", ENTITY_NAME, "invalidrange");
+        }
+        SalesDimension dimension = null;
+        if (groupBy != null) {
+            dimension = SalesDimension.fromParameter(groupBy).orElseThrow(() ->
+                new BadRequestAlertException("Unsupported stats dimension " + groupBy, ENTITY_NAME, "unsupporteddimension"));
+        }
+        return ResponseEntity.ok(salesRollupService.getStats(from, to, dimension));
+    }
+
     /**
      * GET  /orders/:id : get the "id" order.
+     * <p>
+     * The order is tagged with an ETag of its version, of the version of its product, for the product name, and of
+     * the lookups bundle, for the names of its lookups. The versions are read before the order, so that the ETag is
+     * never newer than the body. A request with a matching If-None-Match is answered from the versions alone,
+     * without loading the order.
      *
      * @param id the id of the orderDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the orderDTO, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETags of the orders held by the client, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the orderDTO, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @GetMapping("/orders/{id}")
     @Timed
-    public ResponseEntity<OrderDTO> getOrder(@PathVariable Long id) {
+    public ResponseEntity<OrderDTO> getOrder(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Order : {}", id);
+        // The archived orders have no versions, and are left untagged
+        List<Object> versions = orderService.findVersions(id);
+        String eTag = versions == null ? null : ETagUtil.createETag(id, versions);
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            return ETagUtil.notModified(eTag);
+        }
         OrderDTO orderDTO = orderService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(orderDTO));
+        return ETagUtil.wrapOrNotFound(Optional.ofNullable(orderDTO), eTag);
     }
 
     /**
@@ -139,15 +328,34 @@ public class OrderResource {
      *
      * @param query the query of the order search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/orders")
     @Timed
-    public ResponseEntity<List<OrderDTO>> searchOrders(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<OrderDTO>> searchOrders(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of Orders for query {}", query);
+        if (after != null) {
+            Slice<OrderDTO> slice = orderService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, OrderDTO::getId), pageable.getPageSize(), "/api/_search/orders");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OrderDTO> page = orderService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/orders");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    private KeysetCursor decodeCursor(String after) {
+        if (after.isEmpty()) {
+            return null;
+        }
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid pagination cursor", ENTITY_NAME, "invalidcursor");
+        }
+    }
 }
@@ -2,17 +2,21 @@ package com.cloud.distribution.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
 import com.cloud.distribution.service.OrderStatusHistoryService;
+import com.cloud.distribution.service.OrderStatusHistoryWriter;
 import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.OrderStatusHistoryCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
 import com.cloud.distribution.service.OrderStatusHistoryQueryService;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,9 +46,13 @@ public class OrderStatusHistoryResource {
 
     private final OrderStatusHistoryQueryService orderStatusHistoryQueryService;
 
-    public OrderStatusHistoryResource(OrderStatusHistoryService orderStatusHistoryService, OrderStatusHistoryQueryService orderStatusHistoryQueryService) {
+    private final OrderStatusHistoryWriter orderStatusHistoryWriter;
+
+    public OrderStatusHistoryResource(OrderStatusHistoryService orderStatusHistoryService, OrderStatusHistoryQueryService orderStatusHistoryQueryService,
+            OrderStatusHistoryWriter orderStatusHistoryWriter) {
         this.orderStatusHistoryService = orderStatusHistoryService;
         this.orderStatusHistoryQueryService = orderStatusHistoryQueryService;
+        this.orderStatusHistoryWriter = orderStatusHistoryWriter;
     }
 
     /**
@@ -67,6 +75,29 @@ public class OrderStatusHistoryResource {
             .body(result);
     }
 
+    /**
+     * POST  /order-status-histories/_append : Append a new orderStatusHistory to the journal, to be written in the
+     * background.
+     *
+     * @param orderStatusHistoryDTO the orderStatusHistoryDTO to append
+     * @return the ResponseEntity with status 202 (Accepted) and with body the orderStatusHistoryDTO, without id,
+     * with status 201 (Created) and with body the new orderStatusHistoryDTO if it was written synchronously as the
+     * journal is full or disabled, or with status 400 (Bad Request) if the orderStatusHistory has already an ID
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping("/order-status-histories/_append")
+    @Timed
+    public ResponseEntity<OrderStatusHistoryDTO> appendOrderStatusHistory(@RequestBody OrderStatusHistoryDTO orderStatusHistoryDTO) throws URISyntaxException {
+        log.debug("REST request to append OrderStatusHistory : {}", orderStatusHistoryDTO);
+        if (orderStatusHistoryDTO.getId() != null) {
+            throw new BadRequestAlertException("A new orderStatusHistory cannot already have an ID", ENTITY_NAME, "idexists");
+        }
+        if (orderStatusHistoryWriter.append(orderStatusHistoryDTO)) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(orderStatusHistoryDTO);
+        }
+        return createOrderStatusHistory(orderStatusHistoryDTO);
+    }
+
     /**
      * PUT  /order-status-histories : Updates an existing orderStatusHistory.
      *
@@ -94,12 +125,30 @@ public class OrderStatusHistoryResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
-     * @return the ResponseEntity with status 200 (OK) and the list of orderStatusHistories in body
+     * @param after the cursor returned in the "next" link of the previous page, empty for the first page;
+     * when present, the page is sought by keyset without count query and the sort of pageable is ignored
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
+     * @return the ResponseEntity with status 200 (OK) and the list of orderStatusHistories in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/order-status-histories")
     @Timed
-    public ResponseEntity<List<OrderStatusHistoryDTO>> getAllOrderStatusHistories(OrderStatusHistoryCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<OrderStatusHistoryDTO>> getAllOrderStatusHistories(OrderStatusHistoryCriteria criteria, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get OrderStatusHistories by criteria: {}", criteria);
+        if (after != null) {
+            Slice<OrderStatusHistoryDTO> slice = orderStatusHistoryQueryService.findByCriteria(criteria, decodeCursor(after), pageable.getPageSize());
+            KeysetCursor next = orderStatusHistoryQueryService.nextCursor(slice);
+            HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders(
+                next == null ? null : next.encode(), pageable.getPageSize(), "/api/order-status-histories");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+        if (!count) {
+            Slice<OrderStatusHistoryDTO> slice = orderStatusHistoryQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/order-status-histories");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OrderStatusHistoryDTO> page = orderStatusHistoryQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/order-status-histories");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -139,15 +188,34 @@ public class OrderStatusHistoryResource {
      *
      * @param query the query of the orderStatusHistory search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/order-status-histories")
     @Timed
-    public ResponseEntity<List<OrderStatusHistoryDTO>> searchOrderStatusHistories(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<OrderStatusHistoryDTO>> searchOrderStatusHistories(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of OrderStatusHistories for query {}", query);
+        if (after != null) {
+            Slice<OrderStatusHistoryDTO> slice = orderStatusHistoryService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, OrderStatusHistoryDTO::getId), pageable.getPageSize(), "/api/_search/order-status-histories");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<OrderStatusHistoryDTO> page = orderStatusHistoryService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/order-status-histories");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    private KeysetCursor decodeCursor(String after) {
+        if (after.isEmpty()) {
+            return null;
+        }
+        try {
+            return KeysetCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid pagination cursor", ENTITY_NAME, "invalidcursor");
+        }
+    }
 }
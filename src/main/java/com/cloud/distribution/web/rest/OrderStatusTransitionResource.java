@@ -0,0 +1,97 @@
+package com.cloud.distribution.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.security.AuthoritiesConstants;
+import com.cloud.distribution.service.OrderStatusService;
+import com.cloud.distribution.service.OrderTransitionService;
+import com.cloud.distribution.service.dto.OrderTransitionDTO;
+import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
+import com.cloud.distribution.web.rest.util.HeaderUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST controller for the allowed order status transitions.
+ */
+@RestController
+@RequestMapping("/api")
+public class OrderStatusTransitionResource {
+
+    private final Logger log = LoggerFactory.getLogger(OrderStatusTransitionResource.class);
+
+    private static final String ENTITY_NAME = "orderStatusTransition";
+
+    private final OrderTransitionService orderTransitionService;
+
+    private final OrderStatusService orderStatusService;
+
+    public OrderStatusTransitionResource(OrderTransitionService orderTransitionService,
+            OrderStatusService orderStatusService) {
+        this.orderTransitionService = orderTransitionService;
+        this.orderStatusService = orderStatusService;
+    }
+
+    /**
+     * GET  /order-status-transitions : get all the allowed transitions.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the transitions in body
+     */
+    @GetMapping("/order-status-transitions")
+    @Timed
+    public ResponseEntity<List<OrderTransitionDTO>> getAllOrderStatusTransitions() {
+        log.debug("REST request to get all the OrderStatusTransitions");
+        return ResponseEntity.ok(orderTransitionService.findAll());
+    }
+
+    /**
+     * POST  /order-status-transitions : allow the orders to move from a status to another one.
+     *
+     * @param transitionDTO the status from and the status to
+     * @return the ResponseEntity with status 200 (OK) and with body the transition,
+     * or with status 400 (Bad Request) if a status is missing or does not exist
+     */
+    @PostMapping("/order-status-transitions")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public ResponseEntity<OrderTransitionDTO> allowOrderStatusTransition(@RequestBody OrderTransitionDTO transitionDTO) {
+        log.debug("REST request to allow the OrderStatusTransition : {}", transitionDTO);
+        Long fromStatusId = transitionDTO.getFromStatusId();
+        Long toStatusId = transitionDTO.getToStatusId();
+        if (fromStatusId == null || toStatusId == null) {
+            throw new BadRequestAlertException("A transition needs the status from and the status to", ENTITY_NAME, "statusnull");
+        }
+        if (orderStatusService.findOne(fromStatusId) == null || orderStatusService.findOne(toStatusId) == null) {
+            throw new BadRequestAlertException("No such order status", ENTITY_NAME, "statusnotfound");
+        }
+        orderTransitionService.allow(fromStatusId, toStatusId);
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityCreationAlert(ENTITY_NAME, fromStatusId + "-" + toStatusId))
+            .body(transitionDTO);
+    }
+
+    /**
+     * DELETE  /order-status-transitions : forbid the orders to move from a status to another one.
+     *
+     * @param fromStatusId the id of the status from
+     * @param toStatusId the id of the status to
+     * @return the ResponseEntity with status 200 (OK), or with status 404 (Not Found) if the transition is not allowed
+     */
+    @DeleteMapping("/order-status-transitions")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public ResponseEntity<Void> forbidOrderStatusTransition(@RequestParam("fromStatusId") Long fromStatusId,
+            @RequestParam("toStatusId") Long toStatusId) {
+        log.debug("REST request to forbid the OrderStatusTransition from {} to {}", fromStatusId, toStatusId);
+        if (!orderTransitionService.forbid(fromStatusId, toStatusId)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityDeletionAlert(ENTITY_NAME, fromStatusId + "-" + toStatusId))
+            .build();
+    }
+}
@@ -1,18 +1,23 @@
 package com.cloud.distribution.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.config.ApplicationProperties;
 import com.cloud.distribution.service.ProductService;
+import com.cloud.distribution.service.ProductStockService;
 import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
+import com.cloud.distribution.web.rest.util.ETagUtil;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.ProductDTO;
+import com.cloud.distribution.service.dto.SearchCursor;
 import com.cloud.distribution.service.dto.ProductCriteria;
+import com.cloud.distribution.service.dto.StockReservationDTO;
 import com.cloud.distribution.service.ProductQueryService;
-import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -42,9 +47,16 @@ public class ProductResource {
 
     private final ProductQueryService productQueryService;
 
-    public ProductResource(ProductService productService, ProductQueryService productQueryService) {
+    private final ProductStockService productStockService;
+
+    private final ApplicationProperties applicationProperties;
+
+    public ProductResource(ProductService productService, ProductQueryService productQueryService,
+            ProductStockService productStockService, ApplicationProperties applicationProperties) {
         this.productService = productService;
         this.productQueryService = productQueryService;
+        this.productStockService = productStockService;
+        this.applicationProperties = applicationProperties;
     }
 
     /**
@@ -94,29 +106,125 @@ public class ProductResource {
      *
      * @param pageable the pagination information
      * @param criteria the criterias which the requested entities should match
+     * @param count false to skip the count query: only the next and previous pages are linked, without X-Total-Count
      * @return the ResponseEntity with status 200 (OK) and the list of products in body
      */
     @GetMapping("/products")
     @Timed
-    public ResponseEntity<List<ProductDTO>> getAllProducts(ProductCriteria criteria, Pageable pageable) {
+    public ResponseEntity<List<ProductDTO>> getAllProducts(ProductCriteria criteria, Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "true") boolean count) {
         log.debug("REST request to get Products by criteria: {}", criteria);
+        if (!count) {
+            Slice<ProductDTO> slice = productQueryService.findSliceByCriteria(criteria, pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/products");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<ProductDTO> page = productQueryService.findByCriteria(criteria, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/products");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * POST  /products/:id/reserve : reserve a quantity of the "id" product.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to reserve
+     * @return the ResponseEntity with status 200 (OK) and the outcome in body,
+     * or with status 409 (Conflict) and the outcome in body if the remains are not sufficient,
+     * or with status 400 (Bad Request) if the quantity is not positive, or with status 404 (Not Found)
+     */
+    @PostMapping("/products/{id}/reserve")
+    @Timed
+    public ResponseEntity<StockReservationDTO> reserveProduct(@PathVariable Long id,
+            @RequestParam(value = "quantity", defaultValue = "1") long quantity) {
+        log.debug("REST request to reserve {} of Product : {}", quantity, id);
+        checkQuantity(quantity);
+        return stockResponse(productStockService.reserve(id, quantity));
+    }
+
+    /**
+     * POST  /products/:id/release : release a quantity of the "id" product.
+     *
+     * @param id the id of the product
+     * @param quantity the quantity to release
+     * @return the ResponseEntity with status 200 (OK) and the outcome in body,
+     * or with status 400 (Bad Request) if the quantity is not positive, or with status 404 (Not Found)
+     */
+    @PostMapping("/products/{id}/release")
+    @Timed
+    public ResponseEntity<StockReservationDTO> releaseProduct(@PathVariable Long id,
+            @RequestParam(value = "quantity", defaultValue = "1") long quantity) {
+        log.debug("REST request to release {} of Product : {}", quantity, id);
+        checkQuantity(quantity);
+        return stockResponse(productStockService.release(id, quantity));
+    }
+
+    /**
+     * POST  /products/:id/shards : split the stock of the "id" product across several rows, for hot products.
+     *
+     * @param id the id of the product
+     * @param count the number of shards, 0 to merge the stock back into the product
+     * @return the ResponseEntity with status 200 (OK) and with body the productDTO,
+     * or with status 400 (Bad Request) if the count is not valid, or with status 404 (Not Found)
+     */
+    @PostMapping("/products/{id}/shards")
+    @Timed
+    public ResponseEntity<ProductDTO> shardProduct(@PathVariable Long id, @RequestParam("count") int count) {
+        log.debug("REST request to split the stock of Product : {} in {} shards", id, count);
+        if (applicationProperties.getInventory().getMode() == ApplicationProperties.Inventory.Mode.HAZELCAST) {
+            throw new BadRequestAlertException("The stock of the products is held by Hazelcast, it cannot be sharded",
+                ENTITY_NAME, "shardingunsupported");
+        }
+        if (count < 0 || count > applicationProperties.getInventory().getMaxShards()) {
+            throw new BadRequestAlertException("The number of shards must be between 0 and " +
+                applicationProperties.getInventory().getMaxShards(), ENTITY_NAME, "invalidshardcount");
+        }
+        if (!productStockService.shard(id, count)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+            .headers(HeaderUtil.createEntityUpdateAlert(ENTITY_NAME, id.toString()))
+            .body(productService.findOne(id));
+    }
+
+    private void checkQuantity(long quantity) {
+        if (quantity <= 0) {
+            throw new BadRequestAlertException("The quantity must be positive", ENTITY_NAME, "invalidquantity");
+        }
+    }
+
+    private ResponseEntity<StockReservationDTO> stockResponse(StockReservationDTO outcome) {
+        if (outcome == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.status(outcome.isSuccess() ? HttpStatus.OK : HttpStatus.CONFLICT).body(outcome);
+    }
+
     /**
      * GET  /products/:id : get the "id" product.
+     * <p>
+     * The product is tagged with an ETag of its version, of its remains, which the inventory changes without
+     * changing the version, and of the lookups bundle, for the names of its lookups. The versions are read before the
+     * product, so that the ETag is never newer than the body. A request with a matching If-None-Match is answered
+     * from the versions alone, without loading the product.
      *
      * @param id the id of the productDTO to retrieve
-     * @return the ResponseEntity with status 200 (OK) and with body the productDTO, or with status 404 (Not Found)
+     * @param ifNoneMatch the ETags of the products held by the client, if any
+     * @return the ResponseEntity with status 200 (OK) and with body the productDTO, or with status 304 (Not Modified),
+     * or with status 404 (Not Found)
      */
     @GetMapping("/products/{id}")
     @Timed
-    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id) {
+    public ResponseEntity<ProductDTO> getProduct(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.debug("REST request to get Product : {}", id);
+        List<Object> versions = productService.findVersions(id);
+        String eTag = versions == null ? null : ETagUtil.createETag(id, versions);
+        if (ETagUtil.matches(ifNoneMatch, eTag)) {
+            return ETagUtil.notModified(eTag);
+        }
         ProductDTO productDTO = productService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(productDTO));
+        return ETagUtil.wrapOrNotFound(Optional.ofNullable(productDTO), eTag);
     }
 
     /**
@@ -139,12 +247,21 @@ public class ProductResource {
      *
      * @param query the query of the product search
      * @param pageable the pagination information
-     * @return the result of the search
+     * @param after the cursor returned in the X-Next-Cursor header of the previous slice, empty for the first slice;
+     * when present, the results are sorted by id and read by cursor, without count, at a constant cost per slice
+     * @return the result of the search, or with status 400 (Bad Request) if the cursor is not valid
      */
     @GetMapping("/_search/products")
     @Timed
-    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String query, Pageable pageable) {
+    public ResponseEntity<List<ProductDTO>> searchProducts(@RequestParam String query, Pageable pageable,
+            @RequestParam(value = "after", required = false) String after) {
         log.debug("REST request to search for a page of Products for query {}", query);
+        if (after != null) {
+            Slice<ProductDTO> slice = productService.search(query, PaginationUtil.decodeSearchCursor(after, ENTITY_NAME), pageable.getPageSize());
+            HttpHeaders headers = PaginationUtil.generateSearchKeysetPaginationHttpHeaders(query,
+                SearchCursor.next(slice, ProductDTO::getId), pageable.getPageSize(), "/api/_search/products");
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<ProductDTO> page = productService.search(query, pageable);
         HttpHeaders headers = PaginationUtil.generateSearchPaginationHttpHeaders(query, page, "/api/_search/products");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
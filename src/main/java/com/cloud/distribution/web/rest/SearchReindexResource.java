@@ -0,0 +1,101 @@
+package com.cloud.distribution.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.cloud.distribution.repository.search.SearchRepositoryRegistry;
+import com.cloud.distribution.security.AuthoritiesConstants;
+import com.cloud.distribution.service.SearchReindexJob;
+import com.cloud.distribution.service.dto.ReindexStatusDTO;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.annotation.Secured;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Controller for reindexing the entities into Elasticsearch.
+ */
+@RestController
+@RequestMapping("/management")
+public class SearchReindexResource {
+
+    private final Logger log = LoggerFactory.getLogger(SearchReindexResource.class);
+
+    private final SearchRepositoryRegistry searchRepositoryRegistry;
+
+    private final SearchReindexJob searchReindexJob;
+
+    public SearchReindexResource(SearchRepositoryRegistry searchRepositoryRegistry, SearchReindexJob searchReindexJob) {
+        this.searchRepositoryRegistry = searchRepositoryRegistry;
+        this.searchReindexJob = searchReindexJob;
+    }
+
+    /**
+     * POST  /reindex/:entity : start reindexing an entity, from the checkpoint of its last job if it did not finish.
+     *
+     * @param entity the name of the entity, as in "order" or "orderStatus"
+     * @param restart true to reindex all the entities, ignoring the checkpoint
+     * @param recreate true to recreate the index and its mapping first
+     * @return the ResponseEntity with status 202 (Accepted) and the status of the job in body, with status 404
+     * (Not Found) if the entity is not indexed, or with status 409 (Conflict) if it is already being reindexed
+     */
+    @PostMapping("/reindex/{entity}")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public ResponseEntity<ReindexStatusDTO> reindex(@PathVariable String entity,
+            @RequestParam(value = "restart", defaultValue = "false") boolean restart,
+            @RequestParam(value = "recreate", defaultValue = "false") boolean recreate) {
+        log.debug("REST request to reindex {}, restart: {}, recreate: {}", entity, restart, recreate);
+        Optional<Class<?>> entityClass = findEntityClass(entity);
+        if (!entityClass.isPresent()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+            .body(searchReindexJob.start(entityClass.get(), restart, recreate));
+    }
+
+    /**
+     * GET  /reindex : get the status of the running or last reindex job of every entity.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of statuses in body
+     */
+    @GetMapping("/reindex")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public List<ReindexStatusDTO> getAllReindexStatuses() {
+        log.debug("REST request to get all the reindex statuses");
+        return searchRepositoryRegistry.getEntityNames().stream()
+            .map(searchReindexJob::getStatus)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * GET  /reindex/:entity : get the status of the running or last reindex job of an entity.
+     *
+     * @param entity the name of the entity
+     * @return the ResponseEntity with status 200 (OK) and the status in body, or with status 404 (Not Found) if the
+     * entity is not indexed or was not reindexed since the start
+     */
+    @GetMapping("/reindex/{entity}")
+    @Timed
+    @Secured(AuthoritiesConstants.ADMIN)
+    public ResponseEntity<ReindexStatusDTO> getReindexStatus(@PathVariable String entity) {
+        log.debug("REST request to get the reindex status of {}", entity);
+        return ResponseUtil.wrapOrNotFound(findEntityClass(entity)
+            .map(entityClass -> searchReindexJob.getStatus(entityClass.getSimpleName())));
+    }
+
+    private Optional<Class<?>> findEntityClass(String entity) {
+        return searchRepositoryRegistry.getEntityNames().stream()
+            .filter(entityName -> entityName.equalsIgnoreCase(entity))
+            .findFirst()
+            .map(searchRepositoryRegistry::getEntityClass);
+    }
+}
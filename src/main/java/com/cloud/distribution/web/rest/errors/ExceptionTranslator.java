@@ -1,5 +1,6 @@
 package com.cloud.distribution.web.rest.errors;
 
+import com.cloud.distribution.service.IdempotencyKeyReusedException;
 import com.cloud.distribution.web.rest.util.HeaderUtil;
 
 import org.springframework.dao.ConcurrencyFailureException;
@@ -95,4 +96,13 @@ public class ExceptionTranslator implements ProblemHandling {
             .build();
         return create(ex, problem, request);
     }
+
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<Problem> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex, NativeWebRequest request) {
+        Problem problem = Problem.builder()
+            .withStatus(Status.UNPROCESSABLE_ENTITY)
+            .with("message", ErrorConstants.ERR_IDEMPOTENCY_KEY_REUSED)
+            .build();
+        return create(ex, problem, request);
+    }
 }
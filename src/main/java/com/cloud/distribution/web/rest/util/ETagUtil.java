@@ -0,0 +1,95 @@
+package com.cloud.distribution.web.rest.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Utility class for ETags and conditional requests.
+ * <p>
+ * The ETags are derived from the identity and the version of the representations, not from their bodies, so that
+ * a conditional request is answered without loading nor serializing anything. A representation showing the names of
+ * the entities it references depends on their versions too, which are part of its ETag: the version of a referenced
+ * entity, and the hash of the lookups bundle for the names of the lookups. The lookups bundle itself is held
+ * serialized, and tagged with the hash of its body, computed once when it is built.
+ */
+public final class ETagUtil {
+
+    private ETagUtil() {
+    }
+
+    /**
+     * Create a strong ETag from the parts identifying a version of a representation.
+     *
+     * @param parts the parts, as the id and the version of an entity
+     * @return the quoted ETag
+     */
+    public static String createETag(Object... parts) {
+        return Arrays.stream(parts).map(String::valueOf).collect(Collectors.joining("-", "\"", "\""));
+    }
+
+    /**
+     * Create a strong ETag for an entity from its id and the versions its representation depends on.
+     *
+     * @param id the id of the entity
+     * @param versions the versions, as the version of the entity and those of the entities it references
+     * @return the quoted ETag
+     */
+    public static String createETag(Long id, List<?> versions) {
+        List<Object> parts = new ArrayList<>(versions.size() + 1);
+        parts.add(id);
+        parts.addAll(versions);
+        return createETag(parts.toArray());
+    }
+
+    /**
+     * Check whether an If-None-Match header matches an ETag. The comparison is weak, as required for If-None-Match:
+     * a proxy may have weakened the ETag, as when compressing the body.
+     *
+     * @param ifNoneMatch the If-None-Match header, may be null
+     * @param eTag the quoted ETag of the current representation, may be null
+     * @return true if the client holds the current representation
+     */
+    public static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null || eTag == null) {
+            return false;
+        }
+        for (String candidate : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param eTag the quoted ETag held by the client
+     * @return the ResponseEntity with status 304 (Not Modified)
+     */
+    public static <X> ResponseEntity<X> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    /**
+     * Wrap an optional representation, tagged with an ETag, into a ResponseEntity.
+     *
+     * @param maybeResponse the representation
+     * @param eTag the quoted ETag of the representation, null to leave it untagged
+     * @return the ResponseEntity with status 200 (OK) and the ETag, or with status 404 (Not Found)
+     */
+    public static <X> ResponseEntity<X> wrapOrNotFound(Optional<X> maybeResponse, String eTag) {
+        return maybeResponse.map(response -> eTag == null ? ResponseEntity.ok(response)
+                : ResponseEntity.ok().eTag(eTag).body(response))
+            .orElse(new ResponseEntity<>(HttpStatus.NOT_FOUND));
+    }
+}
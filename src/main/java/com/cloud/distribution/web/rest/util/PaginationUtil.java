@@ -1,6 +1,9 @@
 package com.cloud.distribution.web.rest.util;
 
+import com.cloud.distribution.service.dto.SearchCursor;
+import com.cloud.distribution.web.rest.errors.BadRequestAlertException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -16,6 +19,11 @@ import java.net.URLEncoder;
  */
 public final class PaginationUtil {
 
+    /**
+     * Header carrying the opaque cursor of the next slice of a search read by cursor.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private PaginationUtil() {
     }
 
@@ -42,17 +50,58 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Link header of a page read without count query: the total is unknown, so there is no X-Total-Count header
+     * and no last link, and the links keep the count disabled.
+     *
+     * @param slice the slice
+     * @param baseUrl the base URL of the resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateSliceHttpHeaders(Slice slice, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateUri(baseUrl, slice.getNumber() + 1, slice.getSize()) + "&count=false>; rel=\"next\",";
+        }
+        // prev link
+        if (slice.hasPrevious()) {
+            link += "<" + generateUri(baseUrl, slice.getNumber() - 1, slice.getSize()) + "&count=false>; rel=\"prev\",";
+        }
+        link += "<" + generateUri(baseUrl, 0, slice.getSize()) + "&count=false>; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Link header of a keyset (seek) page: no total count is known, so only the next and first pages are linked.
+     *
+     * @param nextCursor the opaque cursor of the next page, or null if this page is the last one
+     * @param size the page size
+     * @param baseUrl the base URL of the resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateKeysetPaginationHttpHeaders(String nextCursor, int size, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (nextCursor != null) {
+            link = "<" + generateKeysetUri(baseUrl, nextCursor, size) + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, "", size) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    private static String generateKeysetUri(String baseUrl, String after, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("after", after).queryParam("size", size).toUriString();
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
         return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
     }
 
     public static HttpHeaders generateSearchPaginationHttpHeaders(String query, Page page, String baseUrl) {
-        String escapedQuery;
-        try {
-            escapedQuery = URLEncoder.encode(query, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new RuntimeException(e);
-        }
+        String escapedQuery = encodeQuery(query);
         HttpHeaders headers = new HttpHeaders();
         headers.add("X-Total-Count", Long.toString(page.getTotalElements()));
         String link = "";
@@ -73,4 +122,55 @@ public final class PaginationUtil {
         headers.add(HttpHeaders.LINK, link);
         return headers;
     }
+
+    /**
+     * Headers of a search slice read by cursor: no total count is known, so only the next and first slices are
+     * linked, and the cursor of the next slice is also returned in the X-Next-Cursor header.
+     *
+     * @param query the query of the search
+     * @param next the cursor of the next slice, or null if this slice is the last one
+     * @param size the slice size
+     * @param baseUrl the base URL of the search resource
+     * @return the pagination headers
+     */
+    public static HttpHeaders generateSearchKeysetPaginationHttpHeaders(String query, SearchCursor next, int size,
+            String baseUrl) {
+        String escapedQuery = encodeQuery(query);
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (next != null) {
+            headers.add(NEXT_CURSOR_HEADER, next.encode());
+            link = "<" + generateKeysetUri(baseUrl, next.encode(), size) + "&query=" + escapedQuery + ">; rel=\"next\",";
+        }
+        link += "<" + generateKeysetUri(baseUrl, "", size) + "&query=" + escapedQuery + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Decode the cursor of a search slice.
+     *
+     * @param after the cursor, empty for the first slice
+     * @param entityName the name of the searched entity
+     * @return the cursor, or null for the first slice
+     * @throws BadRequestAlertException if the cursor is not valid
+     */
+    public static SearchCursor decodeSearchCursor(String after, String entityName) {
+        if (after.isEmpty()) {
+            return null;
+        }
+        try {
+            return SearchCursor.decode(after);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid pagination cursor", entityName, "invalidcursor");
+        }
+    }
+
+    private static String encodeQuery(String query) {
+        try {
+            return URLEncoder.encode(query, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.cloud.distribution.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hibernate {@link StatementInspector} recording the SQL statements prepared by the current thread,
+ * between {@link #start()} and {@link #stop()}.
+ * <p>
+ * Registered in the test application.yml.
+ */
+public class CapturingStatementInspector implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> statements = new ThreadLocal<>();
+
+    public static void start() {
+        statements.set(new ArrayList<>());
+    }
+
+    public static List<String> stop() {
+        List<String> captured = statements.get();
+        statements.remove();
+        return captured;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> captured = statements.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+}
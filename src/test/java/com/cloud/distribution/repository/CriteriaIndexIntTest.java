@@ -0,0 +1,163 @@
+package com.cloud.distribution.repository;
+
+import com.cloud.distribution.DistributionApp;
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+import com.cloud.distribution.service.MerchantQueryService;
+import com.cloud.distribution.service.OrderQueryService;
+import com.cloud.distribution.service.OrderStatusHistoryQueryService;
+import com.cloud.distribution.service.dto.MerchantCriteria;
+import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.OrderStatusHistoryCriteria;
+
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import io.github.jhipster.service.filter.ZonedDateTimeFilter;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the supported criteria filters are resolved with an index, using the EXPLAIN plan of the
+ * SQL generated for the query service specifications.
+ *
+ * @see CapturingStatementInspector
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+@Transactional
+public class CriteriaIndexIntTest {
+
+    private static final ZonedDateTime DATE = ZonedDateTime.now().withNano(0);
+
+    @Autowired
+    private OrderQueryService orderQueryService;
+
+    @Autowired
+    private OrderStatusHistoryQueryService orderStatusHistoryQueryService;
+
+    @Autowired
+    private MerchantQueryService merchantQueryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void orderUserIdFilterUsesIndex() {
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setUserId(longEquals(1L));
+        assertNoTableScan("jhi_order", 1L, () -> orderQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void orderUserIdFilterSortedByCreatedDateUsesIndex() {
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setUserId(longEquals(1L));
+        assertNoTableScan("jhi_order", 1L, () -> orderQueryService.findByCriteria(criteria,
+            new PageRequest(0, 1, new Sort(Sort.Direction.DESC, "createdDate"))));
+    }
+
+    @Test
+    public void orderCreatedDateFilterUsesIndex() {
+        ZonedDateTimeFilter createdDate = new ZonedDateTimeFilter();
+        createdDate.setGreaterOrEqualThan(DATE);
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setCreatedDate(createdDate);
+        assertNoTableScan("jhi_order", DATE, () -> orderQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void orderAmountFilterUsesIndex() {
+        LongFilter amount = new LongFilter();
+        amount.setGreaterThan(1000L);
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setAmount(amount);
+        assertNoTableScan("jhi_order", 1000L, () -> orderQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void orderCodeFilterUsesIndex() {
+        StringFilter code = new StringFilter();
+        code.setEquals("AAAAAAAAAA");
+        OrderCriteria criteria = new OrderCriteria();
+        criteria.setCode(code);
+        assertNoTableScan("jhi_order", "AAAAAAAAAA", () -> orderQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void orderStatusHistoryOrderIdFilterUsesIndex() {
+        OrderStatusHistoryCriteria criteria = new OrderStatusHistoryCriteria();
+        criteria.setOrderId(longEquals(1L));
+        assertNoTableScan("order_status_history", 1L, () -> orderStatusHistoryQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void orderStatusHistoryModifiedTimeFilterUsesIndex() {
+        ZonedDateTimeFilter modifiedTime = new ZonedDateTimeFilter();
+        modifiedTime.setGreaterOrEqualThan(DATE);
+        OrderStatusHistoryCriteria criteria = new OrderStatusHistoryCriteria();
+        criteria.setModifiedTime(modifiedTime);
+        assertNoTableScan("order_status_history", DATE, () -> orderStatusHistoryQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void merchantUserIdFilterUsesIndex() {
+        MerchantCriteria criteria = new MerchantCriteria();
+        criteria.setUserId(longEquals(1L));
+        assertNoTableScan("merchant", 1L, () -> merchantQueryService.findByCriteria(criteria));
+    }
+
+    @Test
+    public void merchantLevelFilterUsesIndex() {
+        MerchantCriteria criteria = new MerchantCriteria();
+        criteria.setLevel(longEquals(1L));
+        assertNoTableScan("merchant", 1L, () -> merchantQueryService.findByCriteria(criteria));
+    }
+
+    private static LongFilter longEquals(Long value) {
+        LongFilter filter = new LongFilter();
+        filter.setEquals(value);
+        return filter;
+    }
+
+    /**
+     * Runs the query, then explains the first statement selecting from the table, with all its parameters bound
+     * to the filter value, and fails if the plan scans the table.
+     */
+    private void assertNoTableScan(String table, Object value, Runnable query) {
+        List<String> statements;
+        CapturingStatementInspector.start();
+        try {
+            query.run();
+        } finally {
+            statements = CapturingStatementInspector.stop();
+        }
+        String sql = statements.stream()
+            .filter(statement -> statement.toLowerCase().contains(" from " + table + " "))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("No statement selecting from " + table + " in " + statements));
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql.replace("?", toSqlLiteral(value)), String.class);
+        assertThat(plan.toLowerCase()).as(plan).doesNotContain((table + ".tableScan").toLowerCase());
+    }
+
+    private static String toSqlLiteral(Object value) {
+        if (value instanceof ZonedDateTime) {
+            return "TIMESTAMP '" + Timestamp.from(((ZonedDateTime) value).toInstant()) + "'";
+        }
+        if (value instanceof String) {
+            return "'" + ((String) value).replace("'", "''") + "'";
+        }
+        return String.valueOf(value);
+    }
+}
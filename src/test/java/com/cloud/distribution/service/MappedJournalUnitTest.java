@@ -0,0 +1,133 @@
+package com.cloud.distribution.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Test class for the MappedJournal.
+ *
+ * @see MappedJournal
+ */
+public class MappedJournalUnitTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendAndRecover() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        String id;
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE, false, (sequence, record) -> { })) {
+            id = journal.getId();
+            assertThat(journal.append(bytes("a"))).isEqualTo(1);
+            assertThat(journal.append(bytes("bb"))).isEqualTo(2);
+            assertThat(journal.append(bytes("ccc"))).isEqualTo(3);
+        }
+
+        List<String> recovered = new ArrayList<>();
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE, false,
+                (sequence, record) -> recovered.add(sequence + ":" + new String(record, StandardCharsets.UTF_8)))) {
+            assertThat(journal.getId()).isEqualTo(id);
+            assertThat(journal.getLastSequence()).isEqualTo(3);
+            assertThat(recovered).containsExactly("1:a", "2:bb", "3:ccc");
+            assertThat(journal.append(bytes("d"))).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void recoverUpToTornRecord() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE, false, (sequence, record) -> { })) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+        }
+        // Corrupt the first byte of the second record, after the length and the sequence
+        int position = Integer.BYTES + Long.BYTES + "first".length() + Integer.BYTES + Integer.BYTES + Long.BYTES;
+        try (FileChannel channel = FileChannel.open(segments(directory).get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(bytes("x")), position);
+        }
+
+        List<Long> recovered = new ArrayList<>();
+        try (MappedJournal journal = new MappedJournal(directory, SEGMENT_SIZE, false,
+                (sequence, record) -> recovered.add(sequence))) {
+            assertThat(recovered).containsExactly(1L);
+            assertThat(journal.append(bytes("third"))).isEqualTo(2);
+        }
+
+        List<String> reopened = new ArrayList<>();
+        try (MappedJournal ignored = new MappedJournal(directory, SEGMENT_SIZE, false,
+                (sequence, record) -> reopened.add(new String(record, StandardCharsets.UTF_8)))) {
+            assertThat(reopened).containsExactly("first", "third");
+        }
+    }
+
+    @Test
+    public void releaseDeletesSegments() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        // A segment of 64 bytes holds a single record of 20 bytes
+        try (MappedJournal journal = new MappedJournal(directory, 64, false, (sequence, record) -> { })) {
+            journal.append(new byte[20]);
+            journal.append(new byte[20]);
+            journal.append(new byte[20]);
+            assertThat(journal.getSegmentCount()).isEqualTo(3);
+
+            journal.release(1);
+            assertThat(journal.getSegmentCount()).isEqualTo(2);
+
+            // The active segment is kept
+            journal.release(3);
+            assertThat(journal.getSegmentCount()).isEqualTo(1);
+            assertThat(segments(directory)).hasSize(1);
+        }
+
+        List<Long> recovered = new ArrayList<>();
+        try (MappedJournal journal = new MappedJournal(directory, 64, false,
+                (sequence, record) -> recovered.add(sequence))) {
+            assertThat(recovered).containsExactly(3L);
+            assertThat(journal.append(new byte[20])).isEqualTo(4);
+        }
+    }
+
+    @Test
+    public void appendTooLargeRecord() throws IOException {
+        Path directory = folder.newFolder().toPath();
+        try (MappedJournal journal = new MappedJournal(directory, 64, false, (sequence, record) -> { })) {
+            try {
+                journal.append(new byte[64]);
+                fail("IllegalArgumentException expected");
+            } catch (IllegalArgumentException e) {
+                assertThat(journal.getLastSequence()).isEqualTo(0);
+            }
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".journal"))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+}
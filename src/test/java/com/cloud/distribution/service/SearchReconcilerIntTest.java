@@ -0,0 +1,141 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.DistributionApp;
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+import com.cloud.distribution.domain.Order;
+import com.cloud.distribution.domain.PayType;
+import com.cloud.distribution.repository.OrderRepository;
+import com.cloud.distribution.repository.PayTypeRepository;
+import com.cloud.distribution.repository.search.OrderSearchRepository;
+import com.cloud.distribution.repository.search.PayTypeSearchRepository;
+import com.cloud.distribution.web.rest.OrderResourceIntTest;
+import com.cloud.distribution.web.rest.PayTypeResourceIntTest;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the reconciler detects and repairs the documents missing from, and orphaned in, the search indexes.
+ * <p>
+ * Not transactional: the reconciler and the indexer run in transactions of their own.
+ *
+ * @see SearchReconciler
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+public class SearchReconcilerIntTest {
+
+    @Autowired
+    private SearchReconciler searchReconciler;
+
+    @Autowired
+    private SearchReindexJob searchReindexJob;
+
+    @Autowired
+    private SearchIndexer searchIndexer;
+
+    @Autowired
+    private PayTypeRepository payTypeRepository;
+
+    @Autowired
+    private PayTypeSearchRepository payTypeSearchRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSearchRepository orderSearchRepository;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private final List<PayType> payTypes = new ArrayList<>();
+
+    private PayType orphan;
+
+    private Order archivedOrder;
+
+    @Before
+    public void initTest() {
+        for (int i = 0; i < 3; i++) {
+            payTypes.add(payTypeRepository.saveAndFlush(PayTypeResourceIntTest.createEntity(null)));
+        }
+        searchReindexJob.reindex(PayType.class, true, true);
+    }
+
+    @After
+    public void cleanUp() {
+        payTypeRepository.delete(payTypes);
+        payTypes.forEach(payTypeSearchRepository::delete);
+        if (orphan != null) {
+            payTypeSearchRepository.delete(orphan);
+        }
+        if (archivedOrder != null) {
+            jdbcTemplate.update("delete from jhi_order_archive where id = ?", archivedOrder.getId());
+            jdbcTemplate.update("delete from jhi_order where id = ?", archivedOrder.getId());
+            orderSearchRepository.delete(archivedOrder.getId());
+        }
+    }
+
+    @Test
+    public void reconcileWithoutDrift() {
+        assertThat(searchReconciler.reconcile(PayType.class)).isZero();
+        assertThat(metricRegistry.getGauges().get("search.reconciler.drift.PayType").getValue()).isEqualTo(0L);
+    }
+
+    @Test
+    public void reconcileDrift() {
+        payTypeSearchRepository.delete(payTypes.get(1).getId());
+        orphan = PayTypeResourceIntTest.createEntity(null);
+        orphan.setId(payTypes.get(2).getId() + 1000);
+        payTypeSearchRepository.save(orphan);
+
+        assertThat(searchReconciler.reconcile(PayType.class)).isEqualTo(2);
+        assertThat(metricRegistry.getGauges().get("search.reconciler.drift.PayType").getValue()).isEqualTo(2L);
+
+        // The repairs go through the search outbox
+        while (searchIndexer.drain() > 0) {
+            // drain until empty
+        }
+        assertThat(payTypeSearchRepository.exists(payTypes.get(1).getId())).isTrue();
+        assertThat(payTypeSearchRepository.exists(orphan.getId())).isFalse();
+        assertThat(searchReconciler.reconcile(PayType.class)).isZero();
+    }
+
+    @Test
+    public void reconcileArchivedOrder() {
+        archivedOrder = orderRepository.saveAndFlush(OrderResourceIntTest.createEntity(null));
+        searchReindexJob.reindex(Order.class, true, true);
+        assertThat(orderSearchRepository.exists(archivedOrder.getId())).isTrue();
+
+        // The archived orders leave the index, and are not orphans for the reconciler
+        ZonedDateTime cutoff = ZonedDateTime.ofInstant(Instant.ofEpochMilli(0L), ZoneOffset.UTC).plusDays(1);
+        assertThat(orderArchiver.archive(cutoff)).isGreaterThanOrEqualTo(1);
+        while (searchIndexer.drain() > 0) {
+            // drain until empty
+        }
+        assertThat(orderSearchRepository.exists(archivedOrder.getId())).isFalse();
+        assertThat(searchReconciler.reconcile(Order.class)).isZero();
+    }
+}
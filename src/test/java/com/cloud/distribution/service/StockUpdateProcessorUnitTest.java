@@ -0,0 +1,50 @@
+package com.cloud.distribution.service;
+
+import com.cloud.distribution.service.dto.StockReservationDTO;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the StockUpdateProcessor.
+ *
+ * @see StockUpdateProcessor
+ */
+public class StockUpdateProcessorUnitTest {
+
+    @Test
+    public void reserveAndRelease() {
+        Map.Entry<Long, Long> entry = new AbstractMap.SimpleEntry<>(1L, 3L);
+
+        StockReservationDTO reservation = (StockReservationDTO) new StockUpdateProcessor(-3).process(entry);
+        assertThat(reservation.isSuccess()).isTrue();
+        assertThat(reservation.getQuantity()).isEqualTo(3);
+        assertThat(reservation.getRemains()).isEqualTo(0);
+        assertThat(entry.getValue()).isEqualTo(0L);
+
+        StockReservationDTO release = (StockReservationDTO) new StockUpdateProcessor(2).process(entry);
+        assertThat(release.isSuccess()).isTrue();
+        assertThat(entry.getValue()).isEqualTo(2L);
+    }
+
+    @Test
+    public void reserveMoreThanRemains() {
+        Map.Entry<Long, Long> entry = new AbstractMap.SimpleEntry<>(1L, 2L);
+
+        StockReservationDTO reservation = (StockReservationDTO) new StockUpdateProcessor(-3).process(entry);
+        assertThat(reservation.isSuccess()).isFalse();
+        assertThat(reservation.getRemains()).isEqualTo(2);
+        assertThat(entry.getValue()).isEqualTo(2L);
+    }
+
+    @Test
+    public void reserveUnknownProduct() {
+        Map.Entry<Long, Long> entry = new AbstractMap.SimpleEntry<>(1L, null);
+
+        assertThat(new StockUpdateProcessor(-1).process(entry)).isNull();
+        assertThat(entry.getValue()).isNull();
+    }
+}
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.CommissionPlaceholder;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.CommissionPlaceholderRepository;
 import com.cloud.distribution.service.CommissionPlaceholderService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.CommissionPlaceholderSearchRepository;
 import com.cloud.distribution.service.dto.CommissionPlaceholderDTO;
 import com.cloud.distribution.service.mapper.CommissionPlaceholderMapper;
@@ -69,6 +70,9 @@ public class CommissionPlaceholderResourceIntTest {
     @Autowired
     private CommissionPlaceholderSearchRepository commissionPlaceholderSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private CommissionPlaceholderQueryService commissionPlaceholderQueryService;
 
@@ -139,7 +143,8 @@ public class CommissionPlaceholderResourceIntTest {
         assertThat(testCommissionPlaceholder.getCode()).isEqualTo(DEFAULT_CODE);
         assertThat(testCommissionPlaceholder.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the CommissionPlaceholder in Elasticsearch
+        // Validate the CommissionPlaceholder in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         CommissionPlaceholder commissionPlaceholderEs = commissionPlaceholderSearchRepository.findOne(testCommissionPlaceholder.getId());
         assertThat(commissionPlaceholderEs).isEqualToComparingFieldByField(testCommissionPlaceholder);
     }
@@ -180,6 +185,20 @@ public class CommissionPlaceholderResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllCommissionPlaceholdersWithoutCount() throws Exception {
+        // Initialize the database
+        commissionPlaceholderRepository.saveAndFlush(commissionPlaceholder);
+
+        // Get all the commissionPlaceholderList, without total count
+        restCommissionPlaceholderMockMvc.perform(get("/api/commission-placeholders?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(commissionPlaceholder.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getCommissionPlaceholder() throws Exception {
@@ -356,7 +375,8 @@ public class CommissionPlaceholderResourceIntTest {
         assertThat(testCommissionPlaceholder.getCode()).isEqualTo(UPDATED_CODE);
         assertThat(testCommissionPlaceholder.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the CommissionPlaceholder in Elasticsearch
+        // Validate the CommissionPlaceholder in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         CommissionPlaceholder commissionPlaceholderEs = commissionPlaceholderSearchRepository.findOne(testCommissionPlaceholder.getId());
         assertThat(commissionPlaceholderEs).isEqualToComparingFieldByField(testCommissionPlaceholder);
     }
@@ -393,7 +413,8 @@ public class CommissionPlaceholderResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean commissionPlaceholderExistsInEs = commissionPlaceholderSearchRepository.exists(commissionPlaceholder.getId());
         assertThat(commissionPlaceholderExistsInEs).isFalse();
 
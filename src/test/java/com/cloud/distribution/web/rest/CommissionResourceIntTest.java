@@ -0,0 +1,171 @@
+package com.cloud.distribution.web.rest;
+
+import com.cloud.distribution.DistributionApp;
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+import com.cloud.distribution.domain.CommissionPlaceholder;
+import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.repository.CommissionPlaceholderRepository;
+import com.cloud.distribution.repository.OrderStatusRepository;
+import com.cloud.distribution.service.CommissionBackfillJob;
+import com.cloud.distribution.service.CommissionService;
+import com.cloud.distribution.service.MerchantService;
+import com.cloud.distribution.service.MerchantTreeIndex;
+import com.cloud.distribution.service.OrderService;
+import com.cloud.distribution.service.dto.MerchantDTO;
+import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.mapper.MerchantMapper;
+import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the CommissionResource REST controller.
+ *
+ * @see CommissionResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+public class CommissionResourceIntTest {
+
+    private static final String PLACEHOLDER_CODE = "AAAAAAAAAA";
+
+    private static final Long ORDER_AMOUNT = 10000L;
+
+    @Autowired
+    private CommissionService commissionService;
+
+    @Autowired
+    private CommissionBackfillJob commissionBackfillJob;
+
+    @Autowired
+    private CommissionPlaceholderRepository commissionPlaceholderRepository;
+
+    @Autowired
+    private OrderStatusRepository orderStatusRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private MerchantService merchantService;
+
+    @Autowired
+    private MerchantMapper merchantMapper;
+
+    @Autowired
+    private MerchantTreeIndex merchantTreeIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    @Autowired
+    private EntityManager em;
+
+    private MockMvc restCommissionMockMvc;
+
+    @Before
+    public void setup() {
+        MockitoAnnotations.initMocks(this);
+        final CommissionResource commissionResource = new CommissionResource(commissionService, commissionBackfillJob);
+        this.restCommissionMockMvc = MockMvcBuilders.standaloneSetup(commissionResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setConversionService(createFormattingConversionService())
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    @Transactional
+    public void computeCommissionsOnOrderCompletion() throws Exception {
+        // Initialize the rules: 10% for the parent of the merchant of the buyer, 5% for its grand parent
+        commissionPlaceholderRepository.saveAndFlush(new CommissionPlaceholder().name("Sales").code(PLACEHOLDER_CODE));
+        jdbcTemplate.update("insert into commission_rule (placeholder_code, jhi_level, rate) values (?, ?, ?)",
+            PLACEHOLDER_CODE, 1, 1000);
+        jdbcTemplate.update("insert into commission_rule (placeholder_code, jhi_level, rate) values (?, ?, ?)",
+            PLACEHOLDER_CODE, 2, 500);
+        OrderStatus pending = orderStatusRepository.saveAndFlush(new OrderStatus().code("PENDING"));
+        OrderStatus completed = orderStatusRepository.saveAndFlush(new OrderStatus().code("COMPLETED"));
+
+        // Initialize the hierarchy: root > child > buyer
+        MerchantDTO root = merchantService.save(merchantMapper.toDto(MerchantResourceIntTest.createEntity(em).userId(3001L)));
+        MerchantDTO child = merchantMapper.toDto(MerchantResourceIntTest.createEntity(em).userId(3002L));
+        child.setParentId(root.getId());
+        child = merchantService.save(child);
+        MerchantDTO buyer = merchantMapper.toDto(MerchantResourceIntTest.createEntity(em).userId(3003L));
+        buyer.setParentId(child.getId());
+        buyer = merchantService.save(buyer);
+        em.flush();
+        // The transaction is not committed, so the index is refreshed explicitly
+        merchantTreeIndex.refresh(root.getId());
+        merchantTreeIndex.refresh(child.getId());
+        merchantTreeIndex.refresh(buyer.getId());
+
+        // A pending order earns no commission
+        OrderDTO order = new OrderDTO();
+        order.setAmount(ORDER_AMOUNT);
+        order.setCreatedDate(ZonedDateTime.now(ZoneId.systemDefault()).withNano(0));
+        order.setUserId(3003L);
+        order.setOrderStatusId(pending.getId());
+        order = orderService.save(order);
+        restCommissionMockMvc.perform(get("/api/commissions?orderId={id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+
+        // Completing the order pays its ancestors
+        order.setOrderStatusId(completed.getId());
+        orderService.save(order);
+        restCommissionMockMvc.perform(get("/api/commissions?orderId={id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$", hasSize(2)))
+            .andExpect(jsonPath("$.[0].merchantId").value(child.getId().intValue()))
+            .andExpect(jsonPath("$.[0].level").value(1))
+            .andExpect(jsonPath("$.[0].placeholderCode").value(PLACEHOLDER_CODE))
+            .andExpect(jsonPath("$.[0].amount").value(1000))
+            .andExpect(jsonPath("$.[1].merchantId").value(root.getId().intValue()))
+            .andExpect(jsonPath("$.[1].level").value(2))
+            .andExpect(jsonPath("$.[1].amount").value(500));
+
+        // Leaving the completed status cancels them
+        order.setOrderStatusId(pending.getId());
+        orderService.save(order);
+        restCommissionMockMvc.perform(get("/api/commissions?orderId={id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @Transactional
+    public void backfillCommissionsWithInvalidRange() throws Exception {
+        restCommissionMockMvc.perform(post("/api/commissions/_backfill?from=2017-12-31&to=2017-12-01"))
+            .andExpect(status().isBadRequest());
+    }
+}
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.Currency;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.CurrencyRepository;
 import com.cloud.distribution.service.CurrencyService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.CurrencySearchRepository;
 import com.cloud.distribution.service.dto.CurrencyDTO;
 import com.cloud.distribution.service.mapper.CurrencyMapper;
@@ -69,6 +70,9 @@ public class CurrencyResourceIntTest {
     @Autowired
     private CurrencySearchRepository currencySearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private CurrencyQueryService currencyQueryService;
 
@@ -139,7 +143,8 @@ public class CurrencyResourceIntTest {
         assertThat(testCurrency.getCode()).isEqualTo(DEFAULT_CODE);
         assertThat(testCurrency.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the Currency in Elasticsearch
+        // Validate the Currency in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Currency currencyEs = currencySearchRepository.findOne(testCurrency.getId());
         assertThat(currencyEs).isEqualToComparingFieldByField(testCurrency);
     }
@@ -180,6 +185,20 @@ public class CurrencyResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllCurrenciesWithoutCount() throws Exception {
+        // Initialize the database
+        currencyRepository.saveAndFlush(currency);
+
+        // Get all the currencyList, without total count
+        restCurrencyMockMvc.perform(get("/api/currencies?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(currency.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getCurrency() throws Exception {
@@ -356,7 +375,8 @@ public class CurrencyResourceIntTest {
         assertThat(testCurrency.getCode()).isEqualTo(UPDATED_CODE);
         assertThat(testCurrency.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the Currency in Elasticsearch
+        // Validate the Currency in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Currency currencyEs = currencySearchRepository.findOne(testCurrency.getId());
         assertThat(currencyEs).isEqualToComparingFieldByField(testCurrency);
     }
@@ -393,7 +413,8 @@ public class CurrencyResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean currencyExistsInEs = currencySearchRepository.exists(currency.getId());
         assertThat(currencyExistsInEs).isFalse();
 
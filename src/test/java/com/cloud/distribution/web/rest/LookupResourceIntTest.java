@@ -0,0 +1,138 @@
+package com.cloud.distribution.web.rest;
+
+import com.cloud.distribution.DistributionApp;
+
+import com.cloud.distribution.config.ApplicationProperties;
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+
+import com.cloud.distribution.domain.PayType;
+import com.cloud.distribution.service.LookupBundleService;
+import com.cloud.distribution.service.LookupRegistry;
+import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the LookupResource REST controller.
+ *
+ * @see LookupResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+public class LookupResourceIntTest {
+
+    @Autowired
+    private LookupBundleService lookupBundleService;
+
+    @Autowired
+    private LookupRegistry lookupRegistry;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restLookupMockMvc;
+
+    @Before
+    public void setup() {
+        final LookupResource lookupResource = new LookupResource(lookupBundleService, applicationProperties);
+        this.restLookupMockMvc = MockMvcBuilders.standaloneSetup(lookupResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(new ByteArrayHttpMessageConverter(), jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void getAllLookups() throws Exception {
+        restLookupMockMvc.perform(get("/api/_lookups"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(header().string(HttpHeaders.ETAG, "\"" + lookupBundleService.getBundle().getHash() + "\""))
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL,
+                containsString("max-age=" + applicationProperties.getLookups().getMaxAge())))
+            .andExpect(jsonPath("$.statuses").isArray())
+            .andExpect(jsonPath("$.orderStatuses").isArray())
+            .andExpect(jsonPath("$.payTypes").isArray())
+            .andExpect(jsonPath("$.currencies").isArray())
+            .andExpect(jsonPath("$.merchantAuditStatuses").isArray())
+            .andExpect(jsonPath("$.operatorTypes").isArray());
+    }
+
+    @Test
+    public void getAllLookupsNotModified() throws Exception {
+        String eTag = restLookupMockMvc.perform(get("/api/_lookups"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        restLookupMockMvc.perform(get("/api/_lookups").header(HttpHeaders.IF_NONE_MATCH, "\"-1\", " + eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().bytes(new byte[0]));
+
+        restLookupMockMvc.perform(get("/api/_lookups").header(HttpHeaders.IF_NONE_MATCH, "\"-1\""))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    public void getAllLookupsAfterChange() throws Exception {
+        String eTag = restLookupMockMvc.perform(get("/api/_lookups"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        long version = lookupRegistry.getVersion();
+
+        // Outside of a transaction, the change is published at once; it is received asynchronously
+        lookupRegistry.publishAfterCommit(PayType.class);
+        for (int i = 0; i < 100 && lookupRegistry.getVersion() == version; i++) {
+            Thread.sleep(50);
+        }
+        assertThat(lookupRegistry.getVersion()).isGreaterThan(version);
+
+        // The bundle is built again, but the same lookups keep the same ETag, whatever the version
+        restLookupMockMvc.perform(get("/api/_lookups").header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+        assertThat(lookupBundleService.getBundle().getVersion()).isEqualTo(lookupRegistry.getVersion());
+    }
+
+    @Test
+    public void getNameOfMissingLookup() throws Exception {
+        long id = 1_000_000L;
+        assertThat(lookupRegistry.getName(PayType.class, id)).isNull();
+
+        // The miss is remembered until the next reload, a lookup inserted behind the services is not seen meanwhile
+        jdbcTemplate.update("insert into pay_type (id, name) values (?, ?)", id, "inserted");
+        try {
+            assertThat(lookupRegistry.getName(PayType.class, id)).isNull();
+
+            lookupRegistry.reload();
+            assertThat(lookupRegistry.getName(PayType.class, id)).isEqualTo("inserted");
+        } finally {
+            jdbcTemplate.update("delete from pay_type where id = ?", id);
+            lookupRegistry.reload();
+        }
+    }
+}
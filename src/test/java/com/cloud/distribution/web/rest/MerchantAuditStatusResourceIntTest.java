@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.MerchantAuditStatus;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.MerchantAuditStatusRepository;
 import com.cloud.distribution.service.MerchantAuditStatusService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.MerchantAuditStatusSearchRepository;
 import com.cloud.distribution.service.dto.MerchantAuditStatusDTO;
 import com.cloud.distribution.service.mapper.MerchantAuditStatusMapper;
@@ -69,6 +70,9 @@ public class MerchantAuditStatusResourceIntTest {
     @Autowired
     private MerchantAuditStatusSearchRepository merchantAuditStatusSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private MerchantAuditStatusQueryService merchantAuditStatusQueryService;
 
@@ -139,7 +143,8 @@ public class MerchantAuditStatusResourceIntTest {
         assertThat(testMerchantAuditStatus.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testMerchantAuditStatus.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the MerchantAuditStatus in Elasticsearch
+        // Validate the MerchantAuditStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantAuditStatus merchantAuditStatusEs = merchantAuditStatusSearchRepository.findOne(testMerchantAuditStatus.getId());
         assertThat(merchantAuditStatusEs).isEqualToComparingFieldByField(testMerchantAuditStatus);
     }
@@ -180,6 +185,20 @@ public class MerchantAuditStatusResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllMerchantAuditStatusesWithoutCount() throws Exception {
+        // Initialize the database
+        merchantAuditStatusRepository.saveAndFlush(merchantAuditStatus);
+
+        // Get all the merchantAuditStatusList, without total count
+        restMerchantAuditStatusMockMvc.perform(get("/api/merchant-audit-statuses?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(merchantAuditStatus.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getMerchantAuditStatus() throws Exception {
@@ -356,7 +375,8 @@ public class MerchantAuditStatusResourceIntTest {
         assertThat(testMerchantAuditStatus.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testMerchantAuditStatus.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the MerchantAuditStatus in Elasticsearch
+        // Validate the MerchantAuditStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantAuditStatus merchantAuditStatusEs = merchantAuditStatusSearchRepository.findOne(testMerchantAuditStatus.getId());
         assertThat(merchantAuditStatusEs).isEqualToComparingFieldByField(testMerchantAuditStatus);
     }
@@ -393,7 +413,8 @@ public class MerchantAuditStatusResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean merchantAuditStatusExistsInEs = merchantAuditStatusSearchRepository.exists(merchantAuditStatus.getId());
         assertThat(merchantAuditStatusExistsInEs).isFalse();
 
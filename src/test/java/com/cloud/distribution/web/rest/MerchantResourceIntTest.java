@@ -9,10 +9,18 @@ import com.cloud.distribution.domain.MerchantType;
 import com.cloud.distribution.domain.MerchantAuditStatus;
 import com.cloud.distribution.domain.MerchantStatus;
 import com.cloud.distribution.domain.Merchant;
+import com.cloud.distribution.domain.OrderStatus;
 import com.cloud.distribution.repository.MerchantRepository;
+import com.cloud.distribution.repository.OrderStatusRepository;
+import com.cloud.distribution.service.DownlineSalesService;
+import com.cloud.distribution.service.MerchantHierarchyService;
 import com.cloud.distribution.service.MerchantService;
+import com.cloud.distribution.service.MerchantTreeIndex;
+import com.cloud.distribution.service.OrderService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.MerchantSearchRepository;
 import com.cloud.distribution.service.dto.MerchantDTO;
+import com.cloud.distribution.service.dto.OrderDTO;
 import com.cloud.distribution.service.mapper.MerchantMapper;
 import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
 import com.cloud.distribution.service.dto.MerchantCriteria;
@@ -25,6 +33,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -34,11 +43,17 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
 import javax.persistence.EntityManager;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.util.List;
 
 import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -81,9 +96,27 @@ public class MerchantResourceIntTest {
     @Autowired
     private MerchantSearchRepository merchantSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private MerchantQueryService merchantQueryService;
 
+    @Autowired
+    private MerchantHierarchyService merchantHierarchyService;
+
+    @Autowired
+    private MerchantTreeIndex merchantTreeIndex;
+
+    @Autowired
+    private DownlineSalesService downlineSalesService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderStatusRepository orderStatusRepository;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -103,7 +136,8 @@ public class MerchantResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final MerchantResource merchantResource = new MerchantResource(merchantService, merchantQueryService);
+        final MerchantResource merchantResource = new MerchantResource(merchantService, merchantQueryService, merchantHierarchyService,
+            downlineSalesService);
         this.restMerchantMockMvc = MockMvcBuilders.standaloneSetup(merchantResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -157,7 +191,8 @@ public class MerchantResourceIntTest {
         assertThat(testMerchant.getAddress()).isEqualTo(DEFAULT_ADDRESS);
         assertThat(testMerchant.getMobile()).isEqualTo(DEFAULT_MOBILE);
 
-        // Validate the Merchant in Elasticsearch
+        // Validate the Merchant in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Merchant merchantEs = merchantSearchRepository.findOne(testMerchant.getId());
         assertThat(merchantEs).isEqualToComparingFieldByField(testMerchant);
     }
@@ -201,6 +236,20 @@ public class MerchantResourceIntTest {
             .andExpect(jsonPath("$.[*].mobile").value(hasItem(DEFAULT_MOBILE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllMerchantsWithoutCount() throws Exception {
+        // Initialize the database
+        merchantRepository.saveAndFlush(merchant);
+
+        // Get all the merchantList, without total count
+        restMerchantMockMvc.perform(get("/api/merchants?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(merchant.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getMerchant() throws Exception {
@@ -220,6 +269,60 @@ public class MerchantResourceIntTest {
             .andExpect(jsonPath("$.mobile").value(DEFAULT_MOBILE.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getMerchantNotModified() throws Exception {
+        // Initialize the database
+        merchantRepository.saveAndFlush(merchant);
+
+        String eTag = restMerchantMockMvc.perform(get("/api/merchants/{id}", merchant.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"" + merchant.getId() + "-" + merchant.getVersion() + "-")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The client holds the current version
+        restMerchantMockMvc.perform(get("/api/merchants/{id}", merchant.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        // An update changes the version
+        Long version = merchant.getVersion();
+        MerchantDTO merchantDTO = merchantMapper.toDto(merchant);
+        merchantDTO.setName(UPDATED_NAME);
+        restMerchantMockMvc.perform(put("/api/merchants")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(merchantDTO)))
+            .andExpect(status().isOk());
+
+        restMerchantMockMvc.perform(get("/api/merchants/{id}", merchant.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"" + merchant.getId() + "-" + (version + 1) + "-")));
+    }
+
+    @Test
+    @Transactional
+    public void getMerchantModifiedByParentRename() throws Exception {
+        // Initialize the database
+        Merchant parent = MerchantResourceIntTest.createEntity(em);
+        em.persist(parent);
+        em.flush();
+        merchant.setParent(parent);
+        merchantRepository.saveAndFlush(merchant);
+
+        String eTag = restMerchantMockMvc.perform(get("/api/merchants/{id}", merchant.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Renaming the parent changes the parent name shown by the merchant, but not the version of the merchant
+        parent.setName(UPDATED_NAME);
+        em.flush();
+
+        restMerchantMockMvc.perform(get("/api/merchants/{id}", merchant.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.parentName").value(UPDATED_NAME));
+    }
+
     @Test
     @Transactional
     public void getAllMerchantsByNameIsEqualToSomething() throws Exception {
@@ -572,6 +675,168 @@ public class MerchantResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getMerchantDescendantsAndAncestors() throws Exception {
+        // Initialize the hierarchy: root > child > grandChild
+        MerchantDTO root = merchantService.save(merchantMapper.toDto(createEntity(em)));
+        MerchantDTO child = merchantMapper.toDto(createEntity(em));
+        child.setParentId(root.getId());
+        child = merchantService.save(child);
+        MerchantDTO grandChild = merchantMapper.toDto(createEntity(em));
+        grandChild.setParentId(child.getId());
+        grandChild = merchantService.save(grandChild);
+        assertThat(root.getLevel()).isEqualTo(1L);
+        assertThat(child.getLevel()).isEqualTo(2L);
+        assertThat(grandChild.getLevel()).isEqualTo(3L);
+
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/descendants", root.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "2"))
+            .andExpect(jsonPath("$.[0].id").value(child.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(grandChild.getId().intValue()));
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/descendants?maxDepth=1", root.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "1"));
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/ancestors", grandChild.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(child.getId().intValue()))
+            .andExpect(jsonPath("$.[1].id").value(root.getId().intValue()));
+
+        // Move the child under its own subtree
+        child.setParentId(grandChild.getId());
+        restMerchantMockMvc.perform(put("/api/merchants")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(child)))
+            .andExpect(status().isBadRequest());
+
+        // Move the child subtree to a new root
+        child.setParentId(null);
+        restMerchantMockMvc.perform(put("/api/merchants")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(child)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.level").value(1));
+        em.flush();
+        em.clear();
+        assertThat(merchantRepository.findOne(grandChild.getId()).getLevel()).isEqualTo(2L);
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/descendants", root.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Total-Count", "0"));
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/ancestors", grandChild.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(child.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getMerchantDownlineStats() throws Exception {
+        OrderStatus pending = orderStatusRepository.saveAndFlush(new OrderStatus().code("PENDING"));
+        OrderStatus completed = orderStatusRepository.saveAndFlush(new OrderStatus().code("COMPLETED"));
+        String today = LocalDate.now().toString();
+
+        // Initialize the hierarchy: root > child, with orders of their users
+        MerchantDTO root = merchantService.save(merchantMapper.toDto(createEntity(em).userId(4001L)));
+        MerchantDTO child = merchantMapper.toDto(createEntity(em).userId(4002L));
+        child.setParentId(root.getId());
+        child = merchantService.save(child);
+        saveOrder(4001L, 10L, completed);
+        saveOrder(4002L, 100L, completed);
+        saveOrder(4002L, 50L, pending);
+
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", root.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.orderCount").value(2))
+            .andExpect(jsonPath("$.amountSum").value(110))
+            .andExpect(jsonPath("$.days.[0].date").value(today));
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", child.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orderCount").value(1))
+            .andExpect(jsonPath("$.amountSum").value(100));
+
+        // The existing orders of a new merchant count for its ancestors
+        OrderDTO order = saveOrder(4003L, 1000L, completed);
+        MerchantDTO grandChild = merchantMapper.toDto(createEntity(em).userId(4003L));
+        grandChild.setParentId(child.getId());
+        merchantService.save(grandChild);
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", root.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orderCount").value(3))
+            .andExpect(jsonPath("$.amountSum").value(1110));
+
+        // Orders leaving the completed status no longer count
+        order.setOrderStatusId(pending.getId());
+        orderService.save(order);
+
+        // The sales of a moved subtree follow it
+        MerchantDTO newRoot = merchantService.save(merchantMapper.toDto(createEntity(em).userId(4004L)));
+        child.setParentId(newRoot.getId());
+        merchantService.save(child);
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", root.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orderCount").value(1))
+            .andExpect(jsonPath("$.amountSum").value(10));
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", newRoot.getId(), today, today))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.orderCount").value(1))
+            .andExpect(jsonPath("$.amountSum").value(100));
+
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from={from}&to={to}", Long.MAX_VALUE, today, today))
+            .andExpect(status().isNotFound());
+        restMerchantMockMvc.perform(get("/api/merchants/{id}/downline-stats?from=2017-12-31&to=2017-12-01", root.getId()))
+            .andExpect(status().isBadRequest());
+    }
+
+    private OrderDTO saveOrder(Long userId, Long amount, OrderStatus status) {
+        OrderDTO order = new OrderDTO();
+        order.setUserId(userId);
+        order.setAmount(amount);
+        order.setCreatedDate(ZonedDateTime.now(ZoneId.systemDefault()));
+        order.setOrderStatusId(status.getId());
+        return orderService.save(order);
+    }
+
+    @Test
+    @Transactional
+    public void indexMerchantTree() throws Exception {
+        // Initialize the hierarchy: root > child > grandChild
+        MerchantDTO root = merchantService.save(merchantMapper.toDto(createEntity(em)));
+        MerchantDTO child = merchantMapper.toDto(createEntity(em).userId(UPDATED_USER_ID));
+        child.setParentId(root.getId());
+        child = merchantService.save(child);
+        MerchantDTO grandChild = merchantMapper.toDto(createEntity(em));
+        grandChild.setParentId(child.getId());
+        grandChild = merchantService.save(grandChild);
+        em.flush();
+
+        // The transaction is not committed, so the index is refreshed explicitly
+        merchantTreeIndex.refresh(root.getId());
+        merchantTreeIndex.refresh(child.getId());
+        merchantTreeIndex.refresh(grandChild.getId());
+        long[] ancestorIds = new long[8];
+        assertThat(merchantTreeIndex.ancestors(grandChild.getId(), ancestorIds)).isEqualTo(2);
+        assertThat(ancestorIds[0]).isEqualTo(child.getId());
+        assertThat(ancestorIds[1]).isEqualTo(root.getId());
+        assertThat(merchantTreeIndex.depth(grandChild.getId())).isEqualTo(2);
+        assertThat(merchantTreeIndex.merchantOfUser(UPDATED_USER_ID)).isEqualTo(child.getId());
+
+        // Move the child subtree to a new root
+        child.setParentId(null);
+        merchantService.save(child);
+        em.flush();
+        merchantTreeIndex.refresh(child.getId());
+        assertThat(merchantTreeIndex.ancestors(grandChild.getId(), ancestorIds)).isEqualTo(1);
+        assertThat(ancestorIds[0]).isEqualTo(child.getId());
+        assertThat(merchantTreeIndex.depth(grandChild.getId())).isEqualTo(1);
+
+        // Delete the grand child
+        merchantService.delete(grandChild.getId());
+        em.flush();
+        merchantTreeIndex.refresh(grandChild.getId());
+        assertThat(merchantTreeIndex.depth(grandChild.getId())).isEqualTo(-1);
+    }
+
     @Test
     @Transactional
     public void getNonExistingMerchant() throws Exception {
@@ -612,12 +877,14 @@ public class MerchantResourceIntTest {
         Merchant testMerchant = merchantList.get(merchantList.size() - 1);
         assertThat(testMerchant.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testMerchant.getDesc()).isEqualTo(UPDATED_DESC);
-        assertThat(testMerchant.getLevel()).isEqualTo(UPDATED_LEVEL);
+        // The level is derived from the hierarchy, the merchant being a root
+        assertThat(testMerchant.getLevel()).isEqualTo(1L);
         assertThat(testMerchant.getUserId()).isEqualTo(UPDATED_USER_ID);
         assertThat(testMerchant.getAddress()).isEqualTo(UPDATED_ADDRESS);
         assertThat(testMerchant.getMobile()).isEqualTo(UPDATED_MOBILE);
 
-        // Validate the Merchant in Elasticsearch
+        // Validate the Merchant in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Merchant merchantEs = merchantSearchRepository.findOne(testMerchant.getId());
         assertThat(merchantEs).isEqualToComparingFieldByField(testMerchant);
     }
@@ -654,7 +921,8 @@ public class MerchantResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean merchantExistsInEs = merchantSearchRepository.exists(merchant.getId());
         assertThat(merchantExistsInEs).isFalse();
 
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.MerchantStatus;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.MerchantStatusRepository;
 import com.cloud.distribution.service.MerchantStatusService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.MerchantStatusSearchRepository;
 import com.cloud.distribution.service.dto.MerchantStatusDTO;
 import com.cloud.distribution.service.mapper.MerchantStatusMapper;
@@ -69,6 +70,9 @@ public class MerchantStatusResourceIntTest {
     @Autowired
     private MerchantStatusSearchRepository merchantStatusSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private MerchantStatusQueryService merchantStatusQueryService;
 
@@ -139,7 +143,8 @@ public class MerchantStatusResourceIntTest {
         assertThat(testMerchantStatus.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testMerchantStatus.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the MerchantStatus in Elasticsearch
+        // Validate the MerchantStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantStatus merchantStatusEs = merchantStatusSearchRepository.findOne(testMerchantStatus.getId());
         assertThat(merchantStatusEs).isEqualToComparingFieldByField(testMerchantStatus);
     }
@@ -180,6 +185,20 @@ public class MerchantStatusResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllMerchantStatusesWithoutCount() throws Exception {
+        // Initialize the database
+        merchantStatusRepository.saveAndFlush(merchantStatus);
+
+        // Get all the merchantStatusList, without total count
+        restMerchantStatusMockMvc.perform(get("/api/merchant-statuses?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(merchantStatus.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getMerchantStatus() throws Exception {
@@ -356,7 +375,8 @@ public class MerchantStatusResourceIntTest {
         assertThat(testMerchantStatus.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testMerchantStatus.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the MerchantStatus in Elasticsearch
+        // Validate the MerchantStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantStatus merchantStatusEs = merchantStatusSearchRepository.findOne(testMerchantStatus.getId());
         assertThat(merchantStatusEs).isEqualToComparingFieldByField(testMerchantStatus);
     }
@@ -393,7 +413,8 @@ public class MerchantStatusResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean merchantStatusExistsInEs = merchantStatusSearchRepository.exists(merchantStatus.getId());
         assertThat(merchantStatusExistsInEs).isFalse();
 
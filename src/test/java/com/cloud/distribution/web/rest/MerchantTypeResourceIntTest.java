@@ -7,6 +7,7 @@ import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
 import com.cloud.distribution.domain.MerchantType;
 import com.cloud.distribution.repository.MerchantTypeRepository;
 import com.cloud.distribution.service.MerchantTypeService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.MerchantTypeSearchRepository;
 import com.cloud.distribution.service.dto.MerchantTypeDTO;
 import com.cloud.distribution.service.mapper.MerchantTypeMapper;
@@ -65,6 +66,9 @@ public class MerchantTypeResourceIntTest {
     @Autowired
     private MerchantTypeSearchRepository merchantTypeSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private MerchantTypeQueryService merchantTypeQueryService;
 
@@ -133,7 +137,8 @@ public class MerchantTypeResourceIntTest {
         assertThat(testMerchantType.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testMerchantType.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the MerchantType in Elasticsearch
+        // Validate the MerchantType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantType merchantTypeEs = merchantTypeSearchRepository.findOne(testMerchantType.getId());
         assertThat(merchantTypeEs).isEqualToComparingFieldByField(testMerchantType);
     }
@@ -173,6 +178,20 @@ public class MerchantTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllMerchantTypesWithoutCount() throws Exception {
+        // Initialize the database
+        merchantTypeRepository.saveAndFlush(merchantType);
+
+        // Get all the merchantTypeList, without total count
+        restMerchantTypeMockMvc.perform(get("/api/merchant-types?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(merchantType.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getMerchantType() throws Exception {
@@ -287,7 +306,8 @@ public class MerchantTypeResourceIntTest {
         assertThat(testMerchantType.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testMerchantType.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the MerchantType in Elasticsearch
+        // Validate the MerchantType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         MerchantType merchantTypeEs = merchantTypeSearchRepository.findOne(testMerchantType.getId());
         assertThat(merchantTypeEs).isEqualToComparingFieldByField(testMerchantType);
     }
@@ -324,7 +344,8 @@ public class MerchantTypeResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean merchantTypeExistsInEs = merchantTypeSearchRepository.exists(merchantType.getId());
         assertThat(merchantTypeExistsInEs).isFalse();
 
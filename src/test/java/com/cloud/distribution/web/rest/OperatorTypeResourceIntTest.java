@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.OperatorType;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.OperatorTypeRepository;
 import com.cloud.distribution.service.OperatorTypeService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.OperatorTypeSearchRepository;
 import com.cloud.distribution.service.dto.OperatorTypeDTO;
 import com.cloud.distribution.service.mapper.OperatorTypeMapper;
@@ -69,6 +70,9 @@ public class OperatorTypeResourceIntTest {
     @Autowired
     private OperatorTypeSearchRepository operatorTypeSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private OperatorTypeQueryService operatorTypeQueryService;
 
@@ -139,7 +143,8 @@ public class OperatorTypeResourceIntTest {
         assertThat(testOperatorType.getCode()).isEqualTo(DEFAULT_CODE);
         assertThat(testOperatorType.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the OperatorType in Elasticsearch
+        // Validate the OperatorType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OperatorType operatorTypeEs = operatorTypeSearchRepository.findOne(testOperatorType.getId());
         assertThat(operatorTypeEs).isEqualToComparingFieldByField(testOperatorType);
     }
@@ -180,6 +185,20 @@ public class OperatorTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllOperatorTypesWithoutCount() throws Exception {
+        // Initialize the database
+        operatorTypeRepository.saveAndFlush(operatorType);
+
+        // Get all the operatorTypeList, without total count
+        restOperatorTypeMockMvc.perform(get("/api/operator-types?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(operatorType.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getOperatorType() throws Exception {
@@ -356,7 +375,8 @@ public class OperatorTypeResourceIntTest {
         assertThat(testOperatorType.getCode()).isEqualTo(UPDATED_CODE);
         assertThat(testOperatorType.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the OperatorType in Elasticsearch
+        // Validate the OperatorType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OperatorType operatorTypeEs = operatorTypeSearchRepository.findOne(testOperatorType.getId());
         assertThat(operatorTypeEs).isEqualToComparingFieldByField(testOperatorType);
     }
@@ -393,7 +413,8 @@ public class OperatorTypeResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean operatorTypeExistsInEs = operatorTypeSearchRepository.exists(operatorType.getId());
         assertThat(operatorTypeExistsInEs).isFalse();
 
@@ -2,20 +2,32 @@ package com.cloud.distribution.web.rest;
 
 import com.cloud.distribution.DistributionApp;
 
+import com.cloud.distribution.config.ApplicationProperties;
 import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
 
 import com.cloud.distribution.domain.Order;
 import com.cloud.distribution.domain.PayType;
 import com.cloud.distribution.domain.OrderType;
 import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.domain.OrderStatusHistory;
 import com.cloud.distribution.domain.Product;
 import com.cloud.distribution.repository.OrderRepository;
+import com.cloud.distribution.repository.OrderStatusHistoryRepository;
+import com.cloud.distribution.service.IdempotencyConflictException;
+import com.cloud.distribution.service.IdempotencyService;
+import com.cloud.distribution.service.OrderArchiver;
+import com.cloud.distribution.service.OrderExportService;
 import com.cloud.distribution.service.OrderService;
+import com.cloud.distribution.service.OrderTransitionService;
+import com.cloud.distribution.service.SalesRollupService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.OrderSearchRepository;
 import com.cloud.distribution.service.dto.OrderDTO;
+import com.cloud.distribution.service.dto.OrderTransitionDTO;
 import com.cloud.distribution.service.mapper.OrderMapper;
 import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
 import com.cloud.distribution.service.dto.OrderCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
 import com.cloud.distribution.service.OrderQueryService;
 
 import org.junit.Before;
@@ -25,8 +37,10 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -34,16 +48,24 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.Base64Utils;
 
 import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 import static com.cloud.distribution.web.rest.TestUtil.sameInstant;
 import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -86,9 +108,36 @@ public class OrderResourceIntTest {
     @Autowired
     private OrderSearchRepository orderSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private OrderQueryService orderQueryService;
 
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderExportService orderExportService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private OrderTransitionService orderTransitionService;
+
+    @Autowired
+    private OrderStatusHistoryRepository orderStatusHistoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -108,7 +157,8 @@ public class OrderResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final OrderResource orderResource = new OrderResource(orderService, orderQueryService);
+        final OrderResource orderResource = new OrderResource(orderService, orderQueryService, orderExportService,
+            salesRollupService, idempotencyService, applicationProperties, orderTransitionService);
         this.restOrderMockMvc = MockMvcBuilders.standaloneSetup(orderResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -162,11 +212,63 @@ public class OrderResourceIntTest {
         assertThat(testOrder.getCreatedDate()).isEqualTo(DEFAULT_CREATED_DATE);
         assertThat(testOrder.getUserId()).isEqualTo(DEFAULT_USER_ID);
 
-        // Validate the Order in Elasticsearch
+        // Validate the Order in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Order orderEs = orderSearchRepository.findOne(testOrder.getId());
         assertThat(orderEs).isEqualToComparingFieldByField(testOrder);
     }
 
+    @Test
+    @Transactional
+    public void createOrderWithIdempotencyKey() throws Exception {
+        int databaseSizeBeforeCreate = orderRepository.findAll().size();
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        // Create the Order
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        restOrderMockMvc.perform(post("/api/orders")
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderDTO)))
+            .andExpect(status().isCreated())
+            .andExpect(header().doesNotExist("Idempotent-Replayed"));
+        List<Order> orderList = orderRepository.findAll();
+        assertThat(orderList).hasSize(databaseSizeBeforeCreate + 1);
+        Long id = orderList.get(orderList.size() - 1).getId();
+
+        // Retry it, the first result is replayed without creating another order
+        restOrderMockMvc.perform(post("/api/orders")
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderDTO)))
+            .andExpect(status().isCreated())
+            .andExpect(header().string("Idempotent-Replayed", "true"))
+            .andExpect(jsonPath("$.id").value(id.intValue()));
+        assertThat(orderRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+
+        // Reusing the key for another order is rejected
+        orderDTO.setName(UPDATED_NAME);
+        restOrderMockMvc.perform(post("/api/orders")
+            .header("Idempotency-Key", idempotencyKey)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderDTO)))
+            .andExpect(status().isUnprocessableEntity());
+        assertThat(orderRepository.findAll()).hasSize(databaseSizeBeforeCreate + 1);
+    }
+
+    @Test
+    public void executeWithIdempotencyKeyInProgress() {
+        String idempotencyKey = UUID.randomUUID().toString();
+        try {
+            idempotencyService.execute("test", idempotencyKey, "request", () ->
+                idempotencyService.execute("test", idempotencyKey, "request", () -> "duplicate").getValue());
+            fail("IdempotencyConflictException expected");
+        } catch (IdempotencyConflictException e) {
+            // The failed request releases its key
+            assertThat(idempotencyService.execute("test", idempotencyKey, "request", () -> "retry").getValue()).isEqualTo("retry");
+        }
+    }
+
     @Test
     @Transactional
     public void createOrderWithExistingId() throws Exception {
@@ -187,6 +289,51 @@ public class OrderResourceIntTest {
         assertThat(orderList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    public void createOrdersInBulk() throws Exception {
+        int databaseSizeBeforeCreate = orderRepository.findAll().size();
+
+        // Create the Orders
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        OrderDTO otherOrderDTO = orderMapper.toDto(createEntity(em).name(UPDATED_NAME));
+        restOrderMockMvc.perform(post("/api/orders/_bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(orderDTO, otherOrderDTO))))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.[*].id").isNotEmpty())
+            .andExpect(jsonPath("$.[*].name").value(hasItem(UPDATED_NAME)));
+
+        // Validate the Orders in the database
+        List<Order> orderList = orderRepository.findAll();
+        assertThat(orderList).hasSize(databaseSizeBeforeCreate + 2);
+        Order testOrder = orderList.get(orderList.size() - 1);
+
+        // Validate the Orders in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
+        Order orderEs = orderSearchRepository.findOne(testOrder.getId());
+        assertThat(orderEs).isEqualToComparingFieldByField(testOrder);
+    }
+
+    @Test
+    @Transactional
+    public void createOrdersInBulkWithExistingId() throws Exception {
+        int databaseSizeBeforeCreate = orderRepository.findAll().size();
+
+        // An order with an existing ID cannot be created, so the whole batch must be rejected
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        OrderDTO existingOrderDTO = orderMapper.toDto(createEntity(em));
+        existingOrderDTO.setId(1L);
+        restOrderMockMvc.perform(post("/api/orders/_bulk")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(Arrays.asList(orderDTO, existingOrderDTO))))
+            .andExpect(status().isBadRequest());
+
+        // Validate the Order in the database
+        List<Order> orderList = orderRepository.findAll();
+        assertThat(orderList).hasSize(databaseSizeBeforeCreate);
+    }
+
     @Test
     @Transactional
     public void getAllOrders() throws Exception {
@@ -206,6 +353,51 @@ public class OrderResourceIntTest {
             .andExpect(jsonPath("$.[*].userId").value(hasItem(DEFAULT_USER_ID.intValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAllOrdersWithoutCount() throws Exception {
+        // Initialize the database
+        orderRepository.saveAndFlush(order);
+
+        // Get all the orderList, without total count
+        restOrderMockMvc.perform(get("/api/orders?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(order.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
+    @Test
+    @Transactional
+    public void getAllOrdersByKeyset() throws Exception {
+        // Initialize the database with two orders sharing the same createdDate, the id breaks the tie
+        order.setCreatedDate(UPDATED_CREATED_DATE);
+        orderRepository.saveAndFlush(order);
+        Order newerOrder = createEntity(em).createdDate(UPDATED_CREATED_DATE);
+        orderRepository.saveAndFlush(newerOrder);
+
+        // The first page holds the newer order and links to the next page, without total count
+        String nextCursor = new KeysetCursor(UPDATED_CREATED_DATE, newerOrder.getId()).encode();
+        restOrderMockMvc.perform(get("/api/orders?after=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[0].id").value(newerOrder.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + nextCursor + "&size=1>; rel=\"next\"")))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // The next page starts right after the cursor
+        restOrderMockMvc.perform(get("/api/orders?size=1&after=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(order.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllOrdersWithInvalidCursor() throws Exception {
+        restOrderMockMvc.perform(get("/api/orders?after=notacursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getOrder() throws Exception {
@@ -225,6 +417,85 @@ public class OrderResourceIntTest {
             .andExpect(jsonPath("$.userId").value(DEFAULT_USER_ID.intValue()));
     }
 
+    @Test
+    @Transactional
+    public void getOrderNotModified() throws Exception {
+        // Initialize the database
+        orderRepository.saveAndFlush(order);
+
+        String eTag = restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, startsWith("\"" + order.getId() + "-" + order.getVersion() + "-")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The client holds the current version
+        restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag))
+            .andExpect(content().string(""));
+
+        // An update changes the version
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        orderDTO.setName(UPDATED_NAME);
+        restOrderMockMvc.perform(put("/api/orders")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderDTO)))
+            .andExpect(status().isOk());
+
+        restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.name").value(UPDATED_NAME));
+    }
+
+    @Test
+    @Transactional
+    public void getOrderModifiedByProductRename() throws Exception {
+        // Initialize the database
+        Product product = ProductResourceIntTest.createEntity(em);
+        em.persist(product);
+        em.flush();
+        order.setProduct(product);
+        orderRepository.saveAndFlush(order);
+
+        String eTag = restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Renaming the product changes the product name shown by the order, but not the version of the order
+        Long version = order.getVersion();
+        product.setName("renamed");
+        em.flush();
+
+        restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG, not(eTag)))
+            .andExpect(jsonPath("$.version").value(version.intValue()))
+            .andExpect(jsonPath("$.productName").value("renamed"));
+    }
+
+    @Test
+    @Transactional
+    public void getOrderWithLookupNames() throws Exception {
+        // Initialize the database
+        PayType payType = PayTypeResourceIntTest.createEntity(em);
+        OrderStatus orderStatus = OrderStatusResourceIntTest.createEntity(em);
+        em.persist(payType);
+        em.persist(orderStatus);
+        order.setPayType(payType);
+        order.setOrderStatus(orderStatus);
+        orderRepository.saveAndFlush(order);
+        em.clear();
+
+        // The lookups are lazy, their names come from the lookup registry
+        restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.payTypeId").value(payType.getId().intValue()))
+            .andExpect(jsonPath("$.payTypeName").value(payType.getName()))
+            .andExpect(jsonPath("$.orderStatusId").value(orderStatus.getId().intValue()))
+            .andExpect(jsonPath("$.orderStatusName").value(orderStatus.getName()));
+    }
+
     @Test
     @Transactional
     public void getAllOrdersByNameIsEqualToSomething() throws Exception {
@@ -519,6 +790,26 @@ public class OrderResourceIntTest {
         defaultOrderShouldNotBeFound("payTypeId.equals=" + (payTypeId + 1));
     }
 
+    @Test
+    @Transactional
+    public void getAllOrdersWithPayTypeName() throws Exception {
+        // Initialize the database
+        PayType payType = PayTypeResourceIntTest.createEntity(em);
+        em.persist(payType);
+        em.flush();
+        order.setPayType(payType);
+        orderRepository.saveAndFlush(order);
+
+        // The projection resolves the name of the payType from the lookup registry, and leaves the other relationships empty
+        restOrderMockMvc.perform(get("/api/orders?payTypeId.equals=" + payType.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(order.getId().intValue()))
+            .andExpect(jsonPath("$.[0].version").value(order.getVersion().intValue()))
+            .andExpect(jsonPath("$.[0].payTypeId").value(payType.getId().intValue()))
+            .andExpect(jsonPath("$.[0].payTypeName").value(payType.getName()))
+            .andExpect(jsonPath("$.[0].productId").doesNotExist());
+    }
+
 
     @Test
     @Transactional
@@ -604,6 +895,194 @@ public class OrderResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void getArchivedOrder() throws Exception {
+        // Initialize the database, and move the order to the archive
+        orderRepository.saveAndFlush(order);
+        assertThat(orderArchiver.archive(UPDATED_CREATED_DATE)).isGreaterThanOrEqualTo(1);
+        em.clear();
+        assertThat(orderRepository.findOne(order.getId())).isNull();
+
+        // Get the order, from the archive
+        restOrderMockMvc.perform(get("/api/orders/{id}", order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(order.getId().intValue()))
+            .andExpect(jsonPath("$.code").value(DEFAULT_CODE.toString()))
+            .andExpect(jsonPath("$.createdDate").value(sameInstant(DEFAULT_CREATED_DATE)));
+
+        // Listings only read the archive when the created date range reaches it
+        restOrderMockMvc.perform(get("/api/orders?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(order.getId().intValue()))));
+        defaultOrderShouldBeFound("createdDate.lessThan=" + UPDATED_CREATED_DATE);
+        defaultOrderShouldBeFound("count=false&createdDate.lessThan=" + UPDATED_CREATED_DATE);
+    }
+
+    @Test
+    @Transactional
+    public void exportOrdersAsCsv() throws Exception {
+        // Initialize the database
+        orderRepository.saveAndFlush(order);
+
+        // Export the orders
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        orderExportService.export(new OrderCriteria(), OrderExportService.Format.CSV, outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertThat(lines[0]).startsWith("id,name,code,desc,amount,createdDate,userId,");
+        assertThat(lines).contains(order.getId() + "," + DEFAULT_NAME + "," + DEFAULT_CODE + "," + DEFAULT_DESC + "," +
+            DEFAULT_AMOUNT + "," + DEFAULT_CREATED_DATE.toInstant() + "," + DEFAULT_USER_ID + ",,,,,,,,");
+    }
+
+    @Test
+    @Transactional
+    public void exportOrdersAsNdjson() throws Exception {
+        // Initialize the database
+        orderRepository.saveAndFlush(order);
+
+        // Export the orders, one JSON document per line
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        orderExportService.export(new OrderCriteria(), OrderExportService.Format.NDJSON, outputStream);
+        String export = outputStream.toString(StandardCharsets.UTF_8.name());
+        assertThat(export).endsWith("}\n");
+        assertThat(export).contains("{\"id\":" + order.getId() + ",\"name\":\"" + DEFAULT_NAME + "\",\"code\":\"" + DEFAULT_CODE + "\"");
+    }
+
+    @Test
+    @Transactional
+    public void exportOrdersIsStreamed() throws Exception {
+        restOrderMockMvc.perform(get("/api/orders/_export?format=ndjson"))
+            .andExpect(status().isOk())
+            .andExpect(request().asyncStarted())
+            .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.ndjson\""));
+    }
+
+    @Test
+    @Transactional
+    public void exportOrdersWithUnsupportedFormat() throws Exception {
+        restOrderMockMvc.perform(get("/api/orders/_export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void getOrderStatsFollowsOrderChanges() throws Exception {
+        Product product = ProductResourceIntTest.createEntity(em);
+        em.persist(product);
+        em.flush();
+        String day = DEFAULT_CREATED_DATE.withZoneSameInstant(ZoneId.systemDefault()).toLocalDate().toString();
+        String stats = "/api/orders/_stats?from=" + day + "&to=" + day + "&groupBy=product";
+
+        // Create the order, the rollups are updated in the same transaction
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        orderDTO.setProductId(product.getId());
+        orderDTO = orderService.save(orderDTO);
+        restOrderMockMvc.perform(get(stats))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.groupBy").value("product"))
+            .andExpect(jsonPath("$.groups[?(@.id == " + product.getId() + ")].orderCount").value(hasItem(1)))
+            .andExpect(jsonPath("$.groups[?(@.id == " + product.getId() + ")].amountSum").value(hasItem(DEFAULT_AMOUNT.intValue())));
+
+        // Update its amount
+        orderDTO.setAmount(UPDATED_AMOUNT);
+        orderService.save(orderDTO);
+        restOrderMockMvc.perform(get(stats))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.groups[?(@.id == " + product.getId() + ")].orderCount").value(hasItem(1)))
+            .andExpect(jsonPath("$.groups[?(@.id == " + product.getId() + ")].amountSum").value(hasItem(UPDATED_AMOUNT.intValue())));
+
+        // Delete it
+        orderService.delete(orderDTO.getId());
+        restOrderMockMvc.perform(get(stats))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.groups[*].id").value(not(hasItem(product.getId().intValue()))));
+    }
+
+    @Test
+    @Transactional
+    public void getOrderStatsWithInvalidParameters() throws Exception {
+        restOrderMockMvc.perform(get("/api/orders/_stats?from=2017-12-31&to=2017-01-01"))
+            .andExpect(status().isBadRequest());
+        restOrderMockMvc.perform(get("/api/orders/_stats?from=2017-01-01&to=2017-12-31&groupBy=user"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void transitionOrder() throws Exception {
+        // Initialize the database with an order and an allowed transition
+        OrderStatus oldStatus = OrderStatusResourceIntTest.createEntity(em);
+        OrderStatus newStatus = OrderStatusResourceIntTest.createEntity(em);
+        em.persist(oldStatus);
+        em.persist(newStatus);
+        order.setOrderStatus(oldStatus);
+        orderRepository.saveAndFlush(order);
+        allowTransition(oldStatus, newStatus);
+        int historySizeBeforeTransition = orderStatusHistoryRepository.findAll().size();
+
+        // Move the order to the new status
+        restOrderMockMvc.perform(post("/api/orders/{id}/transition", order.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(oldStatus, newStatus))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(order.getId().intValue()))
+            .andExpect(jsonPath("$.orderStatusId").value(newStatus.getId().intValue()));
+        assertThat(orderRepository.findOne(order.getId()).getOrderStatus().getId()).isEqualTo(newStatus.getId());
+        List<OrderStatusHistory> histories = orderStatusHistoryRepository.findAll();
+        assertThat(histories).hasSize(historySizeBeforeTransition + 1);
+        OrderStatusHistory history = histories.get(histories.size() - 1);
+        assertThat(history.getOrder().getId()).isEqualTo(order.getId());
+        assertThat(history.getOldStatus().getId()).isEqualTo(oldStatus.getId());
+        assertThat(history.getNewStatus().getId()).isEqualTo(newStatus.getId());
+        assertThat(history.getOperatorCode()).isEqualTo(DEFAULT_CODE);
+
+        // The same transition now loses the race
+        restOrderMockMvc.perform(post("/api/orders/{id}/transition", order.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(oldStatus, newStatus))))
+            .andExpect(status().isConflict());
+        assertThat(orderStatusHistoryRepository.findAll()).hasSize(historySizeBeforeTransition + 1);
+    }
+
+    @Test
+    @Transactional
+    public void transitionOrderWithInvalidTransition() throws Exception {
+        OrderStatus oldStatus = OrderStatusResourceIntTest.createEntity(em);
+        OrderStatus newStatus = OrderStatusResourceIntTest.createEntity(em);
+        em.persist(oldStatus);
+        em.persist(newStatus);
+        order.setOrderStatus(oldStatus);
+        orderRepository.saveAndFlush(order);
+        allowTransition(oldStatus, newStatus);
+
+        // The transitions are one-way
+        restOrderMockMvc.perform(post("/api/orders/{id}/transition", order.getId())
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(newStatus, oldStatus))))
+            .andExpect(status().isBadRequest());
+
+        // An allowed transition of an unknown order
+        restOrderMockMvc.perform(post("/api/orders/{id}/transition", Long.MAX_VALUE)
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(oldStatus, newStatus))))
+            .andExpect(status().isNotFound());
+    }
+
+    private void allowTransition(OrderStatus from, OrderStatus to) {
+        em.flush();
+        jdbcTemplate.update("insert into order_status_transition (from_status_id, to_status_id) values (?, ?)",
+            from.getId(), to.getId());
+        orderTransitionService.reload();
+    }
+
+    private static OrderTransitionDTO transition(OrderStatus from, OrderStatus to) {
+        OrderTransitionDTO transitionDTO = new OrderTransitionDTO();
+        transitionDTO.setFromStatusId(from.getId());
+        transitionDTO.setToStatusId(to.getId());
+        transitionDTO.setOperatorCode(DEFAULT_CODE);
+        return transitionDTO;
+    }
+
     @Test
     @Transactional
     public void getNonExistingOrder() throws Exception {
@@ -649,11 +1128,29 @@ public class OrderResourceIntTest {
         assertThat(testOrder.getCreatedDate()).isEqualTo(UPDATED_CREATED_DATE);
         assertThat(testOrder.getUserId()).isEqualTo(UPDATED_USER_ID);
 
-        // Validate the Order in Elasticsearch
+        // Validate the Order in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Order orderEs = orderSearchRepository.findOne(testOrder.getId());
         assertThat(orderEs).isEqualToComparingFieldByField(testOrder);
     }
 
+    @Test
+    @Transactional
+    public void updateOrderWithStaleVersion() throws Exception {
+        // Initialize the database
+        orderRepository.saveAndFlush(order);
+
+        // The order was updated since this version was read
+        OrderDTO orderDTO = orderMapper.toDto(order);
+        orderDTO.setVersion(order.getVersion() - 1);
+        orderDTO.setName(UPDATED_NAME);
+
+        restOrderMockMvc.perform(put("/api/orders")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderDTO)))
+            .andExpect(status().isConflict());
+    }
+
     @Test
     @Transactional
     public void updateNonExistingOrder() throws Exception {
@@ -686,7 +1183,8 @@ public class OrderResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean orderExistsInEs = orderSearchRepository.exists(order.getId());
         assertThat(orderExistsInEs).isFalse();
 
@@ -10,12 +10,16 @@ import com.cloud.distribution.domain.Order;
 import com.cloud.distribution.domain.OrderStatus;
 import com.cloud.distribution.domain.OrderStatus;
 import com.cloud.distribution.repository.OrderStatusHistoryRepository;
+import com.cloud.distribution.service.OrderArchiver;
 import com.cloud.distribution.service.OrderStatusHistoryService;
+import com.cloud.distribution.service.OrderStatusHistoryWriter;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.OrderStatusHistorySearchRepository;
 import com.cloud.distribution.service.dto.OrderStatusHistoryDTO;
 import com.cloud.distribution.service.mapper.OrderStatusHistoryMapper;
 import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
 import com.cloud.distribution.service.dto.OrderStatusHistoryCriteria;
+import com.cloud.distribution.service.dto.KeysetCursor;
 import com.cloud.distribution.service.OrderStatusHistoryQueryService;
 
 import org.junit.Before;
@@ -25,6 +29,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -43,7 +48,9 @@ import java.util.List;
 import static com.cloud.distribution.web.rest.TestUtil.sameInstant;
 import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -77,9 +84,18 @@ public class OrderStatusHistoryResourceIntTest {
     @Autowired
     private OrderStatusHistorySearchRepository orderStatusHistorySearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private OrderStatusHistoryQueryService orderStatusHistoryQueryService;
 
+    @Autowired
+    private OrderStatusHistoryWriter orderStatusHistoryWriter;
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -99,7 +115,7 @@ public class OrderStatusHistoryResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final OrderStatusHistoryResource orderStatusHistoryResource = new OrderStatusHistoryResource(orderStatusHistoryService, orderStatusHistoryQueryService);
+        final OrderStatusHistoryResource orderStatusHistoryResource = new OrderStatusHistoryResource(orderStatusHistoryService, orderStatusHistoryQueryService, orderStatusHistoryWriter);
         this.restOrderStatusHistoryMockMvc = MockMvcBuilders.standaloneSetup(orderStatusHistoryResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -147,7 +163,8 @@ public class OrderStatusHistoryResourceIntTest {
         assertThat(testOrderStatusHistory.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testOrderStatusHistory.getOperatorCode()).isEqualTo(DEFAULT_OPERATOR_CODE);
 
-        // Validate the OrderStatusHistory in Elasticsearch
+        // Validate the OrderStatusHistory in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderStatusHistory orderStatusHistoryEs = orderStatusHistorySearchRepository.findOne(testOrderStatusHistory.getId());
         assertThat(orderStatusHistoryEs).isEqualToComparingFieldByField(testOrderStatusHistory);
     }
@@ -172,6 +189,43 @@ public class OrderStatusHistoryResourceIntTest {
         assertThat(orderStatusHistoryList).hasSize(databaseSizeBeforeCreate);
     }
 
+    @Test
+    @Transactional
+    public void appendOrderStatusHistory() throws Exception {
+        int databaseSizeBeforeCreate = orderStatusHistoryRepository.findAll().size();
+
+        // Append the OrderStatusHistory to the journal
+        OrderStatusHistoryDTO orderStatusHistoryDTO = orderStatusHistoryMapper.toDto(orderStatusHistory);
+        restOrderStatusHistoryMockMvc.perform(post("/api/order-status-histories/_append")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderStatusHistoryDTO)))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.operatorCode").value(DEFAULT_OPERATOR_CODE));
+        assertThat(orderStatusHistoryWriter.getBacklog()).isGreaterThan(0);
+
+        // Validate the OrderStatusHistory in the database, once the journal is flushed
+        orderStatusHistoryWriter.flushPending();
+        assertThat(orderStatusHistoryWriter.getBacklog()).isEqualTo(0);
+        List<OrderStatusHistory> orderStatusHistoryList = orderStatusHistoryRepository.findAll();
+        assertThat(orderStatusHistoryList).hasSize(databaseSizeBeforeCreate + 1);
+        OrderStatusHistory testOrderStatusHistory = orderStatusHistoryList.get(orderStatusHistoryList.size() - 1);
+        assertThat(testOrderStatusHistory.getModifiedTime()).isEqualTo(DEFAULT_MODIFIED_TIME);
+        assertThat(testOrderStatusHistory.getDesc()).isEqualTo(DEFAULT_DESC);
+        assertThat(testOrderStatusHistory.getOperatorCode()).isEqualTo(DEFAULT_OPERATOR_CODE);
+    }
+
+    @Test
+    @Transactional
+    public void appendOrderStatusHistoryWithExistingId() throws Exception {
+        // An entity with an existing ID cannot be appended, so this API call must fail
+        orderStatusHistory.setId(1L);
+        OrderStatusHistoryDTO orderStatusHistoryDTO = orderStatusHistoryMapper.toDto(orderStatusHistory);
+        restOrderStatusHistoryMockMvc.perform(post("/api/order-status-histories/_append")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(orderStatusHistoryDTO)))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getAllOrderStatusHistories() throws Exception {
@@ -188,6 +242,51 @@ public class OrderStatusHistoryResourceIntTest {
             .andExpect(jsonPath("$.[*].operatorCode").value(hasItem(DEFAULT_OPERATOR_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllOrderStatusHistoriesWithoutCount() throws Exception {
+        // Initialize the database
+        orderStatusHistoryRepository.saveAndFlush(orderStatusHistory);
+
+        // Get all the orderStatusHistoryList, without total count
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(orderStatusHistory.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
+    @Test
+    @Transactional
+    public void getAllOrderStatusHistoriesByKeyset() throws Exception {
+        // Initialize the database with two orderStatusHistorys sharing the same modifiedTime, the id breaks the tie
+        orderStatusHistory.setModifiedTime(UPDATED_MODIFIED_TIME);
+        orderStatusHistoryRepository.saveAndFlush(orderStatusHistory);
+        OrderStatusHistory newerOrderStatusHistory = createEntity(em).modifiedTime(UPDATED_MODIFIED_TIME);
+        orderStatusHistoryRepository.saveAndFlush(newerOrderStatusHistory);
+
+        // The first page holds the newer orderStatusHistory and links to the next page, without total count
+        String nextCursor = new KeysetCursor(UPDATED_MODIFIED_TIME, newerOrderStatusHistory.getId()).encode();
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?after=&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[0].id").value(newerOrderStatusHistory.getId().intValue()))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("after=" + nextCursor + "&size=1>; rel=\"next\"")))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+
+        // The next page starts right after the cursor
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?size=1&after=" + nextCursor))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[0].id").value(orderStatusHistory.getId().intValue()));
+    }
+
+    @Test
+    @Transactional
+    public void getAllOrderStatusHistoriesWithInvalidCursor() throws Exception {
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?after=notacursor"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getOrderStatusHistory() throws Exception {
@@ -448,7 +547,8 @@ public class OrderStatusHistoryResourceIntTest {
         assertThat(testOrderStatusHistory.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testOrderStatusHistory.getOperatorCode()).isEqualTo(UPDATED_OPERATOR_CODE);
 
-        // Validate the OrderStatusHistory in Elasticsearch
+        // Validate the OrderStatusHistory in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderStatusHistory orderStatusHistoryEs = orderStatusHistorySearchRepository.findOne(testOrderStatusHistory.getId());
         assertThat(orderStatusHistoryEs).isEqualToComparingFieldByField(testOrderStatusHistory);
     }
@@ -485,7 +585,8 @@ public class OrderStatusHistoryResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean orderStatusHistoryExistsInEs = orderStatusHistorySearchRepository.exists(orderStatusHistory.getId());
         assertThat(orderStatusHistoryExistsInEs).isFalse();
 
@@ -494,6 +595,37 @@ public class OrderStatusHistoryResourceIntTest {
         assertThat(orderStatusHistoryList).hasSize(databaseSizeBeforeDelete - 1);
     }
 
+    @Test
+    @Transactional
+    public void getArchivedOrderStatusHistory() throws Exception {
+        // Initialize the database, and move the order and its history to the archive
+        Order order = OrderResourceIntTest.createEntity(em);
+        em.persist(order);
+        orderStatusHistory.setOrder(order);
+        orderStatusHistoryRepository.saveAndFlush(orderStatusHistory);
+        assertThat(orderArchiver.archive(UPDATED_MODIFIED_TIME)).isGreaterThanOrEqualTo(1);
+        em.clear();
+        assertThat(orderStatusHistoryRepository.findOne(orderStatusHistory.getId())).isNull();
+
+        // Get the history, from the archive
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories/{id}", orderStatusHistory.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(orderStatusHistory.getId().intValue()))
+            .andExpect(jsonPath("$.orderId").value(order.getId().intValue()))
+            .andExpect(jsonPath("$.operatorCode").value(DEFAULT_OPERATOR_CODE));
+
+        // Listings only read the archive when the criteria reach it
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(not(hasItem(orderStatusHistory.getId().intValue()))));
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?sort=id,desc&orderId.equals=" + order.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(orderStatusHistory.getId().intValue())));
+        restOrderStatusHistoryMockMvc.perform(get("/api/order-status-histories?sort=id,desc&modifiedTime.lessThan=" + UPDATED_MODIFIED_TIME))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(orderStatusHistory.getId().intValue())));
+    }
+
     @Test
     @Transactional
     public void searchOrderStatusHistory() throws Exception {
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.OrderStatus;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.OrderStatusRepository;
 import com.cloud.distribution.service.OrderStatusService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.OrderStatusSearchRepository;
 import com.cloud.distribution.service.dto.OrderStatusDTO;
 import com.cloud.distribution.service.mapper.OrderStatusMapper;
@@ -69,6 +70,9 @@ public class OrderStatusResourceIntTest {
     @Autowired
     private OrderStatusSearchRepository orderStatusSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private OrderStatusQueryService orderStatusQueryService;
 
@@ -139,7 +143,8 @@ public class OrderStatusResourceIntTest {
         assertThat(testOrderStatus.getCode()).isEqualTo(DEFAULT_CODE);
         assertThat(testOrderStatus.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the OrderStatus in Elasticsearch
+        // Validate the OrderStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderStatus orderStatusEs = orderStatusSearchRepository.findOne(testOrderStatus.getId());
         assertThat(orderStatusEs).isEqualToComparingFieldByField(testOrderStatus);
     }
@@ -180,6 +185,20 @@ public class OrderStatusResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllOrderStatusesWithoutCount() throws Exception {
+        // Initialize the database
+        orderStatusRepository.saveAndFlush(orderStatus);
+
+        // Get all the orderStatusList, without total count
+        restOrderStatusMockMvc.perform(get("/api/order-statuses?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(orderStatus.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getOrderStatus() throws Exception {
@@ -356,7 +375,8 @@ public class OrderStatusResourceIntTest {
         assertThat(testOrderStatus.getCode()).isEqualTo(UPDATED_CODE);
         assertThat(testOrderStatus.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the OrderStatus in Elasticsearch
+        // Validate the OrderStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderStatus orderStatusEs = orderStatusSearchRepository.findOne(testOrderStatus.getId());
         assertThat(orderStatusEs).isEqualToComparingFieldByField(testOrderStatus);
     }
@@ -393,7 +413,8 @@ public class OrderStatusResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean orderStatusExistsInEs = orderStatusSearchRepository.exists(orderStatus.getId());
         assertThat(orderStatusExistsInEs).isFalse();
 
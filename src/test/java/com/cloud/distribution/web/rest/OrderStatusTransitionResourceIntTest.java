@@ -0,0 +1,126 @@
+package com.cloud.distribution.web.rest;
+
+import com.cloud.distribution.DistributionApp;
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+import com.cloud.distribution.domain.OrderStatus;
+import com.cloud.distribution.repository.OrderStatusRepository;
+import com.cloud.distribution.service.OrderStatusService;
+import com.cloud.distribution.service.OrderTransitionService;
+import com.cloud.distribution.service.dto.OrderTransitionDTO;
+import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Test class for the OrderStatusTransitionResource REST controller.
+ *
+ * @see OrderStatusTransitionResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+public class OrderStatusTransitionResourceIntTest {
+
+    @Autowired
+    private OrderTransitionService orderTransitionService;
+
+    @Autowired
+    private OrderStatusService orderStatusService;
+
+    @Autowired
+    private OrderStatusRepository orderStatusRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restOrderStatusTransitionMockMvc;
+
+    @Before
+    public void setup() {
+        final OrderStatusTransitionResource orderStatusTransitionResource =
+            new OrderStatusTransitionResource(orderTransitionService, orderStatusService);
+        this.restOrderStatusTransitionMockMvc = MockMvcBuilders.standaloneSetup(orderStatusTransitionResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Test
+    public void seededTransitions() {
+        // The changelog seeds the transitions of the seeded statuses
+        assertThat(jdbcTemplate.queryForObject("select count(*) from order_status_transition t " +
+            "join order_status f on f.id = t.from_status_id join order_status s on s.id = t.to_status_id " +
+            "where f.code = 'SHIPPED' and s.code = 'COMPLETED'", Integer.class)).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @Transactional
+    public void allowAndForbidTransition() throws Exception {
+        OrderStatus from = orderStatusRepository.saveAndFlush(new OrderStatus().code("AAAAAAAAAA"));
+        OrderStatus to = orderStatusRepository.saveAndFlush(new OrderStatus().code("BBBBBBBBBB"));
+
+        restOrderStatusTransitionMockMvc.perform(post("/api/order-status-transitions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(from.getId(), to.getId()))))
+            .andExpect(status().isOk());
+        restOrderStatusTransitionMockMvc.perform(get("/api/order-status-transitions"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].fromStatusId").value(hasItem(from.getId().intValue())));
+
+        // Allowing it again is a no-op
+        restOrderStatusTransitionMockMvc.perform(post("/api/order-status-transitions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(from.getId(), to.getId()))))
+            .andExpect(status().isOk());
+
+        restOrderStatusTransitionMockMvc.perform(delete("/api/order-status-transitions?fromStatusId={from}&toStatusId={to}",
+            from.getId(), to.getId()))
+            .andExpect(status().isOk());
+        restOrderStatusTransitionMockMvc.perform(delete("/api/order-status-transitions?fromStatusId={from}&toStatusId={to}",
+            from.getId(), to.getId()))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void allowTransitionOfUnknownStatus() throws Exception {
+        OrderStatus from = orderStatusRepository.saveAndFlush(new OrderStatus().code("AAAAAAAAAA"));
+
+        restOrderStatusTransitionMockMvc.perform(post("/api/order-status-transitions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(from.getId(), Long.MAX_VALUE))))
+            .andExpect(status().isBadRequest());
+        restOrderStatusTransitionMockMvc.perform(post("/api/order-status-transitions")
+            .contentType(TestUtil.APPLICATION_JSON_UTF8)
+            .content(TestUtil.convertObjectToJsonBytes(transition(from.getId(), null))))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static OrderTransitionDTO transition(Long fromStatusId, Long toStatusId) {
+        OrderTransitionDTO transitionDTO = new OrderTransitionDTO();
+        transitionDTO.setFromStatusId(fromStatusId);
+        transitionDTO.setToStatusId(toStatusId);
+        return transitionDTO;
+    }
+}
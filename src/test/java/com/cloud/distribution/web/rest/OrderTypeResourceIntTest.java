@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.OrderType;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.OrderTypeRepository;
 import com.cloud.distribution.service.OrderTypeService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.OrderTypeSearchRepository;
 import com.cloud.distribution.service.dto.OrderTypeDTO;
 import com.cloud.distribution.service.mapper.OrderTypeMapper;
@@ -69,6 +70,9 @@ public class OrderTypeResourceIntTest {
     @Autowired
     private OrderTypeSearchRepository orderTypeSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private OrderTypeQueryService orderTypeQueryService;
 
@@ -139,7 +143,8 @@ public class OrderTypeResourceIntTest {
         assertThat(testOrderType.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testOrderType.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the OrderType in Elasticsearch
+        // Validate the OrderType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderType orderTypeEs = orderTypeSearchRepository.findOne(testOrderType.getId());
         assertThat(orderTypeEs).isEqualToComparingFieldByField(testOrderType);
     }
@@ -180,6 +185,20 @@ public class OrderTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllOrderTypesWithoutCount() throws Exception {
+        // Initialize the database
+        orderTypeRepository.saveAndFlush(orderType);
+
+        // Get all the orderTypeList, without total count
+        restOrderTypeMockMvc.perform(get("/api/order-types?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(orderType.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getOrderType() throws Exception {
@@ -356,7 +375,8 @@ public class OrderTypeResourceIntTest {
         assertThat(testOrderType.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testOrderType.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the OrderType in Elasticsearch
+        // Validate the OrderType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         OrderType orderTypeEs = orderTypeSearchRepository.findOne(testOrderType.getId());
         assertThat(orderTypeEs).isEqualToComparingFieldByField(testOrderType);
     }
@@ -393,7 +413,8 @@ public class OrderTypeResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean orderTypeExistsInEs = orderTypeSearchRepository.exists(orderType.getId());
         assertThat(orderTypeExistsInEs).isFalse();
 
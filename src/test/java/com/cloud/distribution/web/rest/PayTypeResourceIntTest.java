@@ -8,10 +8,12 @@ import com.cloud.distribution.domain.PayType;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.PayTypeRepository;
 import com.cloud.distribution.service.PayTypeService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.PayTypeSearchRepository;
 import com.cloud.distribution.service.dto.PayTypeDTO;
 import com.cloud.distribution.service.mapper.PayTypeMapper;
 import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
+import com.cloud.distribution.web.rest.util.PaginationUtil;
 import com.cloud.distribution.service.dto.PayTypeCriteria;
 import com.cloud.distribution.service.PayTypeQueryService;
 
@@ -35,6 +37,7 @@ import java.util.List;
 
 import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasItem;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -69,6 +72,9 @@ public class PayTypeResourceIntTest {
     @Autowired
     private PayTypeSearchRepository payTypeSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private PayTypeQueryService payTypeQueryService;
 
@@ -139,7 +145,8 @@ public class PayTypeResourceIntTest {
         assertThat(testPayType.getCode()).isEqualTo(DEFAULT_CODE);
         assertThat(testPayType.getDesc()).isEqualTo(DEFAULT_DESC);
 
-        // Validate the PayType in Elasticsearch
+        // Validate the PayType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         PayType payTypeEs = payTypeSearchRepository.findOne(testPayType.getId());
         assertThat(payTypeEs).isEqualToComparingFieldByField(testPayType);
     }
@@ -180,6 +187,20 @@ public class PayTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllPayTypesWithoutCount() throws Exception {
+        // Initialize the database
+        payTypeRepository.saveAndFlush(payType);
+
+        // Get all the payTypeList, without total count
+        restPayTypeMockMvc.perform(get("/api/pay-types?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(payType.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getPayType() throws Exception {
@@ -356,7 +377,8 @@ public class PayTypeResourceIntTest {
         assertThat(testPayType.getCode()).isEqualTo(UPDATED_CODE);
         assertThat(testPayType.getDesc()).isEqualTo(UPDATED_DESC);
 
-        // Validate the PayType in Elasticsearch
+        // Validate the PayType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         PayType payTypeEs = payTypeSearchRepository.findOne(testPayType.getId());
         assertThat(payTypeEs).isEqualToComparingFieldByField(testPayType);
     }
@@ -393,7 +415,8 @@ public class PayTypeResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean payTypeExistsInEs = payTypeSearchRepository.exists(payType.getId());
         assertThat(payTypeExistsInEs).isFalse();
 
@@ -419,6 +442,38 @@ public class PayTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].desc").value(hasItem(DEFAULT_DESC.toString())));
     }
 
+    @Test
+    @Transactional
+    public void searchPayTypeByCursor() throws Exception {
+        // Initialize the database
+        PayType[] payTypes = new PayType[3];
+        for (int i = 0; i < payTypes.length; i++) {
+            payTypes[i] = createEntity(em);
+            payTypeRepository.saveAndFlush(payTypes[i]);
+            payTypeSearchRepository.save(payTypes[i]);
+        }
+
+        // Read the results by slices of 2
+        String next = restPayTypeMockMvc.perform(get("/api/_search/pay-types?query=name:" + DEFAULT_NAME + "&size=2&after="))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(jsonPath("$.[*].id").value(contains(payTypes[0].getId().intValue(), payTypes[1].getId().intValue())))
+            .andReturn().getResponse().getHeader(PaginationUtil.NEXT_CURSOR_HEADER);
+        assertThat(next).isNotNull();
+
+        restPayTypeMockMvc.perform(get("/api/_search/pay-types?query=name:" + DEFAULT_NAME + "&size=2&after=" + next))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist(PaginationUtil.NEXT_CURSOR_HEADER))
+            .andExpect(jsonPath("$.[*].id").value(contains(payTypes[2].getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void searchPayTypeWithInvalidCursor() throws Exception {
+        restPayTypeMockMvc.perform(get("/api/_search/pay-types?query=name:" + DEFAULT_NAME + "&after=invalid"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void equalsVerifier() throws Exception {
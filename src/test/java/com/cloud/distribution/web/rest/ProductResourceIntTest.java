@@ -2,6 +2,7 @@ package com.cloud.distribution.web.rest;
 
 import com.cloud.distribution.DistributionApp;
 
+import com.cloud.distribution.config.ApplicationProperties;
 import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
 
 import com.cloud.distribution.domain.Product;
@@ -10,6 +11,8 @@ import com.cloud.distribution.domain.ProductStatus;
 import com.cloud.distribution.domain.ProductType;
 import com.cloud.distribution.repository.ProductRepository;
 import com.cloud.distribution.service.ProductService;
+import com.cloud.distribution.service.ProductStockService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.ProductSearchRepository;
 import com.cloud.distribution.service.dto.ProductDTO;
 import com.cloud.distribution.service.mapper.ProductMapper;
@@ -24,6 +27,7 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -38,6 +42,7 @@ import java.util.List;
 import static com.cloud.distribution.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -74,9 +79,18 @@ public class ProductResourceIntTest {
     @Autowired
     private ProductSearchRepository productSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private ProductQueryService productQueryService;
 
+    @Autowired
+    private ProductStockService productStockService;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -96,7 +110,8 @@ public class ProductResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final ProductResource productResource = new ProductResource(productService, productQueryService);
+        final ProductResource productResource = new ProductResource(productService, productQueryService, productStockService,
+            applicationProperties);
         this.restProductMockMvc = MockMvcBuilders.standaloneSetup(productResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -146,7 +161,8 @@ public class ProductResourceIntTest {
         assertThat(testProduct.getPrice()).isEqualTo(DEFAULT_PRICE);
         assertThat(testProduct.getRemains()).isEqualTo(DEFAULT_REMAINS);
 
-        // Validate the Product in Elasticsearch
+        // Validate the Product in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Product productEs = productSearchRepository.findOne(testProduct.getId());
         assertThat(productEs).isEqualToComparingFieldByField(testProduct);
     }
@@ -188,6 +204,20 @@ public class ProductResourceIntTest {
             .andExpect(jsonPath("$.[*].remains").value(hasItem(DEFAULT_REMAINS.intValue())));
     }
 
+    @Test
+    @Transactional
+    public void getAllProductsWithoutCount() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Get all the productList, without total count
+        restProductMockMvc.perform(get("/api/products?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(product.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getProduct() throws Exception {
@@ -205,6 +235,33 @@ public class ProductResourceIntTest {
             .andExpect(jsonPath("$.remains").value(DEFAULT_REMAINS.intValue()));
     }
 
+    @Test
+    @Transactional
+    public void getProductNotModified() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        String eTag = restProductMockMvc.perform(get("/api/products/{id}", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG,
+                startsWith("\"" + product.getId() + "-" + product.getVersion() + "-" + DEFAULT_REMAINS + "-")))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // The client holds the current version
+        restProductMockMvc.perform(get("/api/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isNotModified())
+            .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+        // A reservation changes the remains, but not the version
+        productStockService.reserve(product.getId(), 1);
+        em.clear();
+
+        restProductMockMvc.perform(get("/api/products/{id}", product.getId()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.ETAG,
+                startsWith("\"" + product.getId() + "-" + product.getVersion() + "-" + (DEFAULT_REMAINS - 1) + "-")));
+    }
+
     @Test
     @Transactional
     public void getAllProductsByNameIsEqualToSomething() throws Exception {
@@ -458,6 +515,97 @@ public class ProductResourceIntTest {
     }
 
 
+    @Test
+    @Transactional
+    public void reserveAndReleaseProduct() throws Exception {
+        // Initialize the database
+        productRepository.saveAndFlush(product);
+
+        // Reserve the whole remains
+        restProductMockMvc.perform(post("/api/products/{id}/reserve?quantity={quantity}", product.getId(), DEFAULT_REMAINS))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true))
+            .andExpect(jsonPath("$.remains").value(0));
+
+        // Nothing is left to reserve
+        restProductMockMvc.perform(post("/api/products/{id}/reserve", product.getId()))
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.success").value(false))
+            .andExpect(jsonPath("$.remains").value(0));
+
+        // Release it
+        restProductMockMvc.perform(post("/api/products/{id}/release?quantity={quantity}", product.getId(), DEFAULT_REMAINS))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.success").value(true))
+            .andExpect(jsonPath("$.remains").value(DEFAULT_REMAINS.intValue()));
+
+        // The entity is read again from the database
+        em.clear();
+        assertThat(productRepository.findOne(product.getId()).getRemains()).isEqualTo(DEFAULT_REMAINS);
+    }
+
+    @Test
+    @Transactional
+    public void reserveShardedProduct() throws Exception {
+        // Initialize the database, and split the stock in 4 shards
+        productRepository.saveAndFlush(product.remains(10L));
+        restProductMockMvc.perform(post("/api/products/{id}/shards?count=4", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.remains").value(10));
+
+        // Reservations are spread on the shards, until the whole stock is taken
+        restProductMockMvc.perform(post("/api/products/{id}/reserve?quantity=3", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.remains").value(7));
+        restProductMockMvc.perform(post("/api/products/{id}/reserve?quantity=7", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.remains").value(0));
+        restProductMockMvc.perform(post("/api/products/{id}/reserve", product.getId()))
+            .andExpect(status().isConflict());
+        restProductMockMvc.perform(post("/api/products/{id}/release?quantity=2", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.remains").value(2));
+
+        // The product exposes the sum of its shards
+        em.clear();
+        restProductMockMvc.perform(get("/api/products/{id}", product.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.remains").value(2));
+
+        // Merge the stock back into the product
+        restProductMockMvc.perform(post("/api/products/{id}/shards?count=0", product.getId()))
+            .andExpect(status().isOk());
+        em.clear();
+        Product unshardedProduct = productRepository.findOne(product.getId());
+        assertThat(unshardedProduct.getRemains()).isEqualTo(2L);
+        assertThat(unshardedProduct.getShardedRemains()).isNull();
+    }
+
+    @Test
+    @Transactional
+    public void shardProductWithInvalidCount() throws Exception {
+        productRepository.saveAndFlush(product);
+
+        restProductMockMvc.perform(post("/api/products/{id}/shards?count=-1", product.getId()))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @Transactional
+    public void reserveNonExistingProduct() throws Exception {
+        restProductMockMvc.perform(post("/api/products/{id}/reserve", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void reserveProductWithInvalidQuantity() throws Exception {
+        productRepository.saveAndFlush(product);
+
+        restProductMockMvc.perform(post("/api/products/{id}/reserve?quantity=0", product.getId()))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getNonExistingProduct() throws Exception {
@@ -497,9 +645,11 @@ public class ProductResourceIntTest {
         assertThat(testProduct.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testProduct.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testProduct.getPrice()).isEqualTo(UPDATED_PRICE);
-        assertThat(testProduct.getRemains()).isEqualTo(UPDATED_REMAINS);
+        // The remains are only changed by the reservations and releases
+        assertThat(testProduct.getRemains()).isEqualTo(DEFAULT_REMAINS);
 
-        // Validate the Product in Elasticsearch
+        // Validate the Product in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Product productEs = productSearchRepository.findOne(testProduct.getId());
         assertThat(productEs).isEqualToComparingFieldByField(testProduct);
     }
@@ -536,7 +686,8 @@ public class ProductResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean productExistsInEs = productSearchRepository.exists(product.getId());
         assertThat(productExistsInEs).isFalse();
 
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.ProductStatus;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.ProductStatusRepository;
 import com.cloud.distribution.service.ProductStatusService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.ProductStatusSearchRepository;
 import com.cloud.distribution.service.dto.ProductStatusDTO;
 import com.cloud.distribution.service.mapper.ProductStatusMapper;
@@ -69,6 +70,9 @@ public class ProductStatusResourceIntTest {
     @Autowired
     private ProductStatusSearchRepository productStatusSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private ProductStatusQueryService productStatusQueryService;
 
@@ -139,7 +143,8 @@ public class ProductStatusResourceIntTest {
         assertThat(testProductStatus.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testProductStatus.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the ProductStatus in Elasticsearch
+        // Validate the ProductStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         ProductStatus productStatusEs = productStatusSearchRepository.findOne(testProductStatus.getId());
         assertThat(productStatusEs).isEqualToComparingFieldByField(testProductStatus);
     }
@@ -180,6 +185,20 @@ public class ProductStatusResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllProductStatusesWithoutCount() throws Exception {
+        // Initialize the database
+        productStatusRepository.saveAndFlush(productStatus);
+
+        // Get all the productStatusList, without total count
+        restProductStatusMockMvc.perform(get("/api/product-statuses?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productStatus.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getProductStatus() throws Exception {
@@ -356,7 +375,8 @@ public class ProductStatusResourceIntTest {
         assertThat(testProductStatus.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testProductStatus.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the ProductStatus in Elasticsearch
+        // Validate the ProductStatus in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         ProductStatus productStatusEs = productStatusSearchRepository.findOne(testProductStatus.getId());
         assertThat(productStatusEs).isEqualToComparingFieldByField(testProductStatus);
     }
@@ -393,7 +413,8 @@ public class ProductStatusResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean productStatusExistsInEs = productStatusSearchRepository.exists(productStatus.getId());
         assertThat(productStatusExistsInEs).isFalse();
 
@@ -8,6 +8,7 @@ import com.cloud.distribution.domain.ProductType;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.ProductTypeRepository;
 import com.cloud.distribution.service.ProductTypeService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.ProductTypeSearchRepository;
 import com.cloud.distribution.service.dto.ProductTypeDTO;
 import com.cloud.distribution.service.mapper.ProductTypeMapper;
@@ -69,6 +70,9 @@ public class ProductTypeResourceIntTest {
     @Autowired
     private ProductTypeSearchRepository productTypeSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private ProductTypeQueryService productTypeQueryService;
 
@@ -139,7 +143,8 @@ public class ProductTypeResourceIntTest {
         assertThat(testProductType.getDesc()).isEqualTo(DEFAULT_DESC);
         assertThat(testProductType.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the ProductType in Elasticsearch
+        // Validate the ProductType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         ProductType productTypeEs = productTypeSearchRepository.findOne(testProductType.getId());
         assertThat(productTypeEs).isEqualToComparingFieldByField(testProductType);
     }
@@ -180,6 +185,20 @@ public class ProductTypeResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllProductTypesWithoutCount() throws Exception {
+        // Initialize the database
+        productTypeRepository.saveAndFlush(productType);
+
+        // Get all the productTypeList, without total count
+        restProductTypeMockMvc.perform(get("/api/product-types?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(productType.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getProductType() throws Exception {
@@ -356,7 +375,8 @@ public class ProductTypeResourceIntTest {
         assertThat(testProductType.getDesc()).isEqualTo(UPDATED_DESC);
         assertThat(testProductType.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the ProductType in Elasticsearch
+        // Validate the ProductType in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         ProductType productTypeEs = productTypeSearchRepository.findOne(testProductType.getId());
         assertThat(productTypeEs).isEqualToComparingFieldByField(testProductType);
     }
@@ -393,7 +413,8 @@ public class ProductTypeResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean productTypeExistsInEs = productTypeSearchRepository.exists(productType.getId());
         assertThat(productTypeExistsInEs).isFalse();
 
@@ -0,0 +1,153 @@
+package com.cloud.distribution.web.rest;
+
+import com.cloud.distribution.DistributionApp;
+
+import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
+
+import com.cloud.distribution.domain.PayType;
+import com.cloud.distribution.repository.PayTypeRepository;
+import com.cloud.distribution.repository.SearchReindexCheckpointRepository;
+import com.cloud.distribution.repository.search.PayTypeSearchRepository;
+import com.cloud.distribution.repository.search.SearchRepositoryRegistry;
+import com.cloud.distribution.service.SearchReindexJob;
+import com.cloud.distribution.service.dto.ReindexStatusDTO;
+import com.cloud.distribution.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the SearchReindexResource REST controller.
+ * <p>
+ * Not transactional: the reindex job reads the entities in transactions of its own.
+ *
+ * @see SearchReindexResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {DistributionApp.class, SecurityBeanOverrideConfiguration.class})
+public class SearchReindexResourceIntTest {
+
+    @Autowired
+    private SearchRepositoryRegistry searchRepositoryRegistry;
+
+    @Autowired
+    private SearchReindexJob searchReindexJob;
+
+    @Autowired
+    private SearchReindexCheckpointRepository searchReindexCheckpointRepository;
+
+    @Autowired
+    private PayTypeRepository payTypeRepository;
+
+    @Autowired
+    private PayTypeSearchRepository payTypeSearchRepository;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restSearchReindexMockMvc;
+
+    private final List<PayType> payTypes = new ArrayList<>();
+
+    @Before
+    public void setup() {
+        final SearchReindexResource searchReindexResource =
+            new SearchReindexResource(searchRepositoryRegistry, searchReindexJob);
+        this.restSearchReindexMockMvc = MockMvcBuilders.standaloneSetup(searchReindexResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @Before
+    public void initTest() {
+        // Three chunks of the test chunk size
+        for (int i = 0; i < 5; i++) {
+            payTypes.add(payTypeRepository.saveAndFlush(PayTypeResourceIntTest.createEntity(null)));
+        }
+        payTypeSearchRepository.deleteAll();
+    }
+
+    @After
+    public void cleanUp() {
+        payTypeRepository.delete(payTypes);
+        payTypeSearchRepository.deleteAll();
+        searchReindexCheckpointRepository.delete("PayType");
+    }
+
+    @Test
+    public void reindex() {
+        ReindexStatusDTO status = searchReindexJob.reindex(PayType.class, true, false);
+
+        assertThat(status.isRunning()).isFalse();
+        assertThat(status.getFailedChunks()).isZero();
+        assertThat(status.getIndexed()).isGreaterThanOrEqualTo(payTypes.size());
+        for (PayType payType : payTypes) {
+            assertThat(payTypeSearchRepository.exists(payType.getId())).isTrue();
+        }
+        assertThat(searchReindexCheckpointRepository.findNextId("PayType")).isEmpty();
+    }
+
+    @Test
+    public void reindexFromCheckpoint() {
+        searchReindexCheckpointRepository.save("PayType", payTypes.get(1).getId());
+
+        ReindexStatusDTO status = searchReindexJob.reindex(PayType.class, false, false);
+
+        assertThat(status.getFirstId()).isEqualTo(payTypes.get(1).getId());
+        assertThat(payTypeSearchRepository.exists(payTypes.get(0).getId())).isFalse();
+        for (PayType payType : payTypes.subList(1, payTypes.size())) {
+            assertThat(payTypeSearchRepository.exists(payType.getId())).isTrue();
+        }
+        assertThat(searchReindexCheckpointRepository.findNextId("PayType")).isEmpty();
+    }
+
+    @Test
+    public void startReindex() throws Exception {
+        restSearchReindexMockMvc.perform(post("/management/reindex/paytype?restart=true"))
+            .andExpect(status().isAccepted())
+            .andExpect(jsonPath("$.entityName").value("PayType"));
+
+        for (int i = 0; i < 100 && searchReindexJob.getStatus("PayType").isRunning(); i++) {
+            Thread.sleep(50);
+        }
+        assertThat(searchReindexJob.getStatus("PayType").isRunning()).isFalse();
+        for (PayType payType : payTypes) {
+            assertThat(payTypeSearchRepository.exists(payType.getId())).isTrue();
+        }
+
+        restSearchReindexMockMvc.perform(get("/management/reindex/PayType"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.running").value(false))
+            .andExpect(jsonPath("$.failedChunks").value(0));
+        restSearchReindexMockMvc.perform(get("/management/reindex"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].entityName").isArray());
+    }
+
+    @Test
+    public void startReindexOfUnknownEntity() throws Exception {
+        restSearchReindexMockMvc.perform(post("/management/reindex/unknown"))
+            .andExpect(status().isNotFound());
+        restSearchReindexMockMvc.perform(get("/management/reindex/unknown"))
+            .andExpect(status().isNotFound());
+    }
+}
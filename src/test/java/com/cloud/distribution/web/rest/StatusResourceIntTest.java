@@ -7,6 +7,7 @@ import com.cloud.distribution.config.SecurityBeanOverrideConfiguration;
 import com.cloud.distribution.domain.Status;
 import com.cloud.distribution.repository.StatusRepository;
 import com.cloud.distribution.service.StatusService;
+import com.cloud.distribution.service.SearchIndexer;
 import com.cloud.distribution.repository.search.StatusSearchRepository;
 import com.cloud.distribution.service.dto.StatusDTO;
 import com.cloud.distribution.service.mapper.StatusMapper;
@@ -64,6 +65,9 @@ public class StatusResourceIntTest {
     @Autowired
     private StatusSearchRepository statusSearchRepository;
 
+    @Autowired
+    private SearchIndexer searchIndexer;
+
     @Autowired
     private StatusQueryService statusQueryService;
 
@@ -132,7 +136,8 @@ public class StatusResourceIntTest {
         assertThat(testStatus.getName()).isEqualTo(DEFAULT_NAME);
         assertThat(testStatus.getCode()).isEqualTo(DEFAULT_CODE);
 
-        // Validate the Status in Elasticsearch
+        // Validate the Status in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Status statusEs = statusSearchRepository.findOne(testStatus.getId());
         assertThat(statusEs).isEqualToComparingFieldByField(testStatus);
     }
@@ -172,6 +177,20 @@ public class StatusResourceIntTest {
             .andExpect(jsonPath("$.[*].code").value(hasItem(DEFAULT_CODE.toString())));
     }
 
+    @Test
+    @Transactional
+    public void getAllStatusesWithoutCount() throws Exception {
+        // Initialize the database
+        statusRepository.saveAndFlush(status);
+
+        // Get all the statusList, without total count
+        restStatusMockMvc.perform(get("/api/statuses?sort=id,desc&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].id").value(hasItem(status.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getStatus() throws Exception {
@@ -325,7 +344,8 @@ public class StatusResourceIntTest {
         assertThat(testStatus.getName()).isEqualTo(UPDATED_NAME);
         assertThat(testStatus.getCode()).isEqualTo(UPDATED_CODE);
 
-        // Validate the Status in Elasticsearch
+        // Validate the Status in Elasticsearch, once the search outbox is drained
+        searchIndexer.drain();
         Status statusEs = statusSearchRepository.findOne(testStatus.getId());
         assertThat(statusEs).isEqualToComparingFieldByField(testStatus);
     }
@@ -362,7 +382,8 @@ public class StatusResourceIntTest {
             .accept(TestUtil.APPLICATION_JSON_UTF8))
             .andExpect(status().isOk());
 
-        // Validate Elasticsearch is empty
+        // Validate Elasticsearch is empty, once the search outbox is drained
+        searchIndexer.drain();
         boolean statusExistsInEs = statusSearchRepository.exists(status.getId());
         assertThat(statusExistsInEs).isFalse();
 
@@ -2,6 +2,7 @@ package com.cloud.distribution.web.rest.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
@@ -11,6 +12,8 @@ import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 
 /**
@@ -155,4 +158,46 @@ public class PaginationUtilUnitTest {
         assertTrue(xTotalCountHeaders.size() == 1);
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(0L));
     }
+
+    @Test
+    public void generateSliceHttpHeadersTest() {
+        String baseUrl = "/api/example";
+        List<String> content = new ArrayList<>();
+        Slice<String> slice = new SliceImpl<>(content, new PageRequest(6, 50), true);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String headerData = strHeaders.get(0);
+        assertTrue(headerData.split(",").length == 3);
+        String expectedData = "</api/example?page=7&size=50&count=false>; rel=\"next\","
+                + "</api/example?page=5&size=50&count=false>; rel=\"prev\","
+                + "</api/example?page=0&size=50&count=false>; rel=\"first\"";
+        assertEquals(expectedData, headerData);
+        assertNull(headers.get("X-Total-Count"));
+
+        // Last slice
+        slice = new SliceImpl<>(content, new PageRequest(7, 50), false);
+        headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        expectedData = "</api/example?page=6&size=50&count=false>; rel=\"prev\","
+                + "</api/example?page=0&size=50&count=false>; rel=\"first\"";
+        assertEquals(expectedData, headers.getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void generateKeysetPaginationHttpHeadersTest() {
+        String baseUrl = "/api/example";
+        HttpHeaders headers = PaginationUtil.generateKeysetPaginationHttpHeaders("MTIz", 20, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String expectedData = "</api/example?after=MTIz&size=20>; rel=\"next\","
+                + "</api/example?after=&size=20>; rel=\"first\"";
+        assertEquals(expectedData, strHeaders.get(0));
+        assertNull(headers.get("X-Total-Count"));
+
+        // Last page
+        headers = PaginationUtil.generateKeysetPaginationHttpHeaders(null, 20, baseUrl);
+        assertEquals("</api/example?after=&size=20>; rel=\"first\"", headers.getFirst(HttpHeaders.LINK));
+    }
 }